@@ -7,6 +7,9 @@ import java.io.InputStreamReader;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PropertyConfigurator;
 
+import dev.webnetes.junisockets.addresses.AddressCodec;
+import dev.webnetes.junisockets.addresses.EAddressAllocator;
+import dev.webnetes.junisockets.services.EExecutionMode;
 import dev.webnetes.junisockets.services.SignalingServer;
 import dev.webnetes.junisockets.services.SignalingServerBuilder;
 
@@ -22,7 +25,12 @@ public class App {
 
     /**
      * Executes SignalingServer. Possible environment variables are args[0] for port
-     * and args[1] for host
+     * and args[1] for host. EXECUTION_MODE=VIRTUAL_THREADS runs handlers on virtual threads (Java 21+),
+     * COMPRESSION_THRESHOLD=1024 enables per-message-deflate for messages of at least 1024 bytes,
+     * ADDRESS_ALLOCATOR=LOCK_FREE allocates addresses with compare-and-set instead of per-subnet locks,
+     * LEGACY_ALIAS_BROADCAST=false sends alias updates only to the clients which subscribed to them,
+     * ALIAS_BATCH_WINDOW=5 collects alias updates for 5 milliseconds and sends them as one message per client,
+     * RESTORE_TIMEOUT=60000 frees the addresses restored from SNAPSHOT_PATH which were not claimed again within 60 seconds
      * 
      * @param args args args[0] = port, args[1] = host
      * @throws InterruptedException Thrown if interrupted
@@ -33,6 +41,14 @@ public class App {
 
         int port = 8892;
         String host = "localhost";
+        EExecutionMode executionMode = EExecutionMode.PLATFORM_THREADS;
+        int compressionThreshold = -1;
+        EAddressAllocator addressAllocator = EAddressAllocator.LOCKING;
+        int prefixLength = AddressCodec.DEFAULT_PREFIX_LENGTH;
+        int spillOverSubnets = 0;
+        long leaseTimeout = 0;
+        long aliasBatchWindow = 0;
+        long restoreTimeout = SignalingServerBuilder.DEFAULT_RESTORE_TIMEOUT;
         Logger logger = Logger.getLogger(SignalingServer.class);
 
         try {
@@ -47,7 +63,68 @@ public class App {
             logger.trace("No custom host was set. Default host: localhost");
         }
 
-        SignalingServer s = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).build();
+        try {
+            executionMode = EExecutionMode.valueOf(System.getenv("EXECUTION_MODE"));
+        } catch (Exception ex) {
+            logger.trace("No custom execution mode was set. Default execution mode: PLATFORM_THREADS");
+        }
+
+        try {
+            compressionThreshold = Integer.parseInt(System.getenv("COMPRESSION_THRESHOLD"));
+        } catch (Exception ex) {
+            logger.trace("No compression threshold was set. Compression is disabled");
+        }
+
+        try {
+            addressAllocator = EAddressAllocator.valueOf(System.getenv("ADDRESS_ALLOCATOR"));
+        } catch (Exception ex) {
+            logger.trace("No custom address allocator was set. Default address allocator: LOCKING");
+        }
+
+        try {
+            prefixLength = Integer.parseInt(System.getenv("PREFIX_LENGTH"));
+        } catch (Exception ex) {
+            logger.trace("No custom prefix length was set. Default prefix length: 24");
+        }
+
+        try {
+            spillOverSubnets = Integer.parseInt(System.getenv("SPILL_OVER_SUBNETS"));
+        } catch (Exception ex) {
+            logger.trace("No spill-over subnets were set. Knocks on exhausted subnets are rejected");
+        }
+
+        try {
+            leaseTimeout = Long.parseLong(System.getenv("LEASE_TIMEOUT"));
+        } catch (Exception ex) {
+            logger.trace("No lease timeout was set. Clients are kept until they close");
+        }
+
+        try {
+            aliasBatchWindow = Long.parseLong(System.getenv("ALIAS_BATCH_WINDOW"));
+        } catch (Exception ex) {
+            logger.trace("No alias batch window was set. Every alias update is sent on its own");
+        }
+
+        try {
+            restoreTimeout = Long.parseLong(System.getenv("RESTORE_TIMEOUT"));
+        } catch (Exception ex) {
+            logger.trace("No restore timeout was set. Default restore timeout: " + restoreTimeout);
+        }
+
+        String snapshotPath = System.getenv("SNAPSHOT_PATH");
+        boolean legacyAliasBroadcast = !"false".equals(System.getenv("LEGACY_ALIAS_BROADCAST"));
+
+        if (snapshotPath == null) {
+            logger.trace("No snapshot path was set. Addresses and aliases are lost on restart");
+        }
+
+        SignalingServerBuilder builder = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).setExecutionMode(executionMode).setAddressAllocator(addressAllocator).setPrefixLength(prefixLength).setSpillOverSubnets(spillOverSubnets).setLeaseTimeout(leaseTimeout).setSnapshotPath(snapshotPath).setRestoreTimeout(restoreTimeout).setLegacyAliasBroadcast(legacyAliasBroadcast).setAliasBatchWindow(aliasBatchWindow);
+
+        if (compressionThreshold >= 0) {
+            builder.setCompressionEnabled(true).setCompressionThreshold(compressionThreshold);
+        }
+
+        SignalingServer s = builder.build();
         s.start();
         System.out.println("SignalingServer started on port: " + s.getPort());
 
@@ -0,0 +1,343 @@
+package dev.webnetes.junisockets.addresses;
+
+/**
+ * Compact representation of addresses, so the allocators never split or join strings.
+ * A subnet like 10.0.0 is an int of the upper three octets of its network address, an IP address like 10.0.0.1 is an int of its four octets
+ * and a TCP address like 10.0.0.1:1234 is a long of the IP address followed by the 16 bit port.
+ * Subnets have a prefix length from MIN_PREFIX_LENGTH to MAX_PREFIX_LENGTH and are written with the octets the prefix covers,
+ * e.g. 10.0 for 10.0.0.0/16 or 10.0.16 for 10.0.16.0/20; the remaining bits of an IP address are its suffix.
+ * Only canonical addresses are parsed, i.e. decimal octets up to 255 and ports up to 65535 without leading zeros, so formatting gives back the same string.
+ */
+public class AddressCodec {
+
+    public static final int DEFAULT_PREFIX_LENGTH = 24;
+    public static final int MIN_PREFIX_LENGTH = 16;
+    public static final int MAX_PREFIX_LENGTH = 24;
+
+    /**
+     * Constructor AddressCodec
+     */
+    private AddressCodec() {
+    }
+
+
+    /**
+     * Parses a /24 subnet (e.g. "10.0.0")
+     * @param subnet subnet
+     * @return int subnet, or -1 if it is not canonical
+     */
+    public static int parseSubnet(String subnet) {
+        return parseSubnet(subnet, DEFAULT_PREFIX_LENGTH);
+    }
+
+
+    /**
+     * Parses a subnet of the given prefix length (e.g. "10.0" for /16)
+     * @param subnet subnet
+     * @param prefixLength prefix length
+     * @return int subnet, or -1 if it is not canonical or has bits set beyond the prefix
+     */
+    public static int parseSubnet(String subnet, int prefixLength) {
+        int octets = getOctetCount(prefixLength);
+        long value = parseOctets(subnet, 0, subnet.length(), octets);
+
+        if (value == -1) {
+            return -1;
+        }
+
+        int result = (int) value << (3 - octets) * 8;
+
+        return (result & ~getSubnetMask(prefixLength)) != 0 ? -1 : result;
+    }
+
+
+    /**
+     * Parses an IP address (e.g. "10.0.0.1")
+     * @param ipAddress IP address
+     * @return long IP address in the low 32 bits, or -1 if it is not canonical
+     */
+    public static long parseIPAddress(String ipAddress) {
+        return parseOctets(ipAddress, 0, ipAddress.length(), 4);
+    }
+
+
+    /**
+     * Parses a TCP address (e.g. "10.0.0.1:1234")
+     * @param tcpAddress TCP address
+     * @return long TCP address, or -1 if it is not canonical
+     */
+    public static long parseTCPAddress(String tcpAddress) {
+        int colon = tcpAddress.lastIndexOf(':');
+
+        if (colon == -1) {
+            return -1;
+        }
+
+        long ipAddress = parseOctets(tcpAddress, 0, colon, 4);
+        long port = parseNumber(tcpAddress, colon + 1, tcpAddress.length(), 65535);
+
+        if (ipAddress == -1 || port == -1) {
+            return -1;
+        }
+
+        return ipAddress << 16 | port;
+    }
+
+
+    /**
+     * Formats a /24 subnet
+     * @param subnet subnet
+     * @return String
+     */
+    public static String formatSubnet(int subnet) {
+        return formatSubnet(subnet, DEFAULT_PREFIX_LENGTH);
+    }
+
+
+    /**
+     * Formats a subnet of the given prefix length
+     * @param subnet subnet
+     * @param prefixLength prefix length
+     * @return String
+     */
+    public static String formatSubnet(int subnet, int prefixLength) {
+        StringBuilder builder = new StringBuilder(11);
+        int octets = getOctetCount(prefixLength);
+
+        appendOctets(builder, subnet >>> (3 - octets) * 8, octets);
+
+        return builder.toString();
+    }
+
+
+    /**
+     * Formats an IP address
+     * @param ipAddress IP address
+     * @return String
+     */
+    public static String formatIPAddress(int ipAddress) {
+        StringBuilder builder = new StringBuilder(15);
+
+        appendOctets(builder, ipAddress, 4);
+
+        return builder.toString();
+    }
+
+
+    /**
+     * Formats a TCP address
+     * @param tcpAddress TCP address
+     * @return String
+     */
+    public static String formatTCPAddress(long tcpAddress) {
+        StringBuilder builder = new StringBuilder(21);
+
+        appendOctets(builder, getIPAddress(tcpAddress), 4);
+
+        return builder.append(':').append(getPort(tcpAddress)).toString();
+    }
+
+
+    /**
+     * Assembles an IP address out of subnet and suffix
+     * @param subnet subnet
+     * @param suffix suffix below the size of the subnet
+     * @return int
+     */
+    public static int toIPAddress(int subnet, int suffix) {
+        return subnet << 8 | suffix;
+    }
+
+
+    /**
+     * Assembles a TCP address out of IP address and port
+     * @param ipAddress IP address
+     * @param port port from 0 to 65535
+     * @return long
+     */
+    public static long toTCPAddress(int ipAddress, int port) {
+        return (ipAddress & 0xFFFFFFFFL) << 16 | port;
+    }
+
+
+    /**
+     * Returns the /24 subnet of an IP address
+     * @param ipAddress IP address
+     * @return int
+     */
+    public static int getSubnet(int ipAddress) {
+        return ipAddress >>> 8;
+    }
+
+
+    /**
+     * Returns the subnet of an IP address
+     * @param ipAddress IP address
+     * @param prefixLength prefix length
+     * @return int
+     */
+    public static int getSubnet(int ipAddress, int prefixLength) {
+        return ipAddress >>> 8 & getSubnetMask(prefixLength);
+    }
+
+
+    /**
+     * Returns the /24 suffix of an IP address
+     * @param ipAddress IP address
+     * @return int
+     */
+    public static int getSuffix(int ipAddress) {
+        return ipAddress & 0xFF;
+    }
+
+
+    /**
+     * Returns the suffix of an IP address
+     * @param ipAddress IP address
+     * @param prefixLength prefix length
+     * @return int
+     */
+    public static int getSuffix(int ipAddress, int prefixLength) {
+        return ipAddress & (getSuffixCount(prefixLength) - 1);
+    }
+
+
+    /**
+     * Returns the number of suffixes of a subnet, e.g. 256 for /24 or 65536 for /16
+     * @param prefixLength prefix length
+     * @return int
+     */
+    public static int getSuffixCount(int prefixLength) {
+        return 1 << 32 - prefixLength;
+    }
+
+
+    /**
+     * Returns true if subnets of the prefix length can be allocated
+     * @param prefixLength prefix length
+     * @return boolean
+     */
+    public static boolean isValidPrefixLength(int prefixLength) {
+        return prefixLength >= MIN_PREFIX_LENGTH && prefixLength <= MAX_PREFIX_LENGTH;
+    }
+
+
+    /**
+     * Returns the IP address of a TCP address
+     * @param tcpAddress TCP address
+     * @return int
+     */
+    public static int getIPAddress(long tcpAddress) {
+        return (int) (tcpAddress >>> 16);
+    }
+
+
+    /**
+     * Returns the port of a TCP address
+     * @param tcpAddress TCP address
+     * @return int
+     */
+    public static int getPort(long tcpAddress) {
+        return (int) (tcpAddress & 0xFFFF);
+    }
+
+
+    /**
+     * Returns the mask of the prefix bits within the int of a subnet
+     * @param prefixLength prefix length
+     * @return int
+     */
+    private static int getSubnetMask(int prefixLength) {
+        return 0xFFFFFF << MAX_PREFIX_LENGTH - prefixLength & 0xFFFFFF;
+    }
+
+
+    /**
+     * Returns the number of octets a prefix covers
+     * @param prefixLength prefix length
+     * @return int
+     */
+    private static int getOctetCount(int prefixLength) {
+        return (prefixLength + 7) / 8;
+    }
+
+
+    /**
+     * Parses dot-separated octets
+     * @param value value
+     * @param from index of the first char
+     * @param to index after the last char
+     * @param octets number of octets
+     * @return long octets, or -1 if they are not canonical
+     */
+    private static long parseOctets(String value, int from, int to, int octets) {
+        long result = 0;
+        int pos = from;
+
+        for (int octet = 0; octet < octets; octet++) {
+            int end = octet < octets - 1 ? value.indexOf('.', pos) : to;
+
+            if (end == -1 || end > to) {
+                return -1;
+            }
+
+            long number = parseNumber(value, pos, end, 255);
+
+            if (number == -1) {
+                return -1;
+            }
+
+            result = result << 8 | number;
+            pos = end + 1;
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Parses a decimal number without sign or leading zeros
+     * @param value value
+     * @param from index of the first digit
+     * @param to index after the last digit
+     * @param max largest allowed number
+     * @return long number, or -1 if it is not canonical or larger than max
+     */
+    private static long parseNumber(String value, int from, int to, int max) {
+        // Five digits are enough for every port, more could overflow
+        if (to <= from || to - from > 5 || (value.charAt(from) == '0' && to - from > 1)) {
+            return -1;
+        }
+
+        int number = 0;
+
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            number = number * 10 + c - '0';
+        }
+
+        return number > max ? -1 : number;
+    }
+
+
+    /**
+     * Appends dot-separated octets
+     * @param builder builder
+     * @param value octets in the low bits
+     * @param octets number of octets
+     */
+    private static void appendOctets(StringBuilder builder, int value, int octets) {
+        for (int shift = (octets - 1) * 8; shift >= 0; shift -= 8) {
+            builder.append(value >>> shift & 0xFF);
+
+            if (shift > 0) {
+                builder.append('.');
+            }
+        }
+    }
+}
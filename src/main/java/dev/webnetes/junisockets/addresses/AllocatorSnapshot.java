@@ -0,0 +1,511 @@
+package dev.webnetes.junisockets.addresses;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Memory-mapped snapshot of the allocated IP addresses and aliases, so a restarted server can hand clients their previous addresses and ports.
+ * The file is a header followed by records: a subnet record holds the bitmap of the suffixes in use and is updated in place,
+ * alias and token records are only ever appended, the last one of an alias or IP address wins. Every write goes to the page cache right away, so the snapshot survives
+ * a crash of the process; the header records the end of the last complete record. Once the file is full, it is rewritten without the stale alias records.
+ */
+public class AllocatorSnapshot implements Closeable {
+
+    private static final int MAGIC = 0x4a534e50;
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 16;
+    private static final int END_OFFSET = 12;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private static final byte SUBNET = 1;
+    private static final byte ALIAS_SET = 2;
+    private static final byte ALIAS_UNSET = 3;
+    private static final byte TOKEN = 4;
+
+    private static final int SUBNET_HEADER_SIZE = 5;
+    private static final int ALIAS_SET_SIZE = 14;
+    private static final int ALIAS_UNSET_SIZE = 9;
+    private static final int TOKEN_SIZE = 17;
+
+    private static final long ACCEPTING = 1L << 32;
+
+    private Logger logger;
+    private int prefixLength;
+    private int bitmapSize;
+    private RandomAccessFile file;
+    private MappedByteBuffer buffer;
+    private int end;
+
+    // Offsets of the bitmaps of the subnets in the file
+    private HashMap<Integer, Integer> subnets = new HashMap<Integer, Integer>();
+
+    // Live aliases, owner in the low 32 bits and the accepting flag above
+    private HashMap<Long, Long> aliases = new HashMap<Long, Long>();
+
+    // Reclaim tokens of the allocated IP addresses
+    private HashMap<Integer, Token> tokens = new HashMap<Integer, Token>();
+
+    private int[] restoredIPAddresses;
+    private Map<Long, Long> restoredAliases;
+    private Map<Integer, Token> restoredTokens;
+
+    /**
+     * Constructor AllocatorSnapshot
+     * @param logger logger
+     * @param path path of the snapshot file, which is created if it does not exist
+     * @param prefixLength prefix length of the subnets; a snapshot of another prefix length is discarded
+     * @throws IOException Thrown if the file can not be read, written or mapped
+     */
+    public AllocatorSnapshot(Logger logger, String path, int prefixLength) throws IOException {
+        this.logger = logger;
+        this.prefixLength = prefixLength;
+        this.bitmapSize = AddressCodec.getSuffixCount(prefixLength) / Byte.SIZE;
+        this.file = new RandomAccessFile(path, "rw");
+
+        try {
+            // Start from a compact file, so the journal of the previous run does not pile up
+            compact(load(), 0);
+        } catch (IOException e) {
+            file.close();
+
+            throw e;
+        }
+    }
+
+
+    /**
+     * Records an allocated IP address
+     * @param ipAddress IP address as int
+     */
+    public synchronized void claimIPAddress(int ipAddress) {
+        int offset = getBitmap(AddressCodec.getSubnet(ipAddress, prefixLength));
+        int suffix = AddressCodec.getSuffix(ipAddress, prefixLength);
+
+        if (offset != -1) {
+            int index = offset + suffix / Byte.SIZE;
+
+            buffer.put(index, (byte) (buffer.get(index) | 1 << suffix % Byte.SIZE));
+        }
+    }
+
+
+    /**
+     * Records a removed IP address
+     * @param ipAddress IP address as int
+     */
+    public synchronized void releaseIPAddress(int ipAddress) {
+        Integer offset = subnets.get(AddressCodec.getSubnet(ipAddress, prefixLength));
+        int suffix = AddressCodec.getSuffix(ipAddress, prefixLength);
+
+        if (offset != null) {
+            int index = offset + suffix / Byte.SIZE;
+
+            buffer.put(index, (byte) (buffer.get(index) & ~(1 << suffix % Byte.SIZE)));
+        }
+
+        // A stale token record is dropped on compaction and overwritten by the token of the next client
+        tokens.remove(ipAddress);
+    }
+
+
+    /**
+     * Records the token a client has to present to reclaim its IP address after a restart
+     * @param ipAddress IP address as int
+     * @param subnet subnet the client knocked for, which is not the subnet of its IP address if it spilled over
+     * @param token token
+     */
+    public synchronized void setToken(int ipAddress, int subnet, long token) {
+        tokens.put(ipAddress, new Token(subnet, token));
+
+        if (ensureCapacity(TOKEN_SIZE)) {
+            buffer.put(end, TOKEN);
+            buffer.putInt(end + 1, ipAddress);
+            buffer.putInt(end + 5, subnet);
+            buffer.putLong(end + 9, token);
+
+            commit(end + TOKEN_SIZE);
+        }
+    }
+
+
+    /**
+     * Records a set alias
+     * @param alias TCP address of the alias as long
+     * @param owner IP address of the client owning the alias as int
+     * @param accepting true if the alias accepts connections
+     */
+    public synchronized void setAlias(long alias, int owner, boolean accepting) {
+        long value = (owner & 0xFFFFFFFFL) | (accepting ? ACCEPTING : 0);
+
+        aliases.put(alias, value);
+
+        if (ensureCapacity(ALIAS_SET_SIZE)) {
+            buffer.put(end, ALIAS_SET);
+            buffer.putLong(end + 1, alias);
+            buffer.putInt(end + 9, owner);
+            buffer.put(end + 13, (byte) (accepting ? 1 : 0));
+
+            commit(end + ALIAS_SET_SIZE);
+        }
+    }
+
+
+    /**
+     * Records an unset alias
+     * @param alias TCP address of the alias as long
+     */
+    public synchronized void unsetAlias(long alias) {
+        if (aliases.remove(alias) != null && ensureCapacity(ALIAS_UNSET_SIZE)) {
+            buffer.put(end, ALIAS_UNSET);
+            buffer.putLong(end + 1, alias);
+
+            commit(end + ALIAS_UNSET_SIZE);
+        }
+    }
+
+
+    /**
+     * Returns the IP addresses which were allocated when the snapshot was opened
+     * @return int[]
+     */
+    public int[] getRestoredIPAddresses() {
+        return restoredIPAddresses;
+    }
+
+
+    /**
+     * Returns the aliases which were set when the snapshot was opened
+     * @return long[] TCP addresses of the aliases
+     */
+    public long[] getRestoredAliases() {
+        long[] result = new long[restoredAliases.size()];
+        int i = 0;
+
+        for (long alias : restoredAliases.keySet()) {
+            result[i++] = alias;
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Returns the owner of a restored alias
+     * @param alias TCP address of the alias as long
+     * @return int IP address of the owner
+     */
+    public int getRestoredOwner(long alias) {
+        return (int) (long) restoredAliases.get(alias);
+    }
+
+
+    /**
+     * Returns true if a restored alias accepted connections
+     * @param alias TCP address of the alias as long
+     * @return boolean
+     */
+    public boolean isRestoredAccepting(long alias) {
+        return (restoredAliases.get(alias) & ACCEPTING) != 0;
+    }
+
+
+    /**
+     * Returns true if the token and knocked subnet are the ones recorded for a restored IP address
+     * @param ipAddress IP address as int
+     * @param subnet subnet the client knocked for
+     * @param token token presented by the client
+     * @return boolean false if the IP address was not restored or has no token
+     */
+    public boolean isRestoredToken(int ipAddress, int subnet, long token) {
+        Token restored = restoredTokens.get(ipAddress);
+
+        return restored != null && restored.subnet == subnet && restored.value == token;
+    }
+
+
+    /**
+     * Returns the prefix length of the subnets
+     * @return int
+     */
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+
+    /**
+     * Returns the size of the snapshot in bytes
+     * @return int
+     */
+    public synchronized int getSize() {
+        return end;
+    }
+
+
+    /**
+     * Writes the snapshot to disk and closes the file
+     * @throws IOException Thrown if the file can not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+
+
+    /**
+     * Reads the subnets and aliases of an existing snapshot
+     * @return Map<Integer, byte[]> bitmaps of the subnets
+     * @throws IOException Thrown if the file can not be mapped
+     */
+    private Map<Integer, byte[]> load() throws IOException {
+        HashMap<Integer, byte[]> bitmaps = new HashMap<Integer, byte[]>();
+        long length = file.length();
+
+        restoredAliases = new HashMap<Long, Long>();
+        restoredTokens = new HashMap<Integer, Token>();
+        restoredIPAddresses = new int[0];
+
+        if (length < HEADER_SIZE) {
+            return bitmaps;
+        }
+
+        MappedByteBuffer existing = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+
+        if (existing.getInt(0) != MAGIC || existing.getInt(4) != VERSION || existing.getInt(8) != prefixLength) {
+            logger.error("Discarding snapshot of another version or prefix length");
+
+            return bitmaps;
+        }
+
+        // Records past the end were not completed
+        int last = (int) Math.min(existing.getInt(END_OFFSET), length);
+        int offset = HEADER_SIZE;
+
+        while (offset < last) {
+            byte type = existing.get(offset);
+
+            if (type == SUBNET && offset + SUBNET_HEADER_SIZE + bitmapSize <= last) {
+                byte[] bitmap = new byte[bitmapSize];
+
+                existing.position(offset + SUBNET_HEADER_SIZE);
+                existing.get(bitmap);
+                bitmaps.put(existing.getInt(offset + 1), bitmap);
+
+                offset += SUBNET_HEADER_SIZE + bitmapSize;
+            } else if (type == ALIAS_SET && offset + ALIAS_SET_SIZE <= last) {
+                restoredAliases.put(existing.getLong(offset + 1), (existing.getInt(offset + 9) & 0xFFFFFFFFL) | (existing.get(offset + 13) != 0 ? ACCEPTING : 0));
+
+                offset += ALIAS_SET_SIZE;
+            } else if (type == ALIAS_UNSET && offset + ALIAS_UNSET_SIZE <= last) {
+                restoredAliases.remove(existing.getLong(offset + 1));
+
+                offset += ALIAS_UNSET_SIZE;
+            } else if (type == TOKEN && offset + TOKEN_SIZE <= last) {
+                restoredTokens.put(existing.getInt(offset + 1), new Token(existing.getInt(offset + 5), existing.getLong(offset + 9)));
+
+                offset += TOKEN_SIZE;
+            } else {
+                logger.error("Discarding corrupt snapshot records from offset " + offset);
+
+                break;
+            }
+        }
+
+        int[] ipAddresses = new int[64];
+        int count = 0;
+
+        for (Map.Entry<Integer, byte[]> subnet : bitmaps.entrySet()) {
+            byte[] bitmap = subnet.getValue();
+
+            for (int suffix = 0; suffix < bitmap.length * Byte.SIZE; suffix++) {
+                if ((bitmap[suffix / Byte.SIZE] & 1 << suffix % Byte.SIZE) != 0) {
+                    if (count == ipAddresses.length) {
+                        ipAddresses = Arrays.copyOf(ipAddresses, count * 2);
+                    }
+
+                    ipAddresses[count++] = AddressCodec.toIPAddress(subnet.getKey(), suffix);
+                }
+            }
+        }
+
+        restoredIPAddresses = Arrays.copyOf(ipAddresses, count);
+        aliases.putAll(restoredAliases);
+
+        // Only tokens of IP addresses which are still allocated are kept
+        for (int ipAddress : restoredIPAddresses) {
+            Token token = restoredTokens.get(ipAddress);
+
+            if (token != null) {
+                tokens.put(ipAddress, token);
+            }
+        }
+
+        restoredTokens = new HashMap<Integer, Token>(tokens);
+
+        logger.debug("Loaded snapshot of " + count + " IP addresses and " + restoredAliases.size() + " aliases");
+
+        return bitmaps;
+    }
+
+
+    /**
+     * Rewrites the file with one record per subnet, live alias and token
+     * @param bitmaps bitmaps of the subnets
+     * @param extra bytes which have to fit behind the records
+     * @throws IOException Thrown if the file can not be mapped
+     */
+    private void compact(Map<Integer, byte[]> bitmaps, int extra) throws IOException {
+        int size = HEADER_SIZE + bitmaps.size() * (SUBNET_HEADER_SIZE + bitmapSize) + aliases.size() * ALIAS_SET_SIZE + tokens.size() * TOKEN_SIZE;
+        ByteBuffer records = ByteBuffer.allocate(size);
+        HashMap<Integer, Integer> offsets = new HashMap<Integer, Integer>();
+
+        records.putInt(MAGIC).putInt(VERSION).putInt(prefixLength).putInt(size);
+
+        for (Map.Entry<Integer, byte[]> subnet : bitmaps.entrySet()) {
+            records.put(SUBNET).putInt(subnet.getKey());
+            offsets.put(subnet.getKey(), records.position());
+            records.put(subnet.getValue());
+        }
+
+        for (Map.Entry<Long, Long> alias : aliases.entrySet()) {
+            records.put(ALIAS_SET).putLong(alias.getKey()).putInt((int) (long) alias.getValue()).put((byte) ((alias.getValue() & ACCEPTING) != 0 ? 1 : 0));
+        }
+
+        for (Map.Entry<Integer, Token> token : tokens.entrySet()) {
+            records.put(TOKEN).putInt(token.getKey()).putInt(token.getValue().subnet).putLong(token.getValue().value);
+        }
+
+        int capacity = INITIAL_CAPACITY;
+
+        // Leave room for as much again, so the file is not rewritten on every few records
+        while (capacity < (size + extra) * 2) {
+            capacity *= 2;
+        }
+
+        file.setLength(capacity);
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        records.flip();
+        buffer.put(records);
+
+        subnets = offsets;
+        end = size;
+
+        logger.debug("Compacted snapshot to " + size + " of " + capacity + " bytes");
+    }
+
+
+    /**
+     * Copies the bitmaps of the subnets out of the file
+     * @return Map<Integer, byte[]>
+     */
+    private Map<Integer, byte[]> copyBitmaps() {
+        HashMap<Integer, byte[]> bitmaps = new HashMap<Integer, byte[]>();
+
+        for (Map.Entry<Integer, Integer> subnet : subnets.entrySet()) {
+            byte[] bitmap = new byte[bitmapSize];
+
+            for (int i = 0; i < bitmapSize; i++) {
+                bitmap[i] = buffer.get(subnet.getValue() + i);
+            }
+
+            bitmaps.put(subnet.getKey(), bitmap);
+        }
+
+        return bitmaps;
+    }
+
+
+    /**
+     * Returns the offset of the bitmap of a subnet, and appends one if the subnet has none yet
+     * @param subnet subnet
+     * @return int offset, or -1 if the snapshot could not grow
+     */
+    private int getBitmap(int subnet) {
+        Integer offset = subnets.get(subnet);
+
+        if (offset != null) {
+            return offset;
+        }
+
+        if (!ensureCapacity(SUBNET_HEADER_SIZE + bitmapSize)) {
+            return -1;
+        }
+
+        int bitmap = end + SUBNET_HEADER_SIZE;
+
+        // The file is zeroed when it grows, but records of the previous run may be left behind the end
+        for (int i = 0; i < bitmapSize; i++) {
+            buffer.put(bitmap + i, (byte) 0);
+        }
+
+        buffer.put(end, SUBNET);
+        buffer.putInt(end + 1, subnet);
+        subnets.put(subnet, bitmap);
+
+        commit(bitmap + bitmapSize);
+
+        return bitmap;
+    }
+
+
+    /**
+     * Makes room for a record, compacting and growing the file if needed
+     * @param size size of the record
+     * @return boolean false if the file could not grow, the record is then missing from the snapshot
+     */
+    private boolean ensureCapacity(int size) {
+        if (end + size <= buffer.capacity()) {
+            return true;
+        }
+
+        try {
+            compact(copyBitmaps(), size);
+
+            return true;
+        } catch (IOException e) {
+            logger.error(e);
+
+            return false;
+        }
+    }
+
+
+    /**
+     * Moves the end behind a completed record
+     * @param end new end
+     */
+    private void commit(int end) {
+        this.end = end;
+
+        buffer.putInt(END_OFFSET, end);
+    }
+
+
+    /**
+     * Reclaim token of an IP address and the subnet its client knocked for
+     */
+    private static class Token {
+        private int subnet;
+        private long value;
+
+        /**
+         * Constructor Token
+         * @param subnet subnet the client knocked for
+         * @param value token
+         */
+        private Token(int subnet, long value) {
+            this.subnet = subnet;
+            this.value = value;
+        }
+    }
+}
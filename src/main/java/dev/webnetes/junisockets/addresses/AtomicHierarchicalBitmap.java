@@ -0,0 +1,261 @@
+package dev.webnetes.junisockets.addresses;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free occupancy bitmap with a summary tree on top, laid out like HierarchicalBitmap.
+ * Only the bits themselves are authoritative and taken with compare-and-set, the upper levels are hints which may briefly lag behind concurrent claims and releases.
+ * A hint which wrongly marks a word as free is fixed by the allocation which runs into it; if the hints claim that every word is full, the bits are scanned,
+ * so a free bit is never missed.
+ */
+class AtomicHierarchicalBitmap {
+
+    private AtomicLongArray[] levels;
+    private int size;
+
+    /**
+     * Constructor AtomicHierarchicalBitmap
+     * @param size number of bits, a power of two of at least 64
+     */
+    AtomicHierarchicalBitmap(int size) {
+        long[][] initial = HierarchicalBitmap.createLevels(size);
+
+        this.size = size;
+        this.levels = new AtomicLongArray[initial.length];
+
+        for (int level = 0; level < initial.length; level++) {
+            levels[level] = new AtomicLongArray(initial[level]);
+        }
+    }
+
+
+    /**
+     * Sets the lowest clear bit the hints lead to
+     * @return int index of the set bit, or -1 if all bits are set
+     */
+    int allocate() {
+        int top = levels.length - 1;
+
+        while (levels[top].get(0) != -1L) {
+            int word = 0;
+            int level = top;
+
+            // Descend while the hints point to words which are not full
+            while (level > 0) {
+                long current = levels[level].get(word);
+
+                if (current == -1L) {
+                    break;
+                }
+
+                word = word * Long.SIZE + Long.numberOfTrailingZeros(~current);
+                level--;
+            }
+
+            if (level == 0) {
+                int index = allocateInWord(word);
+
+                if (index != -1) {
+                    return index;
+                }
+            }
+
+            // The word we ended up in is full, record it in the hints and descend again
+            markFull(level + 1, word);
+        }
+
+        return scan();
+    }
+
+
+    /**
+     * Sets a bit
+     * @param index index
+     * @return boolean false if the bit was already set or is out of range
+     */
+    boolean set(int index) {
+        if (index < 0 || index >= size) {
+            return false;
+        }
+
+        AtomicLongArray bits = levels[0];
+        int word = index / Long.SIZE;
+        long bit = 1L << index;
+        long current;
+
+        do {
+            current = bits.get(word);
+
+            if ((current & bit) != 0) {
+                return false;
+            }
+        } while (!bits.compareAndSet(word, current, current | bit));
+
+        if ((current | bit) == -1L) {
+            markFull(1, word);
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Clears a bit
+     * @param index index
+     */
+    void clear(int index) {
+        if (index < 0 || index >= size) {
+            return;
+        }
+
+        if (clearBit(levels[0], index)) {
+            markFree(index / Long.SIZE);
+        }
+    }
+
+
+    /**
+     * Returns true if the bit is set
+     * @param index index
+     * @return boolean
+     */
+    boolean get(int index) {
+        return index >= 0 && index < size && (levels[0].get(index / Long.SIZE) & (1L << index)) != 0;
+    }
+
+
+    /**
+     * Returns the number of set bits
+     * @return int
+     */
+    int cardinality() {
+        AtomicLongArray bits = levels[0];
+        int count = 0;
+
+        for (int word = 0; word < bits.length(); word++) {
+            count += Long.bitCount(bits.get(word));
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Returns the number of bits
+     * @return int
+     */
+    int size() {
+        return size;
+    }
+
+
+    /**
+     * Sets the lowest clear bit of a word
+     * @param word word
+     * @return int index of the set bit, or -1 if the word is full
+     */
+    private int allocateInWord(int word) {
+        AtomicLongArray bits = levels[0];
+        long current = bits.get(word);
+
+        // Retry on the same word until it is full or our bit went in
+        while (current != -1L) {
+            long bit = Long.lowestOneBit(~current);
+
+            if (bits.compareAndSet(word, current, current | bit)) {
+                if ((current | bit) == -1L) {
+                    markFull(1, word);
+                }
+
+                return word * Long.SIZE + Long.numberOfTrailingZeros(bit);
+            }
+
+            current = bits.get(word);
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Scans all words for a clear bit, used once the hints claim that the bitmap is full
+     * @return int index of the set bit, or -1 if all bits are set
+     */
+    private int scan() {
+        for (int word = 0; word < levels[0].length(); word++) {
+            int index = allocateInWord(word);
+
+            if (index != -1) {
+                // The hints were stale, so reset them for the rest of this word
+                if (levels[0].get(word) != -1L) {
+                    markFree(word);
+                }
+
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Marks a full word in the hints, and every hint word above which becomes full by it
+     * @param level level of the hint
+     * @param word full word of the level below
+     */
+    private void markFull(int level, int word) {
+        for (; level < levels.length; level++) {
+            AtomicLongArray hints = levels[level];
+            int hint = word / Long.SIZE;
+            long bit = 1L << word;
+            long current;
+
+            do {
+                current = hints.get(hint);
+            } while ((current & bit) == 0 && !hints.compareAndSet(hint, current, current | bit));
+
+            if ((current | bit) != -1L) {
+                return;
+            }
+
+            word = hint;
+        }
+    }
+
+
+    /**
+     * Clears the hints of a word which has a clear bit, on every level
+     * @param word word of the bits
+     */
+    private void markFree(int word) {
+        for (int level = 1; level < levels.length; level++) {
+            clearBit(levels[level], word);
+
+            word /= Long.SIZE;
+        }
+    }
+
+
+    /**
+     * Clears a bit of a word array
+     * @param words words
+     * @param index index
+     * @return boolean false if the bit was not set
+     */
+    private static boolean clearBit(AtomicLongArray words, int index) {
+        int word = index / Long.SIZE;
+        long bit = 1L << index;
+        long current;
+
+        do {
+            current = words.get(word);
+
+            if ((current & bit) == 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(word, current, current & ~bit));
+
+        return true;
+    }
+}
@@ -0,0 +1,119 @@
+package dev.webnetes.junisockets.addresses;
+
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+
+import dev.webnetes.junisockets.errors.InvalidSubnet;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
+
+/**
+ * IP address allocator on lock-free subnets, so a knock never parks a thread
+ */
+public class AtomicIPAddress implements IIPAddress {
+
+    private Logger logger;
+    private SubnetTable<AtomicSubnet> subnets;
+
+    /**
+     * Constructor AtomicIPAddress
+     * @param logger logger
+     * @param subnets subnets
+     */
+    public AtomicIPAddress(Logger logger, SubnetTable<AtomicSubnet> subnets) {
+        this.logger = logger;
+        this.subnets = subnets;
+    }
+
+    
+    /** 
+     * Creates IP address 
+     * @param subnet subnet of client
+     * @return String
+     * @throws InvalidSubnet Thrown if the subnet is not canonical or does not match the prefix length
+     * @throws SubnetExhausted Thrown if all suffixes of the subnet are in use
+     */
+    public String createIPAddress(String subnet) throws InvalidSubnet, SubnetExhausted {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Creating IP address " + subnet);
+        }
+
+        // Only canonical subnets of the prefix length, like 10.0.0 for /24, have room for suffixes
+        int prefix = AddressCodec.parseSubnet(subnet, subnets.getPrefixLength());
+
+        if (prefix == -1) {
+            throw new InvalidSubnet();
+        }
+
+        AtomicSubnet state = subnets.getOrCreate(prefix);
+
+        // Find the lowest free suffix for given subnet, -1 if all of them are used
+        int newSuffix = state.allocateSuffix();
+
+        if (newSuffix == -1) {
+            throw new SubnetExhausted();
+        }
+
+        return AddressCodec.formatIPAddress(AddressCodec.toIPAddress(prefix, newSuffix));
+    }
+
+    
+    /** 
+     * Removes IP Address
+     * @param ipAddress IP address of client
+     */
+    public void removeIPAddress(String ipAddress) {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Removing IP address " + ipAddress);
+        }
+
+        long address = AddressCodec.parseIPAddress(ipAddress);
+
+        if (address != -1) {
+            removeIPAddress((int) address);
+        }
+    }
+
+    
+    /** 
+     * Removes IP Address
+     * @param ipAddress IP address of client as int
+     */
+    public void removeIPAddress(int ipAddress) {
+        AtomicSubnet state = subnets.get(AddressCodec.getSubnet(ipAddress, subnets.getPrefixLength()));
+
+        if (state == null) {
+            return;
+        }
+
+        // release the suffix so that the given IP is available again
+        state.releaseSuffix(AddressCodec.getSuffix(ipAddress, subnets.getPrefixLength()));
+    }
+
+    
+    /** 
+     * Assembles IP address out of subnet and suffix
+     * @param subnet subnet of client
+     * @param suffix suffix of client
+     * @return String
+     */
+    public String toIPAddress(String subnet, int suffix) {
+        logger.trace("Converting to IP address " + subnet + "." + suffix);
+
+        String ipAddress = subnet + "." + suffix;
+
+        return ipAddress;
+    }
+
+    
+    /** 
+     * Parses IP address into octets (e.g. "127.0.0.1" = ["127", "0", "0", "1"])
+     * @param ipAddress IP Address of client
+     * @return String[]
+     */
+    public String[] parseIPAddress(String ipAddress) {
+        logger.trace("Parsing IP address " + ipAddress);
+
+        return ipAddress.split(Pattern.quote("."));
+    }
+}
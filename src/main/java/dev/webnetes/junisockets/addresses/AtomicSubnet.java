@@ -0,0 +1,417 @@
+package dev.webnetes.junisockets.addresses;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free state of one subnet. Used suffixes are tracked in an AtomicHierarchicalBitmap and the ports of every suffix in AtomicLongArray bitmaps,
+ * so every claim and release is a single compare-and-set loop on one word and never parks a thread.
+ * Port bitmaps are split into pages of 4096 ports, so a member with a few connections only holds 512 bytes of them.
+ * Only suffixes below the size of the subnet and ports from 0 to MAX_PORT can be used.
+ */
+public class AtomicSubnet implements ISubnet {
+
+    public static final int MAX_PORT = Subnet.MAX_PORT;
+
+    private static final int PAGE_PORTS = 4096;
+    private static final int PAGE_WORDS = PAGE_PORTS / Long.SIZE;
+    private static final int PAGES = (MAX_PORT + 1) / PAGE_PORTS;
+
+    private AtomicHierarchicalBitmap suffixes;
+
+    // Port bitmaps of every suffix in use, split into pages which are created on their first port
+    private AtomicReferenceArray<AtomicReferenceArray<AtomicLongArray>> ports;
+
+    /**
+     * Constructor AtomicSubnet
+     */
+    public AtomicSubnet() {
+        this(AddressCodec.DEFAULT_PREFIX_LENGTH);
+    }
+
+    /**
+     * Constructor AtomicSubnet
+     * @param prefixLength prefix length, from AddressCodec.MIN_PREFIX_LENGTH to AddressCodec.MAX_PREFIX_LENGTH
+     */
+    public AtomicSubnet(int prefixLength) {
+        int size = AddressCodec.getSuffixCount(prefixLength);
+
+        this.suffixes = new AtomicHierarchicalBitmap(size);
+        this.ports = new AtomicReferenceArray<AtomicReferenceArray<AtomicLongArray>>(size);
+    }
+
+
+    /**
+     * Allocates the lowest free suffix
+     * @return int suffix, or -1 if all suffixes of the subnet are in use
+     */
+    public int allocateSuffix() {
+        while (true) {
+            int suffix = suffixes.allocate();
+
+            if (suffix == -1) {
+                return -1;
+            }
+
+            // The pages decide who owns a suffix. If a concurrent claimSuffix installed them first, the suffix is the claimer's, so try the next one.
+            boolean allocated = ports.compareAndSet(suffix, null, new AtomicReferenceArray<AtomicLongArray>(PAGES));
+
+            markSuffix(suffix);
+
+            if (allocated) {
+                return suffix;
+            }
+        }
+    }
+
+
+    /**
+     * Marks a suffix as used if it is not yet, e.g. when a port on it is claimed
+     * @param suffix suffix
+     * @return boolean false if the suffix is out of range
+     */
+    public boolean claimSuffix(int suffix) {
+        if (suffix < 0 || suffix >= ports.length()) {
+            return false;
+        }
+
+        if (ports.get(suffix) == null) {
+            ports.compareAndSet(suffix, null, new AtomicReferenceArray<AtomicLongArray>(PAGES));
+        }
+
+        markSuffix(suffix);
+
+        return true;
+    }
+
+
+    /**
+     * Releases a suffix and all of its ports
+     * @param suffix suffix
+     */
+    public void releaseSuffix(int suffix) {
+        if (suffix < 0 || suffix >= ports.length()) {
+            return;
+        }
+
+        // Drop the ports before freeing the suffix, so the next owner can not lose its ports to this release
+        ports.set(suffix, null);
+
+        markSuffix(suffix);
+    }
+
+
+    /**
+     * Marks a suffix as used or free in the bitmap, depending on whether it has pages. The pages decide who owns a suffix, and a claim or release which races
+     * this one may change them between the read and the write, so the bitmap is written again until it matches the pages it was written for.
+     * @param suffix suffix
+     */
+    private void markSuffix(int suffix) {
+        boolean used;
+
+        do {
+            used = ports.get(suffix) != null;
+
+            if (used) {
+                suffixes.set(suffix);
+            } else {
+                suffixes.clear(suffix);
+            }
+        } while (used != (ports.get(suffix) != null));
+    }
+
+
+    /**
+     * Returns true if the suffix is in use
+     * @param suffix suffix
+     * @return boolean
+     */
+    public boolean containsSuffix(int suffix) {
+        return suffix >= 0 && suffix < ports.length() && ports.get(suffix) != null;
+    }
+
+
+    /**
+     * Allocates the lowest free port of a suffix
+     * @param suffix suffix, which has to be in use
+     * @return int port, or -1 if the suffix is not in use or all ports up to MAX_PORT are in use
+     */
+    public int allocatePort(int suffix) {
+        AtomicReferenceArray<AtomicLongArray> pages = getPages(suffix);
+
+        if (pages == null) {
+            return -1;
+        }
+
+        for (int page = 0; page < PAGES; page++) {
+            int port = allocateBit(createPage(pages, page));
+
+            if (port != -1) {
+                return page * PAGE_PORTS + port;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Allocates the lowest free ports of a suffix in one go
+     * @param suffix suffix, which has to be in use
+     * @param ports array the allocated ports are written to, up to its length
+     * @return int number of allocated ports, less than requested if the suffix is not in use or the others are in use
+     */
+    public int allocatePorts(int suffix, int[] ports) {
+        AtomicReferenceArray<AtomicLongArray> pages = getPages(suffix);
+        int count = 0;
+
+        for (int page = 0; pages != null && page < PAGES && count < ports.length; page++) {
+            count = allocateBits(createPage(pages, page), page * PAGE_PORTS, ports, count);
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Claims a port of a suffix
+     * @param suffix suffix, which has to be in use
+     * @param port port
+     * @return boolean false if the port is already allocated or out of range
+     */
+    public boolean claimPort(int suffix, int port) {
+        AtomicReferenceArray<AtomicLongArray> pages = getPages(suffix);
+
+        if (pages == null || port < 0 || port > MAX_PORT) {
+            return false;
+        }
+
+        return setBit(createPage(pages, port / PAGE_PORTS), port % PAGE_PORTS);
+    }
+
+
+    /**
+     * Releases a port of a suffix if both are in use
+     * @param suffix suffix
+     * @param port port
+     */
+    public void releasePort(int suffix, int port) {
+        AtomicLongArray page = getPage(suffix, port);
+
+        if (page != null) {
+            clearBit(page, port % PAGE_PORTS);
+        }
+    }
+
+
+    /**
+     * Returns true if the port of the suffix is allocated
+     * @param suffix suffix
+     * @param port port
+     * @return boolean
+     */
+    public boolean containsPort(int suffix, int port) {
+        AtomicLongArray page = getPage(suffix, port);
+
+        return page != null && (page.get(port % PAGE_PORTS / Long.SIZE) & (1L << port)) != 0;
+    }
+
+
+    /**
+     * Returns the number of allocated ports of a suffix
+     * @param suffix suffix
+     * @return int
+     */
+    public int getPortCount(int suffix) {
+        AtomicReferenceArray<AtomicLongArray> pages = getPages(suffix);
+        int count = 0;
+
+        for (int page = 0; pages != null && page < PAGES; page++) {
+            if (pages.get(page) != null) {
+                count += countBits(pages.get(page));
+            }
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Returns the number of suffixes in use
+     * @return int
+     */
+    public int getSuffixCount() {
+        return suffixes.cardinality();
+    }
+
+
+    /**
+     * Returns the number of suffixes of the subnet
+     * @return int
+     */
+    public int getSize() {
+        return suffixes.size();
+    }
+
+
+    /**
+     * Returns the port pages of a suffix
+     * @param suffix suffix
+     * @return AtomicReferenceArray<AtomicLongArray>, or null if the suffix is not in use
+     */
+    private AtomicReferenceArray<AtomicLongArray> getPages(int suffix) {
+        return suffix < 0 || suffix >= ports.length() ? null : ports.get(suffix);
+    }
+
+
+    /**
+     * Returns the page which holds a port of a suffix
+     * @param suffix suffix
+     * @param port port
+     * @return AtomicLongArray, or null if the suffix is not in use, the port is out of range or no port of the page was allocated yet
+     */
+    private AtomicLongArray getPage(int suffix, int port) {
+        AtomicReferenceArray<AtomicLongArray> pages = getPages(suffix);
+
+        return pages == null || port < 0 || port > MAX_PORT ? null : pages.get(port / PAGE_PORTS);
+    }
+
+
+    /**
+     * Returns a port page and creates it if it does not exist yet
+     * @param pages port pages of a suffix
+     * @param page page
+     * @return AtomicLongArray
+     */
+    private static AtomicLongArray createPage(AtomicReferenceArray<AtomicLongArray> pages, int page) {
+        AtomicLongArray bits = pages.get(page);
+
+        if (bits == null) {
+            // Whoever loses the race uses the page of the winner
+            pages.compareAndSet(page, null, new AtomicLongArray(PAGE_WORDS));
+
+            bits = pages.get(page);
+        }
+
+        return bits;
+    }
+
+
+    /**
+     * Sets the lowest clear bit of the bitmap
+     * @param bits bitmap
+     * @return int index of the set bit, or -1 if all bits are set
+     */
+    private static int allocateBit(AtomicLongArray bits) {
+        for (int word = 0; word < bits.length(); word++) {
+            long current = bits.get(word);
+
+            // Retry on the same word until it is full or our bit went in
+            while (current != -1L) {
+                long bit = Long.lowestOneBit(~current);
+
+                if (bits.compareAndSet(word, current, current | bit)) {
+                    return word * Long.SIZE + Long.numberOfTrailingZeros(bit);
+                }
+
+                current = bits.get(word);
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Sets the lowest clear bits of a bitmap, as many of a word as are needed with a single compare-and-set
+     * @param bits bitmap
+     * @param base port of the first bit
+     * @param ports array the ports of the set bits are written to, up to its length
+     * @param count number of ports in the array so far
+     * @return int number of ports in the array
+     */
+    private static int allocateBits(AtomicLongArray bits, int base, int[] ports, int count) {
+        for (int word = 0; word < bits.length() && count < ports.length; word++) {
+            long current = bits.get(word);
+
+            while (current != -1L) {
+                long taken = 0;
+                long free = ~current;
+
+                for (int i = count; i < ports.length && free != 0; i++) {
+                    long bit = Long.lowestOneBit(free);
+
+                    taken |= bit;
+                    free &= ~bit;
+                }
+
+                if (bits.compareAndSet(word, current, current | taken)) {
+                    for (; taken != 0; taken &= taken - 1) {
+                        ports[count++] = base + word * Long.SIZE + Long.numberOfTrailingZeros(taken);
+                    }
+
+                    break;
+                }
+
+                current = bits.get(word);
+            }
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Sets a bit of the bitmap
+     * @param bits bitmap
+     * @param index index
+     * @return boolean false if the bit was already set
+     */
+    private static boolean setBit(AtomicLongArray bits, int index) {
+        int word = index / Long.SIZE;
+        long bit = 1L << index;
+        long current;
+
+        do {
+            current = bits.get(word);
+
+            if ((current & bit) != 0) {
+                return false;
+            }
+        } while (!bits.compareAndSet(word, current, current | bit));
+
+        return true;
+    }
+
+
+    /**
+     * Clears a bit of the bitmap
+     * @param bits bitmap
+     * @param index index
+     */
+    private static void clearBit(AtomicLongArray bits, int index) {
+        int word = index / Long.SIZE;
+        long bit = 1L << index;
+        long current;
+
+        do {
+            current = bits.get(word);
+        } while ((current & bit) != 0 && !bits.compareAndSet(word, current, current & ~bit));
+    }
+
+
+    /**
+     * Returns the number of set bits of the bitmap
+     * @param bits bitmap
+     * @return int
+     */
+    private static int countBits(AtomicLongArray bits) {
+        int count = 0;
+
+        for (int word = 0; word < bits.length(); word++) {
+            count += Long.bitCount(bits.get(word));
+        }
+
+        return count;
+    }
+}
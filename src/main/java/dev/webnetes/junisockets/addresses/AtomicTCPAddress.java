@@ -0,0 +1,243 @@
+package dev.webnetes.junisockets.addresses;
+
+import org.apache.log4j.Logger;
+
+import dev.webnetes.junisockets.errors.PortAlreadyAllocated;
+import dev.webnetes.junisockets.errors.SubnetDoesNotExist;
+import dev.webnetes.junisockets.errors.SuffixDoesNotExist;
+
+/**
+ * TCP address allocator on lock-free subnets, so a connect or bind never parks a thread
+ */
+public class AtomicTCPAddress implements ITCPAddress {
+
+    private Logger logger;
+    private SubnetTable<AtomicSubnet> subnets;
+
+    /**
+     * Constructor AtomicTCPAddress
+     * @param logger logger
+     * @param subnets subnets
+     */
+    public AtomicTCPAddress(Logger logger, SubnetTable<AtomicSubnet> subnets) {
+        this.logger = logger;
+        this.subnets = subnets;
+    }
+
+    
+    /** 
+     * Creates TCP address with the lowest free port of the client
+     * @param ipAddress IP adress of client
+     * @return String TCP address, or "-1" if all ports are in use
+     * @throws SuffixDoesNotExist Thrown if suffix does not exist
+     * @throws SubnetDoesNotExist Thrown if subnet does not exist
+     */
+    public String createTCPAddress(String ipAddress) throws SuffixDoesNotExist, SubnetDoesNotExist {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Creating TCP address " + ipAddress);
+        }
+
+        long address = AddressCodec.parseIPAddress(ipAddress);
+
+        if (address == -1) {
+            throw new SubnetDoesNotExist();
+        }
+
+        return createTCPAddress((int) address);
+    }
+
+
+    /** 
+     * Creates TCP address with the lowest free port of the client
+     * @param ipAddress IP adress of client as int
+     * @return String TCP address, or "-1" if all ports are in use
+     * @throws SuffixDoesNotExist Thrown if suffix does not exist
+     * @throws SubnetDoesNotExist Thrown if subnet does not exist
+     */
+    private String createTCPAddress(int ipAddress) throws SuffixDoesNotExist, SubnetDoesNotExist {
+        int suffix = AddressCodec.getSuffix(ipAddress, subnets.getPrefixLength());
+
+        AtomicSubnet state = subnets.get(AddressCodec.getSubnet(ipAddress, subnets.getPrefixLength()));
+
+        if (state == null) {
+            throw new SubnetDoesNotExist();
+        }
+
+        if (!state.containsSuffix(suffix)) {
+            throw new SuffixDoesNotExist();
+        }
+
+        // Allocate the lowest free port of the suffix, -1 if the suffix has been released meanwhile
+        int newPort = state.allocatePort(suffix);
+
+        if (newPort == -1) {
+            return "-1";
+        }
+
+        // Create a TCP address consisting of the subnet, suffix and the found port
+        return AddressCodec.formatTCPAddress(AddressCodec.toTCPAddress(ipAddress, newPort));
+    }
+
+
+    /** 
+     * Creates TCP addresses with the lowest free ports of the client, taking as many free ports of a bitmap word as fit with one compare-and-set
+     * @param ipAddress IP adress of client
+     * @param count number of TCP addresses
+     * @return String[] TCP addresses, fewer than count if the other ports are in use
+     * @throws SuffixDoesNotExist Thrown if suffix does not exist
+     * @throws SubnetDoesNotExist Thrown if subnet does not exist
+     */
+    public String[] createTCPAddresses(String ipAddress, int count) throws SuffixDoesNotExist, SubnetDoesNotExist {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Creating " + count + " TCP addresses " + ipAddress);
+        }
+
+        long address = AddressCodec.parseIPAddress(ipAddress);
+
+        if (address == -1) {
+            throw new SubnetDoesNotExist();
+        }
+
+        int[] ports = new int[count];
+
+        return formatTCPAddresses((int) address, ports, allocatePorts((int) address, ports));
+    }
+
+
+    /** 
+     * Allocates the lowest free ports of the client
+     * @param ipAddress IP adress of client as int
+     * @param ports array the allocated ports are written to, up to its length
+     * @return int number of allocated ports
+     * @throws SuffixDoesNotExist Thrown if suffix does not exist
+     * @throws SubnetDoesNotExist Thrown if subnet does not exist
+     */
+    private int allocatePorts(int ipAddress, int[] ports) throws SuffixDoesNotExist, SubnetDoesNotExist {
+        int suffix = AddressCodec.getSuffix(ipAddress, subnets.getPrefixLength());
+
+        AtomicSubnet state = subnets.get(AddressCodec.getSubnet(ipAddress, subnets.getPrefixLength()));
+
+        if (state == null) {
+            throw new SubnetDoesNotExist();
+        }
+
+        if (!state.containsSuffix(suffix)) {
+            throw new SuffixDoesNotExist();
+        }
+
+        // Allocates nothing if the suffix has been released meanwhile
+        return state.allocatePorts(suffix, ports);
+    }
+
+
+    /** 
+     * Formats the TCP addresses of allocated ports of a client
+     * @param ipAddress IP adress of client as int
+     * @param ports allocated ports
+     * @param count number of allocated ports
+     * @return String[]
+     */
+    private static String[] formatTCPAddresses(int ipAddress, int[] ports, int count) {
+        String[] tcpAddresses = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            tcpAddresses[i] = AddressCodec.formatTCPAddress(AddressCodec.toTCPAddress(ipAddress, ports[i]));
+        }
+
+        return tcpAddresses;
+    }
+    
+
+    /** 
+     * Claims TCP address
+     * @param tcpAddress TCP address of client
+     * @throws PortAlreadyAllocated Thrown if port is already allocated or the address is not canonical
+     * @throws SubnetDoesNotExist Thrown if subnet does not exist
+     */
+    public void claimTCPAddress(String tcpAddress) throws PortAlreadyAllocated, SubnetDoesNotExist {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Claiming TCP address " + tcpAddress);
+        }
+
+        long address = AddressCodec.parseTCPAddress(tcpAddress);
+
+        if (address == -1) {
+            throw new PortAlreadyAllocated();
+        }
+
+        int ipAddress = AddressCodec.getIPAddress(address);
+        int suffix = AddressCodec.getSuffix(ipAddress, subnets.getPrefixLength());
+
+        AtomicSubnet state = subnets.get(AddressCodec.getSubnet(ipAddress, subnets.getPrefixLength()));
+
+        if (state == null) {
+            throw new SubnetDoesNotExist();
+        }
+
+        // If subnet does not contain the suffix and the member so far, create it; then allocate the port if it is free
+        if (!state.claimSuffix(suffix) || !state.claimPort(suffix, AddressCodec.getPort(address))) {
+            throw new PortAlreadyAllocated();
+        }
+    }
+    
+
+    /** 
+     * Removes TCP address
+     * @param tcpAddress TCP address of client
+     */
+    public void removeTCPAddress(String tcpAddress) {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Removing TCP address " + tcpAddress);
+        }
+
+        long address = AddressCodec.parseTCPAddress(tcpAddress);
+
+        if (address != -1) {
+            removeTCPAddress(address);
+        }
+    }
+
+
+    /** 
+     * Removes TCP address
+     * @param tcpAddress TCP address of client as long
+     */
+    public void removeTCPAddress(long tcpAddress) {
+        int ipAddress = AddressCodec.getIPAddress(tcpAddress);
+
+        AtomicSubnet state = subnets.get(AddressCodec.getSubnet(ipAddress, subnets.getPrefixLength()));
+
+        if (state == null) {
+            return;
+        }
+
+        state.releasePort(AddressCodec.getSuffix(ipAddress, subnets.getPrefixLength()), AddressCodec.getPort(tcpAddress));
+    }
+  
+    
+    /** 
+     * Assembles TCP address out of ipAddress and port
+     * @param ipAddress IP address of client
+     * @param port port of client
+     * @return String
+     */
+    public String toTCPAddress(String ipAddress, int port) {
+        logger.trace("Converting to TCP address " + ipAddress + port);
+
+        String tcpAddress = ipAddress + ":" + port;
+
+        return tcpAddress;
+    }
+ 
+    
+    /** 
+     * Parses TCP address into ipAddress and port (e.g. "127.0.0.1:8080" = ["127.0.0.1", "8080"])
+     * @param tcpAddress TCP address of client
+     * @return String[]
+     */
+    public String[] parseTCPAddress(String tcpAddress) {
+        logger.trace("Parsing TCP address " + tcpAddress);
+
+        return tcpAddress.split(":");
+    }
+}
@@ -0,0 +1,9 @@
+package dev.webnetes.junisockets.addresses;
+
+/**
+ * EAddressAllocator
+ */
+public enum EAddressAllocator {
+    LOCKING,
+    LOCK_FREE;
+}
@@ -0,0 +1,166 @@
+package dev.webnetes.junisockets.addresses;
+
+/**
+ * Occupancy bitmap with a summary tree on top. A bit of an upper level is set if the word below it is full,
+ * so the lowest clear bit is found by following one word per level, e.g. three words for 65536 bits.
+ * Not thread-safe, callers hold the lock of the subnet.
+ */
+class HierarchicalBitmap {
+
+    // levels[0] holds the bits, every further level summarises the full words of the one below, the last one is a single word
+    private long[][] levels;
+    private int size;
+    private int cardinality;
+
+    /**
+     * Constructor HierarchicalBitmap
+     * @param size number of bits, a power of two of at least 64
+     */
+    HierarchicalBitmap(int size) {
+        this.size = size;
+        this.levels = createLevels(size);
+    }
+
+
+    /**
+     * Sets the lowest clear bit
+     * @return int index of the set bit, or -1 if all bits are set
+     */
+    int allocate() {
+        int top = levels.length - 1;
+
+        if (levels[top][0] == -1L) {
+            return -1;
+        }
+
+        int index = 0;
+
+        // Descend into the lowest word which is not full on every level
+        for (int level = top; level >= 0; level--) {
+            index = index * Long.SIZE + Long.numberOfTrailingZeros(~levels[level][index]);
+        }
+
+        set(index);
+
+        return index;
+    }
+
+
+    /**
+     * Sets a bit
+     * @param index index
+     * @return boolean false if the bit was already set or is out of range
+     */
+    boolean set(int index) {
+        if (index < 0 || index >= size || get(index)) {
+            return false;
+        }
+
+        // Propagate up as long as words become full
+        for (int level = 0; level < levels.length; level++) {
+            long[] words = levels[level];
+            int word = index / Long.SIZE;
+
+            words[word] |= 1L << index;
+
+            if (words[word] != -1L) {
+                break;
+            }
+
+            index = word;
+        }
+
+        cardinality++;
+
+        return true;
+    }
+
+
+    /**
+     * Clears a bit
+     * @param index index
+     */
+    void clear(int index) {
+        if (index < 0 || index >= size || !get(index)) {
+            return;
+        }
+
+        // Propagate up as long as words were full before
+        for (int level = 0; level < levels.length; level++) {
+            long[] words = levels[level];
+            int word = index / Long.SIZE;
+            boolean wasFull = words[word] == -1L;
+
+            words[word] &= ~(1L << index);
+
+            if (!wasFull) {
+                break;
+            }
+
+            index = word;
+        }
+
+        cardinality--;
+    }
+
+
+    /**
+     * Returns true if the bit is set
+     * @param index index
+     * @return boolean
+     */
+    boolean get(int index) {
+        return index >= 0 && index < size && (levels[0][index / Long.SIZE] & (1L << index)) != 0;
+    }
+
+
+    /**
+     * Returns the number of set bits
+     * @return int
+     */
+    int cardinality() {
+        return cardinality;
+    }
+
+
+    /**
+     * Returns the number of bits
+     * @return int
+     */
+    int size() {
+        return size;
+    }
+
+
+    /**
+     * Creates the levels of a bitmap. Bits of upper levels without a word below them are set, so they are never descended into.
+     * @param size number of bits, a power of two of at least 64
+     * @return long[][]
+     */
+    static long[][] createLevels(int size) {
+        int count = 1;
+
+        for (int words = size / Long.SIZE; words > 1; words = (words + Long.SIZE - 1) / Long.SIZE) {
+            count++;
+        }
+
+        long[][] levels = new long[count][];
+        int words = size / Long.SIZE;
+
+        for (int level = 0; level < count; level++) {
+            levels[level] = new long[words];
+
+            if (level > 0) {
+                int below = levels[level - 1].length;
+
+                if (below % Long.SIZE != 0) {
+                    levels[level][words - 1] = -1L << below;
+                }
+            }
+
+            words = (words + Long.SIZE - 1) / Long.SIZE;
+        }
+
+        return levels;
+    }
+}
@@ -1,5 +1,8 @@
 package dev.webnetes.junisockets.addresses;
 
+import dev.webnetes.junisockets.errors.InvalidSubnet;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
+
 /**
  * Defines IP address
  */
@@ -9,8 +12,10 @@ public interface IIPAddress {
      * Creates IP address
      * @param subnet subnet of client
      * @return String 
+     * @throws InvalidSubnet Thrown if the subnet is not canonical or does not match the prefix length
+     * @throws SubnetExhausted Thrown if all suffixes of the subnet are in use
      */
-    String createIPAddress(String subnet);
+    String createIPAddress(String subnet) throws InvalidSubnet, SubnetExhausted;
 
     /**
      * Removes IP address
@@ -18,6 +23,12 @@ public interface IIPAddress {
      */
     void removeIPAddress(String ipAddress);
 
+    /**
+     * Removes IP address
+     * @param ipAddress IP address of client as int
+     */
+    void removeIPAddress(int ipAddress);
+
     /**
      * Assembles IP address out of subnet and suffix
      * @param subnet subnet of client
@@ -1,35 +1,27 @@
 package dev.webnetes.junisockets.addresses;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
 
+import dev.webnetes.junisockets.errors.InvalidSubnet;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
+
 /**
  * IP address
  */
 public class IPAddress implements IIPAddress {
 
     private Logger logger;
-    private ReentrantLock mutex;
-    private ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets;
+    private SubnetTable<Subnet> subnets;
 
     /**
      * Constructor IPAddress
      * @param logger logger
-     * @param mutex mutex
      * @param subnets subnets
      */
-    public IPAddress(Logger logger, ReentrantLock mutex,
-            ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets) {
+    public IPAddress(Logger logger, SubnetTable<Subnet> subnets) {
         this.logger = logger;
-        this.mutex = mutex;
         this.subnets = subnets;
     }
 
@@ -38,53 +30,38 @@ public class IPAddress implements IIPAddress {
      * Creates IP address 
      * @param subnet subnet of client
      * @return String
+     * @throws InvalidSubnet Thrown if the subnet is not canonical or does not match the prefix length
+     * @throws SubnetExhausted Thrown if all suffixes of the subnet are in use
      */
-    public String createIPAddress(String subnet) {
-        logger.trace("Creating IP address " + subnet);
+    public String createIPAddress(String subnet) throws InvalidSubnet, SubnetExhausted {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Creating IP address " + subnet);
+        }
 
-        mutex.lock();
+        // Only canonical subnets of the prefix length, like 10.0.0 for /24, have room for suffixes
+        int prefix = AddressCodec.parseSubnet(subnet, subnets.getPrefixLength());
 
-        try {
-            // Check if the given subnet is in subnets
-            if (!subnets.containsKey(subnet)) {
-                subnets.put(subnet, new HashMap<Integer, List<Integer>>());
-            }
-
-            List<Integer> existingMembersSorted = subnets.get(subnet).keySet().stream().parallel().collect(Collectors.toList());
-            
-            Collections.sort(existingMembersSorted, (o1, o2) -> o1.compareTo(o2));
+        if (prefix == -1) {
+            throw new InvalidSubnet();
+        }
 
-            boolean foundSuffix = false;
-            int newSuffix = 0;
+        // Create the subnet if it is not in subnets yet; subnets are never removed, so its lock stays valid
+        Subnet state = subnets.getOrCreate(prefix);
 
-            // Find free suffix for given subnet
-            for (int i = 0; i < existingMembersSorted.size(); i++) {
-                if (i != existingMembersSorted.get(i)) {
-                    newSuffix = i;
-                    foundSuffix = true;
+        state.getLock().lock();
 
-                    break;
-                }
-            }
-
-            // If there is no free suffix in between other suffixes, extend the number of suffixes by one
-            if (!foundSuffix) {
-                newSuffix = existingMembersSorted.size();
-            }
+        try {
+            // Find the lowest free suffix for given subnet, -1 if all of them are used
+            int newSuffix = state.allocateSuffix();
 
-            // Return -1 if there are more than 255 suffixes used
-            if (newSuffix > 255) {
-                return "-1";
+            if (newSuffix == -1) {
+                throw new SubnetExhausted();
             }
 
-            List<Integer> newMember = new ArrayList<Integer>();
-
-            subnets.get(subnet).put(newSuffix, newMember); // We ensure above
-
-            return toIPAddress(subnet, newSuffix);
+            return AddressCodec.formatIPAddress(AddressCodec.toIPAddress(prefix, newSuffix));
 
         } finally {
-            mutex.unlock();
+            state.getLock().unlock();
         }
     }
 
@@ -94,24 +71,36 @@ public class IPAddress implements IIPAddress {
      * @param ipAddress IP address of client
      */
     public void removeIPAddress(String ipAddress) {
-        logger.trace("Removing IP address " + ipAddress);
+        if (logger.isTraceEnabled()) {
+            logger.trace("Removing IP address " + ipAddress);
+        }
 
-        mutex.lock();
+        long address = AddressCodec.parseIPAddress(ipAddress);
 
-        try {
-            final String[] partsIPAddress = parseIPAddress(ipAddress);
+        if (address != -1) {
+            removeIPAddress((int) address);
+        }
+    }
+
+    
+    /** 
+     * Removes IP Address
+     * @param ipAddress IP address of client as int
+     */
+    public void removeIPAddress(int ipAddress) {
+        Subnet state = subnets.get(AddressCodec.getSubnet(ipAddress, subnets.getPrefixLength()));
+
+        if (state == null) {
+            return;
+        }
 
-            String subnet = String.join(".", partsIPAddress[0], partsIPAddress[1], partsIPAddress[2]);
-            int suffix = Integer.parseInt(partsIPAddress[3]);
+        state.getLock().lock();
 
-            if (subnets.containsKey(subnet)) {
-                if (subnets.get(subnet).containsKey(suffix)) {
-                    // remove the suffix so that the given IP is available again
-                    subnets.get(subnet).remove(suffix); // We ensure above
-                }
-            }
+        try {
+            // release the suffix so that the given IP is available again
+            state.releaseSuffix(AddressCodec.getSuffix(ipAddress, subnets.getPrefixLength()));
         } finally {
-            mutex.unlock();
+            state.getLock().unlock();
         }
     }
 
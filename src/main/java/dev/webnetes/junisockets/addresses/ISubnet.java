@@ -0,0 +1,90 @@
+package dev.webnetes.junisockets.addresses;
+
+/**
+ * Defines the state of one subnet: which suffixes are in use and which ports are allocated per suffix
+ */
+public interface ISubnet {
+
+    /**
+     * Allocates the lowest free suffix
+     * @return int suffix, or -1 if all suffixes are in use
+     */
+    int allocateSuffix();
+
+    /**
+     * Marks a suffix as used if it is not yet, e.g. when a port on it is claimed
+     * @param suffix suffix
+     * @return boolean false if the suffix can not be used
+     */
+    boolean claimSuffix(int suffix);
+
+    /**
+     * Releases a suffix and all of its ports
+     * @param suffix suffix
+     */
+    void releaseSuffix(int suffix);
+
+    /**
+     * Returns true if the suffix is in use
+     * @param suffix suffix
+     * @return boolean
+     */
+    boolean containsSuffix(int suffix);
+
+    /**
+     * Allocates the lowest free port of a suffix
+     * @param suffix suffix, which has to be in use
+     * @return int port, or -1 if all ports are in use
+     */
+    int allocatePort(int suffix);
+
+    /**
+     * Allocates the lowest free ports of a suffix in one go
+     * @param suffix suffix, which has to be in use
+     * @param ports array the allocated ports are written to, up to its length
+     * @return int number of allocated ports, less than requested if the others are in use
+     */
+    int allocatePorts(int suffix, int[] ports);
+
+    /**
+     * Claims a port of a suffix
+     * @param suffix suffix, which has to be in use
+     * @param port port
+     * @return boolean false if the port is already allocated or out of range
+     */
+    boolean claimPort(int suffix, int port);
+
+    /**
+     * Releases a port of a suffix if both are in use
+     * @param suffix suffix
+     * @param port port
+     */
+    void releasePort(int suffix, int port);
+
+    /**
+     * Returns true if the port of the suffix is allocated
+     * @param suffix suffix
+     * @param port port
+     * @return boolean
+     */
+    boolean containsPort(int suffix, int port);
+
+    /**
+     * Returns the number of allocated ports of a suffix
+     * @param suffix suffix
+     * @return int
+     */
+    int getPortCount(int suffix);
+
+    /**
+     * Returns the number of suffixes in use
+     * @return int
+     */
+    int getSuffixCount();
+
+    /**
+     * Returns the number of suffixes of the subnet, which is given by its prefix length
+     * @return int
+     */
+    int getSize();
+}
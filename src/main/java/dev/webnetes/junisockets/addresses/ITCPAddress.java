@@ -18,6 +18,16 @@ public interface ITCPAddress {
      */
     String createTCPAddress(String ipAddress) throws SuffixDoesNotExist, SubnetDoesNotExist;
 
+    /**
+     * Creates several TCP addresses of a client at once
+     * @param ipAddress IP address of client
+     * @param count number of TCP addresses
+     * @return String[] TCP addresses, fewer than count if the other ports are in use
+     * @throws SuffixDoesNotExist Thrown if suffix does not exist
+     * @throws SubnetDoesNotExist Thrown if subnet does not exist
+     */
+    String[] createTCPAddresses(String ipAddress, int count) throws SuffixDoesNotExist, SubnetDoesNotExist;
+
     /**
      * Claims TCP address
      * @param tcpAddress TCP address of client
@@ -32,6 +42,12 @@ public interface ITCPAddress {
      */
     void removeTCPAddress(String tcpAddress);
 
+    /**
+     * Removes TCP address
+     * @param tcpAddress TCP address of client as long
+     */
+    void removeTCPAddress(long tcpAddress);
+
     /**
      * Assembles TCP address out of ipAddress and port
      * @param ipAddress IP Address of client
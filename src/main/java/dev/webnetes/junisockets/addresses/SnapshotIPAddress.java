@@ -0,0 +1,86 @@
+package dev.webnetes.junisockets.addresses;
+
+import dev.webnetes.junisockets.errors.InvalidSubnet;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
+
+/**
+ * IP address allocator which records every created and removed IP address in a snapshot. Everything else is delegated to the wrapped allocator.
+ */
+public class SnapshotIPAddress implements IIPAddress {
+
+    private IIPAddress ip;
+    private AllocatorSnapshot snapshot;
+
+    /**
+     * Constructor SnapshotIPAddress
+     * @param ip allocator of the subnets
+     * @param snapshot snapshot
+     */
+    public SnapshotIPAddress(IIPAddress ip, AllocatorSnapshot snapshot) {
+        this.ip = ip;
+        this.snapshot = snapshot;
+    }
+
+
+    /**
+     * Creates IP address
+     * @param subnet subnet of client
+     * @return String
+     * @throws InvalidSubnet Thrown if the subnet is not canonical or does not match the prefix length
+     * @throws SubnetExhausted Thrown if all suffixes of the subnet are in use
+     */
+    public String createIPAddress(String subnet) throws InvalidSubnet, SubnetExhausted {
+        String ipAddress = ip.createIPAddress(subnet);
+
+        snapshot.claimIPAddress((int) AddressCodec.parseIPAddress(ipAddress));
+
+        return ipAddress;
+    }
+
+
+    /**
+     * Removes IP Address
+     * @param ipAddress IP address of client
+     */
+    public void removeIPAddress(String ipAddress) {
+        ip.removeIPAddress(ipAddress);
+
+        long address = AddressCodec.parseIPAddress(ipAddress);
+
+        if (address != -1) {
+            snapshot.releaseIPAddress((int) address);
+        }
+    }
+
+
+    /**
+     * Removes IP Address
+     * @param ipAddress IP address of client as int
+     */
+    public void removeIPAddress(int ipAddress) {
+        ip.removeIPAddress(ipAddress);
+
+        snapshot.releaseIPAddress(ipAddress);
+    }
+
+
+    /**
+     * Assembles IP address out of subnet and suffix
+     * @param subnet subnet of client
+     * @param suffix suffix of client
+     * @return String
+     */
+    public String toIPAddress(String subnet, int suffix) {
+        return ip.toIPAddress(subnet, suffix);
+    }
+
+
+    /**
+     * Parses IP address into octets (e.g. "127.0.0.1" = ["127", "0", "0", "1"])
+     * @param ipAddress IP Address of client
+     * @return String[]
+     */
+    public String[] parseIPAddress(String ipAddress) {
+        return ip.parseIPAddress(ipAddress);
+    }
+}
@@ -0,0 +1,106 @@
+package dev.webnetes.junisockets.addresses;
+
+import org.apache.log4j.Logger;
+
+import dev.webnetes.junisockets.errors.InvalidSubnet;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
+
+/**
+ * IP address allocator which assigns clients of an exhausted subnet to the sibling subnets following it, e.g. 10.0.1 once 10.0.0 is full.
+ * A subnet and its siblings form one logical network; the addresses handed out are regular addresses of the sibling,
+ * so aliases, connects and removals need no special handling. Everything else is delegated to the wrapped allocator.
+ */
+public class SpillOverIPAddress implements IIPAddress {
+
+    private Logger logger;
+    private IIPAddress ip;
+    private int prefixLength;
+    private int siblings;
+
+    /**
+     * Constructor SpillOverIPAddress
+     * @param logger logger
+     * @param ip allocator of the subnets
+     * @param prefixLength prefix length of the subnets
+     * @param siblings number of sibling subnets a knock may spill over to
+     */
+    public SpillOverIPAddress(Logger logger, IIPAddress ip, int prefixLength, int siblings) {
+        this.logger = logger;
+        this.ip = ip;
+        this.prefixLength = prefixLength;
+        this.siblings = siblings;
+    }
+
+
+    /**
+     * Creates IP address in the subnet, or in the first sibling subnet with a free suffix
+     * @param subnet subnet of client
+     * @return String
+     * @throws InvalidSubnet Thrown if the subnet is not canonical or does not match the prefix length
+     * @throws SubnetExhausted Thrown if all suffixes of the subnet and its siblings are in use
+     */
+    public String createIPAddress(String subnet) throws InvalidSubnet, SubnetExhausted {
+        try {
+            return ip.createIPAddress(subnet);
+        } catch (SubnetExhausted e) {
+            // The subnet was parsed by the allocator already, so it is valid
+            long first = AddressCodec.parseSubnet(subnet, prefixLength);
+            long step = 1L << AddressCodec.MAX_PREFIX_LENGTH - prefixLength;
+
+            for (int i = 1; i <= siblings && first + i * step <= 0xFFFFFF; i++) {
+                String sibling = AddressCodec.formatSubnet((int) (first + i * step), prefixLength);
+
+                try {
+                    String ipAddress = ip.createIPAddress(sibling);
+
+                    logger.debug("Subnet " + subnet + " is exhausted, spilled over to " + sibling);
+
+                    return ipAddress;
+                } catch (SubnetExhausted e1) {
+                    // Try the next sibling
+                }
+            }
+
+            throw e;
+        }
+    }
+
+
+    /**
+     * Removes IP Address
+     * @param ipAddress IP address of client
+     */
+    public void removeIPAddress(String ipAddress) {
+        ip.removeIPAddress(ipAddress);
+    }
+
+
+    /**
+     * Removes IP Address
+     * @param ipAddress IP address of client as int
+     */
+    public void removeIPAddress(int ipAddress) {
+        ip.removeIPAddress(ipAddress);
+    }
+
+
+    /**
+     * Assembles IP address out of subnet and suffix
+     * @param subnet subnet of client
+     * @param suffix suffix of client
+     * @return String
+     */
+    public String toIPAddress(String subnet, int suffix) {
+        return ip.toIPAddress(subnet, suffix);
+    }
+
+
+    /**
+     * Parses IP address into octets (e.g. "127.0.0.1" = ["127", "0", "0", "1"])
+     * @param ipAddress IP Address of client
+     * @return String[]
+     */
+    public String[] parseIPAddress(String ipAddress) {
+        return ip.parseIPAddress(ipAddress);
+    }
+}
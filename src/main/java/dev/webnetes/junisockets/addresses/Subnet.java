@@ -0,0 +1,213 @@
+package dev.webnetes.junisockets.addresses;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * State of one subnet: which suffixes are in use and which ports are allocated per suffix.
+ * Used suffixes are tracked in a HierarchicalBitmap, so the lowest free one of even 65536 suffixes is found in a few word reads.
+ * The ports of every suffix are tracked in an occupancy bitmap, so the lowest free one is found with nextClearBit and claims, tests and releases are O(1).
+ * Not thread-safe, callers hold the lock of the subnet, so allocations in distinct subnets do not contend.
+ */
+public class Subnet implements ISubnet {
+
+    public static final int MAX_PORT = 65535;
+
+    private HierarchicalBitmap suffixes;
+    private HashMap<Integer, BitSet> ports = new HashMap<Integer, BitSet>();
+    private ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Constructor Subnet
+     */
+    public Subnet() {
+        this(AddressCodec.DEFAULT_PREFIX_LENGTH);
+    }
+
+    /**
+     * Constructor Subnet
+     * @param prefixLength prefix length, from AddressCodec.MIN_PREFIX_LENGTH to AddressCodec.MAX_PREFIX_LENGTH
+     */
+    public Subnet(int prefixLength) {
+        this.suffixes = new HierarchicalBitmap(AddressCodec.getSuffixCount(prefixLength));
+    }
+
+
+    /**
+     * Allocates the lowest free suffix
+     * @return int suffix, or -1 if all suffixes of the subnet are in use
+     */
+    public int allocateSuffix() {
+        int suffix = suffixes.allocate();
+
+        if (suffix == -1) {
+            return -1;
+        }
+
+        ports.put(suffix, new BitSet());
+
+        return suffix;
+    }
+
+
+    /**
+     * Marks a suffix as used if it is not yet, e.g. when a port on it is claimed
+     * @param suffix suffix
+     * @return boolean always true, suffixes out of range are only kept in the port map
+     */
+    public boolean claimSuffix(int suffix) {
+        if (!ports.containsKey(suffix)) {
+            ports.put(suffix, new BitSet());
+
+            suffixes.set(suffix);
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Releases a suffix and all of its ports
+     * @param suffix suffix
+     */
+    public void releaseSuffix(int suffix) {
+        if (ports.remove(suffix) != null) {
+            suffixes.clear(suffix);
+        }
+    }
+
+
+    /**
+     * Returns true if the suffix is in use
+     * @param suffix suffix
+     * @return boolean
+     */
+    public boolean containsSuffix(int suffix) {
+        return ports.containsKey(suffix);
+    }
+
+
+    /**
+     * Allocates the lowest free port of a suffix
+     * @param suffix suffix, which has to be in use
+     * @return int port, or -1 if all ports up to MAX_PORT are in use
+     */
+    public int allocatePort(int suffix) {
+        BitSet used = ports.get(suffix);
+        int port = used.nextClearBit(0);
+
+        if (port > MAX_PORT) {
+            return -1;
+        }
+
+        used.set(port);
+
+        return port;
+    }
+
+
+    /**
+     * Allocates the lowest free ports of a suffix in one go
+     * @param suffix suffix, which has to be in use
+     * @param ports array the allocated ports are written to, up to its length
+     * @return int number of allocated ports, less than requested if the others are in use
+     */
+    public int allocatePorts(int suffix, int[] ports) {
+        BitSet used = this.ports.get(suffix);
+        int count = 0;
+
+        // Continue the scan after the last allocated port instead of starting over
+        for (int port = used.nextClearBit(0); count < ports.length && port <= MAX_PORT; port = used.nextClearBit(port + 1)) {
+            used.set(port);
+            ports[count++] = port;
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Claims a port of a suffix
+     * @param suffix suffix, which has to be in use
+     * @param port port
+     * @return boolean false if the port is already allocated or out of range
+     */
+    public boolean claimPort(int suffix, int port) {
+        BitSet used = ports.get(suffix);
+
+        if (port < 0 || port > MAX_PORT || used.get(port)) {
+            return false;
+        }
+
+        used.set(port);
+
+        return true;
+    }
+
+
+    /**
+     * Releases a port of a suffix if both are in use
+     * @param suffix suffix
+     * @param port port
+     */
+    public void releasePort(int suffix, int port) {
+        BitSet used = ports.get(suffix);
+
+        if (used != null && port >= 0 && port <= MAX_PORT) {
+            used.clear(port);
+        }
+    }
+
+
+    /**
+     * Returns true if the port of the suffix is allocated
+     * @param suffix suffix
+     * @param port port
+     * @return boolean
+     */
+    public boolean containsPort(int suffix, int port) {
+        BitSet used = ports.get(suffix);
+
+        return used != null && port >= 0 && port <= MAX_PORT && used.get(port);
+    }
+
+
+    /**
+     * Returns the number of allocated ports of a suffix
+     * @param suffix suffix
+     * @return int
+     */
+    public int getPortCount(int suffix) {
+        BitSet used = ports.get(suffix);
+
+        return used == null ? 0 : used.cardinality();
+    }
+
+
+    /**
+     * Returns the number of suffixes in use
+     * @return int
+     */
+    public int getSuffixCount() {
+        return ports.size();
+    }
+
+
+    /**
+     * Returns the number of suffixes of the subnet
+     * @return int
+     */
+    public int getSize() {
+        return suffixes.size();
+    }
+
+
+    /**
+     * Returns the lock which guards the state of this subnet
+     * @return ReentrantLock
+     */
+    public ReentrantLock getLock() {
+        return lock;
+    }
+}
@@ -0,0 +1,104 @@
+package dev.webnetes.junisockets.addresses;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * Subnets of one prefix length by their int representation. Lookups index two arrays, the first octet and the remaining two, so they neither box
+ * nor hash. The array of a first octet is only created with its first subnet. Subnets are never removed.
+ * @param <T> subnet state
+ */
+public class SubnetTable<T extends ISubnet> {
+
+    private static final int PAGE_SIZE = 1 << 16;
+
+    private int prefixLength;
+    private IntFunction<T> factory;
+    private AtomicReferenceArray<AtomicReferenceArray<T>> pages = new AtomicReferenceArray<AtomicReferenceArray<T>>(256);
+
+    /**
+     * Constructor SubnetTable
+     * @param factory factory of empty /24 subnets
+     */
+    public SubnetTable(IntFunction<T> factory) {
+        this(AddressCodec.DEFAULT_PREFIX_LENGTH, factory);
+    }
+
+    /**
+     * Constructor SubnetTable
+     * @param prefixLength prefix length of all subnets, from AddressCodec.MIN_PREFIX_LENGTH to AddressCodec.MAX_PREFIX_LENGTH
+     * @param factory factory of empty subnets, which is given the prefix length
+     * @throws IllegalArgumentException Thrown if the prefix length is out of range
+     */
+    public SubnetTable(int prefixLength, IntFunction<T> factory) {
+        if (!AddressCodec.isValidPrefixLength(prefixLength)) {
+            throw new IllegalArgumentException("prefix length has to be from " + AddressCodec.MIN_PREFIX_LENGTH + " to " + AddressCodec.MAX_PREFIX_LENGTH);
+        }
+
+        this.prefixLength = prefixLength;
+        this.factory = factory;
+    }
+
+
+    /**
+     * Returns the prefix length of all subnets
+     * @return int
+     */
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+
+    /**
+     * Returns a subnet
+     * @param subnet subnet
+     * @return T, or null if the subnet does not exist
+     */
+    public T get(int subnet) {
+        if (subnet < 0 || subnet >= 1 << 24) {
+            return null;
+        }
+
+        AtomicReferenceArray<T> page = pages.get(subnet >>> 16);
+
+        return page == null ? null : page.get(subnet & (PAGE_SIZE - 1));
+    }
+
+
+    /**
+     * Returns a subnet
+     * @param subnet subnet (e.g. "10.0.0" for /24)
+     * @return T, or null if the subnet does not exist
+     */
+    public T get(String subnet) {
+        return get(AddressCodec.parseSubnet(subnet, prefixLength));
+    }
+
+
+    /**
+     * Returns a subnet and creates it if it does not exist yet
+     * @param subnet subnet
+     * @return T
+     */
+    public T getOrCreate(int subnet) {
+        AtomicReferenceArray<T> page = pages.get(subnet >>> 16);
+
+        if (page == null) {
+            // Whoever loses the race uses the array of the winner
+            pages.compareAndSet(subnet >>> 16, null, new AtomicReferenceArray<T>(PAGE_SIZE));
+
+            page = pages.get(subnet >>> 16);
+        }
+
+        int index = subnet & (PAGE_SIZE - 1);
+        T state = page.get(index);
+
+        if (state == null) {
+            page.compareAndSet(index, null, factory.apply(prefixLength));
+
+            state = page.get(index);
+        }
+
+        return state;
+    }
+}
@@ -1,12 +1,5 @@
 package dev.webnetes.junisockets.addresses;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
-
 import org.apache.log4j.Logger;
 
 import dev.webnetes.junisockets.errors.PortAlreadyAllocated;
@@ -19,116 +12,191 @@ import dev.webnetes.junisockets.errors.SuffixDoesNotExist;
 public class TCPAddress implements ITCPAddress {
 
     private Logger logger;
-    private ReentrantLock mutex;
-    private ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets;
-    private IPAddress ip;
+    private SubnetTable<Subnet> subnets;
 
     /**
      * Constructor TCPAddress
      * @param logger logger
-     * @param mutex mutex
      * @param subnets subnets
-     * @param ip ip
      */
-    public TCPAddress(Logger logger, ReentrantLock mutex,
-            ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets, IPAddress ip) {
+    public TCPAddress(Logger logger, SubnetTable<Subnet> subnets) {
         this.logger = logger;
-        this.mutex = mutex;
         this.subnets = subnets;
-        this.ip = ip;
     }
 
     
     /** 
-     * Creates TCP address
+     * Creates TCP address with the lowest free port of the client
      * @param ipAddress IP adress of client
-     * @return String
+     * @return String TCP address, or "-1" if all ports are in use
      * @throws SuffixDoesNotExist Thrown if suffix does not exist
      * @throws SubnetDoesNotExist Thrown if subnet does not exist
      */
     public String createTCPAddress(String ipAddress) throws SuffixDoesNotExist, SubnetDoesNotExist {
-        logger.trace("Creating TCP address " + ipAddress);
+        if (logger.isTraceEnabled()) {
+            logger.trace("Creating TCP address " + ipAddress);
+        }
+
+        long address = AddressCodec.parseIPAddress(ipAddress);
+
+        if (address == -1) {
+            throw new SubnetDoesNotExist();
+        }
+
+        return createTCPAddress((int) address);
+    }
+
+
+    /** 
+     * Creates TCP address with the lowest free port of the client
+     * @param ipAddress IP adress of client as int
+     * @return String TCP address, or "-1" if all ports are in use
+     * @throws SuffixDoesNotExist Thrown if suffix does not exist
+     * @throws SubnetDoesNotExist Thrown if subnet does not exist
+     */
+    private String createTCPAddress(int ipAddress) throws SuffixDoesNotExist, SubnetDoesNotExist {
+        int suffix = AddressCodec.getSuffix(ipAddress, subnets.getPrefixLength());
+
+        Subnet state = subnets.get(AddressCodec.getSubnet(ipAddress, subnets.getPrefixLength()));
 
-        mutex.lock();
+        if (state == null) {
+            throw new SubnetDoesNotExist();
+        }
+
+        state.getLock().lock();
 
         try {
-            final String[] partsIPAddress = ip.parseIPAddress(ipAddress);
+            if (!state.containsSuffix(suffix)) {
+                throw new SuffixDoesNotExist();
+            }
 
-            String subnet = String.join(".", partsIPAddress[0], partsIPAddress[1], partsIPAddress[2]);
-            int suffix = Integer.parseInt(partsIPAddress[3]);
+            // Allocate the lowest free port of the suffix
+            int newPort = state.allocatePort(suffix);
 
-            if (subnets.containsKey(subnet)) {
-                if (subnets.get(subnet).containsKey(suffix)) {
+            if (newPort == -1) {
+                return "-1";
+            }
 
-                    subnets.get(subnet).get(suffix).sort((a, b) -> a - b);
+            // Create a TCP address consisting of the subnet, suffix and the found port
+            return AddressCodec.formatTCPAddress(AddressCodec.toTCPAddress(ipAddress, newPort));
+        } finally {
+            state.getLock().unlock();
+        }
+    }
+
+
+    /** 
+     * Creates TCP addresses with the lowest free ports of the client, holding the lock of the subnet only once
+     * @param ipAddress IP adress of client
+     * @param count number of TCP addresses
+     * @return String[] TCP addresses, fewer than count if the other ports are in use
+     * @throws SuffixDoesNotExist Thrown if suffix does not exist
+     * @throws SubnetDoesNotExist Thrown if subnet does not exist
+     */
+    public String[] createTCPAddresses(String ipAddress, int count) throws SuffixDoesNotExist, SubnetDoesNotExist {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Creating " + count + " TCP addresses " + ipAddress);
+        }
+
+        long address = AddressCodec.parseIPAddress(ipAddress);
+
+        if (address == -1) {
+            throw new SubnetDoesNotExist();
+        }
+
+        int[] ports = new int[count];
+
+        return formatTCPAddresses((int) address, ports, allocatePorts((int) address, ports));
+    }
+
+
+    /** 
+     * Allocates the lowest free ports of the client
+     * @param ipAddress IP adress of client as int
+     * @param ports array the allocated ports are written to, up to its length
+     * @return int number of allocated ports
+     * @throws SuffixDoesNotExist Thrown if suffix does not exist
+     * @throws SubnetDoesNotExist Thrown if subnet does not exist
+     */
+    private int allocatePorts(int ipAddress, int[] ports) throws SuffixDoesNotExist, SubnetDoesNotExist {
+        int suffix = AddressCodec.getSuffix(ipAddress, subnets.getPrefixLength());
 
-                    int newPort = 0;
+        Subnet state = subnets.get(AddressCodec.getSubnet(ipAddress, subnets.getPrefixLength()));
 
-                    // Find available port
-                    for (int i = 0; i < subnets.get(subnet).get(suffix).size(); i++) {
-                        if (subnets.get(subnet).get(suffix).get(i) != i) {
-                            newPort = i;
-                        }
-                    }
+        if (state == null) {
+            throw new SubnetDoesNotExist();
+        }
 
-                    // Add port to suffix
-                    subnets.get(subnet).get(suffix).add(newPort);
+        state.getLock().lock();
 
-                    // Create a TCP address consisting of the subnet, suffix and the found port
-                    return toTCPAddress(ip.toIPAddress(subnet, suffix), newPort);
-                } else {
-                    throw new SuffixDoesNotExist();
-                }
-            } else {
-                throw new SubnetDoesNotExist();
+        try {
+            if (!state.containsSuffix(suffix)) {
+                throw new SuffixDoesNotExist();
             }
+
+            return state.allocatePorts(suffix, ports);
         } finally {
-            mutex.unlock();
+            state.getLock().unlock();
+        }
+    }
+
+
+    /** 
+     * Formats the TCP addresses of allocated ports of a client
+     * @param ipAddress IP adress of client as int
+     * @param ports allocated ports
+     * @param count number of allocated ports
+     * @return String[]
+     */
+    private static String[] formatTCPAddresses(int ipAddress, int[] ports, int count) {
+        String[] tcpAddresses = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            tcpAddresses[i] = AddressCodec.formatTCPAddress(AddressCodec.toTCPAddress(ipAddress, ports[i]));
         }
+
+        return tcpAddresses;
     }
     
 
     /** 
      * Claims TCP address
      * @param tcpAddress TCP address of client
-     * @throws PortAlreadyAllocated Thrown if port is already allocated
+     * @throws PortAlreadyAllocated Thrown if port is already allocated or the address is not canonical
      * @throws SubnetDoesNotExist Thrown if subnet does not exist
      */
     public void claimTCPAddress(String tcpAddress) throws PortAlreadyAllocated, SubnetDoesNotExist {
-        logger.trace("Claiming TCP address " + tcpAddress);
+        if (logger.isTraceEnabled()) {
+            logger.trace("Claiming TCP address " + tcpAddress);
+        }
+
+        long address = AddressCodec.parseTCPAddress(tcpAddress);
+
+        if (address == -1) {
+            throw new PortAlreadyAllocated();
+        }
+
+        int ipAddress = AddressCodec.getIPAddress(address);
+        int suffix = AddressCodec.getSuffix(ipAddress, subnets.getPrefixLength());
 
-        mutex.lock();
+        Subnet state = subnets.get(AddressCodec.getSubnet(ipAddress, subnets.getPrefixLength()));
+
+        if (state == null) {
+            throw new SubnetDoesNotExist();
+        }
+
+        state.getLock().lock();
 
         try {
-            final String[] partsTCPAddress = parseTCPAddress(tcpAddress);
-            final String[] partsIPAddress = ip.parseIPAddress(partsTCPAddress[0]);
-            List<Integer> member = new ArrayList<Integer>();
-
-            String subnet = String.join(".", partsIPAddress[0], partsIPAddress[1], partsIPAddress[2]);
-            int suffix = Integer.parseInt(partsIPAddress[3]);
-
-            
-            if (subnets.containsKey(subnet)) {
-                if (!(subnets.get(subnet).containsKey(suffix))) {
-                    // If subnet does not contain the suffix and the member so far, create it
-                    subnets.get(subnet).put(suffix, member);
-                }
-
-                // If the port is not allocated so far, allocate it
-                if (subnets.get(subnet).get(suffix).stream().parallel()
-                        .filter(e -> e == Integer.parseInt(partsTCPAddress[1])).collect(Collectors.toList())
-                        .size() == 0) {
-                    subnets.get(subnet).get(suffix).add(Integer.parseInt(partsTCPAddress[1]));
-                }
-
-                else {
-                    throw new PortAlreadyAllocated();
-                }
-            } else {
-                throw new SubnetDoesNotExist();
+            // If subnet does not contain the suffix and the member so far, create it
+            state.claimSuffix(suffix);
+
+            // If the port is not allocated so far, allocate it
+            if (!state.claimPort(suffix, AddressCodec.getPort(address))) {
+                throw new PortAlreadyAllocated();
             }
         } finally {
-            mutex.unlock();
+            state.getLock().unlock();
         }
     }
     
@@ -138,29 +206,37 @@ public class TCPAddress implements ITCPAddress {
      * @param tcpAddress TCP address of client
      */
     public void removeTCPAddress(String tcpAddress) {
-        logger.trace("Removing TCP address " + tcpAddress);
+        if (logger.isTraceEnabled()) {
+            logger.trace("Removing TCP address " + tcpAddress);
+        }
 
-        mutex.lock();
+        long address = AddressCodec.parseTCPAddress(tcpAddress);
+
+        if (address != -1) {
+            removeTCPAddress(address);
+        }
+    }
 
-        try {
-            final String[] partsTCPAddress = parseTCPAddress(tcpAddress);
-            final String[] partsIPAddress = ip.parseIPAddress(partsTCPAddress[0]);
-
-            String subnet = String.join(".", partsIPAddress[0], partsIPAddress[1], partsIPAddress[2]);
-            int suffix = Integer.parseInt(partsIPAddress[3]);
-
-            if (subnets.containsKey(subnet)) {
-                if (subnets.get(subnet).containsKey(suffix)) {
-                    // Go through all ports of the suffix and filter out the port to remove
-                    subnets.get(subnet).put(suffix,
-                            subnets.get(subnet).get(suffix).stream().parallel()
-                                    .filter(e -> e != Integer.parseInt(partsTCPAddress[1]))
-                                    .collect(Collectors.toList())); // We ensure above
-                }
-            }
 
+    /** 
+     * Removes TCP address
+     * @param tcpAddress TCP address of client as long
+     */
+    public void removeTCPAddress(long tcpAddress) {
+        int ipAddress = AddressCodec.getIPAddress(tcpAddress);
+
+        Subnet state = subnets.get(AddressCodec.getSubnet(ipAddress, subnets.getPrefixLength()));
+
+        if (state == null) {
+            return;
+        }
+
+        state.getLock().lock();
+
+        try {
+            state.releasePort(AddressCodec.getSuffix(ipAddress, subnets.getPrefixLength()), AddressCodec.getPort(tcpAddress));
         } finally {
-            mutex.unlock();
+            state.getLock().unlock();
         }
     }
   
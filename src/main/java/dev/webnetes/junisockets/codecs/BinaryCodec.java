@@ -0,0 +1,522 @@
+package dev.webnetes.junisockets.codecs;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.framing.BinaryFrame;
+import org.java_websocket.protocols.IProtocol;
+
+import dev.webnetes.junisockets.addresses.AddressCodec;
+import dev.webnetes.junisockets.errors.MalformedOperation;
+import dev.webnetes.junisockets.errors.UnimplementedOperation;
+import dev.webnetes.junisockets.operations.ESignalingOperationCode;
+import dev.webnetes.junisockets.operations.IAccept;
+import dev.webnetes.junisockets.operations.IAcknowledgement;
+import dev.webnetes.junisockets.operations.IAlias;
+import dev.webnetes.junisockets.operations.IAliases;
+import dev.webnetes.junisockets.operations.IAnswer;
+import dev.webnetes.junisockets.operations.ICandidate;
+import dev.webnetes.junisockets.operations.IGoodbye;
+import dev.webnetes.junisockets.operations.IGreeting;
+import dev.webnetes.junisockets.operations.IOffer;
+import dev.webnetes.junisockets.operations.IOperation;
+import dev.webnetes.junisockets.operations.InboundOperation;
+
+/**
+ * Codec of the compact binary protocol, which clients select with the Sec-WebSocket-Protocol PROTOCOL during the handshake.
+ * A message is the one-byte code of its opcode followed by its fields. Every field starts with a tag byte, holding the key in the upper five and the type in the lower three bits:
+ * <ul>
+ * <li>STRING: varint length and UTF-8 bytes</li>
+ * <li>IPV4: four bytes, used for ids like 10.0.0.1</li>
+ * <li>IPV4_PORT: four bytes and a two-byte port, used for aliases like 10.0.0.1:1234</li>
+ * <li>NULL, FALSE and TRUE: no value bytes</li>
+ * </ul>
+ * Fields with unknown keys are skipped, so new fields can be added without breaking older peers.
+ * An aliases message holds the fields of every alias in turn, each starting with its ID.
+ */
+public class BinaryCodec {
+
+    public static final String PROTOCOL = "junisockets.binary.v1";
+
+    static final int STRING = 0;
+    static final int IPV4 = 1;
+    static final int IPV4_PORT = 2;
+    static final int NULL = 3;
+    static final int FALSE = 4;
+    static final int TRUE = 5;
+
+    static final int SUBNET = 0;
+    static final int ID = 1;
+    static final int ALIAS = 2;
+    static final int REMOTE_ALIAS = 3;
+    static final int CLIENT_CONNECTION_ID = 4;
+    static final int OFFERER_ID = 5;
+    static final int ANSWERER_ID = 6;
+    static final int OFFER = 7;
+    static final int ANSWER = 8;
+    static final int CANDIDATE = 9;
+    static final int SET = 10;
+    static final int IS_CONNECTION_ALIAS = 11;
+    static final int REJECTED = 12;
+    static final int BOUND_ALIAS = 13;
+    static final int CLIENT_ALIAS = 14;
+    static final int REASON = 15;
+
+    // Repeated fields, every element is a field of its own with the same key
+    static final int REMOTE_ALIASES = 16;
+    static final int CLIENT_CONNECTION_IDS = 17;
+
+    static final int TOKEN = 18;
+
+    private static final ThreadLocal<EncodeBuffer> BUFFERS = ThreadLocal.withInitial(EncodeBuffer::new);
+
+
+    /**
+     * Returns true if the connection negotiated the binary protocol
+     * @param conn conn
+     * @return boolean
+     */
+    public static boolean isNegotiated(WebSocket conn) {
+        Draft draft = conn.getDraft();
+
+        if (!(draft instanceof Draft_6455)) {
+            return false;
+        }
+
+        IProtocol protocol = ((Draft_6455) draft).getProtocol();
+
+        return protocol != null && PROTOCOL.equals(protocol.getProvidedProtocol());
+    }
+
+
+    /**
+     * Encodes an operation sent by the server into the buffer of the current thread.
+     * The returned buffer is only valid until the next call on the same thread, so it has to be written out or copied before that.
+     * @param operation operation
+     * @return ByteBuffer
+     * @throws IllegalArgumentException Thrown if the operation can not be sent by the server
+     */
+    public ByteBuffer encode(IOperation operation) {
+        EncodeBuffer buffer = BUFFERS.get();
+
+        buffer.clear();
+
+        if (operation instanceof IAlias) {
+            buffer.write(ESignalingOperationCode.ALIAS.getCode());
+            writeAlias(buffer, (IAlias) operation);
+        } else if (operation instanceof IAliases) {
+            buffer.write(ESignalingOperationCode.ALIASES.getCode());
+
+            for (IAlias alias : ((IAliases) operation).getAliases()) {
+                writeAlias(buffer, alias);
+            }
+        } else if (operation instanceof IAcknowledgement) {
+            IAcknowledgement acknowledgement = (IAcknowledgement) operation;
+
+            buffer.write(ESignalingOperationCode.ACKNOWLEDGED.getCode());
+            writeString(buffer, ID, acknowledgement.getId());
+            writeBoolean(buffer, REJECTED, acknowledgement.getRejected());
+
+            if (acknowledgement.getReason() != null) {
+                writeString(buffer, REASON, acknowledgement.getReason());
+            }
+
+            if (acknowledgement.getToken() != null) {
+                writeString(buffer, TOKEN, acknowledgement.getToken());
+            }
+        } else if (operation instanceof IGreeting) {
+            IGreeting greeting = (IGreeting) operation;
+
+            buffer.write(ESignalingOperationCode.GREETING.getCode());
+            writeString(buffer, OFFERER_ID, greeting.getOffererId());
+            writeString(buffer, ANSWERER_ID, greeting.getAnswererId());
+        } else if (operation instanceof IOffer) {
+            IOffer offer = (IOffer) operation;
+
+            buffer.write(ESignalingOperationCode.OFFER.getCode());
+            writeString(buffer, OFFERER_ID, offer.getOffererId());
+            writeString(buffer, ANSWERER_ID, offer.getAnswererId());
+            writeString(buffer, OFFER, offer.getOffer());
+        } else if (operation instanceof IAnswer) {
+            IAnswer answer = (IAnswer) operation;
+
+            buffer.write(ESignalingOperationCode.ANSWER.getCode());
+            writeString(buffer, OFFERER_ID, answer.getOffererId());
+            writeString(buffer, ANSWERER_ID, answer.getAnswererId());
+            writeString(buffer, ANSWER, answer.getAnswer());
+        } else if (operation instanceof ICandidate) {
+            ICandidate candidate = (ICandidate) operation;
+
+            buffer.write(ESignalingOperationCode.CANDIDATE.getCode());
+            writeString(buffer, OFFERER_ID, candidate.getOffererId());
+            writeString(buffer, ANSWERER_ID, candidate.getAnswererId());
+            writeString(buffer, CANDIDATE, candidate.getCandidate());
+        } else if (operation instanceof IAccept) {
+            IAccept accept = (IAccept) operation;
+
+            buffer.write(ESignalingOperationCode.ACCEPT.getCode());
+            writeString(buffer, BOUND_ALIAS, accept.getBoundAlias());
+            writeString(buffer, CLIENT_ALIAS, accept.getClientAlias());
+        } else if (operation instanceof IGoodbye) {
+            buffer.write(ESignalingOperationCode.GOODBYE.getCode());
+            writeString(buffer, ID, ((IGoodbye) operation).getId());
+        } else {
+            throw new IllegalArgumentException("can not encode " + operation.getOpCode());
+        }
+
+        return buffer.view();
+    }
+
+
+    /**
+     * Encodes an operation sent by a client into the buffer of the current thread. Only fields which are set are written.
+     * @param operation operation
+     * @return ByteBuffer
+     */
+    public ByteBuffer encode(InboundOperation operation) {
+        EncodeBuffer buffer = BUFFERS.get();
+
+        buffer.clear();
+        buffer.write(operation.getOpcode().getCode());
+
+        String[] values = { operation.getSubnet(), operation.getId(), operation.getAlias(), operation.getRemoteAlias(), operation.getClientConnectionId(), operation.getOffererId(), operation.getAnswererId(), operation.getOffer(), operation.getAnswer(), operation.getCandidate() };
+
+        for (int key = 0; key < values.length; key++) {
+            if (values[key] != null) {
+                writeString(buffer, key, values[key]);
+            }
+        }
+
+        if (operation.getRemoteAliases() != null) {
+            for (String remoteAlias : operation.getRemoteAliases()) {
+                writeString(buffer, REMOTE_ALIASES, remoteAlias);
+            }
+        }
+
+        if (operation.getClientConnectionIds() != null) {
+            for (String clientConnectionId : operation.getClientConnectionIds()) {
+                writeString(buffer, CLIENT_CONNECTION_IDS, clientConnectionId);
+            }
+        }
+
+        if (operation.getToken() != null) {
+            writeString(buffer, TOKEN, operation.getToken());
+        }
+
+        return buffer.view();
+    }
+
+
+    /**
+     * Encodes an operation sent by the server into a binary frame. The frame shares the buffer of the current thread, so it has to be sent before the next call on the same thread.
+     * @param operation operation
+     * @return BinaryFrame
+     */
+    public BinaryFrame encodeFrame(IOperation operation) {
+        return toFrame(encode(operation));
+    }
+
+
+    /**
+     * Wraps an encoded operation into a binary frame without copying it
+     * @param payload encoded operation
+     * @return BinaryFrame
+     */
+    public BinaryFrame toFrame(ByteBuffer payload) {
+        BinaryFrame frame = new BinaryFrame();
+
+        frame.setPayload(payload.duplicate());
+        frame.setFin(true);
+
+        return frame;
+    }
+
+
+    /**
+     * Decodes a message sent by a client into an operation. Fields which are not part of InboundOperation are skipped.
+     * @param message message
+     * @return InboundOperation
+     * @throws MalformedOperation Thrown if the message is not a valid operation
+     * @throws UnimplementedOperation Thrown if the opcode of the message is unknown
+     */
+    public InboundOperation decode(ByteBuffer message) throws MalformedOperation, UnimplementedOperation {
+        try {
+            InboundOperation operation = new InboundOperation().setOpcode(ESignalingOperationCode.fromCode(message.get() & 0xFF));
+
+            while (message.hasRemaining()) {
+                int tag = message.get() & 0xFF;
+                int key = tag >>> 3;
+                String value = readValue(message, tag & 0x7);
+
+                switch (key) {
+                    case SUBNET:
+                        operation.setSubnet(value);
+                        break;
+                    case ID:
+                        operation.setId(value);
+                        break;
+                    case ALIAS:
+                        operation.setAlias(value);
+                        break;
+                    case REMOTE_ALIAS:
+                        operation.setRemoteAlias(value);
+                        break;
+                    case CLIENT_CONNECTION_ID:
+                        operation.setClientConnectionId(value);
+                        break;
+                    case OFFERER_ID:
+                        operation.setOffererId(value);
+                        break;
+                    case ANSWERER_ID:
+                        operation.setAnswererId(value);
+                        break;
+                    case OFFER:
+                        operation.setOffer(value);
+                        break;
+                    case ANSWER:
+                        operation.setAnswer(value);
+                        break;
+                    case CANDIDATE:
+                        operation.setCandidate(value);
+                        break;
+                    case REMOTE_ALIASES:
+                        operation.addRemoteAlias(value);
+                        break;
+                    case CLIENT_CONNECTION_IDS:
+                        operation.addClientConnectionId(value);
+                        break;
+                    case TOKEN:
+                        operation.setToken(value);
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            return operation;
+        } catch (BufferUnderflowException e) {
+            throw new MalformedOperation("truncated binary operation");
+        }
+    }
+
+
+    /**
+     * Reads a value of the given type
+     * @param message message
+     * @param type type
+     * @return String value, or null for NULL and booleans, which no inbound field uses
+     * @throws MalformedOperation Thrown if the type is unknown or the string is too long
+     */
+    private String readValue(ByteBuffer message, int type) throws MalformedOperation {
+        switch (type) {
+            case STRING:
+                int length = readVarint(message);
+
+                if (length > message.remaining()) {
+                    throw new MalformedOperation("truncated binary operation");
+                }
+
+                String value;
+
+                if (message.hasArray()) {
+                    value = new String(message.array(), message.arrayOffset() + message.position(), length, StandardCharsets.UTF_8);
+                } else {
+                    byte[] bytes = new byte[length];
+
+                    message.duplicate().get(bytes);
+
+                    value = new String(bytes, StandardCharsets.UTF_8);
+                }
+
+                message.position(message.position() + length);
+
+                return value;
+            case IPV4:
+                return readIPv4(message);
+            case IPV4_PORT:
+                return readIPv4(message) + ":" + (message.getShort() & 0xFFFF);
+            case NULL:
+            case FALSE:
+            case TRUE:
+                return null;
+            default:
+                throw new MalformedOperation("unknown binary type " + type);
+        }
+    }
+
+
+    /**
+     * Reads four bytes as a dotted address
+     * @param message message
+     * @return String
+     */
+    private String readIPv4(ByteBuffer message) {
+        return (message.get() & 0xFF) + "." + (message.get() & 0xFF) + "." + (message.get() & 0xFF) + "." + (message.get() & 0xFF);
+    }
+
+
+    /**
+     * Reads an unsigned LEB128 varint
+     * @param message message
+     * @return int
+     * @throws MalformedOperation Thrown if the varint does not fit into an int
+     */
+    private int readVarint(ByteBuffer message) throws MalformedOperation {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = message.get() & 0xFF;
+
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    break;
+                }
+
+                return value;
+            }
+        }
+
+        throw new MalformedOperation("invalid binary length");
+    }
+
+
+    /**
+     * Writes the fields of an alias
+     * @param buffer buffer
+     * @param alias alias
+     */
+    private void writeAlias(EncodeBuffer buffer, IAlias alias) {
+        writeString(buffer, ID, alias.getId());
+        writeString(buffer, ALIAS, alias.getAlias());
+        writeBoolean(buffer, SET, alias.getSet());
+
+        if (alias.getClientConnectionId() != null) {
+            writeString(buffer, CLIENT_CONNECTION_ID, alias.getClientConnectionId());
+        }
+
+        if (alias.getIsConnectionAlias()) {
+            writeBoolean(buffer, IS_CONNECTION_ALIAS, true);
+        }
+    }
+
+
+    /**
+     * Writes a boolean field
+     * @param buffer buffer
+     * @param key key
+     * @param value value
+     */
+    private void writeBoolean(EncodeBuffer buffer, int key, boolean value) {
+        buffer.write(key << 3 | (value ? TRUE : FALSE));
+    }
+
+
+    /**
+     * Writes a string field, using the compact address types if the string is a canonical address
+     * @param buffer buffer
+     * @param key key
+     * @param value value
+     */
+    private void writeString(EncodeBuffer buffer, int key, String value) {
+        if (value == null) {
+            buffer.write(key << 3 | NULL);
+
+            return;
+        }
+
+        long address = parseAddress(value);
+
+        if (address >= 0) {
+            boolean hasPort = address > 0xFFFFFFFFL;
+
+            buffer.ensureCapacity(7);
+            buffer.write(key << 3 | (hasPort ? IPV4_PORT : IPV4));
+
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer.write((int) (address >>> shift) & 0xFF);
+            }
+
+            if (hasPort) {
+                int port = (int) (address >>> 32) - 1;
+
+                buffer.write(port >>> 8);
+                buffer.write(port & 0xFF);
+            }
+
+            return;
+        }
+
+        buffer.write(key << 3 | STRING);
+
+        // Reserve the largest varint, then move the bytes if the length turned out shorter
+        buffer.ensureCapacity(5);
+
+        int lengthPosition = buffer.length;
+
+        buffer.length += 5;
+        buffer.writeUTF8(value);
+
+        int length = buffer.length - lengthPosition - 5;
+        int varintLength = varintLength(length);
+
+        System.arraycopy(buffer.bytes, lengthPosition + 5, buffer.bytes, lengthPosition + varintLength, length);
+
+        buffer.length = lengthPosition;
+
+        for (int remaining = length; ; remaining >>>= 7) {
+            if (remaining < 0x80) {
+                buffer.bytes[buffer.length++] = (byte) remaining;
+
+                break;
+            }
+
+            buffer.bytes[buffer.length++] = (byte) (remaining & 0x7F | 0x80);
+        }
+
+        buffer.length += length;
+    }
+
+
+    /**
+     * Returns the number of bytes of a varint
+     * @param value value
+     * @return int
+     */
+    private int varintLength(int value) {
+        int length = 1;
+
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+
+        return length;
+    }
+
+
+    /**
+     * Parses a canonical address like 10.0.0.1 or 10.0.0.1:1234, so that it decodes back into the same string
+     * @param value value
+     * @return long address in the low 32 bits and port + 1 above them, or -1 if the value is not a canonical address
+     */
+    private long parseAddress(String value) {
+        long ipAddress = AddressCodec.parseIPAddress(value);
+
+        if (ipAddress != -1) {
+            return ipAddress;
+        }
+
+        long tcpAddress = AddressCodec.parseTCPAddress(value);
+
+        if (tcpAddress == -1) {
+            return -1;
+        }
+
+        return ((long) AddressCodec.getPort(tcpAddress) + 1) << 32 | (AddressCodec.getIPAddress(tcpAddress) & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,93 @@
+package dev.webnetes.junisockets.codecs;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the per-message-deflate compression of all connections of a server
+ */
+public class CompressionMetrics {
+
+    private AtomicLong compressedCount = new AtomicLong();
+    private AtomicLong skippedCount = new AtomicLong();
+    private AtomicLong uncompressedBytes = new AtomicLong();
+    private AtomicLong compressedBytes = new AtomicLong();
+    private AtomicLong compressionNanos = new AtomicLong();
+
+
+    /**
+     * Records a compressed message
+     * @param before payload size before compression
+     * @param after payload size after compression
+     * @param nanos time spent compressing
+     */
+    void recordCompressed(int before, int after, long nanos) {
+        compressedCount.incrementAndGet();
+        uncompressedBytes.addAndGet(before);
+        compressedBytes.addAndGet(after);
+        compressionNanos.addAndGet(nanos);
+    }
+
+
+    /**
+     * Records a message which was sent uncompressed because it was below the threshold
+     */
+    void recordSkipped() {
+        skippedCount.incrementAndGet();
+    }
+
+
+    /**
+     * Returns the number of compressed messages
+     * @return long
+     */
+    public long getCompressedCount() {
+        return compressedCount.get();
+    }
+
+
+    /**
+     * Returns the number of messages which were below the threshold
+     * @return long
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+
+    /**
+     * Returns the size of all compressed messages before compression
+     * @return long
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+
+    /**
+     * Returns the size of all compressed messages after compression
+     * @return long
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+
+    /**
+     * Returns the time spent compressing in nanoseconds
+     * @return long
+     */
+    public long getCompressionNanos() {
+        return compressionNanos.get();
+    }
+
+
+    /**
+     * Returns the compressed size relative to the uncompressed size of all compressed messages, e.g. 0.25 if they shrank to a quarter
+     * @return double
+     */
+    public double getCompressionRatio() {
+        long uncompressed = uncompressedBytes.get();
+
+        return uncompressed == 0 ? 1 : (double) compressedBytes.get() / uncompressed;
+    }
+}
@@ -0,0 +1,9 @@
+package dev.webnetes.junisockets.codecs;
+
+/**
+ * EDecoderType
+ */
+public enum EDecoderType {
+    JSON_SIMPLE,
+    STREAMING;
+}
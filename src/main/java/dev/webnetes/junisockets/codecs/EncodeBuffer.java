@@ -0,0 +1,124 @@
+package dev.webnetes.junisockets.codecs;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Growable byte buffer which is reused by the encoders of one thread
+ */
+class EncodeBuffer {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    byte[] bytes = new byte[INITIAL_CAPACITY];
+    int length;
+    private ByteBuffer view = ByteBuffer.wrap(bytes);
+
+
+    /**
+     * Discards the written bytes
+     */
+    void clear() {
+        length = 0;
+    }
+
+
+    /**
+     * Returns the written bytes
+     * @return ByteBuffer
+     */
+    ByteBuffer view() {
+        view.clear();
+        view.limit(length);
+
+        return view;
+    }
+
+
+    /**
+     * Makes room for at least the given number of bytes
+     * @param needed needed
+     */
+    void ensureCapacity(int needed) {
+        if (length + needed > bytes.length) {
+            byte[] grown = new byte[Math.max(bytes.length * 2, length + needed)];
+
+            System.arraycopy(bytes, 0, grown, 0, length);
+
+            bytes = grown;
+            view = ByteBuffer.wrap(bytes);
+        }
+    }
+
+
+    /**
+     * Writes a single byte
+     * @param b byte
+     */
+    void write(int b) {
+        ensureCapacity(1);
+
+        bytes[length++] = (byte) b;
+    }
+
+
+    /**
+     * Writes pre-encoded bytes
+     * @param constant constant
+     */
+    void write(byte[] constant) {
+        ensureCapacity(constant.length);
+
+        System.arraycopy(constant, 0, bytes, length, constant.length);
+
+        length += constant.length;
+    }
+
+
+    /**
+     * Writes a string as UTF-8 without any escaping
+     * @param value value
+     */
+    void writeUTF8(String value) {
+        int count = value.length();
+
+        // A char takes at most three bytes, surrogate pairs take four for two chars
+        ensureCapacity(count * 3);
+
+        for (int i = 0; i < count; i++) {
+            i = putUTF8(value, i);
+        }
+    }
+
+
+    /**
+     * Writes the char at the given index as UTF-8 without checking the capacity. Unpaired surrogates are replaced with '?' like String.getBytes does.
+     * @param value string the char belongs to
+     * @param i index of the char
+     * @return int index of the last consumed char
+     */
+    int putUTF8(String value, int i) {
+        char c = value.charAt(i);
+
+        if (c < 0x80) {
+            bytes[length++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[length++] = (byte) (0xC0 | (c >> 6));
+            bytes[length++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(++i));
+
+            bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+            bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            bytes[length++] = '?';
+        } else {
+            bytes[length++] = (byte) (0xE0 | (c >> 12));
+            bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[length++] = (byte) (0x80 | (c & 0x3F));
+        }
+
+        return i;
+    }
+}
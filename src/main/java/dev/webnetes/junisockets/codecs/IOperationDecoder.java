@@ -0,0 +1,21 @@
+package dev.webnetes.junisockets.codecs;
+
+import dev.webnetes.junisockets.errors.MalformedOperation;
+import dev.webnetes.junisockets.errors.UnimplementedOperation;
+import dev.webnetes.junisockets.operations.InboundOperation;
+
+/**
+ * Defines decoder of operations sent by clients
+ */
+public interface IOperationDecoder {
+
+    /**
+     * Decodes a message into an operation
+     * @param message message
+     * @return InboundOperation
+     * @throws MalformedOperation Thrown if the message is not a valid operation
+     * @throws UnimplementedOperation Thrown if the opcode of the message is unknown
+     */
+    InboundOperation decode(String message) throws MalformedOperation, UnimplementedOperation;
+
+}
@@ -0,0 +1,93 @@
+package dev.webnetes.junisockets.codecs;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import dev.webnetes.junisockets.errors.MalformedOperation;
+import dev.webnetes.junisockets.errors.UnimplementedOperation;
+import dev.webnetes.junisockets.operations.ESignalingOperationCode;
+import dev.webnetes.junisockets.operations.InboundOperation;
+
+/**
+ * Decoder which parses messages into a json-simple tree first and copies the fields out of it
+ */
+public class JSONSimpleDecoder implements IOperationDecoder {
+
+    
+    /** 
+     * Decodes a message into an operation
+     * @param message message
+     * @return InboundOperation
+     * @throws MalformedOperation Thrown if the message is not a valid operation
+     * @throws UnimplementedOperation Thrown if the opcode of the message is unknown
+     */
+    public InboundOperation decode(String message) throws MalformedOperation, UnimplementedOperation {
+        Object jsonObj;
+
+        try {
+            jsonObj = new JSONParser().parse(message);
+        } catch (ParseException e) {
+            throw new MalformedOperation(e.toString());
+        }
+
+        if (!(jsonObj instanceof JSONObject)) {
+            throw new MalformedOperation("expected object");
+        }
+
+        JSONObject operation = (JSONObject) jsonObj;
+        InboundOperation inbound = new InboundOperation().setOpcode(ESignalingOperationCode.fromValue(String.valueOf(operation.get("opcode"))));
+
+        if (operation.get("data") == null) {
+            return inbound;
+        } else if (!(operation.get("data") instanceof JSONObject)) {
+            throw new MalformedOperation("expected object as data");
+        }
+
+        JSONObject data = (JSONObject) operation.get("data");
+
+        try {
+            inbound.setSubnet((String) data.get("subnet"))
+                    .setId((String) data.get("id"))
+                    .setAlias((String) data.get("alias"))
+                    .setRemoteAlias((String) data.get("remoteAlias"))
+                    .setClientConnectionId((String) data.get("clientConnectionId"))
+                    .setOffererId((String) data.get("offererId"))
+                    .setAnswererId((String) data.get("answererId"))
+                    .setOffer((String) data.get("offer"))
+                    .setAnswer((String) data.get("answer"))
+                    .setCandidate((String) data.get("candidate"))
+                    .setToken((String) data.get("token"));
+
+            for (Object remoteAlias : toArray(data.get("remoteAliases"))) {
+                inbound.addRemoteAlias((String) remoteAlias);
+            }
+
+            for (Object clientConnectionId : toArray(data.get("clientConnectionIds"))) {
+                inbound.addClientConnectionId((String) clientConnectionId);
+            }
+        } catch (ClassCastException e) {
+            throw new MalformedOperation("expected string as field of data");
+        }
+
+        return inbound;
+    }
+
+    
+    /** 
+     * Returns an array field of data, which is empty if it was not sent
+     * @param value value
+     * @return JSONArray
+     * @throws MalformedOperation Thrown if the value is not an array
+     */
+    private JSONArray toArray(Object value) throws MalformedOperation {
+        if (value == null) {
+            return new JSONArray();
+        } else if (!(value instanceof JSONArray)) {
+            throw new MalformedOperation("expected array as field of data");
+        }
+
+        return (JSONArray) value;
+    }
+}
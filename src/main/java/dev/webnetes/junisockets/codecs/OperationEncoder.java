@@ -0,0 +1,314 @@
+package dev.webnetes.junisockets.codecs;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.java_websocket.framing.TextFrame;
+
+import dev.webnetes.junisockets.operations.ESignalingOperationCode;
+import dev.webnetes.junisockets.operations.IAccept;
+import dev.webnetes.junisockets.operations.IAcknowledgement;
+import dev.webnetes.junisockets.operations.IAlias;
+import dev.webnetes.junisockets.operations.IAliases;
+import dev.webnetes.junisockets.operations.IAnswer;
+import dev.webnetes.junisockets.operations.ICandidate;
+import dev.webnetes.junisockets.operations.IGoodbye;
+import dev.webnetes.junisockets.operations.IGreeting;
+import dev.webnetes.junisockets.operations.IOffer;
+import dev.webnetes.junisockets.operations.IOperation;
+
+/**
+ * Encoder which writes operations as UTF-8 JSON directly into a reusable thread-local buffer.
+ * Keys are pre-encoded and values are escaped in place, so the output is byte-for-byte the same as getAsJSON without building a JSONObject.
+ */
+public class OperationEncoder {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL = bytes("null");
+    private static final byte[] TRUE = bytes("true");
+    private static final byte[] FALSE = bytes("false");
+
+    private static final byte[] DATA_ID = bytes("{\"data\":{\"id\":");
+    private static final byte[] DATA_OFFERER_ID = bytes("{\"data\":{\"offererId\":");
+    private static final byte[] DATA_BOUND_ALIAS = bytes("{\"data\":{\"boundAlias\":");
+    private static final byte[] DATA_ALIASES = bytes("{\"data\":{\"aliases\":[");
+    private static final byte[] ID = bytes("{\"id\":");
+    private static final byte[] ALIAS = bytes(",\"alias\":");
+    private static final byte[] SET = bytes(",\"set\":");
+    private static final byte[] CLIENT_CONNECTION_ID = bytes(",\"clientConnectionId\":");
+    private static final byte[] IS_CONNECTION_ALIAS = bytes(",\"isConnectionAlias\":true");
+    private static final byte[] REJECTED = bytes(",\"rejected\":");
+    private static final byte[] REASON = bytes(",\"reason\":");
+    private static final byte[] TOKEN = bytes(",\"token\":");
+    private static final byte[] ANSWERER_ID = bytes(",\"answererId\":");
+    private static final byte[] OFFER = bytes(",\"offer\":");
+    private static final byte[] ANSWER = bytes(",\"answer\":");
+    private static final byte[] CANDIDATE = bytes(",\"candidate\":");
+    private static final byte[] CLIENT_ALIAS = bytes(",\"clientAlias\":");
+
+    private static final byte[] ALIAS_OPCODE = opcode(ESignalingOperationCode.ALIAS);
+    private static final byte[] ACKNOWLEDGED_OPCODE = opcode(ESignalingOperationCode.ACKNOWLEDGED);
+    private static final byte[] GREETING_OPCODE = opcode(ESignalingOperationCode.GREETING);
+    private static final byte[] OFFER_OPCODE = opcode(ESignalingOperationCode.OFFER);
+    private static final byte[] ANSWER_OPCODE = opcode(ESignalingOperationCode.ANSWER);
+    private static final byte[] CANDIDATE_OPCODE = opcode(ESignalingOperationCode.CANDIDATE);
+    private static final byte[] ACCEPT_OPCODE = opcode(ESignalingOperationCode.ACCEPT);
+    private static final byte[] GOODBYE_OPCODE = opcode(ESignalingOperationCode.GOODBYE);
+    private static final byte[] ALIASES_OPCODE = bytes("]},\"opcode\":\"" + ESignalingOperationCode.ALIASES.getValue() + "\"}");
+
+    private static final ThreadLocal<EncodeBuffer> BUFFERS = ThreadLocal.withInitial(EncodeBuffer::new);
+
+
+    /**
+     * Encodes an operation into the buffer of the current thread.
+     * The returned buffer is only valid until the next call on the same thread, so it has to be written out or copied before that.
+     * @param operation operation
+     * @return ByteBuffer
+     * @throws IllegalArgumentException Thrown if the operation can not be sent by the server
+     */
+    public ByteBuffer encode(IOperation operation) {
+        EncodeBuffer buffer = BUFFERS.get();
+
+        buffer.clear();
+
+        if (operation instanceof IAlias) {
+            buffer.write(DATA_ID);
+            writeAlias(buffer, (IAlias) operation);
+            buffer.write(ALIAS_OPCODE);
+        } else if (operation instanceof IAliases) {
+            buffer.write(DATA_ALIASES);
+
+            boolean first = true;
+
+            for (IAlias alias : ((IAliases) operation).getAliases()) {
+                if (!first) {
+                    buffer.write(',');
+                }
+
+                buffer.write(ID);
+                writeAlias(buffer, alias);
+                buffer.write('}');
+
+                first = false;
+            }
+
+            buffer.write(ALIASES_OPCODE);
+        } else if (operation instanceof IAcknowledgement) {
+            IAcknowledgement acknowledgement = (IAcknowledgement) operation;
+
+            buffer.write(DATA_ID);
+            writeString(buffer, acknowledgement.getId());
+            buffer.write(REJECTED);
+            buffer.write(acknowledgement.getRejected() ? TRUE : FALSE);
+
+            if (acknowledgement.getReason() != null) {
+                buffer.write(REASON);
+                writeString(buffer, acknowledgement.getReason());
+            }
+
+            if (acknowledgement.getToken() != null) {
+                buffer.write(TOKEN);
+                writeString(buffer, acknowledgement.getToken());
+            }
+
+            buffer.write(ACKNOWLEDGED_OPCODE);
+        } else if (operation instanceof IGreeting) {
+            IGreeting greeting = (IGreeting) operation;
+
+            buffer.write(DATA_OFFERER_ID);
+            writeString(buffer, greeting.getOffererId());
+            buffer.write(ANSWERER_ID);
+            writeString(buffer, greeting.getAnswererId());
+            buffer.write(GREETING_OPCODE);
+        } else if (operation instanceof IOffer) {
+            IOffer offer = (IOffer) operation;
+
+            buffer.write(DATA_OFFERER_ID);
+            writeString(buffer, offer.getOffererId());
+            buffer.write(ANSWERER_ID);
+            writeString(buffer, offer.getAnswererId());
+            buffer.write(OFFER);
+            writeString(buffer, offer.getOffer());
+            buffer.write(OFFER_OPCODE);
+        } else if (operation instanceof IAnswer) {
+            IAnswer answer = (IAnswer) operation;
+
+            buffer.write(DATA_OFFERER_ID);
+            writeString(buffer, answer.getOffererId());
+            buffer.write(ANSWERER_ID);
+            writeString(buffer, answer.getAnswererId());
+            buffer.write(ANSWER);
+            writeString(buffer, answer.getAnswer());
+            buffer.write(ANSWER_OPCODE);
+        } else if (operation instanceof ICandidate) {
+            ICandidate candidate = (ICandidate) operation;
+
+            buffer.write(DATA_OFFERER_ID);
+            writeString(buffer, candidate.getOffererId());
+            buffer.write(ANSWERER_ID);
+            writeString(buffer, candidate.getAnswererId());
+            buffer.write(CANDIDATE);
+            writeString(buffer, candidate.getCandidate());
+            buffer.write(CANDIDATE_OPCODE);
+        } else if (operation instanceof IAccept) {
+            IAccept accept = (IAccept) operation;
+
+            buffer.write(DATA_BOUND_ALIAS);
+            writeString(buffer, accept.getBoundAlias());
+            buffer.write(CLIENT_ALIAS);
+            writeString(buffer, accept.getClientAlias());
+            buffer.write(ACCEPT_OPCODE);
+        } else if (operation instanceof IGoodbye) {
+            buffer.write(DATA_ID);
+            writeString(buffer, ((IGoodbye) operation).getId());
+            buffer.write(GOODBYE_OPCODE);
+        } else {
+            throw new IllegalArgumentException("can not encode " + operation.getOpCode());
+        }
+
+        return buffer.view();
+    }
+
+
+    /**
+     * Encodes an operation into a text frame. The frame shares the buffer of the current thread, so it has to be sent before the next call on the same thread.
+     * @param operation operation
+     * @return TextFrame
+     */
+    public TextFrame encodeFrame(IOperation operation) {
+        return toFrame(encode(operation));
+    }
+
+
+    /**
+     * Wraps an encoded operation into a text frame without copying it
+     * @param payload encoded operation
+     * @return TextFrame
+     */
+    public TextFrame toFrame(ByteBuffer payload) {
+        TextFrame frame = new TextFrame();
+
+        frame.setPayload(payload.duplicate());
+        frame.setFin(true);
+
+        return frame;
+    }
+
+
+    /**
+     * Writes the fields of an alias after its "id" key
+     * @param buffer buffer
+     * @param alias alias
+     */
+    private void writeAlias(EncodeBuffer buffer, IAlias alias) {
+        writeString(buffer, alias.getId());
+        buffer.write(ALIAS);
+        writeString(buffer, alias.getAlias());
+        buffer.write(SET);
+        buffer.write(alias.getSet() ? TRUE : FALSE);
+
+        if (alias.getClientConnectionId() != null) {
+            buffer.write(CLIENT_CONNECTION_ID);
+            writeString(buffer, alias.getClientConnectionId());
+        }
+
+        if (alias.getIsConnectionAlias()) {
+            buffer.write(IS_CONNECTION_ALIAS);
+        }
+    }
+
+
+    /**
+     * Returns the UTF-8 bytes of a constant
+     * @param constant constant
+     * @return byte[]
+     */
+    private static byte[] bytes(String constant) {
+        return constant.getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Returns the pre-encoded end of an operation with the given opcode
+     * @param opcode opcode
+     * @return byte[]
+     */
+    private static byte[] opcode(ESignalingOperationCode opcode) {
+        return bytes("},\"opcode\":\"" + opcode.getValue() + "\"}");
+    }
+
+
+    /**
+     * Writes a quoted string with the same escaping as json-simple
+     * @param buffer buffer
+     * @param value value
+     */
+    private void writeString(EncodeBuffer buffer, String value) {
+        if (value == null) {
+            buffer.write(NULL);
+
+            return;
+        }
+
+        int count = value.length();
+
+        // Every char takes at most six bytes as an escape, quotes included
+        buffer.ensureCapacity(count * 6 + 2);
+
+        byte[] out = buffer.bytes;
+
+        out[buffer.length++] = '"';
+
+        for (int i = 0; i < count; i++) {
+            char c = value.charAt(i);
+            int pos = buffer.length;
+
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    out[pos++] = '\\';
+                    out[pos++] = (byte) c;
+                    break;
+                case '\b':
+                    out[pos++] = '\\';
+                    out[pos++] = 'b';
+                    break;
+                case '\f':
+                    out[pos++] = '\\';
+                    out[pos++] = 'f';
+                    break;
+                case '\n':
+                    out[pos++] = '\\';
+                    out[pos++] = 'n';
+                    break;
+                case '\r':
+                    out[pos++] = '\\';
+                    out[pos++] = 'r';
+                    break;
+                case '\t':
+                    out[pos++] = '\\';
+                    out[pos++] = 't';
+                    break;
+                default:
+                    if (c <= '\u001F' || (c >= '\u007F' && c <= '\u009F') || (c >= '\u2000' && c <= '\u20FF')) {
+                        out[pos++] = '\\';
+                        out[pos++] = 'u';
+                        out[pos++] = HEX[(c >> 12) & 0xF];
+                        out[pos++] = HEX[(c >> 8) & 0xF];
+                        out[pos++] = HEX[(c >> 4) & 0xF];
+                        out[pos++] = HEX[c & 0xF];
+                    } else {
+                        i = buffer.putUTF8(value, i);
+                        pos = buffer.length;
+                    }
+                    break;
+            }
+
+            buffer.length = pos;
+        }
+
+        out[buffer.length++] = '"';
+    }
+}
@@ -0,0 +1,497 @@
+package dev.webnetes.junisockets.codecs;
+
+import dev.webnetes.junisockets.errors.MalformedOperation;
+import dev.webnetes.junisockets.errors.UnimplementedOperation;
+import dev.webnetes.junisockets.operations.ESignalingOperationCode;
+import dev.webnetes.junisockets.operations.InboundOperation;
+
+/**
+ * Decoder which reads the opcode and the known data fields in a single pass straight into an operation, without building an intermediate tree.
+ * Keys and opcodes are matched in place, so the only allocations are the operation and the string values of the known fields.
+ */
+public class StreamingDecoder implements IOperationDecoder {
+
+    private static final int UNKNOWN = -1;
+    private static final int SUBNET = 0;
+    private static final int ID = 1;
+    private static final int ALIAS = 2;
+    private static final int REMOTE_ALIAS = 3;
+    private static final int CLIENT_CONNECTION_ID = 4;
+    private static final int OFFERER_ID = 5;
+    private static final int ANSWERER_ID = 6;
+    private static final int OFFER = 7;
+    private static final int ANSWER = 8;
+    private static final int CANDIDATE = 9;
+    private static final int TOKEN = 10;
+    private static final int REMOTE_ALIASES = 11;
+    private static final int CLIENT_CONNECTION_IDS = 12;
+
+    // Fields from REMOTE_ALIASES on are arrays of strings
+    private static final String[] FIELDS = { "subnet", "id", "alias", "remoteAlias", "clientConnectionId", "offererId", "answererId", "offer", "answer", "candidate", "token", "remoteAliases", "clientConnectionIds" };
+    private static final ESignalingOperationCode[] OPCODES = ESignalingOperationCode.values();
+
+
+    /**
+     * Decodes a message into an operation
+     * @param message message
+     * @return InboundOperation
+     * @throws MalformedOperation Thrown if the message is not a valid operation
+     * @throws UnimplementedOperation Thrown if the opcode of the message is unknown
+     */
+    public InboundOperation decode(String message) throws MalformedOperation, UnimplementedOperation {
+        InboundOperation operation = new InboundOperation();
+        ESignalingOperationCode opcode = null;
+
+        int pos = expect(message, skipWhitespace(message, 0), '{');
+
+        pos = skipWhitespace(message, pos);
+
+        if (peek(message, pos) == '}') {
+            pos++;
+        } else {
+            while (true) {
+                pos = expect(message, pos, '"');
+
+                int keyEnd = scanString(message, pos);
+                int keyStart = pos;
+
+                pos = skipWhitespace(message, expect(message, skipWhitespace(message, keyEnd + 1), ':'));
+
+                if (isKey(message, keyStart, keyEnd, "opcode")) {
+                    if (peek(message, pos) != '"') {
+                        throw new UnimplementedOperation(null);
+                    }
+
+                    int valueEnd = scanString(message, pos + 1);
+
+                    opcode = toOpcode(message, pos + 1, valueEnd);
+                    pos = valueEnd + 1;
+                } else if (isKey(message, keyStart, keyEnd, "data")) {
+                    pos = readData(message, pos, operation);
+                } else {
+                    pos = skipValue(message, pos);
+                }
+
+                pos = skipWhitespace(message, pos);
+
+                if (peek(message, pos) == ',') {
+                    pos = skipWhitespace(message, pos + 1);
+                } else {
+                    pos = expect(message, pos, '}');
+
+                    break;
+                }
+            }
+        }
+
+        if (skipWhitespace(message, pos) != message.length()) {
+            throw new MalformedOperation("unexpected content after operation");
+        }
+
+        if (opcode == null) {
+            throw new UnimplementedOperation(null);
+        }
+
+        return operation.setOpcode(opcode);
+    }
+
+
+    /**
+     * Reads the data object into the operation and skips unknown fields
+     * @param message message
+     * @param pos position of the value
+     * @param operation operation
+     * @return int position after the value
+     * @throws MalformedOperation Thrown if the data is not an object of strings
+     */
+    private int readData(String message, int pos, InboundOperation operation) throws MalformedOperation {
+        if (message.startsWith("null", pos)) {
+            return pos + 4;
+        }
+
+        pos = skipWhitespace(message, expect(message, pos, '{'));
+
+        if (peek(message, pos) == '}') {
+            return pos + 1;
+        }
+
+        while (true) {
+            pos = expect(message, pos, '"');
+
+            int keyEnd = scanString(message, pos);
+            int field = toField(message, pos, keyEnd);
+
+            pos = skipWhitespace(message, expect(message, skipWhitespace(message, keyEnd + 1), ':'));
+
+            if (field == UNKNOWN) {
+                pos = skipValue(message, pos);
+            } else if (message.startsWith("null", pos)) {
+                pos += 4;
+            } else if (field >= REMOTE_ALIASES) {
+                pos = readArray(message, pos, operation, field);
+            } else if (peek(message, pos) == '"') {
+                int valueEnd = scanString(message, pos + 1);
+
+                setField(operation, field, readString(message, pos + 1, valueEnd));
+                pos = valueEnd + 1;
+            } else {
+                throw new MalformedOperation("expected string as " + FIELDS[field]);
+            }
+
+            pos = skipWhitespace(message, pos);
+
+            if (peek(message, pos) == ',') {
+                pos = skipWhitespace(message, pos + 1);
+            } else {
+                return expect(message, pos, '}');
+            }
+        }
+    }
+
+
+    /**
+     * Reads an array of strings into a known field of the operation
+     * @param message message
+     * @param pos position of the value
+     * @param operation operation
+     * @param field field
+     * @return int position after the value
+     * @throws MalformedOperation Thrown if the value is not an array of strings
+     */
+    private int readArray(String message, int pos, InboundOperation operation, int field) throws MalformedOperation {
+        if (peek(message, pos) != '[') {
+            throw new MalformedOperation("expected array as " + FIELDS[field]);
+        }
+
+        pos = skipWhitespace(message, pos + 1);
+
+        if (peek(message, pos) == ']') {
+            return pos + 1;
+        }
+
+        while (true) {
+            if (peek(message, pos) != '"') {
+                throw new MalformedOperation("expected string in " + FIELDS[field]);
+            }
+
+            int valueEnd = scanString(message, pos + 1);
+
+            setField(operation, field, readString(message, pos + 1, valueEnd));
+            pos = skipWhitespace(message, valueEnd + 1);
+
+            if (peek(message, pos) == ',') {
+                pos = skipWhitespace(message, pos + 1);
+            } else {
+                return expect(message, pos, ']');
+            }
+        }
+    }
+
+
+    /**
+     * Sets a known field of the operation
+     * @param operation operation
+     * @param field field
+     * @param value value
+     */
+    private void setField(InboundOperation operation, int field, String value) {
+        switch (field) {
+            case SUBNET:
+                operation.setSubnet(value);
+                break;
+            case ID:
+                operation.setId(value);
+                break;
+            case ALIAS:
+                operation.setAlias(value);
+                break;
+            case REMOTE_ALIAS:
+                operation.setRemoteAlias(value);
+                break;
+            case CLIENT_CONNECTION_ID:
+                operation.setClientConnectionId(value);
+                break;
+            case OFFERER_ID:
+                operation.setOffererId(value);
+                break;
+            case ANSWERER_ID:
+                operation.setAnswererId(value);
+                break;
+            case OFFER:
+                operation.setOffer(value);
+                break;
+            case ANSWER:
+                operation.setAnswer(value);
+                break;
+            case CANDIDATE:
+                operation.setCandidate(value);
+                break;
+            case TOKEN:
+                operation.setToken(value);
+                break;
+            case REMOTE_ALIASES:
+                operation.addRemoteAlias(value);
+                break;
+            case CLIENT_CONNECTION_IDS:
+                operation.addClientConnectionId(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+
+    /**
+     * Matches a key against the known fields without copying it
+     * @param message message
+     * @param start start of the key
+     * @param end position of the closing quote
+     * @return int field or UNKNOWN
+     */
+    private int toField(String message, int start, int end) {
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (isKey(message, start, end, FIELDS[i])) {
+                return i;
+            }
+        }
+
+        return UNKNOWN;
+    }
+
+
+    /**
+     * Matches an opcode against the known opcodes without copying it
+     * @param message message
+     * @param start start of the opcode
+     * @param end position of the closing quote
+     * @return ESignalingOperationCode
+     * @throws MalformedOperation Thrown if the opcode is not a valid string
+     * @throws UnimplementedOperation Thrown if the opcode is unknown
+     */
+    private ESignalingOperationCode toOpcode(String message, int start, int end) throws MalformedOperation, UnimplementedOperation {
+        for (ESignalingOperationCode opcode : OPCODES) {
+            if (isKey(message, start, end, opcode.getValue())) {
+                return opcode;
+            }
+        }
+
+        // Escaped or unknown opcodes take the slow path
+        return ESignalingOperationCode.fromValue(readString(message, start, end));
+    }
+
+
+    /**
+     * Returns true if the string between start and end is exactly the given key
+     * @param message message
+     * @param start start of the string
+     * @param end position of the closing quote
+     * @param key key
+     * @return boolean
+     */
+    private boolean isKey(String message, int start, int end, String key) {
+        return end - start == key.length() && message.regionMatches(start, key, 0, key.length());
+    }
+
+
+    /**
+     * Returns the position of the closing quote of a string
+     * @param message message
+     * @param pos position after the opening quote
+     * @return int
+     * @throws MalformedOperation Thrown if the string is not terminated
+     */
+    private int scanString(String message, int pos) throws MalformedOperation {
+        for (int i = pos; i < message.length(); i++) {
+            char c = message.charAt(i);
+
+            if (c == '"') {
+                return i;
+            } else if (c == '\\') {
+                i++;
+            }
+        }
+
+        throw new MalformedOperation("unterminated string");
+    }
+
+
+    /**
+     * Returns the value of a string, resolving escapes if there are any
+     * @param message message
+     * @param start position after the opening quote
+     * @param end position of the closing quote
+     * @return String
+     * @throws MalformedOperation Thrown if an escape is invalid
+     */
+    private String readString(String message, int start, int end) throws MalformedOperation {
+        int escape = message.indexOf('\\', start);
+
+        if (escape == -1 || escape >= end) {
+            return message.substring(start, end);
+        }
+
+        StringBuilder builder = new StringBuilder(end - start);
+        int i = start;
+
+        while (i < end) {
+            // Copy the run up to the next escape in one go
+            escape = message.indexOf('\\', i);
+
+            if (escape == -1 || escape >= end) {
+                builder.append(message, i, end);
+
+                break;
+            }
+
+            builder.append(message, i, escape);
+
+            i = escape + 1;
+
+            char escaped = message.charAt(i);
+
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    builder.append(escaped);
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 >= end) {
+                        throw new MalformedOperation("invalid unicode escape");
+                    }
+
+                    int code = 0;
+
+                    for (int j = i + 1; j <= i + 4; j++) {
+                        int digit = Character.digit(message.charAt(j), 16);
+
+                        if (digit == -1) {
+                            throw new MalformedOperation("invalid unicode escape");
+                        }
+
+                        code = code * 16 + digit;
+                    }
+
+                    builder.append((char) code);
+
+                    i += 4;
+                    break;
+                default:
+                    throw new MalformedOperation("invalid escape");
+            }
+
+            i++;
+        }
+
+        return builder.toString();
+    }
+
+
+    /**
+     * Skips any value
+     * @param message message
+     * @param pos position of the value
+     * @return int position after the value
+     * @throws MalformedOperation Thrown if the value is not terminated
+     */
+    private int skipValue(String message, int pos) throws MalformedOperation {
+        char c = peek(message, pos);
+
+        if (c == '"') {
+            return scanString(message, pos + 1) + 1;
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+
+            for (int i = pos; i < message.length(); i++) {
+                char current = message.charAt(i);
+
+                if (current == '"') {
+                    i = scanString(message, i + 1);
+                } else if (current == '{' || current == '[') {
+                    depth++;
+                } else if ((current == '}' || current == ']') && --depth == 0) {
+                    return i + 1;
+                }
+            }
+
+            throw new MalformedOperation("unterminated value");
+        } else {
+            // Numbers and literals end at the next delimiter
+            int i = pos;
+
+            while (i < message.length() && ",}] \t\r\n".indexOf(message.charAt(i)) == -1) {
+                i++;
+            }
+
+            if (i == pos) {
+                throw new MalformedOperation("expected value");
+            }
+
+            return i;
+        }
+    }
+
+
+    /**
+     * Skips whitespace
+     * @param message message
+     * @param pos pos
+     * @return int position of the next non-whitespace character
+     */
+    private int skipWhitespace(String message, int pos) {
+        while (pos < message.length()) {
+            char c = message.charAt(pos);
+
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                break;
+            }
+
+            pos++;
+        }
+
+        return pos;
+    }
+
+
+    /**
+     * Returns the character at the position or 0 at the end of the message
+     * @param message message
+     * @param pos pos
+     * @return char
+     */
+    private char peek(String message, int pos) {
+        return pos < message.length() ? message.charAt(pos) : 0;
+    }
+
+
+    /**
+     * Checks that the character at the position is the expected one
+     * @param message message
+     * @param pos pos
+     * @param expected expected character
+     * @return int position after the character
+     * @throws MalformedOperation Thrown if another character was found
+     */
+    private int expect(String message, int pos, char expected) throws MalformedOperation {
+        if (peek(message, pos) != expected) {
+            throw new MalformedOperation("expected '" + expected + "' at " + pos);
+        }
+
+        return pos + 1;
+    }
+}
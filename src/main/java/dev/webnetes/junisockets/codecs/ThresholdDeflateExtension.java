@@ -0,0 +1,140 @@
+package dev.webnetes.junisockets.codecs;
+
+import java.nio.ByteBuffer;
+
+import org.java_websocket.enums.Opcode;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.exceptions.InvalidFrameException;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.framing.BinaryFrame;
+import org.java_websocket.framing.DataFrame;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.framing.FramedataImpl1;
+import org.java_websocket.framing.TextFrame;
+
+/**
+ * Per-message-deflate extension which only compresses messages of at least the threshold size, so small candidates and aliases do not pay the compression CPU.
+ * Since compression is decided per message, incoming messages are only inflated if their RSV1 bit is set.
+ */
+public class ThresholdDeflateExtension extends PerMessageDeflateExtension {
+
+    private int threshold;
+    private CompressionMetrics metrics;
+    private boolean inflating;
+
+    /**
+     * Constructor ThresholdDeflateExtension
+     * @param threshold minimum payload size in bytes for compression
+     * @param metrics metrics shared by the extensions of all connections
+     */
+    public ThresholdDeflateExtension(int threshold, CompressionMetrics metrics) {
+        this.threshold = threshold;
+        this.metrics = metrics;
+    }
+
+
+    /**
+     * Compresses the frame if it is a message of at least the threshold size. Frames of one connection may be sent from several threads, so compression is serialized.
+     * @param frame frame
+     */
+    @Override
+    public synchronized void encodeFrame(Framedata frame) {
+        if (!(frame instanceof DataFrame)) {
+            return;
+        }
+
+        ByteBuffer payload = frame.getPayloadData();
+        int before = payload.remaining();
+
+        if (before < threshold) {
+            metrics.recordSkipped();
+
+            return;
+        }
+
+        // The deflater reads the whole backing array, so shared or offset buffers have to be trimmed first
+        if (!payload.hasArray() || payload.arrayOffset() != 0 || payload.position() != 0 || payload.limit() != payload.array().length) {
+            ByteBuffer trimmed = ByteBuffer.allocate(before);
+
+            trimmed.put(payload.duplicate()).flip();
+
+            ((FramedataImpl1) frame).setPayload(trimmed);
+        }
+
+        long start = System.nanoTime();
+
+        super.encodeFrame(frame);
+
+        metrics.recordCompressed(before, frame.getPayloadData().remaining(), System.nanoTime() - start);
+    }
+
+
+    /**
+     * Inflates the frame if it belongs to a compressed message
+     * @param frame frame
+     * @throws InvalidDataException Thrown if the compressed data is invalid
+     */
+    @Override
+    public void decodeFrame(Framedata frame) throws InvalidDataException {
+        if (frame instanceof DataFrame) {
+            // Continuation frames belong to the message their first frame started
+            boolean compressed = frame.getOpcode() == Opcode.CONTINUOUS ? inflating : frame.isRSV1();
+
+            inflating = compressed && !frame.isFin();
+
+            if (!compressed) {
+                return;
+            }
+        }
+
+        super.decodeFrame(frame);
+    }
+
+
+    /**
+     * Accepts uncompressed messages next to compressed ones
+     * @param frame frame
+     * @throws InvalidDataException Thrown if reserved bits other than RSV1 are set
+     */
+    @Override
+    public void isFrameValid(Framedata frame) throws InvalidDataException {
+        if ((frame instanceof TextFrame || frame instanceof BinaryFrame) && !frame.isRSV1()) {
+            if (frame.isRSV2() || frame.isRSV3()) {
+                throw new InvalidFrameException("bad rsv RSV2: " + frame.isRSV2() + " RSV3: " + frame.isRSV3());
+            }
+
+            return;
+        }
+
+        super.isFrameValid(frame);
+    }
+
+
+    /**
+     * Returns a new extension with the same threshold and metrics for the next connection
+     * @return IExtension
+     */
+    @Override
+    public IExtension copyInstance() {
+        return new ThresholdDeflateExtension(threshold, metrics);
+    }
+
+
+    /**
+     * Returns the minimum payload size in bytes for compression
+     * @return int
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+
+    /**
+     * Returns the metrics shared by the extensions of all connections
+     * @return CompressionMetrics
+     */
+    public CompressionMetrics getMetrics() {
+        return metrics;
+    }
+}
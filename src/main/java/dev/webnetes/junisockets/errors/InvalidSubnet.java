@@ -0,0 +1,20 @@
+package dev.webnetes.junisockets.errors;
+
+/**
+ * Invalid subnet
+ */
+public class InvalidSubnet extends Exception {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 5327780614299057461L;
+
+    /**
+     * Constructor InvalidSubnet
+     */
+    public InvalidSubnet() {
+        super("invalid subnet");
+    }
+
+}
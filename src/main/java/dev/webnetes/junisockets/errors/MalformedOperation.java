@@ -0,0 +1,21 @@
+package dev.webnetes.junisockets.errors;
+
+/**
+ * Malformed operation
+ */
+public class MalformedOperation extends Exception {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = 4190836472512740563L;
+
+    /**
+     * Constructor MalformedOperation
+     * @param reason what is wrong with the operation
+     */
+    public MalformedOperation(String reason) {
+        super("malformed operation, " + reason);
+    }
+
+}
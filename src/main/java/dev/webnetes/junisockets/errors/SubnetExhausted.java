@@ -0,0 +1,20 @@
+package dev.webnetes.junisockets.errors;
+
+/**
+ * Subnet exhausted
+ */
+public class SubnetExhausted extends Exception {
+
+    /**
+     *
+     */
+    private static final long serialVersionUID = -2716349051824763398L;
+
+    /**
+     * Constructor SubnetExhausted
+     */
+    public SubnetExhausted() {
+        super("subnet exhausted");
+    }
+
+}
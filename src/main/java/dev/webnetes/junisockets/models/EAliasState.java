@@ -0,0 +1,9 @@
+package dev.webnetes.junisockets.models;
+
+/**
+ * State of an alias. An alias starts out BOUND and may move on to ACCEPTING; closing it removes it from the registry.
+ */
+public enum EAliasState {
+    BOUND,
+    ACCEPTING;
+}
@@ -1,20 +1,23 @@
 package dev.webnetes.junisockets.models;
 
 /**
- * MAlias
+ * MAlias. Immutable, every transition of an alias creates a new value with a new generation.
  */
 public class MAlias {
     private String id;
-    private boolean accepting;
+    private EAliasState state;
+    private long generation;
 
     /**
      * Constructor for MAlias
      * @param id id 
-     * @param accepting accepting
+     * @param state state
+     * @param generation generation, unique for every value of any alias
      */
-    public MAlias(String id, boolean accepting) {
+    public MAlias(String id, EAliasState state, long generation) {
         this.id = id;
-        this.accepting = accepting;
+        this.state = state;
+        this.generation = generation;
     }
     
 
@@ -27,11 +30,29 @@ public class MAlias {
     }
 
     
+    /** 
+     * Returns state
+     * @return EAliasState
+     */
+    public EAliasState getState() {
+        return state;
+    }
+
+    
     /** 
      * Returns accepting
      * @return boolean
      */
     public boolean getAccepting() {
-        return accepting;
+        return state == EAliasState.ACCEPTING;
+    }
+
+    
+    /** 
+     * Returns generation
+     * @return long
+     */
+    public long getGeneration() {
+        return generation;
     }
 }
@@ -12,6 +12,8 @@ public class Acknowledgement implements IAcknowledgement {
     private ESignalingOperationCode opcode = ESignalingOperationCode.ACKNOWLEDGED;
     private String id;
     private boolean rejected;
+    private String reason;
+    private String token;
 
     /**
      * Constructor Acknowledgement
@@ -19,8 +21,31 @@ public class Acknowledgement implements IAcknowledgement {
      * @param rejected rejected
      */
     public Acknowledgement(String id, boolean rejected) {
+        this(id, rejected, null);
+    } 
+
+    /**
+     * Constructor Acknowledgement
+     * @param id id
+     * @param rejected rejected
+     * @param reason why the knock was rejected, or null
+     */
+    public Acknowledgement(String id, boolean rejected, String reason) {
+        this(id, rejected, reason, null);
+    } 
+
+    /**
+     * Constructor Acknowledgement
+     * @param id id
+     * @param rejected rejected
+     * @param reason why the knock was rejected, or null
+     * @param token token to reclaim the id after a restart, or null
+     */
+    public Acknowledgement(String id, boolean rejected, String reason, String token) {
         this.id = id;
         this.rejected = rejected;
+        this.reason = reason;
+        this.token = token;
     } 
 
     
@@ -42,6 +67,24 @@ public class Acknowledgement implements IAcknowledgement {
     }
 
     
+    /** 
+     * Returns reason
+     * @return String, or null if no reason was given
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    
+    /** 
+     * Returns token
+     * @return String, or null if the id can not be reclaimed
+     */
+    public String getToken() {
+        return token;
+    }
+
+    
     /** 
      * Returns operation as JSON. Warnings are suppressed because there are unavoidable ones when using json-simple in this case.
      * @param operationObject operation
@@ -59,6 +102,14 @@ public class Acknowledgement implements IAcknowledgement {
             m1.put("id", (String) operation.getId());
             m1.put("rejected", operation.getRejected());
 
+            if (operation.getReason() != null) {
+                m1.put("reason", operation.getReason());
+            }
+
+            if (operation.getToken() != null) {
+                m1.put("token", operation.getToken());
+            }
+
             obj.put("data", m1);
             obj.put("opcode", operation.opcode.getValue());
 
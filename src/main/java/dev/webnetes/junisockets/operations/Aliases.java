@@ -0,0 +1,85 @@
+package dev.webnetes.junisockets.operations;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Aliases
+ */
+public class Aliases implements IAliases {
+    private ESignalingOperationCode opcode = ESignalingOperationCode.ALIASES;
+    private List<IAlias> aliases;
+
+    /**
+     * Constructor Aliases
+     * @param aliases aliases, in the order they changed
+     */
+    public Aliases(List<IAlias> aliases) {
+        this.aliases = aliases;
+    }
+
+    
+    /** 
+     * Returns aliases
+     * @return List<IAlias>
+     */
+    public List<IAlias> getAliases() {
+        return aliases;
+    }
+
+    
+    /** 
+     * Returns operation as JSON. Warnings are suppressed because there are unavoidable ones when using json-simple in this case.
+     * @param operationObject operation
+     * @return String
+     */
+    @SuppressWarnings("unchecked")
+    public String getAsJSON(Object operationObject) {
+
+        Aliases operation = (Aliases) operationObject;
+
+        JSONObject obj = new JSONObject();
+        JSONArray array = new JSONArray();
+        String jsonText;
+
+        for (IAlias alias : operation.getAliases()) {
+            Map<Object, Object> m2 = new LinkedHashMap<Object, Object>();
+            m2.put("id", alias.getId());
+            m2.put("alias", alias.getAlias());
+            m2.put("set", alias.getSet());
+
+            if (alias.getClientConnectionId() != null) {
+                m2.put("clientConnectionId", alias.getClientConnectionId());
+            }
+
+            if (alias.getIsConnectionAlias()) {
+                m2.put("isConnectionAlias", alias.getIsConnectionAlias());
+            }
+
+            array.add(m2);
+        }
+
+        Map<Object, Object> m1 = new LinkedHashMap<Object, Object>();
+        m1.put("aliases", array);
+
+        obj.put("data", m1);
+        obj.put("opcode", operation.opcode.getValue());
+
+        jsonText = obj.toString();
+
+        return jsonText;
+    }
+
+    
+    /** 
+     * Returns opcode
+     * @return String
+     */
+    public String getOpCode() {
+        return opcode.toString();
+    }
+}
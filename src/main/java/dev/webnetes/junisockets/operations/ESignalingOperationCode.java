@@ -1,31 +1,51 @@
 package dev.webnetes.junisockets.operations;
 
+import java.util.HashMap;
+
+import dev.webnetes.junisockets.errors.UnimplementedOperation;
+
 /**
  * ESignalingOperationCode
  */
 public enum ESignalingOperationCode { 
-    GOODBYE("goodbye"),
-    KNOCK("knock"),
-    ACKNOWLEDGED("acknowledged"),
-    GREETING("greeting"),
-    OFFER("offer"),
-    ANSWER("answer"),
-    CANDIDATE("candidate"),
-    BIND("bind"),
-    ACCEPTING("accepting"),
-    ALIAS("alias"),
-    SHUTDOWN("shutdown"),
-    CONNECT("connect"),
-    ACCEPT("accept");
+    GOODBYE("goodbye", 0),
+    KNOCK("knock", 1),
+    ACKNOWLEDGED("acknowledged", 2),
+    GREETING("greeting", 3),
+    OFFER("offer", 4),
+    ANSWER("answer", 5),
+    CANDIDATE("candidate", 6),
+    BIND("bind", 7),
+    ACCEPTING("accepting", 8),
+    ALIAS("alias", 9),
+    SHUTDOWN("shutdown", 10),
+    CONNECT("connect", 11),
+    ACCEPT("accept", 12),
+    SUBSCRIBE("subscribe", 13),
+    UNSUBSCRIBE("unsubscribe", 14),
+    ALIASES("aliases", 15);
+
+    private static final HashMap<String, ESignalingOperationCode> BY_VALUE = new HashMap<String, ESignalingOperationCode>();
+    private static final ESignalingOperationCode[] BY_CODE = new ESignalingOperationCode[256];
+
+    static {
+        for (ESignalingOperationCode opcode : values()) {
+            BY_VALUE.put(opcode.getValue(), opcode);
+            BY_CODE[opcode.getCode()] = opcode;
+        }
+    }
 
     private String value;
+    private int code;
 
     /**
      * Constructor ESignalingOperationCode
      * @param value value
+     * @param code code in the binary protocol, must never change once released
      */
-    private ESignalingOperationCode(String value) {
+    private ESignalingOperationCode(String value, int code) {
         this.value = value;
+        this.code = code;
     }    
 
     /**
@@ -35,4 +55,44 @@ public enum ESignalingOperationCode {
     public String getValue() {
         return value;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the one-byte code of the opcode in the binary protocol
+     * @return int
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the opcode with the given value
+     * @param value value, e.g. "knock"
+     * @return ESignalingOperationCode
+     * @throws UnimplementedOperation Thrown if there is no opcode with the given value
+     */
+    public static ESignalingOperationCode fromValue(String value) throws UnimplementedOperation {
+        ESignalingOperationCode opcode = BY_VALUE.get(value);
+
+        if (opcode == null) {
+            throw new UnimplementedOperation(value);
+        }
+
+        return opcode;
+    }
+
+    /**
+     * Returns the opcode with the given code
+     * @param code code, e.g. 1 for knock
+     * @return ESignalingOperationCode
+     * @throws UnimplementedOperation Thrown if there is no opcode with the given code
+     */
+    public static ESignalingOperationCode fromCode(int code) throws UnimplementedOperation {
+        ESignalingOperationCode opcode = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+
+        if (opcode == null) {
+            throw new UnimplementedOperation(String.valueOf(code));
+        }
+
+        return opcode;
+    }
+}
@@ -16,5 +16,17 @@ public interface IAcknowledgement extends IOperation {
      * @return boolean
      */
     boolean getRejected();
+
+    /**
+     * Returns why the knock was rejected
+     * @return String, or null if no reason was given
+     */
+    String getReason();
+
+    /**
+     * Returns the token to reclaim the id with after a restart
+     * @return String, or null if the id can not be reclaimed
+     */
+    String getToken();
     
 }
@@ -0,0 +1,16 @@
+package dev.webnetes.junisockets.operations;
+
+import java.util.List;
+
+/**
+ * Defines aliases operation, several alias changes in one message
+ */
+public interface IAliases extends IOperation {
+   
+    /**
+     * Returns aliases
+     * @return List<IAlias>
+     */
+    List<IAlias> getAliases();
+
+}
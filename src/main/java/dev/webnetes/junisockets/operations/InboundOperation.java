@@ -0,0 +1,354 @@
+package dev.webnetes.junisockets.operations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Operation sent by a client. Holds the opcode and the typed fields of its data, fields which were not sent are null.
+ */
+public class InboundOperation {
+    private ESignalingOperationCode opcode;
+    private String subnet;
+    private String id;
+    private String alias;
+    private String remoteAlias;
+    private String clientConnectionId;
+    private String offererId;
+    private String answererId;
+    private String offer;
+    private String answer;
+    private String candidate;
+    private String token;
+    private List<String> remoteAliases;
+    private List<String> clientConnectionIds;
+
+    
+    /** 
+     * Returns opcode
+     * @return ESignalingOperationCode
+     */
+    public ESignalingOperationCode getOpcode() {
+        return opcode;
+    }
+
+    
+    /** 
+     * Sets opcode
+     * @param opcode opcode
+     * @return InboundOperation
+     */
+    public InboundOperation setOpcode(ESignalingOperationCode opcode) {
+        this.opcode = opcode;
+        return this;
+    }
+
+    
+    /** 
+     * Returns subnet
+     * @return String
+     */
+    public String getSubnet() {
+        return subnet;
+    }
+
+    
+    /** 
+     * Sets subnet
+     * @param subnet subnet
+     * @return InboundOperation
+     */
+    public InboundOperation setSubnet(String subnet) {
+        this.subnet = subnet;
+        return this;
+    }
+
+    
+    /** 
+     * Returns id
+     * @return String
+     */
+    public String getId() {
+        return id;
+    }
+
+    
+    /** 
+     * Sets id
+     * @param id id
+     * @return InboundOperation
+     */
+    public InboundOperation setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    
+    /** 
+     * Returns alias
+     * @return String
+     */
+    public String getAlias() {
+        return alias;
+    }
+
+    
+    /** 
+     * Sets alias
+     * @param alias alias
+     * @return InboundOperation
+     */
+    public InboundOperation setAlias(String alias) {
+        this.alias = alias;
+        return this;
+    }
+
+    
+    /** 
+     * Returns remoteAlias
+     * @return String
+     */
+    public String getRemoteAlias() {
+        return remoteAlias;
+    }
+
+    
+    /** 
+     * Sets remoteAlias
+     * @param remoteAlias remoteAlias
+     * @return InboundOperation
+     */
+    public InboundOperation setRemoteAlias(String remoteAlias) {
+        this.remoteAlias = remoteAlias;
+        return this;
+    }
+
+    
+    /** 
+     * Returns clientConnectionId
+     * @return String
+     */
+    public String getClientConnectionId() {
+        return clientConnectionId;
+    }
+
+    
+    /** 
+     * Sets clientConnectionId
+     * @param clientConnectionId clientConnectionId
+     * @return InboundOperation
+     */
+    public InboundOperation setClientConnectionId(String clientConnectionId) {
+        this.clientConnectionId = clientConnectionId;
+        return this;
+    }
+
+    
+    /** 
+     * Returns offererId
+     * @return String
+     */
+    public String getOffererId() {
+        return offererId;
+    }
+
+    
+    /** 
+     * Sets offererId
+     * @param offererId offererId
+     * @return InboundOperation
+     */
+    public InboundOperation setOffererId(String offererId) {
+        this.offererId = offererId;
+        return this;
+    }
+
+    
+    /** 
+     * Returns answererId
+     * @return String
+     */
+    public String getAnswererId() {
+        return answererId;
+    }
+
+    
+    /** 
+     * Sets answererId
+     * @param answererId answererId
+     * @return InboundOperation
+     */
+    public InboundOperation setAnswererId(String answererId) {
+        this.answererId = answererId;
+        return this;
+    }
+
+    
+    /** 
+     * Returns offer
+     * @return String
+     */
+    public String getOffer() {
+        return offer;
+    }
+
+    
+    /** 
+     * Sets offer
+     * @param offer offer
+     * @return InboundOperation
+     */
+    public InboundOperation setOffer(String offer) {
+        this.offer = offer;
+        return this;
+    }
+
+    
+    /** 
+     * Returns answer
+     * @return String
+     */
+    public String getAnswer() {
+        return answer;
+    }
+
+    
+    /** 
+     * Sets answer
+     * @param answer answer
+     * @return InboundOperation
+     */
+    public InboundOperation setAnswer(String answer) {
+        this.answer = answer;
+        return this;
+    }
+
+    
+    /** 
+     * Returns candidate
+     * @return String
+     */
+    public String getCandidate() {
+        return candidate;
+    }
+
+    
+    /** 
+     * Sets candidate
+     * @param candidate candidate
+     * @return InboundOperation
+     */
+    public InboundOperation setCandidate(String candidate) {
+        this.candidate = candidate;
+        return this;
+    }
+
+    
+    /** 
+     * Returns the token a client reclaims its id with after a restart
+     * @return String
+     */
+    public String getToken() {
+        return token;
+    }
+
+    
+    /** 
+     * Sets token
+     * @param token token
+     * @return InboundOperation
+     */
+    public InboundOperation setToken(String token) {
+        this.token = token;
+        return this;
+    }
+
+    
+    /** 
+     * Returns the remote aliases of a connect to several remote aliases at once
+     * @return List<String>
+     */
+    public List<String> getRemoteAliases() {
+        return remoteAliases;
+    }
+
+    
+    /** 
+     * Adds a remote alias of a connect to several remote aliases at once
+     * @param remoteAlias remoteAlias
+     * @return InboundOperation
+     */
+    public InboundOperation addRemoteAlias(String remoteAlias) {
+        if (remoteAliases == null) {
+            remoteAliases = new ArrayList<String>();
+        }
+
+        remoteAliases.add(remoteAlias);
+        return this;
+    }
+
+    
+    /** 
+     * Returns the client connection ids of a connect to several remote aliases at once, in the order of the remote aliases
+     * @return List<String>
+     */
+    public List<String> getClientConnectionIds() {
+        return clientConnectionIds;
+    }
+
+    
+    /** 
+     * Adds a client connection id of a connect to several remote aliases at once
+     * @param clientConnectionId clientConnectionId
+     * @return InboundOperation
+     */
+    public InboundOperation addClientConnectionId(String clientConnectionId) {
+        if (clientConnectionIds == null) {
+            clientConnectionIds = new ArrayList<String>();
+        }
+
+        clientConnectionIds.add(clientConnectionId);
+        return this;
+    }
+
+    
+    /** 
+     * Returns the opcode and all fields which were sent, for logging
+     * @return String
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append(opcode == null ? null : opcode.getValue()).append(" {");
+
+        appendField(builder, "subnet", subnet);
+        appendField(builder, "id", id);
+        appendField(builder, "alias", alias);
+        appendField(builder, "remoteAlias", remoteAlias);
+        appendField(builder, "clientConnectionId", clientConnectionId);
+        appendField(builder, "offererId", offererId);
+        appendField(builder, "answererId", answererId);
+        appendField(builder, "offer", offer);
+        appendField(builder, "answer", answer);
+        appendField(builder, "candidate", candidate);
+
+        // The token is a secret and is never logged
+        appendField(builder, "remoteAliases", remoteAliases == null ? null : String.valueOf(remoteAliases));
+        appendField(builder, "clientConnectionIds", clientConnectionIds == null ? null : String.valueOf(clientConnectionIds));
+
+        return builder.append(" }").toString();
+    }
+
+    
+    /** 
+     * Appends a field to the string representation if it was sent
+     * @param builder builder
+     * @param name name
+     * @param value value
+     */
+    private void appendField(StringBuilder builder, String name, String value) {
+        if (value != null) {
+            builder.append(' ').append(name).append('=').append(value);
+        }
+    }
+}
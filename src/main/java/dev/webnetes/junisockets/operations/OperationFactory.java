@@ -1,5 +1,7 @@
 package dev.webnetes.junisockets.operations;
 
+import java.util.List;
+
 /**
  * OperationFactory
  */
@@ -19,6 +21,8 @@ public class OperationFactory {
     private String clientAlias;
     private String id;
     private Boolean rejected;
+    private String reason;
+    private String token;
     private String alias;
     private String clientConnectionId;
     private Boolean set;
@@ -28,6 +32,7 @@ public class OperationFactory {
     private String answer;
     private String candidate;
     private String offer;
+    private List<IAlias> aliases;
 
     
     /** 
@@ -74,6 +79,28 @@ public class OperationFactory {
     }
 
     
+    /** 
+     * Sets reason
+     * @param reason reason
+     * @return OperationFactory
+     */
+    public OperationFactory setReason(String reason) {
+        this.reason = reason;
+        return this;
+    }
+
+    
+    /** 
+     * Sets token
+     * @param token token
+     * @return OperationFactory
+     */
+    public OperationFactory setToken(String token) {
+        this.token = token;
+        return this;
+    }
+
+    
     /** 
      * Sets alias
      * @param alias alias
@@ -173,36 +200,76 @@ public class OperationFactory {
     }
 
     
+    /** 
+     * Sets aliases
+     * @param aliases aliases
+     * @return OperationFactory
+     */
+    public OperationFactory setAliases(List<IAlias> aliases) {
+        this.aliases = aliases;
+        return this;
+    }
+
+    
     /** 
      * Builds the defined object and returns the right operation based on the set parameters
      * @return Object
      */
     public Object getOperation() {
 
-        if (opcode.getValue().equals(ESignalingOperationCode.ACKNOWLEDGED.getValue()) && id != null && rejected != null) {
-            return new Acknowledgement(id, rejected);
-        } else if (opcode.getValue().equals(ESignalingOperationCode.GREETING.getValue()) && offererId != null && answererId != null) {
-            return new Greeting(offererId, answererId);
-        } else if (opcode.getValue().equals(ESignalingOperationCode.OFFER.getValue()) && offererId != null && answererId != null && offer != null) {
-            return new Offer(offererId, answererId, offer);
-        } else if (opcode.getValue().equals(ESignalingOperationCode.ANSWER.getValue()) && offererId != null && answererId != null && answer != null) {
-            return new Answer(offererId, answererId, answer);
-        } else if (opcode.getValue().equals(ESignalingOperationCode.CANDIDATE.getValue()) && offererId != null && answererId != null && candidate != null) {
-            return new Candidate(offererId, answererId, candidate);
-        } else if (opcode.getValue().equals(ESignalingOperationCode.ALIAS.getValue())) {
-            if (id != null && alias != null && clientConnectionId != null && set != null && isConnectionAlias != null) {
-                return new Alias(id, alias, set, clientConnectionId, isConnectionAlias);
-            } else if (id != null && alias != null && clientConnectionId != null && set != null) {
-                return new Alias(id, alias, set, clientConnectionId);
-            } else {
-                return new Alias(id, alias, set);
-            }
-        } else if (opcode.getValue().equals(ESignalingOperationCode.ACCEPT.getValue()) && boundAlias != null && clientAlias != null) {
-            return new Accept(boundAlias, clientAlias);
-        } else if (opcode.getValue().equals(ESignalingOperationCode.GOODBYE.getValue()) && id != null){
-            return new Goodbye(id);
-        } else {
-            return new IllegalArgumentException();
+        switch (opcode) {
+            case ACKNOWLEDGED:
+                if (id != null && rejected != null) {
+                    return new Acknowledgement(id, rejected, reason, token);
+                }
+                break;
+            case GREETING:
+                if (offererId != null && answererId != null) {
+                    return new Greeting(offererId, answererId);
+                }
+                break;
+            case OFFER:
+                if (offererId != null && answererId != null && offer != null) {
+                    return new Offer(offererId, answererId, offer);
+                }
+                break;
+            case ANSWER:
+                if (offererId != null && answererId != null && answer != null) {
+                    return new Answer(offererId, answererId, answer);
+                }
+                break;
+            case CANDIDATE:
+                if (offererId != null && answererId != null && candidate != null) {
+                    return new Candidate(offererId, answererId, candidate);
+                }
+                break;
+            case ALIAS:
+                if (id != null && alias != null && clientConnectionId != null && set != null && isConnectionAlias != null) {
+                    return new Alias(id, alias, set, clientConnectionId, isConnectionAlias);
+                } else if (id != null && alias != null && clientConnectionId != null && set != null) {
+                    return new Alias(id, alias, set, clientConnectionId);
+                } else {
+                    return new Alias(id, alias, set);
+                }
+            case ACCEPT:
+                if (boundAlias != null && clientAlias != null) {
+                    return new Accept(boundAlias, clientAlias);
+                }
+                break;
+            case GOODBYE:
+                if (id != null) {
+                    return new Goodbye(id);
+                }
+                break;
+            case ALIASES:
+                if (aliases != null) {
+                    return new Aliases(aliases);
+                }
+                break;
+            default:
+                break;
         }
+
+        return new IllegalArgumentException();
     }
 }
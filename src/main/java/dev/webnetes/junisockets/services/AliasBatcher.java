@@ -0,0 +1,351 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.java_websocket.WebSocket;
+
+import dev.webnetes.junisockets.operations.Alias;
+import dev.webnetes.junisockets.operations.ESignalingOperationCode;
+import dev.webnetes.junisockets.operations.IAlias;
+import dev.webnetes.junisockets.operations.IOperation;
+import dev.webnetes.junisockets.operations.OperationFactory;
+
+/**
+ * Collects the alias changes for every recipient over a short window and sends them as one aliases message, e.g. when a client shuts down many aliases at once.
+ * A change which reverts a pending change of the same alias and owner cancels it, so aliases which were set and unset within the window are not sent at all.
+ * A batch is sent once the window after its first change elapsed or once it holds the maximum number of changes, whichever comes first.
+ * Batches are taken from the pending ones atomically and queued in the outbox of their target, which is written outside of the map so that sends never hold its locks.
+ * An outbox is removed once it was written empty, so outboxes of closed targets do not pile up.
+ */
+public class AliasBatcher {
+
+    private Logger logger;
+    private long windowMillis;
+    private int maxSize;
+    private Broadcaster broadcaster;
+    private ConcurrentHashMap<WebSocket, Batch> batches = new ConcurrentHashMap<WebSocket, Batch>();
+    private ConcurrentHashMap<WebSocket, ConcurrentLinkedQueue<Batch>> outboxes = new ConcurrentHashMap<WebSocket, ConcurrentLinkedQueue<Batch>>();
+    private volatile ScheduledExecutorService timer;
+
+    private AtomicLong batchCount = new AtomicLong();
+    private AtomicLong aliasCount = new AtomicLong();
+    private AtomicLong cancelledCount = new AtomicLong();
+    private AtomicLong flushLatencyNanos = new AtomicLong();
+    private volatile long lastFlushLatencyNanos = 0;
+    private volatile int lastBatchSize = 0;
+
+    /**
+     * Constructor AliasBatcher
+     * @param logger logger
+     * @param windowMillis milliseconds changes are collected for before they are sent
+     * @param maxSize number of changes after which a batch is sent before its window elapsed
+     * @param broadcaster broadcaster which writes the batches
+     */
+    public AliasBatcher(Logger logger, long windowMillis, int maxSize, Broadcaster broadcaster) {
+        this.logger = logger;
+        this.windowMillis = windowMillis;
+        this.maxSize = maxSize;
+        this.broadcaster = broadcaster;
+    }
+
+
+    /**
+     * Starts the timer which sends batches once their window elapsed. Until it is started, batches are only sent once they are full or flushed.
+     */
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+
+        timer = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+            Thread thread = new Thread(runnable, "junisockets-aliases");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+
+    /**
+     * Stops the timer, pending batches are dropped
+     */
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+
+        batches.clear();
+        outboxes.clear();
+    }
+
+
+    /**
+     * Adds an alias change to the batch of every target
+     * @param operation alias change
+     * @param targets target connections
+     */
+    public void add(Alias operation, Collection<WebSocket> targets) {
+        String key = operation.getId() + " " + operation.getAlias();
+
+        for (WebSocket target : targets) {
+            boolean[] taken = new boolean[1];
+
+            batches.compute(target, (conn, batch) -> {
+                Batch result = batch;
+
+                if (result == null) {
+                    result = new Batch(System.nanoTime());
+
+                    schedule(conn, result);
+                }
+
+                IAlias pending = result.changes.get(key);
+
+                if (pending != null && pending.getSet() != operation.getSet()) {
+                    // Set and unset of the same alias by the same owner within the window
+                    result.changes.remove(key);
+                    cancelledCount.addAndGet(2);
+                } else {
+                    result.changes.put(key, operation);
+                }
+
+                if (result.changes.isEmpty()) {
+                    return null;
+                }
+
+                if (result.changes.size() >= maxSize) {
+                    take(conn, result);
+                    taken[0] = true;
+
+                    return null;
+                }
+
+                return result;
+            });
+
+            if (taken[0]) {
+                deliver(target);
+            }
+        }
+    }
+
+
+    /**
+     * Sends the pending batch of a target right away, e.g. before a message which has to arrive after it
+     * @param target target connection
+     */
+    public void flush(WebSocket target) {
+        batches.computeIfPresent(target, (conn, batch) -> {
+            take(conn, batch);
+
+            return null;
+        });
+
+        // Also waits for a batch another thread is writing right now
+        deliver(target);
+    }
+
+
+    /**
+     * Drops the pending batch of a closed target
+     * @param target target connection
+     */
+    public void discard(WebSocket target) {
+        batches.remove(target);
+        outboxes.remove(target);
+    }
+
+
+    /**
+     * Returns the number of targets which have an outbox
+     * @return int
+     */
+    public int getOutboxCount() {
+        return outboxes.size();
+    }
+
+
+    /**
+     * Returns the number of batches sent
+     * @return long
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+
+    /**
+     * Returns the number of alias changes sent in batches
+     * @return long
+     */
+    public long getAliasCount() {
+        return aliasCount.get();
+    }
+
+
+    /**
+     * Returns the number of alias changes which cancelled each other out and were not sent
+     * @return long
+     */
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+
+    /**
+     * Returns the summed nanoseconds from the first change of every batch until it was sent
+     * @return long
+     */
+    public long getFlushLatencyNanos() {
+        return flushLatencyNanos.get();
+    }
+
+
+    /**
+     * Returns the nanoseconds from the first change of the last batch until it was sent
+     * @return long
+     */
+    public long getLastFlushLatencyNanos() {
+        return lastFlushLatencyNanos;
+    }
+
+
+    /**
+     * Returns the number of alias changes in the last batch
+     * @return int
+     */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+
+    /**
+     * Sends a batch once its window elapsed, unless it was sent or dropped before
+     * @param target target connection
+     * @param batch batch
+     */
+    private void schedule(WebSocket target, Batch batch) {
+        ScheduledExecutorService current = timer;
+
+        if (current == null) {
+            return;
+        }
+
+        current.schedule(() -> {
+            try {
+                boolean[] taken = new boolean[1];
+
+                batches.computeIfPresent(target, (conn, pending) -> {
+                    if (pending != batch) {
+                        return pending;
+                    }
+
+                    take(conn, batch);
+                    taken[0] = true;
+
+                    return null;
+                });
+
+                if (taken[0]) {
+                    deliver(target);
+                }
+            } catch (Exception e) {
+                logger.error(e);
+            }
+        }, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Queues a batch in the outbox of its target. Called while the batch is taken from the pending ones, so the outbox holds the batches in the order they were taken.
+     * @param target target connection
+     * @param batch batch
+     */
+    private void take(WebSocket target, Batch batch) {
+        // Added within the map so that an outbox which is being removed as empty is never written to
+        outboxes.compute(target, (conn, outbox) -> {
+            ConcurrentLinkedQueue<Batch> result = outbox == null ? new ConcurrentLinkedQueue<Batch>() : outbox;
+
+            result.add(batch);
+
+            return result;
+        });
+    }
+
+
+    /**
+     * Hands the batches in the outbox of a target to the broadcaster, which queues them in the mailbox of the target. Only one thread hands over the outbox of a target at a time,
+     * so its batches never overtake each other, and a caller returns only once the batches taken before its call are queued ahead of anything it sends next.
+     * @param target target connection
+     */
+    private void deliver(WebSocket target) {
+        ConcurrentLinkedQueue<Batch> outbox = outboxes.get(target);
+
+        if (outbox == null) {
+            return;
+        }
+
+        synchronized (outbox) {
+            Batch batch;
+
+            while ((batch = outbox.poll()) != null) {
+                send(target, batch);
+            }
+
+            // Unless a batch was taken meanwhile or a newer outbox replaced it after a discard
+            outboxes.computeIfPresent(target, (conn, current) -> current == outbox && current.isEmpty() ? null : current);
+        }
+    }
+
+
+    /**
+     * Sends a batch to its target
+     * @param target target connection
+     * @param batch batch
+     */
+    private void send(WebSocket target, Batch batch) {
+        List<IAlias> changes = new ArrayList<IAlias>(batch.changes.values());
+        IOperation operation = changes.size() == 1 ? changes.get(0) : (IOperation) new OperationFactory(ESignalingOperationCode.ALIASES).setAliases(changes).getOperation();
+
+        broadcaster.send(Collections.singletonList(operation), target);
+
+        long latency = System.nanoTime() - batch.createdNanos;
+
+        batchCount.incrementAndGet();
+        aliasCount.addAndGet(changes.size());
+        flushLatencyNanos.addAndGet(latency);
+        lastFlushLatencyNanos = latency;
+        lastBatchSize = changes.size();
+
+        logger.debug("Sent batch of " + changes.size() + " aliases after " + latency + "ns");
+    }
+
+
+    /**
+     * Pending alias changes of one target, by owner and alias in the order they changed
+     */
+    private static class Batch {
+        private long createdNanos;
+        private LinkedHashMap<String, IAlias> changes = new LinkedHashMap<String, IAlias>();
+
+        /**
+         * Constructor Batch
+         * @param createdNanos time of the first change in System.nanoTime() time
+         */
+        private Batch(long createdNanos) {
+            this.createdNanos = createdNanos;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import dev.webnetes.junisockets.models.EAliasState;
+import dev.webnetes.junisockets.models.MAlias;
+
+/**
+ * Aliases of all clients, with an index from the id of every client to the aliases it owns.
+ * Every transition of an alias (bound, accepting, closed) is a single compute on its entry, so concurrent transitions of the same alias are linearizable without a global lock,
+ * and every value carries a new generation, so transitions decided on a stale value are rejected.
+ * The index is updated within the same atomic update of the alias, so tearing down a client only looks at its own aliases instead of all of them.
+ */
+public class AliasRegistry {
+
+    private ConcurrentHashMap<String, MAlias> aliases = new ConcurrentHashMap<String, MAlias>();
+    private ConcurrentHashMap<String, Set<String>> owners = new ConcurrentHashMap<String, Set<String>>();
+    private AtomicLong generations = new AtomicLong();
+
+
+    /**
+     * Returns the owner and accepting state of an alias
+     * @param alias alias
+     * @return MAlias, or null if the alias is not set
+     */
+    public MAlias get(String alias) {
+        return alias == null ? null : aliases.get(alias);
+    }
+
+
+    /**
+     * Returns true if the alias is set
+     * @param alias alias
+     * @return boolean
+     */
+    public boolean containsKey(String alias) {
+        return alias != null && aliases.containsKey(alias);
+    }
+
+
+    /**
+     * Sets an alias regardless of its current state, e.g. for connection aliases on freshly created ports or aliases restored from the snapshot
+     * @param alias alias
+     * @param id id of the owner
+     * @param accepting true if the alias accepts connections
+     * @return MAlias new value of the alias
+     */
+    public MAlias put(String alias, String id, boolean accepting) {
+        return update(alias, (current) -> create(id, accepting ? EAliasState.ACCEPTING : EAliasState.BOUND));
+    }
+
+
+    /**
+     * Binds an alias to a client if it is not bound yet
+     * @param alias alias
+     * @param id id of the client
+     * @return MAlias new value of the alias, or null if it is bound already
+     */
+    public MAlias bind(String alias, String id) {
+        MAlias[] bound = { null };
+
+        if (alias != null && id != null) {
+            update(alias, (current) -> current != null ? current : (bound[0] = create(id, EAliasState.BOUND)));
+        }
+
+        return bound[0];
+    }
+
+
+    /**
+     * Moves an alias of a client from BOUND to ACCEPTING
+     * @param alias alias
+     * @param id id of the client
+     * @return MAlias value of the accepting alias, or null if the client does not own it
+     */
+    public MAlias accept(String alias, String id) {
+        MAlias[] accepting = { null };
+
+        if (alias != null && id != null) {
+            update(alias, (current) -> {
+                if (current == null || !current.getId().equals(id)) {
+                    return current;
+                }
+
+                // Accepting twice is no transition
+                return accepting[0] = current.getAccepting() ? current : create(id, EAliasState.ACCEPTING);
+            });
+        }
+
+        return accepting[0];
+    }
+
+
+    /**
+     * Closes an alias of a client
+     * @param alias alias
+     * @param id id of the client
+     * @return MAlias last value of the closed alias, or null if the client does not own it
+     */
+    public MAlias close(String alias, String id) {
+        MAlias[] closed = { null };
+
+        if (alias != null && id != null) {
+            update(alias, (current) -> {
+                if (current == null || !current.getId().equals(id)) {
+                    return current;
+                }
+
+                closed[0] = current;
+
+                return null;
+            });
+        }
+
+        return closed[0];
+    }
+
+
+    /**
+     * Closes an alias if it is still in the given generation, so a stale teardown does not close an alias which was bound again meanwhile
+     * @param alias alias
+     * @param generation generation of the value the caller has seen
+     * @return boolean false if the alias was changed or removed in the meantime
+     */
+    public boolean remove(String alias, long generation) {
+        MAlias[] removed = { null };
+
+        if (alias != null) {
+            update(alias, (current) -> {
+                if (current == null || current.getGeneration() != generation) {
+                    return current;
+                }
+
+                removed[0] = current;
+
+                return null;
+            });
+        }
+
+        return removed[0] != null;
+    }
+
+
+    /**
+     * Returns the aliases a client owns at the time of the call
+     * @param id id of the client
+     * @return List<String>
+     */
+    public List<String> getOwned(String id) {
+        Set<String> owned = owners.get(id);
+
+        return owned == null ? new ArrayList<String>() : new ArrayList<String>(owned);
+    }
+
+
+    /**
+     * Returns the number of aliases a client owns
+     * @param id id of the client
+     * @return int
+     */
+    public int getCount(String id) {
+        Set<String> owned = owners.get(id);
+
+        return owned == null ? 0 : owned.size();
+    }
+
+
+    /**
+     * Returns the number of clients which own at least one alias
+     * @return int
+     */
+    public int getOwnerCount() {
+        return owners.size();
+    }
+
+
+    /**
+     * Returns the number of aliases
+     * @return int
+     */
+    public int size() {
+        return aliases.size();
+    }
+
+
+    /**
+     * Returns true if no alias is set
+     * @return boolean
+     */
+    public boolean isEmpty() {
+        return aliases.isEmpty();
+    }
+
+
+    /**
+     * Applies a transition to an alias atomically and moves the alias in the owner index if its owner changed
+     * @param alias alias
+     * @param transition returns the next value for the current one, either of which may be null
+     * @return MAlias value after the transition
+     */
+    private MAlias update(String alias, UnaryOperator<MAlias> transition) {
+        return aliases.compute(alias, (key, current) -> {
+            MAlias next = transition.apply(current);
+            String from = current == null ? null : current.getId();
+            String to = next == null ? null : next.getId();
+
+            if (from != null && !from.equals(to)) {
+                unindex(from, key);
+            }
+
+            if (to != null && !to.equals(from)) {
+                index(to, key);
+            }
+
+            return next;
+        });
+    }
+
+
+    /**
+     * Creates a value of an alias with a new generation
+     * @param id id of the owner
+     * @param state state
+     * @return MAlias
+     */
+    private MAlias create(String id, EAliasState state) {
+        return new MAlias(id, state, generations.incrementAndGet());
+    }
+
+
+    /**
+     * Adds an alias to the aliases of its owner
+     * @param id id of the owner
+     * @param alias alias
+     */
+    private void index(String id, String alias) {
+        owners.compute(id, (key, owned) -> {
+            Set<String> result = owned == null ? ConcurrentHashMap.<String>newKeySet() : owned;
+
+            result.add(alias);
+
+            return result;
+        });
+    }
+
+
+    /**
+     * Removes an alias from the aliases of its owner, and the owner once it has none left
+     * @param id id of the owner
+     * @param alias alias
+     */
+    private void unindex(String id, String alias) {
+        owners.computeIfPresent(id, (key, owned) -> {
+            owned.remove(alias);
+
+            return owned.isEmpty() ? null : owned;
+        });
+    }
+}
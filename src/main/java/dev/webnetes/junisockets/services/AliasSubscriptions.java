@@ -0,0 +1,162 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aliases and alias prefixes clients watch, indexed by what they watch. A pattern ending in "*" watches every alias starting with the rest of it,
+ * e.g. "10.0.0.1:*" watches all aliases of 10.0.0.1. Looking up the subscribers of an alias costs one lookup per character of the alias, regardless of the number of subscriptions.
+ */
+public class AliasSubscriptions {
+
+    public static final String WILDCARD = "*";
+
+    private ConcurrentHashMap<String, Set<String>> exact = new ConcurrentHashMap<String, Set<String>>();
+    private ConcurrentHashMap<String, Set<String>> prefixes = new ConcurrentHashMap<String, Set<String>>();
+
+    // Patterns of every subscriber, so a departing client is removed without looking at the others
+    private ConcurrentHashMap<String, Set<String>> subscribers = new ConcurrentHashMap<String, Set<String>>();
+
+
+    /**
+     * Subscribes a client to an alias or alias prefix
+     * @param id id of the client
+     * @param pattern alias, or alias prefix followed by "*"
+     */
+    public void subscribe(String id, String pattern) {
+        if (id == null || pattern == null) {
+            return;
+        }
+
+        add(subscribers, id, pattern);
+
+        if (pattern.endsWith(WILDCARD)) {
+            add(prefixes, pattern.substring(0, pattern.length() - WILDCARD.length()), id);
+        } else {
+            add(exact, pattern, id);
+        }
+    }
+
+
+    /**
+     * Unsubscribes a client from an alias or alias prefix
+     * @param id id of the client
+     * @param pattern pattern it subscribed with
+     */
+    public void unsubscribe(String id, String pattern) {
+        if (id == null || pattern == null) {
+            return;
+        }
+
+        remove(subscribers, id, pattern);
+
+        if (pattern.endsWith(WILDCARD)) {
+            remove(prefixes, pattern.substring(0, pattern.length() - WILDCARD.length()), id);
+        } else {
+            remove(exact, pattern, id);
+        }
+    }
+
+
+    /**
+     * Unsubscribes a client from everything it watches
+     * @param id id of the client
+     */
+    public void unsubscribeAll(String id) {
+        if (id == null) {
+            return;
+        }
+
+        for (String pattern : getPatterns(id)) {
+            unsubscribe(id, pattern);
+        }
+    }
+
+
+    /**
+     * Returns the clients which watch an alias, directly or through a prefix of it
+     * @param alias alias
+     * @return Set<String> ids of the clients
+     */
+    public Set<String> getSubscribers(String alias) {
+        Set<String> result = new LinkedHashSet<String>();
+
+        if (alias == null) {
+            return result;
+        }
+
+        Set<String> ids = exact.get(alias);
+
+        if (ids != null) {
+            result.addAll(ids);
+        }
+
+        if (!prefixes.isEmpty()) {
+            for (int i = 0; i <= alias.length(); i++) {
+                ids = prefixes.get(alias.substring(0, i));
+
+                if (ids != null) {
+                    result.addAll(ids);
+                }
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Returns the patterns a client watches at the time of the call
+     * @param id id of the client
+     * @return List<String>
+     */
+    public List<String> getPatterns(String id) {
+        Set<String> patterns = id == null ? null : subscribers.get(id);
+
+        return patterns == null ? new ArrayList<String>() : new ArrayList<String>(patterns);
+    }
+
+
+    /**
+     * Returns the number of clients which watch at least one alias
+     * @return int
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+
+    /**
+     * Adds a value to the set of a key
+     * @param index index
+     * @param key key
+     * @param value value
+     */
+    private static void add(ConcurrentHashMap<String, Set<String>> index, String key, String value) {
+        index.compute(key, (k, values) -> {
+            Set<String> result = values == null ? ConcurrentHashMap.<String>newKeySet() : values;
+
+            result.add(value);
+
+            return result;
+        });
+    }
+
+
+    /**
+     * Removes a value from the set of a key, and the key once its set is empty
+     * @param index index
+     * @param key key
+     * @param value value
+     */
+    private static void remove(ConcurrentHashMap<String, Set<String>> index, String key, String value) {
+        index.computeIfPresent(key, (k, values) -> {
+            values.remove(value);
+
+            return values.isEmpty() ? null : values;
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.java_websocket.WebSocket;
+
+import dev.webnetes.junisockets.addresses.AddressCodec;
+
+/**
+ * Clients indexed by the subnet they knocked for. Greetings, aliases and goodbyes only concern the members of one subnet,
+ * so they are sent to its members instead of to all clients. A client which spilled over to a sibling subnet stays in the domain it knocked for.
+ */
+public class BroadcastDomains {
+
+    private int prefixLength;
+
+    // Domain of every client which joined one
+    private ConcurrentHashMap<String, Integer> domains = new ConcurrentHashMap<String, Integer>();
+    private ConcurrentHashMap<Integer, ConcurrentHashMap<String, WebSocket>> members = new ConcurrentHashMap<Integer, ConcurrentHashMap<String, WebSocket>>();
+
+    /**
+     * Constructor BroadcastDomains
+     * @param prefixLength prefix length of the subnets
+     */
+    public BroadcastDomains(int prefixLength) {
+        this.prefixLength = prefixLength;
+    }
+
+
+    /**
+     * Adds a client to the domain of the subnet it knocked for, and removes it from the one it was in before
+     * @param id id of the client
+     * @param subnet subnet the client knocked for, or null to use the subnet of its IP address
+     * @param conn conn
+     */
+    public void join(String id, String subnet, WebSocket conn) {
+        int parsed = subnet == null ? -1 : AddressCodec.parseSubnet(subnet, prefixLength);
+        int domain = parsed == -1 ? getSubnet(id) : parsed;
+        Integer previous = domains.put(id, domain);
+
+        if (previous != null && previous != domain) {
+            members.computeIfPresent(previous, (key, peers) -> {
+                peers.remove(id);
+
+                return peers.isEmpty() ? null : peers;
+            });
+        }
+
+        members.compute(domain, (key, peers) -> {
+            ConcurrentHashMap<String, WebSocket> result = peers == null ? new ConcurrentHashMap<String, WebSocket>() : peers;
+
+            result.put(id, conn);
+
+            return result;
+        });
+    }
+
+
+    /**
+     * Removes a client from its domain, unless it joined again with another connection meanwhile
+     * @param id id of the client
+     * @param conn conn
+     */
+    public void leave(String id, WebSocket conn) {
+        Integer domain = domains.get(id);
+
+        if (domain == null) {
+            return;
+        }
+
+        boolean[] left = { false };
+
+        members.computeIfPresent(domain, (key, peers) -> {
+            left[0] = peers.remove(id, conn);
+
+            return peers.isEmpty() ? null : peers;
+        });
+
+        if (left[0]) {
+            domains.remove(id, domain);
+        }
+    }
+
+
+    /**
+     * Returns the domain of a client
+     * @param id id of the client
+     * @return int domain, the subnet of its IP address if it did not join one, or -1 if the id is not an IP address
+     */
+    public int getDomain(String id) {
+        Integer domain = id == null ? null : domains.get(id);
+
+        return domain == null ? getSubnet(id) : domain;
+    }
+
+
+    /**
+     * Returns the members of a domain by their ids
+     * @param domain domain
+     * @return Map<String, WebSocket> read-only view
+     */
+    public Map<String, WebSocket> getMembers(int domain) {
+        ConcurrentHashMap<String, WebSocket> peers = members.get(domain);
+
+        return peers == null ? Collections.<String, WebSocket>emptyMap() : Collections.unmodifiableMap(peers);
+    }
+
+
+    /**
+     * Returns the members of the domain of a client, including the client itself
+     * @param id id of the client
+     * @return Map<String, WebSocket> read-only view
+     */
+    public Map<String, WebSocket> getPeers(String id) {
+        return getMembers(getDomain(id));
+    }
+
+
+    /**
+     * Returns the number of domains with at least one member
+     * @return int
+     */
+    public int getDomainCount() {
+        return members.size();
+    }
+
+
+    /**
+     * Returns the subnet of the IP address of a client
+     * @param id id of the client
+     * @return int subnet, or -1 if the id is not an IP address
+     */
+    private int getSubnet(String id) {
+        long ipAddress = id == null ? -1 : AddressCodec.parseIPAddress(id);
+
+        return ipAddress == -1 ? -1 : AddressCodec.getSubnet((int) ipAddress, prefixLength);
+    }
+}
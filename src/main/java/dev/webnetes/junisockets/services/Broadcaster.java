@@ -0,0 +1,264 @@
+package dev.webnetes.junisockets.services;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.java_websocket.WebSocket;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.framing.Framedata;
+
+import dev.webnetes.junisockets.codecs.BinaryCodec;
+import dev.webnetes.junisockets.codecs.OperationEncoder;
+import dev.webnetes.junisockets.operations.IOperation;
+
+/**
+ * Fan-out engine which encodes an operation once per protocol and writes the same payload to every target connection.
+ * The writes are queued in the mailbox of every target, so they keep their order with all other operations sent to that connection.
+ */
+public class Broadcaster {
+
+    private Logger logger;
+    private PeerMailboxes mailboxes;
+    private OperationEncoder encoder = new OperationEncoder();
+    private BinaryCodec binaryCodec = new BinaryCodec();
+    private AtomicLong broadcastCount = new AtomicLong();
+    private AtomicLong recipientCount = new AtomicLong();
+    private AtomicLong latencyNanos = new AtomicLong();
+    private volatile long lastLatencyNanos;
+    private volatile int lastRecipientCount;
+
+    /**
+     * Constructor Broadcaster
+     * @param logger logger
+     * @param mailboxes mailboxes the writes are queued in
+     */
+    public Broadcaster(Logger logger, PeerMailboxes mailboxes) {
+        this.logger = logger;
+        this.mailboxes = mailboxes;
+    }
+
+    
+    /** 
+     * Sends the operation to all targets. E might be one of the operations implementing the IOperation interface
+     * @param <E> generic parameter
+     * @param operation operation
+     * @param targets target connections
+     */
+    public <E extends IOperation> void broadcast(E operation, Collection<WebSocket> targets) {
+        long start = System.nanoTime();
+        int recipients = targets.size();
+
+        // The operation is encoded at most once per protocol, every target only gets its own frame header around the shared payload
+        ByteBuffer json = null;
+        ByteBuffer binary = null;
+
+        for (WebSocket target : targets) {
+            Framedata frame;
+
+            if (BinaryCodec.isNegotiated(target)) {
+                if (binary == null) {
+                    binary = copy(binaryCodec.encode(operation));
+                }
+
+                frame = binaryCodec.toFrame(binary);
+            } else {
+                if (json == null) {
+                    json = copy(encoder.encode(operation));
+                }
+
+                frame = encoder.toFrame(json);
+            }
+
+            mailboxes.execute(target, () -> {
+                try {
+                    target.sendFrame(frame);
+                } catch (WebsocketNotConnectedException e) {
+                    logger.debug("Skipped closed client in broadcast of " + operation.getOpCode());
+                }
+            });
+        }
+
+        long latency = System.nanoTime() - start;
+
+        broadcastCount.incrementAndGet();
+        recipientCount.addAndGet(recipients);
+        latencyNanos.addAndGet(latency);
+        lastLatencyNanos = latency;
+        lastRecipientCount = recipients;
+
+        logger.debug("Broadcast " + operation.getOpCode() + " to " + recipients + " clients in " + latency + "ns");
+    }
+
+    
+    /** 
+     * Sends the operations to all targets in one write per target, e.g. the Alias unsets of many reclaimed clients.
+     * Every operation is encoded at most once per protocol and counted as a broadcast of its own.
+     * @param operations operations, in the order they are sent
+     * @param targets target connections
+     */
+    public void broadcast(List<? extends IOperation> operations, Collection<WebSocket> targets) {
+        if (operations.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int recipients = targets.size();
+
+        List<ByteBuffer> json = null;
+        List<ByteBuffer> binary = null;
+
+        for (WebSocket target : targets) {
+            boolean isBinary = BinaryCodec.isNegotiated(target);
+
+            if (isBinary && binary == null) {
+                binary = encode(operations, true);
+            } else if (!isBinary && json == null) {
+                json = encode(operations, false);
+            }
+
+            write(target, toFrames(isBinary ? binary : json, isBinary), "broadcast of " + operations.size() + " operations");
+        }
+
+        long latency = System.nanoTime() - start;
+
+        broadcastCount.addAndGet(operations.size());
+        recipientCount.addAndGet((long) recipients * operations.size());
+        latencyNanos.addAndGet(latency);
+        lastLatencyNanos = latency;
+        lastRecipientCount = recipients;
+
+        logger.debug("Broadcast " + operations.size() + " operations to " + recipients + " clients in " + latency + "ns");
+    }
+
+    
+    /** 
+     * Sends the operations to one target in one write, e.g. all Alias and Accept operations of a connect to several remote aliases.
+     * Unlike a broadcast, it is not counted in the metrics.
+     * @param operations operations, in the order they are sent
+     * @param target target connection
+     */
+    public void send(List<? extends IOperation> operations, WebSocket target) {
+        if (operations.isEmpty()) {
+            return;
+        }
+
+        boolean isBinary = BinaryCodec.isNegotiated(target);
+
+        write(target, toFrames(encode(operations, isBinary), isBinary), "send of " + operations.size() + " operations");
+    }
+
+    
+    /** 
+     * Returns the number of broadcasts
+     * @return long
+     */
+    public long getBroadcastCount() {
+        return broadcastCount.get();
+    }
+
+    
+    /** 
+     * Returns the number of recipients of all broadcasts
+     * @return long
+     */
+    public long getRecipientCount() {
+        return recipientCount.get();
+    }
+
+    
+    /** 
+     * Returns the time spent encoding and queueing all broadcasts in nanoseconds
+     * @return long
+     */
+    public long getLatencyNanos() {
+        return latencyNanos.get();
+    }
+
+    
+    /** 
+     * Returns the time spent encoding and queueing the last broadcast in nanoseconds
+     * @return long
+     */
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    
+    /** 
+     * Returns the number of recipients of the last broadcast
+     * @return int
+     */
+    public int getLastRecipientCount() {
+        return lastRecipientCount;
+    }
+
+    
+    /** 
+     * Queues a write of frames in the mailbox of the target
+     * @param target target connection
+     * @param frames frames, in the order they are sent
+     * @param description description of the write for the log
+     */
+    private void write(WebSocket target, List<Framedata> frames, String description) {
+        mailboxes.execute(target, () -> {
+            try {
+                target.sendFrame(frames);
+            } catch (WebsocketNotConnectedException e) {
+                logger.debug("Skipped closed client in " + description);
+            }
+        });
+    }
+
+    
+    /** 
+     * Encodes the operations with one protocol into buffers of their own
+     * @param operations operations
+     * @param isBinary true for the binary protocol
+     * @return List<ByteBuffer>
+     */
+    private List<ByteBuffer> encode(List<? extends IOperation> operations, boolean isBinary) {
+        List<ByteBuffer> payloads = new ArrayList<ByteBuffer>(operations.size());
+
+        for (IOperation operation : operations) {
+            payloads.add(copy(isBinary ? binaryCodec.encode(operation) : encoder.encode(operation)));
+        }
+
+        return payloads;
+    }
+
+    
+    /** 
+     * Wraps encoded operations into frames without copying them
+     * @param payloads encoded operations
+     * @param isBinary true for the binary protocol
+     * @return List<Framedata>
+     */
+    private List<Framedata> toFrames(List<ByteBuffer> payloads, boolean isBinary) {
+        List<Framedata> frames = new ArrayList<Framedata>(payloads.size());
+
+        for (ByteBuffer payload : payloads) {
+            frames.add(isBinary ? binaryCodec.toFrame(payload) : encoder.toFrame(payload));
+        }
+
+        return frames;
+    }
+
+    
+    /** 
+     * Copies an encoded operation out of the buffer of the current thread, so the next one can be encoded
+     * @param payload encoded operation
+     * @return ByteBuffer
+     */
+    private static ByteBuffer copy(ByteBuffer payload) {
+        ByteBuffer copy = ByteBuffer.allocate(payload.remaining());
+
+        copy.put(payload.duplicate());
+        copy.flip();
+
+        return copy;
+    }
+}
@@ -0,0 +1,9 @@
+package dev.webnetes.junisockets.services;
+
+/**
+ * EExecutionMode
+ */
+public enum EExecutionMode {
+    PLATFORM_THREADS,
+    VIRTUAL_THREADS;
+}
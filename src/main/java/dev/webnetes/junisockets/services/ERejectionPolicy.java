@@ -0,0 +1,12 @@
+package dev.webnetes.junisockets.services;
+
+/**
+ * Policy applied by the handler executor if its queue is full. Tasks of a peer are queued in its mailbox and only the drain of the mailbox is submitted,
+ * so ABORT, DISCARD and DISCARD_OLDEST drop that drain but keep the queued tasks of the peer, which run once its next task schedules the mailbox again.
+ */
+public enum ERejectionPolicy {
+    ABORT,
+    CALLER_RUNS,
+    DISCARD,
+    DISCARD_OLDEST;
+}
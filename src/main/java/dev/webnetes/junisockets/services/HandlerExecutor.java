@@ -0,0 +1,179 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Executor which runs all handler and send work of the signaling server, either on a bounded pool of platform threads or on one virtual thread per task
+ */
+public class HandlerExecutor {
+
+    private Logger logger;
+    private ExecutorService executor;
+    private ThreadPoolExecutor pool;
+    private AtomicLong rejected = new AtomicLong();
+    private AtomicInteger threadCount = new AtomicInteger();
+
+    /**
+     * Constructor HandlerExecutor
+     * @param logger logger
+     * @param poolSize maximum number of worker threads
+     * @param queueLength maximum number of queued tasks
+     * @param rejectionPolicy policy applied if the queue is full
+     */
+    public HandlerExecutor(Logger logger, int poolSize, int queueLength, ERejectionPolicy rejectionPolicy) {
+        this.logger = logger;
+
+        pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueLength), (runnable) -> {
+                    Thread thread = new Thread(runnable, "junisockets-handler-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+
+                    return thread;
+                }, toRejectedExecutionHandler(rejectionPolicy));
+
+        // Let idle workers die so that a quiet server does not hold on to threads
+        pool.allowCoreThreadTimeOut(true);
+
+        executor = pool;
+    }
+
+    /**
+     * Constructor HandlerExecutor, runs every task on a new virtual thread. Requires Java 21 or later.
+     * @param logger logger
+     * @throws IllegalStateException Thrown if the runtime does not support virtual threads
+     */
+    public HandlerExecutor(Logger logger) {
+        this.logger = logger;
+
+        try {
+            // Looked up reflectively so that the platform thread path still builds and runs on Java 8
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual threads require Java 21 or later", e);
+        }
+    }
+
+    
+    /** 
+     * Returns true if the runtime supports virtual threads
+     * @return boolean
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    
+    /** 
+     * Runs the given task on the pool
+     * @param task task
+     */
+    public void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.error(e);
+        }
+    }
+
+    
+    /** 
+     * Returns the number of tasks waiting for a worker. Virtual threads start right away, so their queue is always empty.
+     * @return int
+     */
+    public int getQueueDepth() {
+        return pool == null ? 0 : pool.getQueue().size();
+    }
+
+    
+    /** 
+     * Returns the number of tasks which were rejected because the queue was full
+     * @return long
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    
+    /** 
+     * Stops accepting new tasks and lets the queued ones finish
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    
+    /** 
+     * Wraps the JDK policy matching the given rejection policy so that every rejection is counted and rejected mailboxes are reset
+     * @param rejectionPolicy rejectionPolicy
+     * @return RejectedExecutionHandler
+     */
+    private RejectedExecutionHandler toRejectedExecutionHandler(ERejectionPolicy rejectionPolicy) {
+        switch (rejectionPolicy) {
+            case CALLER_RUNS:
+                return (runnable, pool) -> {
+                    rejected.incrementAndGet();
+
+                    if (pool.isShutdown()) {
+                        onDropped(runnable);
+                    } else if (runnable instanceof Mailbox) {
+                        ((Mailbox) runnable).runInline();
+                    } else {
+                        runnable.run();
+                    }
+                };
+            case DISCARD:
+                return (runnable, pool) -> {
+                    rejected.incrementAndGet();
+
+                    onDropped(runnable);
+                };
+            case DISCARD_OLDEST:
+                return (runnable, pool) -> {
+                    rejected.incrementAndGet();
+
+                    if (pool.isShutdown()) {
+                        onDropped(runnable);
+                    } else {
+                        onDropped(pool.getQueue().poll());
+
+                        pool.execute(runnable);
+                    }
+                };
+            default:
+                return (runnable, pool) -> {
+                    rejected.incrementAndGet();
+
+                    onDropped(runnable);
+
+                    throw new RejectedExecutionException("handler queue is full");
+                };
+        }
+    }
+
+    
+    /** 
+     * Notifies a mailbox that its drain will never run
+     * @param runnable runnable which was dropped
+     */
+    private void onDropped(Runnable runnable) {
+        if (runnable instanceof Mailbox) {
+            ((Mailbox) runnable).onRejected();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package dev.webnetes.junisockets.services;
+
+import org.java_websocket.WebSocket;
+
+import dev.webnetes.junisockets.operations.InboundOperation;
+
+/**
+ * Defines handler of an incoming operation
+ */
+public interface IOperationHandler {
+
+    /**
+     * Handles an incoming operation
+     * @param data operation
+     * @param conn connection of the sending client
+     * @throws Exception Thrown if the operation could not be handled
+     */
+    void handle(InboundOperation data, WebSocket conn) throws Exception;
+
+}
@@ -0,0 +1,103 @@
+package dev.webnetes.junisockets.services;
+
+import org.java_websocket.WebSocket;
+
+/**
+ * Lease of a client on its IP address and aliases. Renewing only writes the new expiry, the timing wheel picks it up once the old one is due.
+ */
+public class Lease {
+
+    private String id;
+    private WebSocket conn;
+    private volatile long expiresAt;
+    private volatile boolean probed;
+    private volatile boolean released;
+
+    // Tick in which the timing wheel looks at this lease next, only used by the thread advancing the wheel
+    long deadlineTick;
+
+    /**
+     * Constructor Lease
+     * @param id id of the client
+     * @param conn connection of the client, or null for a reservation
+     * @param expiresAt expiry in System.nanoTime() time
+     */
+    public Lease(String id, WebSocket conn, long expiresAt) {
+        this.id = id;
+        this.conn = conn;
+        this.expiresAt = expiresAt;
+    }
+
+
+    /**
+     * Extends the lease, e.g. on traffic or pong of the client
+     * @param expiresAt new expiry in System.nanoTime() time
+     */
+    public void renew(long expiresAt) {
+        this.probed = false;
+        this.expiresAt = expiresAt;
+    }
+
+
+    /**
+     * Gives a client which was quiet for the whole lease a last chance to answer a ping
+     * @param expiresAt expiry in System.nanoTime() time if it does not answer
+     */
+    public void probe(long expiresAt) {
+        this.probed = true;
+        this.expiresAt = expiresAt;
+    }
+
+
+    /**
+     * Marks the lease as released, so the timing wheel drops it
+     */
+    public void release() {
+        released = true;
+    }
+
+
+    /**
+     * Returns id
+     * @return String
+     */
+    public String getId() {
+        return id;
+    }
+
+
+    /**
+     * Returns conn
+     * @return WebSocket, or null for a reservation
+     */
+    public WebSocket getConn() {
+        return conn;
+    }
+
+
+    /**
+     * Returns the expiry in System.nanoTime() time
+     * @return long
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+
+    /**
+     * Returns true if the client was pinged because the lease ran out
+     * @return boolean
+     */
+    public boolean isProbed() {
+        return probed;
+    }
+
+
+    /**
+     * Returns released
+     * @return boolean
+     */
+    public boolean isReleased() {
+        return released;
+    }
+}
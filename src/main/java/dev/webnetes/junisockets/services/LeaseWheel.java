@@ -0,0 +1,107 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timing wheel of leases. Every slot holds the leases which are due in one tick, so advancing the wheel only looks at the slots of the elapsed ticks,
+ * no matter how many leases are held. Leases are scheduled from any thread through a queue, the wheel itself is only touched by the thread which advances it.
+ * Renewed leases are not moved on renewal but put into the slot of their new expiry once their old one is due.
+ */
+public class LeaseWheel {
+
+    private ConcurrentLinkedQueue<Lease> scheduled = new ConcurrentLinkedQueue<Lease>();
+    private List<List<Lease>> slots;
+    private List<Lease> spare = new ArrayList<Lease>();
+    private int mask;
+    private long tickNanos;
+    private long startNanos;
+
+    // Next tick to process
+    private long tick;
+
+    /**
+     * Constructor LeaseWheel
+     * @param slotCount number of slots, a power of two
+     * @param tickNanos duration of a tick in nanoseconds
+     * @param startNanos start of the first tick in System.nanoTime() time
+     */
+    public LeaseWheel(int slotCount, long tickNanos, long startNanos) {
+        this.slots = new ArrayList<List<Lease>>(slotCount);
+        this.mask = slotCount - 1;
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<Lease>());
+        }
+    }
+
+
+    /**
+     * Schedules a lease, it is put into its slot with the next advance
+     * @param lease lease
+     */
+    public void schedule(Lease lease) {
+        scheduled.add(lease);
+    }
+
+
+    /**
+     * Processes all ticks up to now
+     * @param now now in System.nanoTime() time
+     * @return List<Lease> leases which are due and were neither renewed nor released
+     */
+    public List<Lease> advance(long now) {
+        List<Lease> due = new ArrayList<Lease>();
+        long last = (now - startNanos) / tickNanos;
+
+        for (Lease lease = scheduled.poll(); lease != null; lease = scheduled.poll()) {
+            place(lease, tick);
+        }
+
+        for (; tick <= last; tick++) {
+            int index = (int) (tick & mask);
+            List<Lease> slot = slots.get(index);
+
+            // Swap in an empty slot, so leases can be put back while the old one is processed
+            slots.set(index, spare);
+
+            for (Lease lease : slot) {
+                if (lease.isReleased()) {
+                    continue;
+                }
+
+                if (lease.deadlineTick > tick) {
+                    // Due in a later round of the wheel
+                    spare.add(lease);
+                } else if (lease.getExpiresAt() - now > 0) {
+                    // Renewed since it was placed
+                    place(lease, tick + 1);
+                } else {
+                    due.add(lease);
+                }
+            }
+
+            slot.clear();
+            spare = slot;
+        }
+
+        return due;
+    }
+
+
+    /**
+     * Puts a lease into the slot of the tick it expires in
+     * @param lease lease
+     * @param minTick earliest tick the lease may be put into
+     */
+    private void place(Lease lease, long minTick) {
+        // Round up, so the lease is only looked at once it has expired
+        long deadlineTick = Math.max(minTick, (lease.getExpiresAt() - startNanos + tickNanos - 1) / tickNanos);
+
+        lease.deadlineTick = deadlineTick;
+        slots.get((int) (deadlineTick & mask)).add(lease);
+    }
+}
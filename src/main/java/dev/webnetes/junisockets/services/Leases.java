@@ -0,0 +1,209 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+import org.java_websocket.WebSocket;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+
+/**
+ * Leases of the clients on their IP addresses and aliases. Every operation or pong of a client renews its lease; a client which stays quiet for the whole TTL is pinged once,
+ * and if it does not answer within a grace period, its lease is handed to the reclaimer, which frees everything the client holds.
+ * Expiry is tracked by a timing wheel advanced on a single background thread, so renewing is a volatile write and reclaiming costs one slot per tick.
+ */
+public class Leases {
+
+    // Number of ticks per TTL, bounds how late a lease is noticed
+    private static final int TICKS_PER_TTL = 16;
+
+    private static final int SLOT_COUNT = 64;
+
+    private Logger logger;
+    private long ttlNanos;
+    private long graceNanos;
+    private long tickMillis;
+    private Consumer<List<Lease>> reclaimer;
+    private ConcurrentHashMap<String, Lease> leases = new ConcurrentHashMap<String, Lease>();
+    private LeaseWheel wheel;
+    private ScheduledExecutorService ticker;
+    private AtomicLong reclaimedCount = new AtomicLong();
+
+    /**
+     * Constructor Leases
+     * @param logger logger
+     * @param ttlMillis time a client may stay quiet before it is pinged, or 0 to disable leases
+     * @param reclaimer frees everything the clients of the expired leases hold, called on the background thread
+     */
+    public Leases(Logger logger, long ttlMillis, Consumer<List<Lease>> reclaimer) {
+        this.logger = logger;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.graceNanos = ttlNanos / 4;
+        this.tickMillis = Math.max(1, ttlMillis / TICKS_PER_TTL);
+        this.reclaimer = reclaimer;
+        this.wheel = new LeaseWheel(SLOT_COUNT, TimeUnit.MILLISECONDS.toNanos(tickMillis), System.nanoTime());
+    }
+
+
+    /**
+     * Returns true if leases expire at all
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return ttlNanos > 0;
+    }
+
+
+    /**
+     * Grants a lease to the client attached to the connection, replacing an older one of the same id
+     * @param conn conn
+     */
+    public void grant(WebSocket conn) {
+        String id = conn.getAttachment();
+
+        if (!isEnabled() || id == null) {
+            return;
+        }
+
+        Lease lease = new Lease(id, conn, System.nanoTime() + ttlNanos);
+        Lease previous = leases.put(id, lease);
+
+        if (previous != null) {
+            previous.release();
+        }
+
+        wheel.schedule(lease);
+    }
+
+
+    /**
+     * Renews the lease of the client attached to the connection
+     * @param conn conn
+     */
+    public void renew(WebSocket conn) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        String id = conn.getAttachment();
+        Lease lease = id == null ? null : leases.get(id);
+
+        if (lease != null && lease.getConn() == conn) {
+            lease.renew(System.nanoTime() + ttlNanos);
+        }
+    }
+
+
+    /**
+     * Releases the lease of a client which left on its own
+     * @param id id of the client
+     * @param conn conn
+     */
+    public void release(String id, WebSocket conn) {
+        if (!isEnabled() || id == null) {
+            return;
+        }
+
+        Lease lease = leases.get(id);
+
+        if (lease != null && lease.getConn() == conn && leases.remove(id, lease)) {
+            lease.release();
+        }
+    }
+
+
+    /**
+     * Returns the number of held leases
+     * @return int
+     */
+    public int getCount() {
+        return leases.size();
+    }
+
+
+    /**
+     * Returns the number of leases which expired and were reclaimed
+     * @return long
+     */
+    public long getReclaimedCount() {
+        return reclaimedCount.get();
+    }
+
+
+    /**
+     * Starts advancing the timing wheel in the background
+     */
+    public synchronized void start() {
+        if (!isEnabled() || ticker != null) {
+            return;
+        }
+
+        ticker = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+            Thread thread = new Thread(runnable, "junisockets-leases");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        ticker.scheduleAtFixedRate(() -> {
+            try {
+                tick(System.nanoTime());
+            } catch (Exception e) {
+                // An exception would cancel all further ticks
+                logger.error(e);
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Stops advancing the timing wheel
+     */
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+
+    /**
+     * Advances the timing wheel to now, probes leases which ran out and reclaims those which were probed already.
+     * Only called by the background thread, or by tests instead of it.
+     * @param now now in System.nanoTime() time
+     */
+    void tick(long now) {
+        List<Lease> expired = new ArrayList<Lease>();
+
+        for (Lease lease : wheel.advance(now)) {
+            if (!lease.isProbed() && lease.getConn() != null) {
+                // Quiet but maybe alive, the pong renews the lease
+                lease.probe(now + graceNanos);
+                wheel.schedule(lease);
+
+                try {
+                    lease.getConn().sendPing();
+                } catch (WebsocketNotConnectedException e) {
+                    logger.debug("Could not probe client " + lease.getId());
+                }
+            } else if (leases.remove(lease.getId(), lease)) {
+                lease.release();
+                expired.add(lease);
+            }
+        }
+
+        if (!expired.isEmpty()) {
+            reclaimedCount.addAndGet(expired.size());
+
+            logger.debug("Reclaiming " + expired.size() + " expired leases");
+
+            reclaimer.accept(expired);
+        }
+    }
+}
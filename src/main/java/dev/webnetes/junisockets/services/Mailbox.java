@@ -0,0 +1,108 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Ordered queue of tasks of a single peer. At most one worker drains a mailbox at a time.
+ */
+public class Mailbox implements Runnable {
+
+    private static final int MAX_TASKS_PER_DRAIN = 64;
+
+    private Logger logger;
+    private HandlerExecutor executor;
+    private ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    private AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * Constructor Mailbox
+     * @param logger logger
+     * @param executor executor
+     */
+    protected Mailbox(Logger logger, HandlerExecutor executor) {
+        this.logger = logger;
+        this.executor = executor;
+    }
+
+    
+    /** 
+     * Appends a task and schedules the mailbox if it is idle
+     * @param task task
+     */
+    protected void enqueue(Runnable task) {
+        tasks.add(task);
+
+        schedule();
+    }
+
+    
+    /** 
+     * Runs the queued tasks in order. Yields the worker after a fixed number of tasks so that busy peers can not starve the others.
+     */
+    @Override
+    public void run() {
+        if (drain()) {
+            executor.execute(this);
+        }
+    }
+
+    
+    /** 
+     * Runs the queued tasks on the submitting thread because the executor is saturated. Submitting the mailbox again would be rejected and run it here
+     * once more, one level deeper on the stack each time, so the mailbox is drained in a loop until it is empty instead.
+     */
+    protected void runInline() {
+        while (drain()) {
+            // Still owned by this thread, keep draining
+        }
+    }
+
+    
+    /** 
+     * Called by the executor if the drain of this mailbox was rejected. Keeps the queued tasks and lets the next task of the peer schedule the mailbox again.
+     */
+    protected void onRejected() {
+        logger.error("Deferred the queued tasks of a rejected mailbox");
+
+        // Not scheduled again right away, the executor would reject it again while it is still full
+        scheduled.set(false);
+    }
+
+    
+    /** 
+     * Runs up to a fixed number of queued tasks and releases the mailbox. Returns true if tasks are left and the mailbox was scheduled again for them,
+     * in which case the caller must submit or run it.
+     * @return boolean
+     */
+    private boolean drain() {
+        try {
+            Runnable task;
+
+            for (int i = 0; i < MAX_TASKS_PER_DRAIN && (task = tasks.poll()) != null; i++) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.error(e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+        }
+
+        // Tasks might have been added after the last poll
+        return !tasks.isEmpty() && scheduled.compareAndSet(false, true);
+    }
+
+    
+    /** 
+     * Submits the mailbox to the executor unless it is already scheduled
+     */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this);
+        }
+    }
+}
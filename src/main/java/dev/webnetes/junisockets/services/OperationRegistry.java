@@ -0,0 +1,56 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.EnumMap;
+import java.util.function.Function;
+
+import dev.webnetes.junisockets.operations.ESignalingOperationCode;
+import dev.webnetes.junisockets.operations.InboundOperation;
+
+/**
+ * Registry of the handlers of incoming operations
+ */
+public class OperationRegistry {
+
+    private EnumMap<ESignalingOperationCode, IOperationHandler> handlers = new EnumMap<ESignalingOperationCode, IOperationHandler>(ESignalingOperationCode.class);
+    private EnumMap<ESignalingOperationCode, Function<InboundOperation, String>> senders = new EnumMap<ESignalingOperationCode, Function<InboundOperation, String>>(ESignalingOperationCode.class);
+
+    
+    /** 
+     * Registers the handler of an opcode, replacing any previous one
+     * @param opcode opcode
+     * @param sender returns the id of the sending client of an operation, or null to order by connection
+     * @param handler handler
+     * @return OperationRegistry
+     */
+    public OperationRegistry register(ESignalingOperationCode opcode, Function<InboundOperation, String> sender, IOperationHandler handler) {
+        handlers.put(opcode, handler);
+
+        if (sender == null) {
+            senders.remove(opcode);
+        } else {
+            senders.put(opcode, sender);
+        }
+
+        return this;
+    }
+
+    
+    /** 
+     * Returns the handler of an opcode
+     * @param opcode opcode
+     * @return IOperationHandler or null if there is none
+     */
+    public IOperationHandler getHandler(ESignalingOperationCode opcode) {
+        return handlers.get(opcode);
+    }
+
+    
+    /** 
+     * Returns the function which resolves the id of the sending client of an operation
+     * @param opcode opcode
+     * @return Function or null if operations of this opcode are ordered by connection
+     */
+    public Function<InboundOperation, String> getSender(ESignalingOperationCode opcode) {
+        return senders.get(opcode);
+    }
+}
@@ -0,0 +1,71 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Actor-style mailboxes keyed by peer. Tasks of one peer run in submission order, tasks of different peers run in parallel on the shared executor.
+ */
+public class PeerMailboxes {
+
+    private Logger logger;
+    private HandlerExecutor executor;
+    private ConcurrentHashMap<Object, Mailbox> mailboxes = new ConcurrentHashMap<Object, Mailbox>();
+
+    /**
+     * Constructor PeerMailboxes
+     * @param logger logger
+     * @param executor executor
+     */
+    public PeerMailboxes(Logger logger, HandlerExecutor executor) {
+        this.logger = logger;
+        this.executor = executor;
+    }
+
+    
+    /** 
+     * Runs the task after all tasks previously submitted for the same peer
+     * @param peer peer, either the client id or the connection of the client
+     * @param task task
+     */
+    public void execute(Object peer, Runnable task) {
+        if (peer == null) {
+            // Without a peer there is nothing to order against
+            executor.execute(task);
+
+            return;
+        }
+
+        mailboxes.computeIfAbsent(peer, (key) -> new Mailbox(logger, executor)).enqueue(task);
+    }
+
+    
+    /** 
+     * Forgets the mailbox of a peer. Tasks which are already queued still run.
+     * @param peer peer
+     */
+    public void remove(Object peer) {
+        if (peer != null) {
+            mailboxes.remove(peer);
+        }
+    }
+
+    
+    /** 
+     * Returns the number of peers which currently own a mailbox
+     * @return int
+     */
+    public int getMailboxCount() {
+        return mailboxes.size();
+    }
+
+    
+    /** 
+     * Returns the executor backing the mailboxes
+     * @return HandlerExecutor
+     */
+    public HandlerExecutor getExecutor() {
+        return executor;
+    }
+}
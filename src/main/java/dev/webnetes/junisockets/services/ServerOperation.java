@@ -1,16 +1,30 @@
 package dev.webnetes.junisockets.services;
 
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.java_websocket.WebSocket;
-import org.json.simple.JSONObject;
 
-import dev.webnetes.junisockets.addresses.IPAddress;
-import dev.webnetes.junisockets.addresses.TCPAddress;
+import dev.webnetes.junisockets.addresses.AddressCodec;
+import dev.webnetes.junisockets.addresses.AllocatorSnapshot;
+import dev.webnetes.junisockets.addresses.IIPAddress;
+import dev.webnetes.junisockets.addresses.ITCPAddress;
+import dev.webnetes.junisockets.codecs.BinaryCodec;
+import dev.webnetes.junisockets.codecs.OperationEncoder;
 import dev.webnetes.junisockets.errors.ClientClosed;
+import dev.webnetes.junisockets.errors.InvalidSubnet;
 import dev.webnetes.junisockets.errors.PortAlreadyAllocated;
 import dev.webnetes.junisockets.errors.SubnetDoesNotExist;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
 import dev.webnetes.junisockets.errors.SuffixDoesNotExist;
 import dev.webnetes.junisockets.models.MAlias;
 import dev.webnetes.junisockets.operations.Accept;
@@ -22,6 +36,7 @@ import dev.webnetes.junisockets.operations.ESignalingOperationCode;
 import dev.webnetes.junisockets.operations.Goodbye;
 import dev.webnetes.junisockets.operations.Greeting;
 import dev.webnetes.junisockets.operations.IOperation;
+import dev.webnetes.junisockets.operations.InboundOperation;
 import dev.webnetes.junisockets.operations.Offer;
 import dev.webnetes.junisockets.operations.OperationFactory;
 
@@ -30,10 +45,20 @@ import dev.webnetes.junisockets.operations.OperationFactory;
  */
 public class ServerOperation {
     private ConcurrentHashMap<String, WebSocket> clients;
-    private ConcurrentHashMap<String, MAlias> aliases;
-    private IPAddress ip;
-    private TCPAddress tcpAddress;
+    private AliasRegistry aliases;
+    private IIPAddress ip;
+    private ITCPAddress tcpAddress;
     private Logger logger;
+    private PeerMailboxes mailboxes;
+    private Broadcaster broadcaster;
+    private BroadcastDomains domains;
+    private AliasSubscriptions subscriptions;
+    private AliasBatcher batcher;
+    private Set<String> restored;
+    private AllocatorSnapshot snapshot;
+    private SecureRandom random = new SecureRandom();
+    private OperationEncoder encoder = new OperationEncoder();
+    private BinaryCodec binaryCodec = new BinaryCodec();
 
     /**
      * Constructor ServerOperation
@@ -42,13 +67,27 @@ public class ServerOperation {
      * @param ip ip
      * @param tcpAddress tcpAddress
      * @param logger logger
+     * @param mailboxes mailboxes
+     * @param broadcaster broadcaster
+     * @param domains clients by the subnet they knocked for, which greetings, aliases and goodbyes are limited to
+     * @param subscriptions aliases clients watch, which alias updates are only sent to, or null to send them to all clients of the subnet
+     * @param batcher batcher which collects alias updates into one message per recipient, or null to send every update on its own
+     * @param restored IP addresses restored from the snapshot which no client has knocked for again
+     * @param snapshot snapshot the aliases are recorded in, or null
      */
-    protected ServerOperation(ConcurrentHashMap<String, WebSocket> clients, ConcurrentHashMap<String, MAlias> aliases, IPAddress ip, TCPAddress tcpAddress, Logger logger) {
+    protected ServerOperation(ConcurrentHashMap<String, WebSocket> clients, AliasRegistry aliases, IIPAddress ip, ITCPAddress tcpAddress, Logger logger, PeerMailboxes mailboxes, Broadcaster broadcaster, BroadcastDomains domains, AliasSubscriptions subscriptions, AliasBatcher batcher, Set<String> restored, AllocatorSnapshot snapshot) {
         this.clients = clients;
         this.aliases = aliases;
         this.ip = ip;
         this.tcpAddress = tcpAddress;
         this.logger = logger;
+        this.mailboxes = mailboxes;
+        this.broadcaster = broadcaster;
+        this.domains = domains;
+        this.subscriptions = subscriptions;
+        this.batcher = batcher;
+        this.restored = restored;
+        this.snapshot = snapshot;
     }
 
     
@@ -57,55 +96,60 @@ public class ServerOperation {
      * @param data data
      * @param conn conn
      */
-    protected void handleKnock(JSONObject data, WebSocket conn) {
+    protected void handleKnock(InboundOperation data, WebSocket conn) {
 
         logger.debug("Handling knock");
 
-        String subnet = (String) data.get("subnet");
+        String subnet = data.getSubnet();
 
-        final String id = ip.createIPAddress(subnet);
+        final String id;
 
-        // If Id == -1, we exceeded the maximum of 255 subnets
-        if (!id.equals("-1")) {
-            try {
-                send(conn, (Acknowledgement) new OperationFactory(ESignalingOperationCode.ACKNOWLEDGED).setId(id).setRejected(false).getOperation());
-            } catch (ClientClosed e) {
-                logger.error(e);
+        try {
+            // A client which was connected before a restart asks for its previous IP address, which is still reserved for it.
+            // Any other client gets a new IP address and the reservation is kept for the previous owner.
+            if (isRestoredClaim(data) && restored.remove(data.getId())) {
+                id = data.getId();
+
+                logger.debug("Restored IP address " + id);
+            } else {
+                id = ip.createIPAddress(subnet);
             }
-        } else {
+        } catch (InvalidSubnet | SubnetExhausted e) {
+            // Tell the client why, so it can tell a malformed subnet from one which is full
             try {
-                send(conn, (Acknowledgement) new OperationFactory(ESignalingOperationCode.ACKNOWLEDGED).setId(id).setRejected(true).getOperation());
-            } catch (ClientClosed e) {
-                logger.error(e);
+                send(conn, (Acknowledgement) new OperationFactory(ESignalingOperationCode.ACKNOWLEDGED).setId("-1").setRejected(true).setReason(e.getMessage()).getOperation());
+            } catch (ClientClosed e1) {
+                logger.error(e1);
             }
-            logger.debug("Knock rejected " + "{" + id + ", reason: subnet overflow}");
+            logger.debug("Knock rejected " + "{" + subnet + ", reason: " + e.getMessage() + "}");
 
             return;
         }
 
-        // Send Greeting to all clients, except the new one 
-        for (int i = 0; i < clients.size(); i++) {
-            String existingId = (String) clients.keySet().toArray()[i];
-            WebSocket existingClient = clients.get(existingId);
-
-            logger.debug("Existingid " + existingId + " id " + id);
-            if (existingId != id) {
+        // Attach the id to the connection so that close, ping and error handling can resolve it without a lookup
+        conn.setAttachment(id);
+        clients.put(id, conn);
+        domains.join(id, subnet, conn);
 
-                Thread thread = new Thread(() -> {
-                    try {
-                        send(existingClient, (Greeting) new OperationFactory(ESignalingOperationCode.GREETING).setOffererId(existingId).setAnswererId(id).getOperation());
-                    } catch (ClientClosed e) {
-                        logger.error(e);
-                    }
-                    logger.debug("Sent greeting " + existingId + " " + id);
-                });
+        try {
+            send(conn, (Acknowledgement) new OperationFactory(ESignalingOperationCode.ACKNOWLEDGED).setId(id).setRejected(false).setToken(createToken(id, subnet)).getOperation());
+        } catch (ClientClosed e) {
+            logger.error(e);
+        }
 
-                thread.start();
+        // Send Greeting to all clients of the subnet, except the new one 
+        domains.getPeers(id).forEach((existingId, existingClient) -> {
+            logger.debug("Existingid " + existingId + " id " + id);
 
+            if (!existingId.equals(id)) {
+                try {
+                    send(existingClient, (Greeting) new OperationFactory(ESignalingOperationCode.GREETING).setOffererId(existingId).setAnswererId(id).getOperation());
+                } catch (ClientClosed e) {
+                    logger.error(e);
+                }
+                logger.debug("Sent greeting " + existingId + " " + id);
             }
-        }
-
-        clients.put(id, conn);
+        });
 
         logger.debug("Client connected " + id);
     }
@@ -115,21 +159,17 @@ public class ServerOperation {
      * Handle client offer
      * @param data data
      */
-    protected void handleOffer(JSONObject data) {
+    protected void handleOffer(InboundOperation data) {
         logger.debug("Handling offer: " + data);
 
-        final WebSocket client = clients.get(data.get("answererId"));
+        final WebSocket client = clients.get(data.getAnswererId());
 
-        Thread thread = new Thread(() -> {
-            try {
-                send(client, (Offer) new OperationFactory(ESignalingOperationCode.OFFER).setOffererId((String) data.get("offererId")).setAnswererId((String) data.get("answererId")).setOffer((String) data.get("offer")).getOperation());
-            } catch (ClientClosed e) {
-                logger.error(e);
-            }
-            logger.debug("Sent offer " + data.get("offererId") + " " + data.get("answererId") + " " + data.get("offer"));
-        });
-
-        thread.start();
+        try {
+            send(client, (Offer) new OperationFactory(ESignalingOperationCode.OFFER).setOffererId(data.getOffererId()).setAnswererId(data.getAnswererId()).setOffer(data.getOffer()).getOperation());
+        } catch (ClientClosed e) {
+            logger.error(e);
+        }
+        logger.debug("Sent offer " + data.getOffererId() + " " + data.getAnswererId() + " " + data.getOffer());
 
     }
 
@@ -138,21 +178,17 @@ public class ServerOperation {
      * Handle client answer
      * @param data data
      */
-    protected void handleAnswer(JSONObject data) {
+    protected void handleAnswer(InboundOperation data) {
         logger.debug("Handling answer: " + data);
 
-        final WebSocket client = clients.get(data.get("offererId"));
-
-        Thread thread = new Thread(() -> {
-            try {
-                send(client, (Answer) new OperationFactory(ESignalingOperationCode.ANSWER).setOffererId((String) data.get("offererId")).setAnswererId((String) data.get("answererId")).setAnswer((String) data.get("answer")).getOperation());       
-            } catch (ClientClosed e) {
-                logger.error(e);
-            }
-            logger.debug("Send answer " + data);
-        });
+        final WebSocket client = clients.get(data.getOffererId());
 
-        thread.start();
+        try {
+            send(client, (Answer) new OperationFactory(ESignalingOperationCode.ANSWER).setOffererId(data.getOffererId()).setAnswererId(data.getAnswererId()).setAnswer(data.getAnswer()).getOperation());       
+        } catch (ClientClosed e) {
+            logger.error(e);
+        }
+        logger.debug("Send answer " + data);
 
     }
 
@@ -161,21 +197,17 @@ public class ServerOperation {
      * Handle client candidate
      * @param data data
      */
-    protected void handleCandidate(JSONObject data) {
+    protected void handleCandidate(InboundOperation data) {
         logger.debug("Handling candidate " + data);
 
-        final WebSocket client = clients.get(data.get("answererId"));
+        final WebSocket client = clients.get(data.getAnswererId());
 
-        Thread thread = new Thread(() -> {
-            try {
-                send(client, (Candidate) new OperationFactory(ESignalingOperationCode.CANDIDATE).setOffererId((String) data.get("offererId")).setAnswererId((String) data.get("answererId")).setCandidate((String) data.get("candidate")).getOperation());
-            } catch (ClientClosed e) {
-                logger.error(e);
-            }
-            logger.debug("Sent candidate " + data);
-        });
-
-        thread.start();
+        try {
+            send(client, (Candidate) new OperationFactory(ESignalingOperationCode.CANDIDATE).setOffererId(data.getOffererId()).setAnswererId(data.getAnswererId()).setCandidate(data.getCandidate()).getOperation());
+        } catch (ClientClosed e) {
+            logger.error(e);
+        }
+        logger.debug("Sent candidate " + data);
 
     }
 
@@ -186,46 +218,48 @@ public class ServerOperation {
      * @throws PortAlreadyAllocated Thrown if port is already allocated
      * @throws SubnetDoesNotExist Thrown if 
      */
-    protected void handleBind(JSONObject data) throws PortAlreadyAllocated, SubnetDoesNotExist {
+    protected void handleBind(InboundOperation data) throws PortAlreadyAllocated, SubnetDoesNotExist {
         logger.debug("Handling bind " + data);
 
+        // Of concurrent binds of the same alias, only one gets it
+        final MAlias bound = aliases.bind(data.getAlias(), data.getId());
+        final MAlias existing = bound == null ? aliases.get(data.getAlias()) : null;
+
+        if (existing != null && existing.getId().equals(data.getId())) {
+            // Bound by the same client already, e.g. restored from the snapshot, so its port is claimed
+            logger.debug("Accepting bind, alias already bound by client " + data);
+
+            publish((Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(data.getId()).setAlias(data.getAlias()).setSet(true).getOperation());
+
         // Check if alias is alreay taken
-        if (aliases.containsKey(data.get("alias"))) {
+        } else if (bound == null) {
             logger.debug("Rejecting bind, alias already taken " + data);
 
-            final WebSocket client = clients.get(data.get("id"));
-
-            Thread thread = new Thread(() -> {
-                try {
-                   send(client, (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId((String) data.get("id")).setAlias((String) data.get("alias")).setSet(false).getOperation());
-                } catch (ClientClosed e) {
-                    logger.error(e);
-                }
-            });
+            final WebSocket client = clients.get(data.getId());
 
-            thread.start();
+            try {
+               send(client, (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(data.getId()).setAlias(data.getAlias()).setSet(false).getOperation());
+            } catch (ClientClosed e) {
+                logger.error(e);
+            }
 
         } else {
             logger.debug("Accepting bind " + data);
 
-            tcpAddress.claimTCPAddress((String) data.get("alias"));
+            try {
+                tcpAddress.claimTCPAddress(data.getAlias());
+            } catch (PortAlreadyAllocated | SubnetDoesNotExist e) {
+                // Undo only this bind, the alias may have been closed and bound again meanwhile
+                aliases.remove(data.getAlias(), bound.getGeneration());
 
-            // Add alias to aliases
-            aliases.put((String) data.get("alias"), new MAlias((String) data.get("id"), false));
+                throw e;
+            }
 
-            // Send alias to all clients
-            clients.forEach((id, client) -> {
-                Thread thread = new Thread(() -> {
-                    try {
-                        send(client, (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId((String) data.get("id")).setAlias((String) data.get("alias")).setSet(true).getOperation());
-                        logger.debug("Sent alias " + data);
-                    } catch (ClientClosed e) {
-                        logger.error(e);
-                    }
-                });
+            recordAlias(data.getAlias(), bound);
 
-                thread.start();
-            });
+            // Send alias to all clients, or to its subscribers
+            publish((Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(data.getId()).setAlias(data.getAlias()).setSet(true).getOperation());
+            logger.debug("Sent alias " + data);
         }
     }
 
@@ -234,16 +268,17 @@ public class ServerOperation {
      * Handle client accepting
      * @param data data
      */
-    protected void handleAccepting(JSONObject data) {
+    protected void handleAccepting(InboundOperation data) {
         logger.debug("Handling accepting");
         
-        if (!aliases.containsKey(data.get("alias"))
-                || !aliases.get(data.get("alias")).getId().equals((String) data.get("id"))) {
+        final MAlias accepting = aliases.accept(data.getAlias(), data.getId());
+
+        if (accepting == null) {
             logger.debug("Rejecting accepting, alias does not exist " + data);
         } else {
             logger.debug("Accepting accepting " + data);
 
-            aliases.put((String) data.get("alias"), new MAlias((String) data.get("id"), true));
+            recordAlias(data.getAlias(), accepting);
         }
     }
 
@@ -252,45 +287,36 @@ public class ServerOperation {
      * Handle client shutdown
      * @param data data
      */
-    protected void handleShutdown(JSONObject data) {
+    protected void handleShutdown(InboundOperation data) {
         logger.debug("Handling shutdown");
 
-        // If aliases contains alias, remove alias, TCP address and IP address
-        if (aliases.containsKey(data.get("alias")) && aliases.get(data.get("alias")).getId() != data.get("id")) {
-            aliases.remove(data.get("alias"));
-            tcpAddress.removeTCPAddress((String) data.get("alias"));
-            ip.removeIPAddress(tcpAddress.parseTCPAddress((String) data.get("alias"))[0]);
+        // If the client owns the alias, remove alias, TCP address and IP address
+        if (aliases.close(data.getAlias(), data.getId()) != null) {
+            unrecordAlias(data.getAlias());
+
+            long alias = AddressCodec.parseTCPAddress(data.getAlias());
+
+            if (alias != -1) {
+                tcpAddress.removeTCPAddress(alias);
+                ip.removeIPAddress(AddressCodec.getIPAddress(alias));
+            }
 
             logger.debug("Accepting shutdown " + data);
 
-            // Send alias to all clients
-            clients.forEach((id, client) -> {
-                Thread thread = new Thread(() -> {
-                    try {
-                        send(client, (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId((String) data.get("id")).setAlias((String) data.get("alias")).setSet(false).getOperation());
-                    } catch (ClientClosed e) {
-                        logger.error(e);
-                    }
-                    logger.debug("Sent alias " + id + " " + data);
-                });
-
-                thread.start();
-            });
+            // Send alias to all clients, or to its subscribers
+            publish((Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(data.getId()).setAlias(data.getAlias()).setSet(false).getOperation());
+            logger.debug("Sent alias " + data);
 
         } else {
             logger.debug("Rejecting shutdown, alias not taken or incorrect client ID " + data);
 
-            final WebSocket client = clients.get(data.get("id"));
-
-            Thread thread = new Thread(() -> {
-                try {
-                    send(client, (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId((String) data.get("id")).setAlias((String) data.get("alias")).setSet(true).getOperation());
-                } catch (ClientClosed e) {
-                    logger.error(e);
-                }
-            });
+            final WebSocket client = clients.get(data.getId());
 
-            thread.start();
+            try {
+                send(client, (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(data.getId()).setAlias(data.getAlias()).setSet(true).getOperation());
+            } catch (ClientClosed e) {
+                logger.error(e);
+            }
 
         }
     }
@@ -302,88 +328,319 @@ public class ServerOperation {
      * @throws SuffixDoesNotExist Thrown if suffix does not exist
      * @throws SubnetDoesNotExist Thrown if subent does not exist
      */
-    protected void handleConnect(JSONObject data) throws SuffixDoesNotExist, SubnetDoesNotExist {
+    protected void handleConnect(InboundOperation data) throws SuffixDoesNotExist, SubnetDoesNotExist {
         logger.debug("Handling connect");
 
-        final String clientAlias = tcpAddress.createTCPAddress((String) data.get("id"));
-        final WebSocket client = clients.get(data.get("id"));
+        if (data.getRemoteAliases() != null) {
+            handleConnects(data);
+
+            return;
+        }
+
+        final String clientAlias = tcpAddress.createTCPAddress(data.getId());
+        final WebSocket client = clients.get(data.getId());
+
+        // Read the remote alias once, so it can not change between the check and its use
+        final MAlias serverId = aliases.get(data.getRemoteAlias());
+
+        // All ports of the client are in use, so there is no alias for the connection
+        final boolean exhausted = "-1".equals(clientAlias);
 
         // If aliases does not contain alias, reject connect
-        if (!aliases.containsKey(data.get("remoteAlias")) || !aliases.get(data.get("remoteAlias")).getAccepting()) {
-            logger.debug("Rejecting connect, remote alias does not exists " + data);
-            tcpAddress.removeTCPAddress(clientAlias);
+        if (serverId == null || !serverId.getAccepting() || exhausted) {
+            logger.debug("Rejecting connect, " + (exhausted ? "no ports left " : "remote alias does not exists ") + data);
 
-            final Alias aliasMessage = (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId((String) data.get("id")).setAlias((String) data.get("alias")).setSet(false).setClientConnectionId((String) data.get("clientConnectionId")).getOperation();
+            if (!exhausted) {
+                tcpAddress.removeTCPAddress(clientAlias);
+            }
 
-            Thread thread = new Thread(() -> {
-                try {                
-                    send(client, aliasMessage);
-                } catch (ClientClosed e) {
-                    logger.error(e);
-                }
-                logger.debug("Sent alias to client " + data + " " + aliasMessage);
-            });
+            final Alias aliasMessage = (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(data.getId()).setAlias(data.getAlias()).setSet(false).setClientConnectionId(data.getClientConnectionId()).getOperation();
 
-            thread.start();
+            try {                
+                send(client, aliasMessage);
+            } catch (ClientClosed e) {
+                logger.error(e);
+            }
+            logger.debug("Sent alias to client " + data + " " + aliasMessage);
 
         } else {
             logger.debug("Accepting connect " + data);
 
             // Add clientAlias to aliases
-            aliases.put(clientAlias, new MAlias((String) data.get("id"), false));
-
-            final Alias clientAliasMessage = (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId((String) data.get("id")).setAlias(clientAlias).setSet(true).setClientConnectionId((String) data.get("clientConnectionId")).setIsConnectionAlias(true).getOperation();
-            Thread thread = new Thread(() -> {
-                try {
-                    send(client, clientAliasMessage);
-                } catch (ClientClosed e) {
-                    logger.error(e);
-                }
-                logger.debug("Sent alias for connection to client " + data + " " + clientAliasMessage.getAsJSON(clientAliasMessage));
-            });
+            putAlias(clientAlias, data.getId());
 
-            thread.start();
+            final Alias clientAliasMessage = (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(data.getId()).setAlias(clientAlias).setSet(true).setClientConnectionId(data.getClientConnectionId()).setIsConnectionAlias(true).getOperation();
+            try {
+                send(client, clientAliasMessage);
+            } catch (ClientClosed e) {
+                logger.error(e);
+            }
+            logger.debug("Sent alias for connection to client " + data + " " + clientAliasMessage.getAsJSON(clientAliasMessage));
 
-            final MAlias serverId = aliases.get(data.get("remoteAlias"));
             final WebSocket server = clients.get(serverId.getId());
 
-            final Alias serverAliasMessage = (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId((String) data.get("id")).setAlias(clientAlias).setSet(true).getOperation();
+            final Alias serverAliasMessage = (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(data.getId()).setAlias(clientAlias).setSet(true).getOperation();
 
-            Thread thread2 = new Thread(() -> {
-                try {
-                    send(server, serverAliasMessage);
-                } catch (ClientClosed e) {
-                    logger.error(e);
-                }
-                logger.debug("Sent alias for connection to server " + data + " " + serverAliasMessage);
-            });
+            try {
+                send(server, serverAliasMessage);
+            } catch (ClientClosed e) {
+                logger.error(e);
+            }
+            logger.debug("Sent alias for connection to server " + data + " " + serverAliasMessage);
+
+            final Accept serverAcceptMessage = (Accept) new OperationFactory(ESignalingOperationCode.ACCEPT).setBoundAlias(data.getRemoteAlias()).setClientAlias(clientAlias).getOperation();
+            try {
+                send(server, serverAcceptMessage);
+            } catch (ClientClosed e) {
+                logger.error(e);
+            }
+            logger.debug("Sent accept to server " + data + " " + serverAcceptMessage);
 
-            thread2.start();
+            final Alias serverAliasForClientsMessage = (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId((String) serverId.getId()).setAlias(data.getRemoteAlias()).setSet(true).setClientConnectionId(data.getClientConnectionId()).getOperation();
+            try {
+                send(client, serverAliasForClientsMessage);
+            } catch (ClientClosed e) {
+                logger.error(e);
+            }
+            logger.debug("Sent alias for server to client " + data + " " + serverAliasForClientsMessage);
+        }
+    }
 
-            final Accept serverAcceptMessage = (Accept) new OperationFactory(ESignalingOperationCode.ACCEPT).setBoundAlias((String) data.get("remoteAlias")).setClientAlias(clientAlias).getOperation();
-            Thread thread3 = new Thread(() -> {
-                try {
-                    send(server, serverAcceptMessage);
-                } catch (ClientClosed e) {
-                    logger.error(e);
-                }
-                logger.debug("Sent accept to server " + data + " " + serverAcceptMessage);
-            });
+    
+    /** 
+     * Handle client connect to several remote aliases at once. The TCP addresses of all accepted connects are created in one go,
+     * and the client and every server get all of their Alias and Accept operations in one write.
+     * @param data data
+     * @throws SuffixDoesNotExist Thrown if suffix does not exist
+     * @throws SubnetDoesNotExist Thrown if subent does not exist
+     */
+    protected void handleConnects(InboundOperation data) throws SuffixDoesNotExist, SubnetDoesNotExist {
+        final List<String> remoteAliases = data.getRemoteAliases();
+        final List<String> clientConnectionIds = data.getClientConnectionIds();
+        final MAlias[] servers = new MAlias[remoteAliases.size()];
+        int accepting = 0;
+
+        for (int i = 0; i < servers.length; i++) {
+            final MAlias server = aliases.get(remoteAliases.get(i));
+
+            if (server != null && server.getAccepting()) {
+                servers[i] = server;
+                accepting++;
+            }
+        }
 
-            thread3.start();
+        final String[] clientAliases = accepting == 0 ? new String[0] : tcpAddress.createTCPAddresses(data.getId(), accepting);
+        final WebSocket client = clients.get(data.getId());
+        final List<IOperation> clientOperations = new ArrayList<IOperation>();
+        final Map<WebSocket, List<IOperation>> serverOperations = new LinkedHashMap<WebSocket, List<IOperation>>();
+        int next = 0;
 
-            final Alias serverAliasForClientsMessage = (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId((String) serverId.getId()).setAlias((String) data.get("remoteAlias")).setSet(true).setClientConnectionId((String) data.get("clientConnectionId")).getOperation();
-            Thread thread4 = new Thread(() -> {
-                try {
-                    send(client, serverAliasForClientsMessage);
-                } catch (ClientClosed e) {
-                    logger.error(e);
-                }
-                logger.debug("Sent alias for server to client " + data + " " + serverAliasForClientsMessage);
-            });
+        for (int i = 0; i < servers.length; i++) {
+            final String remoteAlias = remoteAliases.get(i);
+            final String clientConnectionId = clientConnectionIds != null && i < clientConnectionIds.size() ? clientConnectionIds.get(i) : null;
+
+            // Connects beyond the ports which are left are rejected like connects to remote aliases which do not accept
+            if (servers[i] == null || next == clientAliases.length) {
+                logger.debug("Rejecting connect, remote alias does not exists " + remoteAlias);
+
+                // The rejected remote alias keeps the client connection id in the operation, so the client can tell which of its connects failed
+                clientOperations.add((Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(data.getId()).setAlias(remoteAlias).setSet(false).setClientConnectionId(clientConnectionId).getOperation());
+
+                continue;
+            }
+
+            final String clientAlias = clientAliases[next++];
+            final WebSocket server = clients.get(servers[i].getId());
+
+            logger.debug("Accepting connect " + remoteAlias + " " + clientAlias);
+
+            putAlias(clientAlias, data.getId());
+
+            clientOperations.add((Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(data.getId()).setAlias(clientAlias).setSet(true).setClientConnectionId(clientConnectionId).setIsConnectionAlias(true).getOperation());
+            clientOperations.add((Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(servers[i].getId()).setAlias(remoteAlias).setSet(true).setClientConnectionId(clientConnectionId).getOperation());
+
+            if (server != null) {
+                final List<IOperation> operations = serverOperations.computeIfAbsent(server, (key) -> new ArrayList<IOperation>());
+
+                operations.add((Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(data.getId()).setAlias(clientAlias).setSet(true).getOperation());
+                operations.add((Accept) new OperationFactory(ESignalingOperationCode.ACCEPT).setBoundAlias(remoteAlias).setClientAlias(clientAlias).getOperation());
+            }
+        }
+
+        try {
+            send(client, clientOperations);
+        } catch (ClientClosed e) {
+            logger.error(e);
+        }
 
-            thread4.start();
+        for (Map.Entry<WebSocket, List<IOperation>> entry : serverOperations.entrySet()) {
+            try {
+                send(entry.getKey(), entry.getValue());
+            } catch (ClientClosed e) {
+                logger.error(e);
+            }
         }
+
+        logger.debug("Sent " + next + " accepted and " + (servers.length - next) + " rejected connects to client " + data.getId() + " and " + serverOperations.size() + " servers");
+    }
+
+    
+    /** 
+     * Sets a connection alias of a client and records it in the snapshot
+     * @param alias alias
+     * @param id id of the client
+     */
+    protected void putAlias(String alias, String id) {
+        recordAlias(alias, aliases.put(alias, id, false));
+    }
+
+    
+    /** 
+     * Returns true if a knock claims a restored IP address with the token it was acknowledged with before the restart, knocking for the same subnet as then.
+     * That subnet is recorded with the token, as a client which spilled over got its IP address from a sibling subnet.
+     * @param data data
+     * @return boolean
+     */
+    private boolean isRestoredClaim(InboundOperation data) {
+        if (snapshot == null || data.getId() == null || data.getSubnet() == null || data.getToken() == null) {
+            return false;
+        }
+
+        long ipAddress = AddressCodec.parseIPAddress(data.getId());
+        int subnet = AddressCodec.parseSubnet(data.getSubnet(), snapshot.getPrefixLength());
+
+        if (ipAddress == -1 || subnet == -1) {
+            return false;
+        }
+
+        try {
+            return snapshot.isRestoredToken((int) ipAddress, subnet, Long.parseUnsignedLong(data.getToken(), 16));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    
+    /** 
+     * Creates the token a client reclaims its IP address with after a restart and records it in the snapshot, together with the subnet the client knocked for
+     * @param id IP address
+     * @param subnet subnet the client knocked for
+     * @return String token, or null if there is no snapshot to restore from
+     */
+    private String createToken(String id, String subnet) {
+        if (snapshot == null) {
+            return null;
+        }
+
+        long ipAddress = AddressCodec.parseIPAddress(id);
+        int knocked = AddressCodec.parseSubnet(subnet, snapshot.getPrefixLength());
+
+        if (ipAddress == -1 || knocked == -1) {
+            return null;
+        }
+
+        long token = random.nextLong();
+
+        snapshot.setToken((int) ipAddress, knocked, token);
+
+        return String.format("%016x", token);
+    }
+
+    
+    /** 
+     * Records a transition of an alias in the snapshot
+     * @param alias alias
+     * @param value owner and accepting state of the alias
+     */
+    protected void recordAlias(String alias, MAlias value) {
+        if (snapshot != null) {
+            long address = AddressCodec.parseTCPAddress(alias);
+            long owner = AddressCodec.parseIPAddress(value.getId());
+
+            if (address != -1 && owner != -1) {
+                snapshot.setAlias(address, (int) owner, value.getAccepting());
+            }
+        }
+    }
+
+    
+    /** 
+     * Removes an alias if it is still in the generation of the given value and records that in the snapshot
+     * @param alias alias
+     * @param value owner and accepting state of the alias
+     * @return boolean false if the alias was changed or removed in the meantime
+     */
+    protected boolean removeAlias(String alias, MAlias value) {
+        if (value == null || !aliases.remove(alias, value.getGeneration())) {
+            return false;
+        }
+
+        unrecordAlias(alias);
+
+        return true;
+    }
+
+    
+    /** 
+     * Records a closed alias in the snapshot
+     * @param alias alias
+     */
+    protected void unrecordAlias(String alias) {
+        if (snapshot != null) {
+            long address = AddressCodec.parseTCPAddress(alias);
+
+            if (address != -1) {
+                snapshot.unsetAlias(address);
+            }
+        }
+    }
+
+    
+    /** 
+     * Handle subscribe, watching the aliases and alias prefixes in remoteAliases or remoteAlias
+     * @param data data
+     */
+    protected void handleSubscribe(InboundOperation data) {
+        logger.debug("Handling subscribe " + data);
+
+        if (subscriptions == null) {
+            logger.debug("Ignoring subscribe, aliases are sent to all clients " + data);
+        } else if (!clients.containsKey(data.getId())) {
+            logger.debug("Rejecting subscribe, client does not exist " + data);
+        } else {
+            for (String pattern : getPatterns(data)) {
+                subscriptions.subscribe(data.getId(), pattern);
+            }
+        }
+    }
+
+    
+    /** 
+     * Handle unsubscribe, no longer watching the aliases and alias prefixes in remoteAliases or remoteAlias
+     * @param data data
+     */
+    protected void handleUnsubscribe(InboundOperation data) {
+        logger.debug("Handling unsubscribe " + data);
+
+        if (subscriptions != null) {
+            for (String pattern : getPatterns(data)) {
+                subscriptions.unsubscribe(data.getId(), pattern);
+            }
+        }
+    }
+
+    
+    /** 
+     * Returns the patterns of a subscribe or unsubscribe
+     * @param data data
+     * @return List<String>
+     */
+    private List<String> getPatterns(InboundOperation data) {
+        if (data.getRemoteAliases() != null) {
+            return data.getRemoteAliases();
+        }
+
+        return data.getRemoteAlias() == null ? Collections.<String>emptyList() : Collections.singletonList(data.getRemoteAlias());
     }
 
     
@@ -395,17 +652,101 @@ public class ServerOperation {
 
         logger.debug("Sending " + operation);
 
-        Thread thread = new Thread(() -> {
-            // Broadcast Goodbye
-            clients.forEach( (id, conn) -> {
-                conn.send(operation.getAsJSON(operation));
-            });
+        // Broadcast Goodbye
+        broadcast(operation.getId(), operation);
 
-            logger.debug("Goodbye was send!");
-        });
+        logger.debug("Goodbye was send!");
+
+    }
+
+    
+    /** 
+     * Send Alias to all clients in the subnet of its owner or, with subscriptions, to its owner and the clients which watch it
+     * @param operation operation
+     */
+    protected void publish(Alias operation) {
+        Collection<WebSocket> targets = subscriptions == null ? domains.getPeers(operation.getId()).values() : getSubscribers(operation.getAlias(), operation.getId(), domains.getDomain(operation.getId()));
+
+        if (batcher == null) {
+            broadcaster.broadcast(operation, targets);
+        } else {
+            batcher.add(operation, targets);
+        }
+    }
+
+    
+    /** 
+     * Send the Alias unsets and Goodbyes of departed clients of a subnet. Without subscriptions and batching, each remaining client of the subnet gets all of them in one write.
+     * With batching, the unsets join the pending alias updates of every recipient, which the remaining clients of the subnet get right before the Goodbyes.
+     * @param domain domain the clients were in
+     * @param unsets Alias unsets of the aliases the clients owned
+     * @param goodbyes Goodbyes of the clients
+     */
+    protected void sendDepartures(int domain, List<Alias> unsets, List<Goodbye> goodbyes) {
+        Collection<WebSocket> members = domains.getMembers(domain).values();
+
+        if (batcher != null) {
+            for (Alias unset : unsets) {
+                batcher.add(unset, subscriptions == null ? members : getSubscribers(unset.getAlias(), null, domain));
+            }
+
+            for (WebSocket member : members) {
+                batcher.flush(member);
+            }
 
-        thread.start();
+            broadcaster.broadcast(goodbyes, members);
+        } else if (subscriptions == null) {
+            List<IOperation> operations = new ArrayList<IOperation>(unsets);
 
+            operations.addAll(goodbyes);
+
+            broadcaster.broadcast(operations, members);
+        } else {
+            for (Alias unset : unsets) {
+                broadcaster.broadcast(unset, getSubscribers(unset.getAlias(), null, domain));
+            }
+
+            broadcaster.broadcast(goodbyes, members);
+        }
+    }
+
+    
+    /** 
+     * Returns the connections of the owner of an alias and of the clients of its domain which watch it.
+     * Subscribers in other domains are skipped, as aliases are not sent beyond the subnet of their owner.
+     * @param alias alias
+     * @param id id of the owner, or null if it departed
+     * @param domain domain of the owner
+     * @return Collection<WebSocket>
+     */
+    private Collection<WebSocket> getSubscribers(String alias, String id, int domain) {
+        Set<WebSocket> result = new LinkedHashSet<WebSocket>();
+        WebSocket owner = id == null ? null : clients.get(id);
+
+        if (owner != null) {
+            result.add(owner);
+        }
+
+        for (String subscriber : subscriptions.getSubscribers(alias)) {
+            WebSocket conn = clients.get(subscriber);
+
+            if (conn != null && domains.getDomain(subscriber) == domain) {
+                result.add(conn);
+            }
+        }
+
+        return result;
+    }
+
+    
+    /** 
+     * Send operation to all clients in the subnet of a client. The operation is encoded once and the same frames are written to every client.
+     * @param <E> generic parameter
+     * @param id id of the client the operation is about
+     * @param operation operation
+     */
+    protected <E extends IOperation> void broadcast(String id, E operation) {
+        broadcaster.broadcast(operation, domains.getPeers(id).values());
     }
 
     
@@ -422,13 +763,30 @@ public class ServerOperation {
 
         if (conn != null) {
 
-            Thread thread = new Thread(() -> {
-                // Send operations to given connection
-                conn.send(operation.getAsJSON(operation));
+            // Send operations to given connection, in order with all other operations for that connection
+            mailboxes.execute(conn, () -> {
+                conn.sendFrame(BinaryCodec.isNegotiated(conn) ? binaryCodec.encodeFrame(operation) : encoder.encodeFrame(operation));
             });
 
-            thread.start();
+        } else {
+            throw new ClientClosed();
+        }
+    }
+
+    
+    /** 
+     * Send several operations to client in one write, in order with all other operations for that connection
+     * @param conn conn
+     * @param operations operations, in the order they are sent
+     * @throws ClientClosed Thrown if client is closed
+     */
+    protected void send(WebSocket conn, List<? extends IOperation> operations) throws ClientClosed {
 
+        logger.debug("Sending " + operations.size() + " operations");
+
+        if (conn != null) {
+            // Queued in the mailbox of the connection by the broadcaster
+            broadcaster.send(operations, conn);
         } else {
             throw new ClientClosed();
         }
@@ -1,32 +1,62 @@
 package dev.webnetes.junisockets.services;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.apache.log4j.Logger;
 import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
 import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.Framedata;
 import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.protocols.IProtocol;
+import org.java_websocket.protocols.Protocol;
 import org.java_websocket.server.WebSocketServer;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
+import dev.webnetes.junisockets.addresses.AddressCodec;
+import dev.webnetes.junisockets.addresses.AllocatorSnapshot;
+import dev.webnetes.junisockets.addresses.AtomicIPAddress;
+import dev.webnetes.junisockets.addresses.AtomicSubnet;
+import dev.webnetes.junisockets.addresses.AtomicTCPAddress;
+import dev.webnetes.junisockets.addresses.EAddressAllocator;
+import dev.webnetes.junisockets.addresses.IIPAddress;
 import dev.webnetes.junisockets.addresses.IPAddress;
+import dev.webnetes.junisockets.addresses.ISubnet;
+import dev.webnetes.junisockets.addresses.ITCPAddress;
+import dev.webnetes.junisockets.addresses.SnapshotIPAddress;
+import dev.webnetes.junisockets.addresses.SpillOverIPAddress;
+import dev.webnetes.junisockets.addresses.Subnet;
+import dev.webnetes.junisockets.addresses.SubnetTable;
 import dev.webnetes.junisockets.addresses.TCPAddress;
-import dev.webnetes.junisockets.errors.ClientClosed;
+import dev.webnetes.junisockets.codecs.BinaryCodec;
+import dev.webnetes.junisockets.codecs.CompressionMetrics;
+import dev.webnetes.junisockets.codecs.IOperationDecoder;
+import dev.webnetes.junisockets.codecs.ThresholdDeflateExtension;
 import dev.webnetes.junisockets.errors.ClientDoesNotExist;
-import dev.webnetes.junisockets.errors.PortAlreadyAllocated;
-import dev.webnetes.junisockets.errors.SubnetDoesNotExist;
-import dev.webnetes.junisockets.errors.SuffixDoesNotExist;
+import dev.webnetes.junisockets.errors.MalformedOperation;
 import dev.webnetes.junisockets.errors.UnimplementedOperation;
 import dev.webnetes.junisockets.models.MAlias;
 import dev.webnetes.junisockets.operations.Alias;
 import dev.webnetes.junisockets.operations.ESignalingOperationCode;
 import dev.webnetes.junisockets.operations.Goodbye;
+import dev.webnetes.junisockets.operations.InboundOperation;
 import dev.webnetes.junisockets.operations.OperationFactory;
 
 /**
@@ -35,14 +65,30 @@ import dev.webnetes.junisockets.operations.OperationFactory;
 public class SignalingServer extends WebSocketServer {
 
     private Logger logger = Logger.getLogger(SignalingServer.class);
-    public ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-    private ReentrantLock mutex = new ReentrantLock();
+    public SubnetTable<Subnet> subnets;
     public ConcurrentHashMap<String, WebSocket> clients = new ConcurrentHashMap<String, WebSocket>();
-    public ConcurrentHashMap<String, MAlias> aliases = new ConcurrentHashMap<String, MAlias>();
+    public AliasRegistry aliases = new AliasRegistry();
     private boolean isOpen = false;
-    private IPAddress ip = new IPAddress(logger, mutex, subnets);
-    private TCPAddress tcpAddress = new TCPAddress(logger, mutex, subnets, ip);
-    private ServerOperation op = new ServerOperation(clients, aliases, ip, tcpAddress, logger);
+    private volatile boolean isStopping = false;
+    private SubnetTable<AtomicSubnet> atomicSubnets;
+    private IIPAddress ip;
+    private ITCPAddress tcpAddress;
+    private HandlerExecutor executor;
+    private IOperationDecoder decoder;
+    private PeerMailboxes mailboxes;
+    private Broadcaster broadcaster;
+    private BroadcastDomains domains;
+    private AliasSubscriptions subscriptions;
+    private AliasBatcher batcher;
+    private ServerOperation op;
+    private Leases leases;
+    private AllocatorSnapshot snapshot;
+    private Set<String> restored = ConcurrentHashMap.newKeySet();
+    private long restoreTimeout;
+    private ScheduledExecutorService restoreTimer;
+    private OperationRegistry registry = new OperationRegistry();
+    private BinaryCodec binaryCodec = new BinaryCodec();
+    private ThresholdDeflateExtension compression;
 
     /**
      * Constructor SignalingServer
@@ -50,10 +96,65 @@ public class SignalingServer extends WebSocketServer {
      * @param address address
      */
     public SignalingServer(Logger logger, InetSocketAddress address) {
-        super(address);
+        this(logger, address, new SignalingServerBuilder().setLogger(logger).buildSettings());
+    }
+
+    /**
+     * Constructor SignalingServer
+     * @param logger logger
+     * @param address address
+     * @param settings settings built by SignalingServerBuilder
+     */
+    public SignalingServer(Logger logger, InetSocketAddress address, SignalingServerSettings settings) {
+        super(address, drafts(settings.getCompression()));
         setReuseAddr(true);
 
         this.logger = logger;
+        int prefixLength = settings.getPrefixLength();
+        EAddressAllocator allocator = settings.getAddressAllocator();
+
+        this.subnets = new SubnetTable<Subnet>(prefixLength, Subnet::new);
+        this.atomicSubnets = new SubnetTable<AtomicSubnet>(prefixLength, AtomicSubnet::new);
+
+        if (allocator == EAddressAllocator.LOCK_FREE) {
+            this.ip = new AtomicIPAddress(logger, atomicSubnets);
+            this.tcpAddress = new AtomicTCPAddress(logger, atomicSubnets);
+        } else {
+            this.ip = new IPAddress(logger, subnets);
+            this.tcpAddress = new TCPAddress(logger, subnets);
+        }
+
+        if (settings.getSnapshotPath() != null) {
+            try {
+                this.snapshot = new AllocatorSnapshot(logger, settings.getSnapshotPath(), prefixLength);
+
+                restore(allocator == EAddressAllocator.LOCK_FREE ? atomicSubnets : subnets);
+
+                this.ip = new SnapshotIPAddress(ip, snapshot);
+            } catch (IOException e) {
+                // The server still works without the snapshot, it only starts empty
+                logger.error("Could not open snapshot " + settings.getSnapshotPath());
+                logger.error(e);
+            }
+        }
+
+        if (settings.getSpillOverSubnets() > 0) {
+            this.ip = new SpillOverIPAddress(logger, ip, prefixLength, settings.getSpillOverSubnets());
+        }
+
+        this.compression = settings.getCompression();
+        this.executor = settings.getExecutor();
+        this.decoder = settings.getDecoder();
+        this.mailboxes = new PeerMailboxes(logger, executor);
+        this.broadcaster = new Broadcaster(logger, mailboxes);
+        this.domains = new BroadcastDomains(prefixLength);
+        this.subscriptions = settings.getLegacyAliasBroadcast() ? null : new AliasSubscriptions();
+        this.batcher = settings.getAliasBatchWindow() > 0 ? new AliasBatcher(logger, settings.getAliasBatchWindow(), settings.getAliasBatchSize(), broadcaster) : null;
+        this.op = new ServerOperation(clients, aliases, ip, tcpAddress, logger, mailboxes, broadcaster, domains, subscriptions, batcher, restored, snapshot);
+        this.leases = new Leases(logger, settings.getLeaseTimeout(), this::reclaim);
+        this.restoreTimeout = settings.getRestoreTimeout();
+
+        registerHandlers();
     }
 
     
@@ -79,53 +180,52 @@ public class SignalingServer extends WebSocketServer {
      */
     @Override
     public void onClose(WebSocket conn, int code, String reason, boolean remote) {
-        String id = "";
+        // The id of the client is attached to its connection on knock
+        String id = conn.getAttachment();
 
-        // Get the current key of the connection in the client map
-        for (int i = 0; i < clients.size(); i++) {
-            String currentKey = (String) clients.keySet().toArray()[i];
+        logger.debug("Registering goodbye " + id);
 
-            if (clients.get(currentKey) == conn) {
-                id = currentKey;
-            }
-        }
+        leases.release(id, conn);
 
-        logger.debug("Registering goodbye " + id);
+        if (isStopping && snapshot != null) {
+            // Keep the addresses and aliases in the snapshot, so the client gets them back after the restart
+            logger.debug("Kept client " + id + " in snapshot");
+
+            return;
+        }
 
-        if (clients.containsKey(id)) {
-            // If clients contains that id, remove it from clients
-            clients.remove(id);
+        // If clients contains that id for this connection, remove it from clients
+        if (id != null && clients.remove(id, conn)) {
+            final List<Alias> unsets = new ArrayList<Alias>();
+            final int domain = domains.getDomain(id);
 
-            final String targetId = id;
+            domains.leave(id, conn);
 
-            aliases.forEach((clientId, alias) -> {
-                // Check if id of alias matches the targetId
-                if (alias.getId().equals(targetId)) {
-                    // If id of alias matches the targetId remove current alias and remove TCP address
-                    aliases.remove(clientId);
-                    tcpAddress.removeTCPAddress(clientId);
+            if (subscriptions != null) {
+                subscriptions.unsubscribeAll(id);
+            }
 
-                    // Send each client an alias that the targetId is not set anymore
-                    clients.forEach((key, client) -> {
+            // Only the aliases of the departing client are looked at
+            for (String clientId : aliases.getOwned(id)) {
+                final MAlias alias = aliases.get(clientId);
 
-                        try {
-                            op.send(clients.get(key), (Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(targetId).setAlias(clientId).setSet(false).getOperation());
-                        } catch (ClientClosed e1) {
-                            logger.error(e1);
-                        }
+                // Remove alias and TCP address, unless another client took the alias over in the meantime
+                if (alias != null && alias.getId().equals(id) && op.removeAlias(clientId, alias)) {
+                    tcpAddress.removeTCPAddress(clientId);
 
-                        logger.debug("Sent alias " + targetId + key);
-                    });
+                    unsets.add((Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(id).setAlias(clientId).setSet(false).getOperation());
                 }
-            });
+            }
 
-            // Remove IP address of targetId
-            ip.removeIPAddress(tcpAddress.parseTCPAddress(targetId)[0]);
+            // Remove IP address of the client
+            ip.removeIPAddress(id);
 
-            // Broadcast Goodbye to all remaining clients
-            op.send((Goodbye) new OperationFactory(ESignalingOperationCode.GOODBYE).setId(targetId).getOperation());
+            op.sendDepartures(domain, unsets, Collections.singletonList((Goodbye) new OperationFactory(ESignalingOperationCode.GOODBYE).setId(id).getOperation()));
 
-            logger.debug("Sent goodbye " + targetId);
+            logger.debug("Sent " + unsets.size() + " aliases and goodbye " + id);
+        } else if (id == null) {
+            // Never knocked, or reclaimed after its lease expired
+            logger.debug("Closed connection without client");
         } else {
             try {
                 throw new ClientDoesNotExist();
@@ -134,6 +234,14 @@ public class SignalingServer extends WebSocketServer {
             }
         }
 
+        // Queued tasks of the departed client still run, but its mailboxes are not needed anymore
+        mailboxes.remove(id);
+        mailboxes.remove(conn);
+
+        if (batcher != null) {
+            batcher.discard(conn);
+        }
+
         logger.debug("Client disconnected " + id);
 
         isOpen = false;
@@ -147,21 +255,34 @@ public class SignalingServer extends WebSocketServer {
      */
     @Override
     public void onMessage(WebSocket conn, String message) {
-
-        JSONParser parser = new JSONParser();
-        Object jsonObj = null;
+        leases.renew(conn);
 
         try {
-            jsonObj = parser.parse(message);
-        } catch (ParseException e) {
+            // Decode and handle the incoming operation
+            handleOperation(decoder.decode(message), conn);
+        } catch (MalformedOperation e) {
+            logger.error(e);
+        } catch (UnimplementedOperation e) {
             logger.error(e);
         }
 
-        JSONObject operation = (JSONObject) jsonObj;
+    }
+
+    
+    /** 
+     * Callback for binary messages received from the remote host, which are sent by clients that negotiated the binary protocol
+     * @param conn conn
+     * @param message message
+     */
+    @Override
+    public void onMessage(WebSocket conn, ByteBuffer message) {
+        leases.renew(conn);
 
         try {
-            // Handle the incoming operation
-            handleOperation(operation, conn);
+            // Decode and handle the incoming operation
+            handleOperation(binaryCodec.decode(message), conn);
+        } catch (MalformedOperation e) {
+            logger.error(e);
         } catch (UnimplementedOperation e) {
             logger.error(e);
         }
@@ -176,7 +297,137 @@ public class SignalingServer extends WebSocketServer {
      */
     @Override
     public void onError(WebSocket conn, Exception e) {
-       logger.error(e); 
+        if (conn != null && conn.getAttachment() != null) {
+            logger.error("Error on connection of client " + conn.getAttachment());
+        }
+
+        logger.error(e); 
+    }
+
+    
+    /** 
+     * Called when a pong to one of our pings arrives, renews the lease of the client
+     * @param conn conn
+     * @param f frame
+     */
+    @Override
+    public void onWebsocketPong(WebSocket conn, Framedata f) {
+        // Keeps the connection lost detection of the server working
+        super.onWebsocketPong(conn, f);
+
+        leases.renew(conn);
+    }
+
+    /** 
+     * Stops the server and the handler executor. With a snapshot, the connected clients keep their addresses and aliases for the restart.
+     * @param timeout timeout in milliseconds
+     * @throws InterruptedException Thrown if interrupted
+     */
+    @Override
+    public void stop(int timeout) throws InterruptedException {
+        isStopping = true;
+
+        super.stop(timeout);
+
+        leases.stop();
+        executor.shutdown();
+
+        if (restoreTimer != null) {
+            restoreTimer.shutdownNow();
+        }
+
+        if (batcher != null) {
+            batcher.stop();
+        }
+
+        if (snapshot != null) {
+            try {
+                snapshot.close();
+            } catch (IOException e) {
+                logger.error(e);
+            }
+        }
+    }
+
+    
+    /** 
+     * Returns the executor which runs all handler and send work
+     * @return HandlerExecutor
+     */
+    public HandlerExecutor getHandlerExecutor() {
+        return executor;
+    }
+
+    
+    /** 
+     * Returns the registry of the handlers of incoming operations. Handlers for new opcodes have to be registered before the server is started.
+     * @return OperationRegistry
+     */
+    public OperationRegistry getOperationRegistry() {
+        return registry;
+    }
+
+    
+    /** 
+     * Returns the fan-out engine which sends Alias and Goodbye broadcasts
+     * @return Broadcaster
+     */
+    public Broadcaster getBroadcaster() {
+        return broadcaster;
+    }
+
+    
+    /** 
+     * Returns the metrics of the per-message-deflate compression
+     * @return CompressionMetrics, or null if compression is disabled
+     */
+    public CompressionMetrics getCompressionMetrics() {
+        return compression == null ? null : compression.getMetrics();
+    }
+
+    
+    /** 
+     * Returns the clients by the subnet they knocked for
+     * @return BroadcastDomains
+     */
+    public BroadcastDomains getBroadcastDomains() {
+        return domains;
+    }
+
+    
+    /** 
+     * Returns the aliases clients subscribed to
+     * @return AliasSubscriptions, or null if alias updates are sent to all clients of the subnet
+     */
+    public AliasSubscriptions getAliasSubscriptions() {
+        return subscriptions;
+    }
+
+    
+    /** 
+     * Returns the batcher of the alias updates
+     * @return AliasBatcher, or null if every alias update is sent on its own
+     */
+    public AliasBatcher getAliasBatcher() {
+        return batcher;
+    }
+
+    
+    /** 
+     * Returns the leases of the clients
+     * @return Leases
+     */
+    public Leases getLeases() {
+        return leases;
+    }
+
+    
+    /** 
+     * Returns the mailboxes the handler and send work of the clients is queued in
+     * @return PeerMailboxes
+     */
+    public PeerMailboxes getPeerMailboxes() {
+        return mailboxes;
     }
 
     @Override
@@ -194,101 +445,219 @@ public class SignalingServer extends WebSocketServer {
         });
 
         thread.start();
+
+        leases.start();
+
+        // Restored clients which do not come back are reclaimed like expired ones, whether leases are enabled or not
+        if (!restored.isEmpty()) {
+            restoreTimer = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+                Thread restoreThread = new Thread(runnable, "junisockets-restore");
+                restoreThread.setDaemon(true);
+
+                return restoreThread;
+            });
+
+            restoreTimer.schedule(this::reclaimRestored, restoreTimeout, TimeUnit.MILLISECONDS);
+        }
+
+        if (batcher != null) {
+            batcher.start();
+        }
     }
 
     
     /** 
-     * Handling the incoming operation by calling the right handler.
+     * Handling the incoming operation by calling the handler registered for its opcode.
      * @param operation operation
      * @param conn conn
      * @throws UnimplementedOperation Thrown if an unimplemented operation was received
      */
-    private void handleOperation(JSONObject operation, WebSocket conn) throws UnimplementedOperation {
+    private void handleOperation(InboundOperation operation, WebSocket conn) throws UnimplementedOperation {
 
         logger.debug("Handling operation: " + operation + conn);
 
-        // Check which operations was send by the client and call the corresponding handler
-        if (operation.get("opcode").equals(ESignalingOperationCode.KNOCK.getValue())) {
+        final IOperationHandler handler = registry.getHandler(operation.getOpcode());
 
-            logger.trace("Received knock");
+        if (handler == null) {
+            throw new UnimplementedOperation(operation.getOpcode().getValue());
+        }
 
-            Thread thread = new Thread(() -> {
-                op.handleKnock((JSONObject) operation.get("data"), conn);
-            });
-            thread.start();
-        } else if (operation.get("opcode").equals(ESignalingOperationCode.OFFER.getValue())) {
+        logger.trace("Received " + operation.getOpcode().getValue());
 
-            logger.trace("Received offer");
+        final Function<InboundOperation, String> sender = registry.getSender(operation.getOpcode());
+        final String id = sender == null ? null : sender.apply(operation);
 
-            Thread thread = new Thread(() -> {
-                op.handleOffer((JSONObject) operation.get("data"));
-            });
-            thread.start();
-        } else if (operation.get("opcode").equals(ESignalingOperationCode.ANSWER.getValue())) {
+        // Handlers run in the mailbox of the sending client, so its operations are handled in order.
+        // Ids are sent by the client, so only its own id gets a mailbox; any other id would leave a mailbox behind which is never removed.
+        mailboxes.execute(id != null && id.equals(conn.getAttachment()) ? id : conn, () -> {
+            try {
+                handler.handle(operation, conn);
+            } catch (Exception e) {
+                logger.error(e);
+            }
+        });
+    }
 
-            logger.trace("Received answer");
+    
+    /** 
+     * Registers the handlers of all operations a client can send
+     */
+    private void registerHandlers() {
+        registry.register(ESignalingOperationCode.KNOCK, null, (data, conn) -> {
+                    op.handleKnock(data, conn);
+
+                    // The knock attached the id to the connection if it was accepted
+                    leases.grant(conn);
+                })
+                .register(ESignalingOperationCode.OFFER, InboundOperation::getOffererId, (data, conn) -> op.handleOffer(data))
+                .register(ESignalingOperationCode.ANSWER, InboundOperation::getAnswererId, (data, conn) -> op.handleAnswer(data))
+                .register(ESignalingOperationCode.CANDIDATE, InboundOperation::getOffererId, (data, conn) -> op.handleCandidate(data))
+                .register(ESignalingOperationCode.BIND, InboundOperation::getId, (data, conn) -> op.handleBind(data))
+                .register(ESignalingOperationCode.ACCEPTING, InboundOperation::getId, (data, conn) -> op.handleAccepting(data))
+                .register(ESignalingOperationCode.SHUTDOWN, InboundOperation::getId, (data, conn) -> op.handleShutdown(data))
+                .register(ESignalingOperationCode.CONNECT, InboundOperation::getId, (data, conn) -> op.handleConnect(data))
+                .register(ESignalingOperationCode.SUBSCRIBE, InboundOperation::getId, (data, conn) -> op.handleSubscribe(data))
+                .register(ESignalingOperationCode.UNSUBSCRIBE, InboundOperation::getId, (data, conn) -> op.handleUnsubscribe(data));
+    }
 
-            Thread thread = new Thread(() -> {
-                op.handleAnswer((JSONObject) operation.get("data"));
-            });
-            thread.start();
-        } else if (operation.get("opcode").equals(ESignalingOperationCode.CANDIDATE.getValue())) {
+    
+    /** 
+     * Frees everything the clients of expired leases hold and closes their connections.
+     * All Alias unsets and Goodbyes are sent to the remaining clients in one batch.
+     * @param expired expired leases
+     */
+    private void reclaim(List<Lease> expired) {
+        Set<String> ids = new HashSet<String>();
 
-            logger.trace("Received candidate");
+        for (Lease lease : expired) {
+            // If the client closed in the meantime, onClose frees it; a reservation expires if its client did not knock again
+            if (lease.getConn() == null ? restored.remove(lease.getId()) : clients.remove(lease.getId(), lease.getConn())) {
+                ids.add(lease.getId());
+            }
+        }
 
-            Thread thread = new Thread(() -> {
-                op.handleCandidate((JSONObject) operation.get("data"));
-            });
-            thread.start();
-        } else if (operation.get("opcode").equals(ESignalingOperationCode.BIND.getValue())) {
+        Map<Integer, List<Alias>> unsets = new HashMap<Integer, List<Alias>>();
+        Map<Integer, List<Goodbye>> goodbyes = new HashMap<Integer, List<Goodbye>>();
+        Map<String, Integer> domainsByIds = new HashMap<String, Integer>();
 
-            logger.trace("Received bind");
+        for (Lease lease : expired) {
+            if (ids.contains(lease.getId())) {
+                domainsByIds.put(lease.getId(), domains.getDomain(lease.getId()));
 
-            Thread thread = new Thread(() -> {
-                try {
-                    op.handleBind((JSONObject) operation.get("data"));
-                } catch (PortAlreadyAllocated e) {
-                    logger.error(e);
-                } catch (SubnetDoesNotExist e) {
-                    logger.error(e);
+                if (lease.getConn() != null) {
+                    domains.leave(lease.getId(), lease.getConn());
                 }
-            });
-            thread.start();
-        } else if (operation.get("opcode").equals(ESignalingOperationCode.ACCEPTING.getValue())) {
 
-            logger.trace("Received accepting");
+                if (subscriptions != null) {
+                    subscriptions.unsubscribeAll(lease.getId());
+                }
+            }
+        }
 
-            Thread thread = new Thread(() -> {
-                op.handleAccepting((JSONObject) operation.get("data"));
-            });
-            thread.start();
-        } else if (operation.get("opcode").equals(ESignalingOperationCode.SHUTDOWN.getValue())) {
+        // Only the aliases of the expired clients are looked at
+        for (String id : ids) {
+            List<Alias> domainUnsets = unsets.computeIfAbsent(domainsByIds.get(id), (key) -> new ArrayList<Alias>());
 
-            logger.trace("Received shutdown");
+            for (String clientId : aliases.getOwned(id)) {
+                MAlias alias = aliases.get(clientId);
 
-            Thread thread = new Thread(() -> {
-                op.handleShutdown((JSONObject) operation.get("data"));
-            });
-            thread.start();
-        } else if (operation.get("opcode").equals(ESignalingOperationCode.CONNECT.getValue())) {
-            logger.trace("Received connect");
+                if (alias != null && alias.getId().equals(id) && op.removeAlias(clientId, alias)) {
+                    tcpAddress.removeTCPAddress(clientId);
 
-            Thread thread = new Thread(() -> {
-                try {
-                    op.handleConnect((JSONObject) operation.get("data"));
-                } catch (SuffixDoesNotExist e) {
-                    logger.error(e);
-                } catch (SubnetDoesNotExist e) {
-                    logger.error(e);
+                    domainUnsets.add((Alias) new OperationFactory(ESignalingOperationCode.ALIAS).setId(id).setAlias(clientId).setSet(false).getOperation());
                 }
-            });
-            thread.start();
-        } else {
-            throw new UnimplementedOperation(operation.get("opcode"));
+            }
+        }
+
+        for (String id : ids) {
+            ip.removeIPAddress(id);
+
+            goodbyes.computeIfAbsent(domainsByIds.get(id), (key) -> new ArrayList<Goodbye>()).add((Goodbye) new OperationFactory(ESignalingOperationCode.GOODBYE).setId(id).getOperation());
+        }
+
+        // One batch per subnet, to the remaining clients of that subnet only
+        goodbyes.forEach((domain, domainGoodbyes) -> op.sendDepartures(domain, unsets.get(domain), domainGoodbyes));
+
+        for (Lease lease : expired) {
+            if (lease.getConn() != null && ids.contains(lease.getId())) {
+                WebSocket conn = lease.getConn();
+
+                // Detach first, so onClose does not free the client a second time
+                conn.setAttachment(null);
+                conn.close(CloseFrame.GOING_AWAY, "lease expired");
+
+                mailboxes.remove(lease.getId());
+                mailboxes.remove(conn);
+
+                logger.debug("Reclaimed client " + lease.getId());
+            }
         }
     }
 
     
+    /** 
+     * Frees everything the restored clients which did not knock again within the restore timeout hold
+     */
+    private void reclaimRestored() {
+        List<Lease> unclaimed = new ArrayList<Lease>();
+        long now = System.nanoTime();
+
+        for (String id : restored) {
+            unclaimed.add(new Lease(id, null, now));
+        }
+
+        if (!unclaimed.isEmpty()) {
+            logger.debug("Reclaiming " + unclaimed.size() + " restored IP addresses which were not claimed");
+
+            try {
+                reclaim(unclaimed);
+            } catch (Exception e) {
+                logger.error(e);
+            }
+        }
+    }
+
+    
+    /** 
+     * Claims the IP addresses and ports of the snapshot, sets its aliases and reserves the IP addresses for the clients which held them
+     * @param table subnets of the allocator
+     */
+    private void restore(SubnetTable<? extends ISubnet> table) {
+        int prefixLength = table.getPrefixLength();
+
+        for (int ipAddress : snapshot.getRestoredIPAddresses()) {
+            table.getOrCreate(AddressCodec.getSubnet(ipAddress, prefixLength)).claimSuffix(AddressCodec.getSuffix(ipAddress, prefixLength));
+
+            restored.add(AddressCodec.formatIPAddress(ipAddress));
+        }
+
+        for (long alias : snapshot.getRestoredAliases()) {
+            int ipAddress = AddressCodec.getIPAddress(alias);
+            ISubnet subnet = table.getOrCreate(AddressCodec.getSubnet(ipAddress, prefixLength));
+
+            subnet.claimSuffix(AddressCodec.getSuffix(ipAddress, prefixLength));
+            subnet.claimPort(AddressCodec.getSuffix(ipAddress, prefixLength), AddressCodec.getPort(alias));
+
+            aliases.put(AddressCodec.formatTCPAddress(alias), AddressCodec.formatIPAddress(snapshot.getRestoredOwner(alias)), snapshot.isRestoredAccepting(alias));
+        }
+
+        logger.debug("Restored " + restored.size() + " IP addresses and " + aliases.size() + " aliases from the snapshot");
+    }
+
+    
+    /** 
+     * Returns the drafts the server accepts. Clients which ask for the binary protocol get it, all others keep talking JSON.
+     * @param compression per-message-deflate extension, or null
+     * @return List of drafts
+     */
+    private static List<Draft> drafts(ThresholdDeflateExtension compression) {
+        List<IProtocol> protocols = Arrays.asList(new Protocol(BinaryCodec.PROTOCOL), new Protocol(""));
+        List<IExtension> extensions = compression == null ? Collections.emptyList() : Collections.singletonList(compression);
+
+        return Collections.singletonList(new Draft_6455(extensions, protocols));
+    }
+
+    
     /** 
      * Send a ping to the other end
      * @throws InterruptedException Thrown if interrupted
@@ -298,14 +667,12 @@ public class SignalingServer extends WebSocketServer {
         while (isOpen == true) {
 
             // Send ping to all clients every 30 seconds
-            for (int i = 0; i < clients.size(); i++) {
-                String key = (String) clients.keySet().toArray()[i];
-
+            for (WebSocket client : clients.values()) {
                 try {
-                    clients.get(key).sendPing();
+                    client.sendPing();
                 } catch (WebsocketNotConnectedException e) {
+                    logger.error("Could not ping client " + client.getAttachment());
                     logger.error(e);
-                    //e.printStackTrace();
                 }
             }
             logger.debug("Sent ping!");
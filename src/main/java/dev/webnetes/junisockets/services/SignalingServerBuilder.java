@@ -4,14 +4,46 @@ import java.net.InetSocketAddress;
 
 import org.apache.log4j.Logger;
 
+import dev.webnetes.junisockets.addresses.AddressCodec;
+import dev.webnetes.junisockets.addresses.EAddressAllocator;
+import dev.webnetes.junisockets.codecs.CompressionMetrics;
+import dev.webnetes.junisockets.codecs.EDecoderType;
+import dev.webnetes.junisockets.codecs.IOperationDecoder;
+import dev.webnetes.junisockets.codecs.JSONSimpleDecoder;
+import dev.webnetes.junisockets.codecs.StreamingDecoder;
+import dev.webnetes.junisockets.codecs.ThresholdDeflateExtension;
+
 /**
  * SignalingServerBuilder
  */
 public class SignalingServerBuilder {
+
+    public static final int DEFAULT_HANDLER_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    public static final int DEFAULT_HANDLER_QUEUE_LENGTH = 10000;
+    public static final ERejectionPolicy DEFAULT_REJECTION_POLICY = ERejectionPolicy.CALLER_RUNS;
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    public static final int DEFAULT_ALIAS_BATCH_SIZE = 64;
+    public static final long DEFAULT_RESTORE_TIMEOUT = 60000;
    
     private Logger logger;
     private int port = -1;
     private String host;
+    private int handlerPoolSize = DEFAULT_HANDLER_POOL_SIZE;
+    private int handlerQueueLength = DEFAULT_HANDLER_QUEUE_LENGTH;
+    private ERejectionPolicy rejectionPolicy = DEFAULT_REJECTION_POLICY;
+    private EExecutionMode executionMode = EExecutionMode.PLATFORM_THREADS;
+    private EDecoderType decoderType = EDecoderType.STREAMING;
+    private boolean compressionEnabled = false;
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+    private EAddressAllocator addressAllocator = EAddressAllocator.LOCKING;
+    private int prefixLength = AddressCodec.DEFAULT_PREFIX_LENGTH;
+    private int spillOverSubnets = 0;
+    private long leaseTimeout = 0;
+    private String snapshotPath = null;
+    private long restoreTimeout = DEFAULT_RESTORE_TIMEOUT;
+    private boolean legacyAliasBroadcast = true;
+    private long aliasBatchWindow = 0;
+    private int aliasBatchSize = DEFAULT_ALIAS_BATCH_SIZE;
 
     
     /** 
@@ -47,20 +79,228 @@ public class SignalingServerBuilder {
     }
 
     
+    /** 
+     * Sets the maximum number of threads which run handlers and sends
+     * @param handlerPoolSize handlerPoolSize
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setHandlerPoolSize(int handlerPoolSize) {
+        this.handlerPoolSize = handlerPoolSize;
+        return this;
+    }
+
+    
+    /** 
+     * Sets the maximum number of handlers and sends waiting for a thread
+     * @param handlerQueueLength handlerQueueLength
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setHandlerQueueLength(int handlerQueueLength) {
+        this.handlerQueueLength = handlerQueueLength;
+        return this;
+    }
+
+    
+    /** 
+     * Sets what happens to handlers and sends if the queue is full
+     * @param rejectionPolicy rejectionPolicy
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setRejectionPolicy(ERejectionPolicy rejectionPolicy) {
+        this.rejectionPolicy = rejectionPolicy;
+        return this;
+    }
+
+    
+    /** 
+     * Sets whether handlers and sends run on the bounded platform thread pool or on virtual threads. Pool size, queue length and rejection policy only apply to platform threads.
+     * @param executionMode executionMode
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setExecutionMode(EExecutionMode executionMode) {
+        this.executionMode = executionMode;
+        return this;
+    }
+
+    
+    /** 
+     * Sets which decoder parses incoming operations
+     * @param decoderType decoderType
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setDecoderType(EDecoderType decoderType) {
+        this.decoderType = decoderType;
+        return this;
+    }
+
+    
+    /** 
+     * Sets whether the per-message-deflate extension is offered to clients
+     * @param compressionEnabled compressionEnabled
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setCompressionEnabled(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+        return this;
+    }
+
+    
+    /** 
+     * Sets the minimum payload size in bytes of compressed messages. Smaller messages, like candidates and aliases, are sent uncompressed.
+     * @param compressionThreshold compressionThreshold
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+        return this;
+    }
+
+    
+    /** 
+     * Sets whether IP and TCP addresses are allocated under a lock per subnet or with lock-free compare-and-set bitmaps
+     * @param addressAllocator addressAllocator
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setAddressAllocator(EAddressAllocator addressAllocator) {
+        this.addressAllocator = addressAllocator;
+        return this;
+    }
+
+    
+    /** 
+     * Sets the prefix length of the subnets clients knock on, from 16 (65536 addresses per subnet) to 24 (256 addresses per subnet)
+     * @param prefixLength prefixLength
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setPrefixLength(int prefixLength) {
+        this.prefixLength = prefixLength;
+        return this;
+    }
+
+    
+    /** 
+     * Sets the number of sibling subnets a knock on an exhausted subnet is assigned to instead of being rejected, e.g. 10.0.1 for 10.0.0. 0 disables spill-over.
+     * @param spillOverSubnets spillOverSubnets
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setSpillOverSubnets(int spillOverSubnets) {
+        this.spillOverSubnets = spillOverSubnets;
+        return this;
+    }
+
+    
+    /** 
+     * Sets the milliseconds a client may stay quiet before it is pinged and, if it does not answer, its addresses and aliases are reclaimed. 0 keeps clients until they close.
+     * @param leaseTimeout leaseTimeout
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setLeaseTimeout(long leaseTimeout) {
+        this.leaseTimeout = leaseTimeout;
+        return this;
+    }
+
+    
+    /** 
+     * Sets the file the allocated addresses and aliases are kept in, so clients get their previous addresses back after a restart. null starts empty.
+     * @param snapshotPath snapshotPath
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setSnapshotPath(String snapshotPath) {
+        this.snapshotPath = snapshotPath;
+        return this;
+    }
+
+    
+    /** 
+     * Sets the milliseconds clients restored from the snapshot have to knock again with their token. Addresses and aliases nobody claimed by then are freed.
+     * @param restoreTimeout restoreTimeout
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setRestoreTimeout(long restoreTimeout) {
+        this.restoreTimeout = restoreTimeout;
+        return this;
+    }
+
+    
+    /** 
+     * Sets whether alias updates are sent to all clients of the subnet, as clients which do not subscribe expect. false sends them only to the owner and the clients which subscribed to the alias or a prefix of it.
+     * @param legacyAliasBroadcast legacyAliasBroadcast
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setLegacyAliasBroadcast(boolean legacyAliasBroadcast) {
+        this.legacyAliasBroadcast = legacyAliasBroadcast;
+        return this;
+    }
+
+    
+    /** 
+     * Sets the milliseconds alias updates are collected for and sent as one aliases message per recipient, e.g. 5. Updates which revert each other within the window are not sent. 0 sends every update on its own.
+     * @param aliasBatchWindow aliasBatchWindow
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setAliasBatchWindow(long aliasBatchWindow) {
+        this.aliasBatchWindow = aliasBatchWindow;
+        return this;
+    }
+
+    
+    /** 
+     * Sets the number of alias updates after which a batch is sent before its window elapsed
+     * @param aliasBatchSize aliasBatchSize
+     * @return SignalingServerBuilder
+     */
+    public SignalingServerBuilder setAliasBatchSize(int aliasBatchSize) {
+        this.aliasBatchSize = aliasBatchSize;
+        return this;
+    }
+
+    
     /** 
      * Builds SignalingServer based on set parameters
      * @return SignalingServer
      */
     public SignalingServer build() {
 
-        if (logger == null || port == -1) {
+        if (port == -1) {
             throw new IllegalArgumentException();
-        } else if (logger != null && port != -1 && host == null) { 
-            return new SignalingServer(logger, new InetSocketAddress(port));
+        }
+
+        SignalingServerSettings settings = buildSettings();
+
+        if (host == null) { 
+            return new SignalingServer(logger, new InetSocketAddress(port), settings);
+        } else {
+            return new SignalingServer(logger, new InetSocketAddress(host, port), settings);
+        }
+
+    }
+
+    
+    /** 
+     * Builds the settings of a SignalingServer based on set parameters, everything but host and port
+     * @return SignalingServerSettings
+     */
+    SignalingServerSettings buildSettings() {
+
+        if (logger == null || handlerPoolSize < 1 || handlerQueueLength < 1 || rejectionPolicy == null || executionMode == null || decoderType == null || compressionThreshold < 0 || addressAllocator == null || !AddressCodec.isValidPrefixLength(prefixLength) || spillOverSubnets < 0 || leaseTimeout < 0 || restoreTimeout < 1 || aliasBatchWindow < 0 || aliasBatchSize < 1) {
+            throw new IllegalArgumentException();
+        } else if (executionMode == EExecutionMode.VIRTUAL_THREADS && !HandlerExecutor.isVirtualThreadsAvailable()) {
+            throw new IllegalArgumentException("virtual threads require Java 21 or later");
+        }
+
+        HandlerExecutor executor;
+
+        if (executionMode == EExecutionMode.VIRTUAL_THREADS) {
+            executor = new HandlerExecutor(logger);
         } else {
-            return new SignalingServer(logger, new InetSocketAddress(host, port));
+            executor = new HandlerExecutor(logger, handlerPoolSize, handlerQueueLength, rejectionPolicy);
         }
 
+        IOperationDecoder decoder = decoderType == EDecoderType.JSON_SIMPLE ? new JSONSimpleDecoder() : new StreamingDecoder();
+
+        ThresholdDeflateExtension compression = compressionEnabled ? new ThresholdDeflateExtension(compressionThreshold, new CompressionMetrics()) : null;
+
+        return new SignalingServerSettings(executor, decoder, compression, addressAllocator, prefixLength, spillOverSubnets, leaseTimeout, snapshotPath, restoreTimeout, legacyAliasBroadcast, aliasBatchWindow, aliasBatchSize);
     }
 
 }
@@ -0,0 +1,162 @@
+package dev.webnetes.junisockets.services;
+
+import dev.webnetes.junisockets.addresses.EAddressAllocator;
+import dev.webnetes.junisockets.codecs.IOperationDecoder;
+import dev.webnetes.junisockets.codecs.ThresholdDeflateExtension;
+
+/**
+ * Settings of a SignalingServer. Built and validated by SignalingServerBuilder.
+ */
+public class SignalingServerSettings {
+
+    private HandlerExecutor executor;
+    private IOperationDecoder decoder;
+    private ThresholdDeflateExtension compression;
+    private EAddressAllocator addressAllocator;
+    private int prefixLength;
+    private int spillOverSubnets;
+    private long leaseTimeout;
+    private String snapshotPath;
+    private long restoreTimeout;
+    private boolean legacyAliasBroadcast;
+    private long aliasBatchWindow;
+    private int aliasBatchSize;
+
+    /**
+     * Constructor SignalingServerSettings
+     * @param executor executor
+     * @param decoder decoder
+     * @param compression compression
+     * @param addressAllocator addressAllocator
+     * @param prefixLength prefixLength
+     * @param spillOverSubnets spillOverSubnets
+     * @param leaseTimeout leaseTimeout
+     * @param snapshotPath snapshotPath
+     * @param restoreTimeout restoreTimeout
+     * @param legacyAliasBroadcast legacyAliasBroadcast
+     * @param aliasBatchWindow aliasBatchWindow
+     * @param aliasBatchSize aliasBatchSize
+     */
+    SignalingServerSettings(HandlerExecutor executor, IOperationDecoder decoder, ThresholdDeflateExtension compression, EAddressAllocator addressAllocator, int prefixLength, int spillOverSubnets, long leaseTimeout, String snapshotPath, long restoreTimeout, boolean legacyAliasBroadcast, long aliasBatchWindow, int aliasBatchSize) {
+        this.executor = executor;
+        this.decoder = decoder;
+        this.compression = compression;
+        this.addressAllocator = addressAllocator;
+        this.prefixLength = prefixLength;
+        this.spillOverSubnets = spillOverSubnets;
+        this.leaseTimeout = leaseTimeout;
+        this.snapshotPath = snapshotPath;
+        this.restoreTimeout = restoreTimeout;
+        this.legacyAliasBroadcast = legacyAliasBroadcast;
+        this.aliasBatchWindow = aliasBatchWindow;
+        this.aliasBatchSize = aliasBatchSize;
+    }
+
+
+    /**
+     * Returns the executor which runs all handler and send work
+     * @return HandlerExecutor
+     */
+    public HandlerExecutor getExecutor() {
+        return executor;
+    }
+
+
+    /**
+     * Returns the decoder of incoming operations
+     * @return IOperationDecoder
+     */
+    public IOperationDecoder getDecoder() {
+        return decoder;
+    }
+
+
+    /**
+     * Returns the per-message-deflate extension offered to clients
+     * @return ThresholdDeflateExtension, or null if compression is disabled
+     */
+    public ThresholdDeflateExtension getCompression() {
+        return compression;
+    }
+
+
+    /**
+     * Returns the allocator of IP and TCP addresses
+     * @return EAddressAllocator
+     */
+    public EAddressAllocator getAddressAllocator() {
+        return addressAllocator;
+    }
+
+
+    /**
+     * Returns the prefix length of the subnets clients knock on
+     * @return int
+     */
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+
+    /**
+     * Returns the number of sibling subnets a knock on an exhausted subnet is assigned to instead
+     * @return int, 0 if such a knock is rejected
+     */
+    public int getSpillOverSubnets() {
+        return spillOverSubnets;
+    }
+
+
+    /**
+     * Returns the milliseconds a client may stay quiet before it is pinged and, if it does not answer, reclaimed
+     * @return long, 0 if clients are kept until they close
+     */
+    public long getLeaseTimeout() {
+        return leaseTimeout;
+    }
+
+
+    /**
+     * Returns the file the allocated addresses and aliases are kept in across restarts
+     * @return String, or null to start empty
+     */
+    public String getSnapshotPath() {
+        return snapshotPath;
+    }
+
+
+    /**
+     * Returns the milliseconds clients restored from the snapshot have to knock again before their addresses and aliases are freed
+     * @return long
+     */
+    public long getRestoreTimeout() {
+        return restoreTimeout;
+    }
+
+
+    /**
+     * Returns whether alias updates are sent to all clients of the subnet instead of only to the clients which subscribed to them
+     * @return boolean
+     */
+    public boolean getLegacyAliasBroadcast() {
+        return legacyAliasBroadcast;
+    }
+
+
+    /**
+     * Returns the milliseconds alias updates are collected for and sent as one aliases message per recipient
+     * @return long, 0 if every update is sent on its own
+     */
+    public long getAliasBatchWindow() {
+        return aliasBatchWindow;
+    }
+
+
+    /**
+     * Returns the number of alias updates after which a batch is sent before its window elapsed
+     * @return int
+     */
+    public int getAliasBatchSize() {
+        return aliasBatchSize;
+    }
+}
@@ -0,0 +1,483 @@
+package dev.webnetes.junisockets.addresses;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import dev.webnetes.junisockets.errors.PortAlreadyAllocated;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
+import dev.webnetes.junisockets.services.SignalingServer;
+
+/**
+ * Hammers one subnet from several threads and fails on any address which is handed out twice
+ * @see dev.webnetes.junisockets.addresses.IIPAddress
+ * @see dev.webnetes.junisockets.addresses.ITCPAddress
+ */
+@RunWith(Parameterized.class)
+public class AddressAllocatorStressTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 2000;
+
+    private EAddressAllocator allocator;
+
+    /**
+     * Constructor AddressAllocatorStressTest
+     * @param allocator allocator the tests run against
+     */
+    public AddressAllocatorStressTest(EAddressAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    
+    /** 
+     * @return Collection<Object[]> allocators every test runs against
+     */
+    @Parameters
+    public static Collection<Object[]> allocators() {
+        List<Object[]> allocators = new ArrayList<Object[]>();
+
+        for (EAddressAllocator allocator : EAddressAllocator.values()) {
+            allocators.add(new Object[] { allocator });
+        }
+
+        return allocators;
+    }
+
+    /**
+     * Every thread knocks, connects twice and leaves again; a suffix or TCP address may only have one owner at a time
+     * @see dev.webnetes.junisockets.addresses.IIPAddress#createIPAddress()
+     * @see dev.webnetes.junisockets.addresses.ITCPAddress#createTCPAddress()
+     * @throws Throwable
+     */
+    @Test
+    public void testNoDoubleAllocation() throws Throwable {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
+
+        AtomicIntegerArray owners = new AtomicIntegerArray(AddressCodec.getSuffixCount(AddressCodec.DEFAULT_PREFIX_LENGTH));
+        Set<String> tcpAddresses = ConcurrentHashMap.newKeySet();
+
+        run(() -> {
+            for (int round = 0; round < ROUNDS; round++) {
+                String ipAddress = ip.createIPAddress("10.0.0");
+                int suffix = Integer.parseInt(ip.parseIPAddress(ipAddress)[3]);
+
+                Assert.assertTrue("suffix " + suffix + " handed out twice", owners.compareAndSet(suffix, 0, 1));
+
+                String first = tcp.createTCPAddress(ipAddress);
+                String second = tcp.createTCPAddress(ipAddress);
+
+                Assert.assertTrue(first + " handed out twice", tcpAddresses.add(first));
+                Assert.assertTrue(second + " handed out twice", tcpAddresses.add(second));
+
+                // Give up ownership before releasing, so the next owner never finds it taken
+                tcpAddresses.remove(first);
+                tcpAddresses.remove(second);
+                tcp.removeTCPAddress(first);
+                tcp.removeTCPAddress(second);
+
+                owners.set(suffix, 0);
+                ip.removeIPAddress(ipAddress);
+            }
+        });
+
+        Assert.assertEquals(0, allocators.subnets.get("10.0.0").getSuffixCount());
+    }
+
+    /**
+     * Every thread tries to bind the same ports; each port may only be claimed once
+     * @see dev.webnetes.junisockets.addresses.ITCPAddress#claimTCPAddress()
+     * @throws Throwable
+     */
+    @Test
+    public void testClaimOnce() throws Throwable {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
+
+        String ipAddress = ip.createIPAddress("10.0.0");
+        AtomicIntegerArray claims = new AtomicIntegerArray(ROUNDS);
+
+        run(() -> {
+            for (int port = 0; port < ROUNDS; port++) {
+                try {
+                    tcp.claimTCPAddress(tcp.toTCPAddress(ipAddress, port));
+
+                    claims.incrementAndGet(port);
+                } catch (PortAlreadyAllocated e) {
+                    // Another thread was first
+                }
+            }
+        });
+
+        for (int port = 0; port < ROUNDS; port++) {
+            Assert.assertEquals("claims of port " + port, 1, claims.get(port));
+        }
+
+        Assert.assertEquals(ROUNDS, allocators.subnets.get("10.0.0").getPortCount(0));
+    }
+
+    /**
+     * Half of the threads knock until the subnet is full while the other half bind one port each on every suffix, then all addresses are released again;
+     * a bound port may not get lost to a suffix which is handed out at the same time
+     * @see dev.webnetes.junisockets.addresses.ITCPAddress#claimTCPAddress()
+     * @see dev.webnetes.junisockets.addresses.IIPAddress#createIPAddress()
+     * @see dev.webnetes.junisockets.addresses.IIPAddress#removeIPAddress()
+     * @throws Throwable
+     */
+    @Test
+    public void testClaimDuringCreate() throws Throwable {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
+
+        ip.removeIPAddress(ip.createIPAddress("10.0.0"));
+
+        ISubnet subnet = allocators.subnets.get("10.0.0");
+        int claimers = THREADS / 2;
+
+        for (int round = 0; round < ROUNDS / 4; round++) {
+            AtomicInteger roles = new AtomicInteger();
+            AtomicIntegerArray owners = new AtomicIntegerArray(subnet.getSize());
+
+            run(() -> {
+                int role = roles.getAndIncrement();
+
+                if (role < claimers) {
+                    for (int suffix = 0; suffix < owners.length(); suffix++) {
+                        tcp.claimTCPAddress(tcp.toTCPAddress(ip.toIPAddress("10.0.0", suffix), role));
+                    }
+
+                    return;
+                }
+
+                try {
+                    while (true) {
+                        int suffix = Integer.parseInt(ip.parseIPAddress(ip.createIPAddress("10.0.0"))[3]);
+
+                        Assert.assertTrue("suffix " + suffix + " handed out twice", owners.compareAndSet(suffix, 0, 1));
+                    }
+                } catch (SubnetExhausted e) {
+                    // Every suffix is knocked for or bound
+                }
+            });
+
+            for (int suffix = 0; suffix < owners.length(); suffix++) {
+                Assert.assertEquals("ports of suffix " + suffix, claimers, subnet.getPortCount(suffix));
+            }
+
+            for (int suffix = 0; suffix < owners.length(); suffix++) {
+                ip.removeIPAddress(ip.toIPAddress("10.0.0", suffix));
+            }
+
+            Assert.assertEquals(0, subnet.getSuffixCount());
+        }
+    }
+
+    /**
+     * Half of the threads bind one port each on every suffix of a full subnet while the other half release all of its addresses, then the subnet is filled again;
+     * a suffix which is handed out again may not come with a port bound before, and a suffix which still has ports may not be handed out at all
+     * @see dev.webnetes.junisockets.addresses.ITCPAddress#claimTCPAddress()
+     * @see dev.webnetes.junisockets.addresses.IIPAddress#removeIPAddress()
+     * @throws Throwable
+     */
+    @Test
+    public void testClaimDuringRemove() throws Throwable {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
+
+        ip.removeIPAddress(ip.createIPAddress("10.0.0"));
+
+        ISubnet subnet = allocators.subnets.get("10.0.0");
+        int claimers = THREADS / 2;
+
+        for (int round = 0; round < ROUNDS / 4; round++) {
+            AtomicInteger roles = new AtomicInteger();
+
+            for (int suffix = 0; suffix < subnet.getSize(); suffix++) {
+                ip.createIPAddress("10.0.0");
+            }
+
+            run(() -> {
+                int role = roles.getAndIncrement();
+
+                for (int suffix = 0; suffix < subnet.getSize(); suffix++) {
+                    if (role < claimers) {
+                        try {
+                            tcp.claimTCPAddress(tcp.toTCPAddress(ip.toIPAddress("10.0.0", suffix), role));
+                        } catch (PortAlreadyAllocated e) {
+                            // The suffix was released between the claim of the suffix and of the port
+                        }
+                    } else {
+                        ip.removeIPAddress(ip.toIPAddress("10.0.0", suffix));
+                    }
+                }
+            });
+
+            try {
+                while (true) {
+                    int suffix = Integer.parseInt(ip.parseIPAddress(ip.createIPAddress("10.0.0"))[3]);
+
+                    Assert.assertEquals("ports of reallocated suffix " + suffix, 0, subnet.getPortCount(suffix));
+                }
+            } catch (SubnetExhausted e) {
+                // Every suffix is knocked for or bound
+            }
+
+            for (int suffix = 0; suffix < subnet.getSize(); suffix++) {
+                ip.removeIPAddress(ip.toIPAddress("10.0.0", suffix));
+            }
+
+            Assert.assertEquals(0, subnet.getSuffixCount());
+        }
+    }
+
+    /**
+     * One thread releases a suffix while another one claims it and a port on it, over and over; afterwards the suffix is either free without ports
+     * or in use, so it is never handed out with the port of the claimer
+     * @see dev.webnetes.junisockets.addresses.ISubnet#releaseSuffix()
+     * @see dev.webnetes.junisockets.addresses.ISubnet#claimSuffix()
+     * @throws Throwable
+     */
+    @Test
+    public void testClaimDuringReleaseSuffix() throws Throwable {
+
+        ISubnet subnet = AddressAllocators.createSubnet(allocator, AddressCodec.DEFAULT_PREFIX_LENGTH);
+        Lock lock = new ReentrantLock();
+        AtomicInteger roles = new AtomicInteger();
+        CyclicBarrier barrier = new CyclicBarrier(2);
+
+        run(() -> {
+            int role = roles.getAndIncrement();
+
+            if (role > 1) {
+                return;
+            }
+
+            for (int round = 0; round < ROUNDS * 10; round++) {
+                if (role == 0) {
+                    claim(subnet, lock, 0, -1);
+                }
+
+                barrier.await();
+
+                if (role == 0) {
+                    release(subnet, lock, 0);
+                } else {
+                    // Claim right when the release dropped the ports, before it freed the suffix
+                    int spin = 0;
+
+                    while (spin++ < 100000 && subnet.containsSuffix(0)) {
+                        // Busy wait, parking would miss the moment
+                    }
+
+                    claim(subnet, lock, 0, 1);
+                }
+
+                barrier.await();
+
+                if (role == 0) {
+                    Assert.assertEquals("suffix in use in round " + round, subnet.containsSuffix(0) ? 1 : 0, subnet.getSuffixCount());
+                }
+
+                barrier.await();
+            }
+        });
+    }
+
+    /**
+     * Fills a /16 subnet from all threads, releases it again and churns through it; every suffix may only be handed out once at a time
+     * @see dev.webnetes.junisockets.addresses.ISubnet#allocateSuffix()
+     * @throws Throwable
+     */
+    @Test
+    public void testFillSubnetPrefixLength16() throws Throwable {
+
+        ISubnet subnet = AddressAllocators.createSubnet(allocator, 16);
+        Lock lock = new ReentrantLock();
+        AtomicIntegerArray owners = new AtomicIntegerArray(subnet.getSize());
+
+        run(() -> {
+            int suffix;
+
+            while ((suffix = allocate(subnet, lock)) != -1) {
+                Assert.assertTrue("suffix " + suffix + " handed out twice", owners.compareAndSet(suffix, 0, 1));
+            }
+        });
+
+        Assert.assertEquals(65536, subnet.getSuffixCount());
+
+        run(() -> {
+            for (int suffix = 0; suffix < owners.length(); suffix++) {
+                if (owners.compareAndSet(suffix, 1, 0)) {
+                    release(subnet, lock, suffix);
+                }
+            }
+        });
+
+        Assert.assertEquals(0, subnet.getSuffixCount());
+
+        run(() -> {
+            for (int round = 0; round < ROUNDS; round++) {
+                int suffix = allocate(subnet, lock);
+
+                Assert.assertTrue("suffix " + suffix + " handed out twice", owners.compareAndSet(suffix, 0, 1));
+
+                owners.set(suffix, 0);
+                release(subnet, lock, suffix);
+            }
+        });
+
+        Assert.assertEquals(0, subnet.getSuffixCount());
+
+        // Nothing is left taken, so allocation starts from the bottom again
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i, subnet.allocateSuffix());
+        }
+    }
+
+    
+    /** 
+     * Allocates a suffix, under the lock unless the subnet is lock-free
+     * @param subnet subnet
+     * @param lock lock
+     * @return int
+     */
+    private int allocate(ISubnet subnet, Lock lock) {
+        if (allocator == EAddressAllocator.LOCK_FREE) {
+            return subnet.allocateSuffix();
+        }
+
+        lock.lock();
+
+        try {
+            return subnet.allocateSuffix();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    
+    /** 
+     * Releases a suffix, under the lock unless the subnet is lock-free
+     * @param subnet subnet
+     * @param lock lock
+     * @param suffix suffix
+     */
+    private void release(ISubnet subnet, Lock lock, int suffix) {
+        if (allocator == EAddressAllocator.LOCK_FREE) {
+            subnet.releaseSuffix(suffix);
+
+            return;
+        }
+
+        lock.lock();
+
+        try {
+            subnet.releaseSuffix(suffix);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    
+    /** 
+     * Claims a suffix and a port on it, under the lock unless the subnet is lock-free
+     * @param subnet subnet
+     * @param lock lock
+     * @param suffix suffix
+     * @param port port, or -1 to only claim the suffix
+     */
+    private void claim(ISubnet subnet, Lock lock, int suffix, int port) {
+        if (allocator != EAddressAllocator.LOCK_FREE) {
+            lock.lock();
+        }
+
+        try {
+            subnet.claimSuffix(suffix);
+
+            if (port != -1) {
+                subnet.claimPort(suffix, port);
+            }
+        } finally {
+            if (allocator != EAddressAllocator.LOCK_FREE) {
+                lock.unlock();
+            }
+        }
+    }
+
+    
+    /** 
+     * Runs the work on all threads at once and rethrows the first failure
+     * @param work work
+     * @throws Throwable
+     */
+    private void run(Work work) throws Throwable {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    work.run();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * Work of one thread
+     */
+    private interface Work {
+
+        /**
+         * Runs the work
+         * @throws Exception
+         */
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,66 @@
+package dev.webnetes.junisockets.addresses;
+
+
+import org.apache.log4j.Logger;
+
+/**
+ * IP and TCP address allocators of one EAddressAllocator on shared subnets, so the address suites run against every allocator
+ */
+class AddressAllocators {
+
+    SubnetTable<? extends ISubnet> subnets;
+    IIPAddress ip;
+    ITCPAddress tcp;
+
+    /**
+     * Constructor AddressAllocators
+     * @param allocator allocator
+     * @param logger logger
+     */
+    AddressAllocators(EAddressAllocator allocator, Logger logger) {
+        this(allocator, logger, AddressCodec.DEFAULT_PREFIX_LENGTH);
+    }
+
+    /**
+     * Constructor AddressAllocators
+     * @param allocator allocator
+     * @param logger logger
+     * @param prefixLength prefix length of the subnets
+     */
+    AddressAllocators(EAddressAllocator allocator, Logger logger, int prefixLength) {
+        if (allocator == EAddressAllocator.LOCK_FREE) {
+            SubnetTable<AtomicSubnet> atomicSubnets = new SubnetTable<AtomicSubnet>(prefixLength, AtomicSubnet::new);
+
+            subnets = atomicSubnets;
+            ip = new AtomicIPAddress(logger, atomicSubnets);
+            tcp = new AtomicTCPAddress(logger, atomicSubnets);
+        } else {
+            SubnetTable<Subnet> lockedSubnets = new SubnetTable<Subnet>(prefixLength, Subnet::new);
+
+            subnets = lockedSubnets;
+            ip = new IPAddress(logger, lockedSubnets);
+            tcp = new TCPAddress(logger, lockedSubnets);
+        }
+    }
+
+    
+    /** 
+     * Returns an empty subnet of the allocator
+     * @param allocator allocator
+     * @return ISubnet
+     */
+    static ISubnet createSubnet(EAddressAllocator allocator) {
+        return createSubnet(allocator, AddressCodec.DEFAULT_PREFIX_LENGTH);
+    }
+
+    
+    /** 
+     * Returns an empty subnet of the allocator
+     * @param allocator allocator
+     * @param prefixLength prefix length of the subnet
+     * @return ISubnet
+     */
+    static ISubnet createSubnet(EAddressAllocator allocator, int prefixLength) {
+        return allocator == EAddressAllocator.LOCK_FREE ? new AtomicSubnet(prefixLength) : new Subnet(prefixLength);
+    }
+}
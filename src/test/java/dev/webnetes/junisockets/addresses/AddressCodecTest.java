@@ -0,0 +1,118 @@
+package dev.webnetes.junisockets.addresses;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see dev.webnetes.junisockets.addresses.AddressCodec
+ */
+public class AddressCodecTest {
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.AddressCodec#parseIPAddress()
+     */
+    @Test
+    public void testParseIPAddress() {
+
+        Assert.assertEquals(0x0A000001L, AddressCodec.parseIPAddress("10.0.0.1"));
+        Assert.assertEquals(0xFFFFFFFFL, AddressCodec.parseIPAddress("255.255.255.255"));
+        Assert.assertEquals(0, AddressCodec.parseIPAddress("0.0.0.0"));
+
+        String[] invalid = { "", "10.0.0", "10.0.0.1.2", "10.0.0.256", "10.0.0.01", "10..0.1", "10.0.0.1:80", "-1", "a.b.c.d", "10.0.0.1 " };
+
+        for (String ipAddress : invalid) {
+            Assert.assertEquals(ipAddress, -1, AddressCodec.parseIPAddress(ipAddress));
+        }
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.AddressCodec#parseTCPAddress()
+     */
+    @Test
+    public void testParseTCPAddress() {
+
+        long tcpAddress = AddressCodec.parseTCPAddress("10.0.0.1:1234");
+
+        Assert.assertEquals(0x0A000001, AddressCodec.getIPAddress(tcpAddress));
+        Assert.assertEquals(1234, AddressCodec.getPort(tcpAddress));
+        Assert.assertEquals(65535, AddressCodec.getPort(AddressCodec.parseTCPAddress("255.255.255.255:65535")));
+
+        String[] invalid = { "10.0.0.1", "10.0.0.1:", "10.0.0.1:65536", "10.0.0.1:080", "10.0.0.1:-1", "10.0.0:80", "10.0.0.1:1:2", "10.0.0.1:999999" };
+
+        for (String address : invalid) {
+            Assert.assertEquals(address, -1, AddressCodec.parseTCPAddress(address));
+        }
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.AddressCodec#parseSubnet()
+     */
+    @Test
+    public void testParseSubnet() {
+
+        Assert.assertEquals(0x7F0000, AddressCodec.parseSubnet("127.0.0"));
+        Assert.assertEquals(-1, AddressCodec.parseSubnet("127.0.0.1"));
+        Assert.assertEquals(-1, AddressCodec.parseSubnet("127.0"));
+        Assert.assertEquals(-1, AddressCodec.parseSubnet("100"));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.AddressCodec#parseSubnet()
+     */
+    @Test
+    public void testParseSubnetPrefixLength() {
+
+        Assert.assertEquals(0x0A0000, AddressCodec.parseSubnet("10.0", 16));
+        Assert.assertEquals(-1, AddressCodec.parseSubnet("10.0.0", 16));
+        Assert.assertEquals(0x0A0010, AddressCodec.parseSubnet("10.0.16", 20));
+        Assert.assertEquals(-1, AddressCodec.parseSubnet("10.0.17", 20));
+        Assert.assertEquals("10.0.16", AddressCodec.formatSubnet(AddressCodec.parseSubnet("10.0.16", 20), 20));
+        Assert.assertEquals("10.0", AddressCodec.formatSubnet(AddressCodec.parseSubnet("10.0", 16), 16));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.AddressCodec#getSuffix()
+     */
+    @Test
+    public void testGetSuffixPrefixLength() {
+
+        int ipAddress = (int) AddressCodec.parseIPAddress("10.0.18.7");
+
+        Assert.assertEquals(0x0A0000, AddressCodec.getSubnet(ipAddress, 16));
+        Assert.assertEquals(18 * 256 + 7, AddressCodec.getSuffix(ipAddress, 16));
+        Assert.assertEquals(0x0A0010, AddressCodec.getSubnet(ipAddress, 20));
+        Assert.assertEquals(2 * 256 + 7, AddressCodec.getSuffix(ipAddress, 20));
+        Assert.assertEquals(ipAddress, AddressCodec.toIPAddress(AddressCodec.getSubnet(ipAddress, 20), AddressCodec.getSuffix(ipAddress, 20)));
+        Assert.assertEquals(4096, AddressCodec.getSuffixCount(20));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.AddressCodec#formatTCPAddress()
+     */
+    @Test
+    public void testRoundTrip() {
+
+        String[] subnets = { "0.0.0", "10.0.0", "127.0.1", "255.255.255" };
+        String[] ipAddresses = { "0.0.0.0", "10.0.0.1", "192.168.100.42", "255.255.255.255" };
+        String[] tcpAddresses = { "0.0.0.0:0", "10.0.0.1:1234", "127.0.0.1:8080", "255.255.255.255:65535" };
+
+        for (String subnet : subnets) {
+            Assert.assertEquals(subnet, AddressCodec.formatSubnet(AddressCodec.parseSubnet(subnet)));
+        }
+
+        for (String ipAddress : ipAddresses) {
+            Assert.assertEquals(ipAddress, AddressCodec.formatIPAddress((int) AddressCodec.parseIPAddress(ipAddress)));
+        }
+
+        for (String tcpAddress : tcpAddresses) {
+            Assert.assertEquals(tcpAddress, AddressCodec.formatTCPAddress(AddressCodec.parseTCPAddress(tcpAddress)));
+        }
+
+        int ipAddress = AddressCodec.toIPAddress(AddressCodec.parseSubnet("10.0.0"), 7);
+
+        Assert.assertEquals("10.0.0.7", AddressCodec.formatIPAddress(ipAddress));
+        Assert.assertEquals("10.0.0.7:80", AddressCodec.formatTCPAddress(AddressCodec.toTCPAddress(ipAddress, 80)));
+        Assert.assertEquals(7, AddressCodec.getSuffix(ipAddress));
+        Assert.assertEquals("10.0.0", AddressCodec.formatSubnet(AddressCodec.getSubnet(ipAddress)));
+    }
+}
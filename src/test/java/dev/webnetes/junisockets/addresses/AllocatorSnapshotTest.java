@@ -0,0 +1,147 @@
+package dev.webnetes.junisockets.addresses;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.webnetes.junisockets.services.SignalingServer;
+
+/**
+ * @see dev.webnetes.junisockets.addresses.AllocatorSnapshot
+ */
+public class AllocatorSnapshotTest {
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.AllocatorSnapshot#getRestoredIPAddresses()
+     * @throws IOException
+     */
+    @Test
+    public void testRestore() throws IOException {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        String path = createPath();
+        int first = (int) AddressCodec.parseIPAddress("127.0.0.0");
+        int second = (int) AddressCodec.parseIPAddress("127.0.0.9");
+        int third = (int) AddressCodec.parseIPAddress("127.0.1.200");
+        long bound = AddressCodec.parseTCPAddress("127.0.0.0:1234");
+        long shutdown = AddressCodec.parseTCPAddress("127.0.0.9:1234");
+        int subnet = AddressCodec.parseSubnet("127.0.0");
+
+        AllocatorSnapshot snapshot = new AllocatorSnapshot(logger, path, 24);
+
+        snapshot.claimIPAddress(first);
+        snapshot.claimIPAddress(second);
+        snapshot.claimIPAddress(third);
+        snapshot.setToken(first, subnet, 1L);
+        snapshot.setToken(first, subnet, -2L);
+        snapshot.setToken(second, subnet, 3L);
+
+        // Spilled over from the subnet it knocked for
+        snapshot.setToken(third, subnet, 5L);
+        snapshot.releaseIPAddress(second);
+        snapshot.setAlias(bound, first, false);
+        snapshot.setAlias(bound, first, true);
+        snapshot.setAlias(shutdown, second, false);
+        snapshot.unsetAlias(shutdown);
+        snapshot.close();
+
+        AllocatorSnapshot restored = new AllocatorSnapshot(logger, path, 24);
+        int[] ipAddresses = restored.getRestoredIPAddresses();
+
+        Arrays.sort(ipAddresses);
+
+        Assert.assertArrayEquals(new int[] { first, third }, ipAddresses);
+        Assert.assertArrayEquals(new long[] { bound }, restored.getRestoredAliases());
+        Assert.assertEquals(first, restored.getRestoredOwner(bound));
+        Assert.assertEquals(true, restored.isRestoredAccepting(bound));
+        Assert.assertEquals(true, restored.isRestoredToken(first, subnet, -2L));
+        Assert.assertEquals(false, restored.isRestoredToken(first, subnet, 1L));
+        Assert.assertEquals(false, restored.isRestoredToken(second, subnet, 3L));
+        Assert.assertEquals(true, restored.isRestoredToken(third, subnet, 5L));
+        Assert.assertEquals(false, restored.isRestoredToken(third, AddressCodec.parseSubnet("127.0.1"), 5L));
+
+        restored.close();
+    }
+
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.AllocatorSnapshot#setAlias()
+     * @throws IOException
+     */
+    @Test
+    public void testRestoreAfterCompaction() throws IOException {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        String path = createPath();
+        int owner = (int) AddressCodec.parseIPAddress("10.0.3.7");
+
+        AllocatorSnapshot snapshot = new AllocatorSnapshot(logger, path, 16);
+
+        snapshot.claimIPAddress(owner);
+        snapshot.setToken(owner, AddressCodec.parseSubnet("10.0", 16), 42L);
+
+        // Far more records than fit into the initial file, only the last alias is left
+        for (int port = 0; port <= Subnet.MAX_PORT; port++) {
+            long alias = AddressCodec.toTCPAddress(owner, port);
+
+            snapshot.setAlias(alias, owner, false);
+
+            if (port != Subnet.MAX_PORT) {
+                snapshot.unsetAlias(alias);
+            }
+        }
+
+        snapshot.close();
+
+        AllocatorSnapshot restored = new AllocatorSnapshot(logger, path, 16);
+
+        Assert.assertArrayEquals(new int[] { owner }, restored.getRestoredIPAddresses());
+        Assert.assertArrayEquals(new long[] { AddressCodec.toTCPAddress(owner, Subnet.MAX_PORT) }, restored.getRestoredAliases());
+        Assert.assertEquals(true, restored.isRestoredToken(owner, AddressCodec.parseSubnet("10.0", 16), 42L));
+        // The bitmap of the /16 subnet and one alias, instead of the journal of all ports
+        Assert.assertEquals(true, restored.getSize() < 16384);
+
+        restored.close();
+    }
+
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.AllocatorSnapshot#getRestoredIPAddresses()
+     * @throws IOException
+     */
+    @Test
+    public void testRestorePrefixLengthMismatch() throws IOException {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        String path = createPath();
+
+        AllocatorSnapshot snapshot = new AllocatorSnapshot(logger, path, 24);
+
+        snapshot.claimIPAddress((int) AddressCodec.parseIPAddress("127.0.0.0"));
+        snapshot.close();
+
+        AllocatorSnapshot restored = new AllocatorSnapshot(logger, path, 16);
+
+        Assert.assertEquals(0, restored.getRestoredIPAddresses().length);
+
+        restored.close();
+    }
+
+
+    /**
+     * Returns the path of an empty snapshot file which is deleted on exit
+     * @return String
+     * @throws IOException
+     */
+    private static String createPath() throws IOException {
+        File file = File.createTempFile("junisockets", ".snapshot");
+
+        file.deleteOnExit();
+
+        return file.getPath();
+    }
+}
@@ -1,20 +1,53 @@
 package dev.webnetes.junisockets.addresses; 
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
+import dev.webnetes.junisockets.errors.InvalidSubnet;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
 import dev.webnetes.junisockets.services.SignalingServer;
 
 /**
  * @see dev.webnetes.junisockets.addresses.IPAddress
+ * @see dev.webnetes.junisockets.addresses.AtomicIPAddress
  */
+@RunWith(Parameterized.class)
 public class IPAddressTest {
+
+    private EAddressAllocator allocator;
+
+    /**
+     * Constructor IPAddressTest
+     * @param allocator allocator the tests run against
+     */
+    public IPAddressTest(EAddressAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    
+    /** 
+     * @return Collection<Object[]> allocators every test runs against
+     */
+    @Parameters
+    public static Collection<Object[]> allocators() {
+        List<Object[]> allocators = new ArrayList<Object[]>();
+
+        for (EAddressAllocator allocator : EAddressAllocator.values()) {
+            allocators.add(new Object[] { allocator });
+        }
+
+        return allocators;
+    }
    
     /**
      * @see dev.webnetes.junisockets.addresses.IPAddress#parseIPAddress()
@@ -22,9 +55,9 @@ public class IPAddressTest {
     @Test public void testParseIPAddress() {
 
         Logger logger = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip = new IPAddress(logger, mutex, subnets);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
 
         String ipAddress = "127.0.0.1";
 
@@ -38,9 +71,9 @@ public class IPAddressTest {
     public void testToIPAddress() {
 
         Logger logger = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip = new IPAddress(logger, mutex, subnets);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
     
         String subnet = "127.0.0";
         int suffix = 0;
@@ -50,37 +83,119 @@ public class IPAddressTest {
 
     /**
      * @see dev.webnetes.junisockets.addresses.IPAddress#createIPAddress()
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
      */
     @Test
-    public void testCreateIPAddress() {
+    public void testCreateIPAddress() throws InvalidSubnet, SubnetExhausted {
 
         String subnet = "127.0.0";
 
         Logger logger = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip = new IPAddress(logger, mutex, subnets);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
 
         Assert.assertEquals("127.0.0.0", ip.createIPAddress(subnet));
 
         final String[] partsIPAddress = ip.parseIPAddress("127.0.0.0");
 
         String suffix = partsIPAddress[3];
-        Assert.assertEquals(true, subnets.get(subnet).containsKey(Integer.parseInt(suffix)));
+        Assert.assertEquals(true, subnets.get(subnet).containsSuffix(Integer.parseInt(suffix)));
+    }
+    
+    /**
+     * @see dev.webnetes.junisockets.addresses.IPAddress#createIPAddress()
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test(expected = InvalidSubnet.class)
+    public void testCreateIPAddressInvalidSubnet() throws InvalidSubnet, SubnetExhausted {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        IIPAddress ip = allocators.ip;
+
+        ip.createIPAddress("127.0.256");
+    }
+    
+    /**
+     * @see dev.webnetes.junisockets.addresses.IPAddress#createIPAddress()
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test(expected = SubnetExhausted.class)
+    public void testCreateIPAddressSubnetExhausted() throws InvalidSubnet, SubnetExhausted {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        IIPAddress ip = allocators.ip;
+
+        for (int i = 0; i < 256; i++) {
+            ip.createIPAddress("127.0.0");
+        }
+
+        ip.createIPAddress("127.0.0");
+    }
+    
+    /**
+     * @see dev.webnetes.junisockets.addresses.IPAddress#createIPAddress()
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test
+    public void testCreateIPAddressPrefixLength16() throws InvalidSubnet, SubnetExhausted {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger, 16);
+        IIPAddress ip = allocators.ip;
+        String ipAddress = null;
+
+        for (int i = 0; i < 300; i++) {
+            ipAddress = ip.createIPAddress("10.0");
+        }
+
+        Assert.assertEquals("10.0.1.43", ipAddress);
+        Assert.assertEquals(300, allocators.subnets.get("10.0").getSuffixCount());
+
+        ip.removeIPAddress("10.0.0.5");
+
+        Assert.assertEquals("10.0.0.5", ip.createIPAddress("10.0"));
+        Assert.assertEquals("10.0.1.44", ip.createIPAddress("10.0"));
+    }
+    
+    /**
+     * @see dev.webnetes.junisockets.addresses.IPAddress#createIPAddress()
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test(expected = InvalidSubnet.class)
+    public void testCreateIPAddressPrefixLengthMismatch() throws InvalidSubnet, SubnetExhausted {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger, 20);
+        IIPAddress ip = allocators.ip;
+
+        Assert.assertEquals("10.0.16.0", ip.createIPAddress("10.0.16"));
+
+        // 10.0.17 has bits beyond the first 20 set, so it is not a /20 subnet
+        ip.createIPAddress("10.0.17");
     }
     
     /**
      * @see dev.webnetes.junisockets.addresses.IPAddress#removeIPAddress()
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
      */
     @Test 
-    public void testRemoveIPAddress() {
+    public void testRemoveIPAddress() throws InvalidSubnet, SubnetExhausted {
 
         String subnet = "127.0.0";
         
         Logger logger = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip = new IPAddress(logger, mutex, subnets);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
 
         String ipAddress = ip.createIPAddress(subnet);
     
@@ -89,6 +204,47 @@ public class IPAddressTest {
         String suffix = partsIPAddress[3];
 
         ip.removeIPAddress(ipAddress);
-        Assert.assertEquals(false, subnets.get(subnet).containsKey(Integer.parseInt(suffix)));
+        Assert.assertEquals(false, subnets.get(subnet).containsSuffix(Integer.parseInt(suffix)));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.IPAddress#createIPAddress()
+     * @throws InterruptedException
+     */
+    @Test
+    public void testCreateIPAddressConcurrently() throws InterruptedException {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
+        Set<String> ipAddresses = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<Thread>();
+
+        // Two threads per subnet, each knocking 100 times
+        for (int i = 0; i < 4; i++) {
+            String subnet = "127.0." + (i % 2);
+
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    try {
+                        ipAddresses.add(ip.createIPAddress(subnet));
+                    } catch (InvalidSubnet | SubnetExhausted e) {
+                        // Missing addresses fail the size check below
+                    }
+                }
+            });
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(400, ipAddresses.size());
+        Assert.assertEquals(200, subnets.get("127.0.0").getSuffixCount());
+        Assert.assertEquals(200, subnets.get("127.0.1").getSuffixCount());
     }
 }
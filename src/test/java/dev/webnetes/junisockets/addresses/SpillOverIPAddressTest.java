@@ -0,0 +1,136 @@
+package dev.webnetes.junisockets.addresses;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import dev.webnetes.junisockets.errors.InvalidSubnet;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
+import dev.webnetes.junisockets.services.SignalingServer;
+
+/**
+ * @see dev.webnetes.junisockets.addresses.SpillOverIPAddress
+ */
+@RunWith(Parameterized.class)
+public class SpillOverIPAddressTest {
+
+    private EAddressAllocator allocator;
+
+    /**
+     * Constructor SpillOverIPAddressTest
+     * @param allocator allocator the tests run against
+     */
+    public SpillOverIPAddressTest(EAddressAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    
+    /** 
+     * @return Collection<Object[]> allocators every test runs against
+     */
+    @Parameters
+    public static Collection<Object[]> allocators() {
+        List<Object[]> allocators = new ArrayList<Object[]>();
+
+        for (EAddressAllocator allocator : EAddressAllocator.values()) {
+            allocators.add(new Object[] { allocator });
+        }
+
+        return allocators;
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.SpillOverIPAddress#createIPAddress()
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test
+    public void testCreateIPAddressSpillOver() throws InvalidSubnet, SubnetExhausted {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        IIPAddress ip = new SpillOverIPAddress(logger, allocators.ip, AddressCodec.DEFAULT_PREFIX_LENGTH, 2);
+
+        for (int i = 0; i < 256; i++) {
+            ip.createIPAddress("10.0.0");
+        }
+
+        Assert.assertEquals("10.0.1.0", ip.createIPAddress("10.0.0"));
+        Assert.assertEquals(1, allocators.subnets.get("10.0.1").getSuffixCount());
+
+        // Released addresses of the subnet itself are used first again
+        ip.removeIPAddress("10.0.0.42");
+
+        Assert.assertEquals("10.0.0.42", ip.createIPAddress("10.0.0"));
+
+        ip.removeIPAddress("10.0.1.0");
+
+        Assert.assertEquals(0, allocators.subnets.get("10.0.1").getSuffixCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.SpillOverIPAddress#createIPAddress()
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test
+    public void testCreateIPAddressSpillOverPrefixLength20() throws InvalidSubnet, SubnetExhausted {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger, 20);
+        IIPAddress ip = new SpillOverIPAddress(logger, allocators.ip, 20, 1);
+
+        for (int i = 0; i < 4096; i++) {
+            ip.createIPAddress("10.0.0");
+        }
+
+        // The sibling of 10.0.0.0/20 is 10.0.16.0/20
+        Assert.assertEquals("10.0.16.0", ip.createIPAddress("10.0.0"));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.SpillOverIPAddress#createIPAddress()
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test(expected = SubnetExhausted.class)
+    public void testCreateIPAddressSiblingsExhausted() throws InvalidSubnet, SubnetExhausted {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        IIPAddress ip = new SpillOverIPAddress(logger, allocators.ip, AddressCodec.DEFAULT_PREFIX_LENGTH, 1);
+
+        for (int i = 0; i < 512; i++) {
+            ip.createIPAddress("10.0.0");
+        }
+
+        ip.createIPAddress("10.0.0");
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.SpillOverIPAddress#createIPAddress()
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test(expected = SubnetExhausted.class)
+    public void testCreateIPAddressLastSubnet() throws InvalidSubnet, SubnetExhausted {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        IIPAddress ip = new SpillOverIPAddress(logger, allocators.ip, AddressCodec.DEFAULT_PREFIX_LENGTH, 1);
+
+        for (int i = 0; i < 256; i++) {
+            ip.createIPAddress("255.255.255");
+        }
+
+        // There is no subnet after 255.255.255
+        ip.createIPAddress("255.255.255");
+    }
+}
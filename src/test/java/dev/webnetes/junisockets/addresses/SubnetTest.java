@@ -0,0 +1,271 @@
+package dev.webnetes.junisockets.addresses;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * @see dev.webnetes.junisockets.addresses.Subnet
+ * @see dev.webnetes.junisockets.addresses.AtomicSubnet
+ */
+@RunWith(Parameterized.class)
+public class SubnetTest {
+
+    private EAddressAllocator allocator;
+
+    /**
+     * Constructor SubnetTest
+     * @param allocator allocator the tests run against
+     */
+    public SubnetTest(EAddressAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    
+    /** 
+     * @return Collection<Object[]> allocators every test runs against
+     */
+    @Parameters
+    public static Collection<Object[]> allocators() {
+        List<Object[]> allocators = new ArrayList<Object[]>();
+
+        for (EAddressAllocator allocator : EAddressAllocator.values()) {
+            allocators.add(new Object[] { allocator });
+        }
+
+        return allocators;
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.Subnet#allocateSuffix()
+     */
+    @Test
+    public void testAllocateSuffix() {
+
+        ISubnet subnet = AddressAllocators.createSubnet(allocator);
+
+        for (int i = 0; i < subnet.getSize(); i++) {
+            Assert.assertEquals(i, subnet.allocateSuffix());
+        }
+
+        Assert.assertEquals(-1, subnet.allocateSuffix());
+
+        subnet.releaseSuffix(17);
+        subnet.releaseSuffix(3);
+
+        Assert.assertEquals(3, subnet.allocateSuffix());
+        Assert.assertEquals(17, subnet.allocateSuffix());
+        Assert.assertEquals(-1, subnet.allocateSuffix());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.Subnet#allocateSuffix()
+     */
+    @Test
+    public void testAllocateSuffixPrefixLength16() {
+
+        ISubnet subnet = AddressAllocators.createSubnet(allocator, 16);
+
+        Assert.assertEquals(65536, subnet.getSize());
+
+        for (int i = 0; i < subnet.getSize(); i++) {
+            Assert.assertEquals(i, subnet.allocateSuffix());
+        }
+
+        Assert.assertEquals(-1, subnet.allocateSuffix());
+
+        // One suffix below each level of the summary, the last one behind all of them
+        subnet.releaseSuffix(65535);
+        subnet.releaseSuffix(4096 * 3 + 64 * 5 + 1);
+        subnet.releaseSuffix(64 * 7);
+
+        Assert.assertEquals(64 * 7, subnet.allocateSuffix());
+        Assert.assertEquals(4096 * 3 + 64 * 5 + 1, subnet.allocateSuffix());
+        Assert.assertEquals(65535, subnet.allocateSuffix());
+        Assert.assertEquals(-1, subnet.allocateSuffix());
+        Assert.assertEquals(65536, subnet.getSuffixCount());
+    }
+
+    /**
+     * Allocates and releases at random and compares every suffix with the lowest gap in the sorted suffixes, which is how suffixes were found before
+     * @see dev.webnetes.junisockets.addresses.Subnet#allocateSuffix()
+     */
+    @Test
+    public void testAllocateSuffixLowestFree() {
+
+        Random random = new Random(42);
+        ISubnet subnet = AddressAllocators.createSubnet(allocator);
+        TreeSet<Integer> used = new TreeSet<Integer>();
+
+        for (int round = 0; round < 10000; round++) {
+            if (used.isEmpty() || random.nextInt(3) > 0) {
+                int expected = lowestFree(used);
+
+                Assert.assertEquals(expected >= subnet.getSize() ? -1 : expected, subnet.allocateSuffix());
+
+                if (expected < subnet.getSize()) {
+                    used.add(expected);
+                }
+            } else {
+                List<Integer> members = new ArrayList<Integer>(used);
+                int suffix = members.get(random.nextInt(members.size()));
+
+                subnet.releaseSuffix(suffix);
+                used.remove(suffix);
+            }
+
+            Assert.assertEquals(used.size(), subnet.getSuffixCount());
+        }
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.Subnet#claimSuffix()
+     */
+    @Test
+    public void testClaimSuffix() {
+
+        ISubnet subnet = AddressAllocators.createSubnet(allocator);
+
+        subnet.claimSuffix(0);
+        subnet.claimPort(0, 1234);
+        subnet.claimSuffix(0);
+
+        Assert.assertTrue(subnet.containsPort(0, 1234));
+        Assert.assertEquals(1, subnet.getPortCount(0));
+        Assert.assertEquals(1, subnet.allocateSuffix());
+        Assert.assertTrue(subnet.containsSuffix(1));
+
+        subnet.releaseSuffix(1);
+
+        Assert.assertFalse(subnet.containsSuffix(1));
+        Assert.assertEquals(0, subnet.getPortCount(1));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.Subnet#allocatePort()
+     */
+    @Test
+    public void testAllocatePort() {
+
+        ISubnet subnet = AddressAllocators.createSubnet(allocator);
+        int suffix = subnet.allocateSuffix();
+
+        Assert.assertEquals(0, subnet.allocatePort(suffix));
+        Assert.assertEquals(1, subnet.allocatePort(suffix));
+        Assert.assertTrue(subnet.claimPort(suffix, 2));
+        Assert.assertEquals(3, subnet.allocatePort(suffix));
+
+        subnet.releasePort(suffix, 1);
+
+        Assert.assertFalse(subnet.containsPort(suffix, 1));
+        Assert.assertEquals(1, subnet.allocatePort(suffix));
+
+        Assert.assertTrue(subnet.claimPort(suffix, Subnet.MAX_PORT));
+        Assert.assertEquals(5, subnet.getPortCount(suffix));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.Subnet#allocatePorts()
+     */
+    @Test
+    public void testAllocatePorts() {
+
+        ISubnet subnet = AddressAllocators.createSubnet(allocator);
+        int suffix = subnet.allocateSuffix();
+        int[] ports = new int[4];
+
+        Assert.assertTrue(subnet.claimPort(suffix, 1));
+        Assert.assertTrue(subnet.claimPort(suffix, 3));
+        Assert.assertEquals(4, subnet.allocatePorts(suffix, ports));
+        Assert.assertArrayEquals(new int[] { 0, 2, 4, 5 }, ports);
+
+        // Spans the bitmap words and pages
+        int[] more = new int[5000];
+
+        Assert.assertEquals(5000, subnet.allocatePorts(suffix, more));
+        Assert.assertEquals(6, more[0]);
+        Assert.assertEquals(5005, more[4999]);
+        Assert.assertEquals(5006, subnet.getPortCount(suffix));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.Subnet#allocatePorts()
+     */
+    @Test
+    public void testAllocatePortsExhausted() {
+
+        ISubnet subnet = AddressAllocators.createSubnet(allocator);
+        int suffix = subnet.allocateSuffix();
+
+        for (int port = 0; port < Subnet.MAX_PORT - 1; port++) {
+            Assert.assertEquals(port, subnet.allocatePort(suffix));
+        }
+
+        int[] ports = new int[4];
+
+        Assert.assertEquals(2, subnet.allocatePorts(suffix, ports));
+        Assert.assertEquals(Subnet.MAX_PORT - 1, ports[0]);
+        Assert.assertEquals(Subnet.MAX_PORT, ports[1]);
+        Assert.assertEquals(0, subnet.allocatePorts(suffix, ports));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.Subnet#claimPort()
+     */
+    @Test
+    public void testClaimPort() {
+
+        ISubnet subnet = AddressAllocators.createSubnet(allocator);
+        int suffix = subnet.allocateSuffix();
+
+        Assert.assertTrue(subnet.claimPort(suffix, 8080));
+        Assert.assertFalse(subnet.claimPort(suffix, 8080));
+        Assert.assertFalse(subnet.claimPort(suffix, -1));
+        Assert.assertFalse(subnet.claimPort(suffix, Subnet.MAX_PORT + 1));
+        Assert.assertFalse(subnet.containsPort(suffix, Subnet.MAX_PORT + 1));
+        Assert.assertFalse(subnet.containsPort(suffix + 1, 8080));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.Subnet#allocatePort()
+     */
+    @Test
+    public void testAllocatePortExhausted() {
+
+        ISubnet subnet = AddressAllocators.createSubnet(allocator);
+        int suffix = subnet.allocateSuffix();
+
+        for (int port = 0; port <= Subnet.MAX_PORT; port++) {
+            Assert.assertEquals(port, subnet.allocatePort(suffix));
+        }
+
+        Assert.assertEquals(-1, subnet.allocatePort(suffix));
+    }
+
+    /**
+     * Returns the lowest suffix which is not used
+     * @param used used suffixes
+     * @return int
+     */
+    private int lowestFree(TreeSet<Integer> used) {
+        int i = 0;
+
+        for (int suffix : used) {
+            if (suffix != i) {
+                break;
+            }
+
+            i++;
+        }
+
+        return i;
+    }
+}
@@ -1,34 +1,65 @@
 package dev.webnetes.junisockets.addresses;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
+import dev.webnetes.junisockets.errors.InvalidSubnet;
 import dev.webnetes.junisockets.errors.PortAlreadyAllocated;
 import dev.webnetes.junisockets.errors.SubnetDoesNotExist;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
 import dev.webnetes.junisockets.errors.SuffixDoesNotExist;
 import dev.webnetes.junisockets.services.SignalingServer;
 
 /**
  * @see dev.webnetes.junisockets.addresses.TCPAddress
+ * @see dev.webnetes.junisockets.addresses.AtomicTCPAddress
  */
+@RunWith(Parameterized.class)
 public class TCPAddressTest {
 
+    private EAddressAllocator allocator;
+
+    /**
+     * Constructor TCPAddressTest
+     * @param allocator allocator the tests run against
+     */
+    public TCPAddressTest(EAddressAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    
+    /** 
+     * @return Collection<Object[]> allocators every test runs against
+     */
+    @Parameters
+    public static Collection<Object[]> allocators() {
+        List<Object[]> allocators = new ArrayList<Object[]>();
+
+        for (EAddressAllocator allocator : EAddressAllocator.values()) {
+            allocators.add(new Object[] { allocator });
+        }
+
+        return allocators;
+    }
+
     /**
      * @see dev.webnetes.junisockets.addresses.TCPAddress#parseTCPAddress()
      */
     @Test
     public void testParseTCPAddress() {
         Logger logger = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip = new IPAddress(logger, mutex, subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, subnets, ip);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
 
         String tcpAddress = "127.0.0.0:1234";
 
@@ -43,10 +74,10 @@ public class TCPAddressTest {
     @Test
     public void testToTCPAddress() {
         Logger logger = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip = new IPAddress(logger, mutex, subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, subnets, ip);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
 
         String ipAddress = "127.0.0.0";
         int port = 1234;
@@ -59,14 +90,16 @@ public class TCPAddressTest {
      * @see dev.webnetes.junisockets.addresses.TCPAddress#createTCPAddress()
      * @throws SuffixDoesNotExist
      * @throws SubnetDoesNotExist
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
      */
     @Test
-    public void testCreateTCPAddress() throws SuffixDoesNotExist, SubnetDoesNotExist {
+    public void testCreateTCPAddress() throws SuffixDoesNotExist, SubnetDoesNotExist, InvalidSubnet, SubnetExhausted {
         Logger logger = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip = new IPAddress(logger, mutex, subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, subnets, ip);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
 
         String ipAddress = "127.0.0.0";
         String subnet = "127.0.0";
@@ -76,6 +109,83 @@ public class TCPAddressTest {
         Assert.assertEquals("127.0.0.0:0", tcp.createTCPAddress(ipAddress));
     }
 
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.TCPAddress#createTCPAddress()
+     * @throws SuffixDoesNotExist
+     * @throws SubnetDoesNotExist
+     * @throws PortAlreadyAllocated
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test
+    public void testCreateTCPAddressLowestFreePort() throws SuffixDoesNotExist, SubnetDoesNotExist, PortAlreadyAllocated, InvalidSubnet, SubnetExhausted {
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
+
+        String ipAddress = "127.0.0.0";
+
+        ip.createIPAddress("127.0.0");
+        tcp.claimTCPAddress("127.0.0.0:1");
+
+        Assert.assertEquals("127.0.0.0:0", tcp.createTCPAddress(ipAddress));
+        Assert.assertEquals("127.0.0.0:2", tcp.createTCPAddress(ipAddress));
+
+        tcp.removeTCPAddress("127.0.0.0:0");
+
+        Assert.assertEquals("127.0.0.0:0", tcp.createTCPAddress(ipAddress));
+        Assert.assertEquals("127.0.0.0:3", tcp.createTCPAddress(ipAddress));
+    }
+
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.TCPAddress#createTCPAddresses()
+     * @throws SuffixDoesNotExist
+     * @throws SubnetDoesNotExist
+     * @throws PortAlreadyAllocated
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test
+    public void testCreateTCPAddresses() throws SuffixDoesNotExist, SubnetDoesNotExist, PortAlreadyAllocated, InvalidSubnet, SubnetExhausted {
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
+
+        String ipAddress = "127.0.0.0";
+
+        ip.createIPAddress("127.0.0");
+        tcp.claimTCPAddress("127.0.0.0:1");
+
+        Assert.assertArrayEquals(new String[] { "127.0.0.0:0", "127.0.0.0:2", "127.0.0.0:3" }, tcp.createTCPAddresses(ipAddress, 3));
+        Assert.assertEquals("127.0.0.0:4", tcp.createTCPAddress(ipAddress));
+        Assert.assertEquals(0, tcp.createTCPAddresses(ipAddress, 0).length);
+    }
+
+
+    /**
+     * @see dev.webnetes.junisockets.addresses.TCPAddress#createTCPAddresses()
+     * @throws SuffixDoesNotExist
+     * @throws SubnetDoesNotExist
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test(expected = SuffixDoesNotExist.class)
+    public void testCreateTCPAddressesSuffixDoesNotExist() throws SuffixDoesNotExist, SubnetDoesNotExist, InvalidSubnet, SubnetExhausted {
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
+
+        ip.createIPAddress("127.0.0");
+
+        tcp.createTCPAddresses("127.0.0.1", 2);
+    }
+
     
     /** 
      * @see dev.webnetes.junisockets.addresses.TCPAddress#createTCPAddress()
@@ -85,10 +195,10 @@ public class TCPAddressTest {
     @Test(expected = SubnetDoesNotExist.class)
     public void testCreateTCPAddressSubnetDoesNotExist() throws SuffixDoesNotExist, SubnetDoesNotExist {
         Logger logger2 = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex2 = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets2 = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip2 = new IPAddress(logger2, mutex2, subnets2);
-        TCPAddress tcp2 = new TCPAddress(logger2, mutex2, subnets2, ip2);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger2);
+        SubnetTable<? extends ISubnet> subnets2 = allocators.subnets;
+        IIPAddress ip2 = allocators.ip;
+        ITCPAddress tcp2 = allocators.tcp;
         String ipAddress2 = "127.0.0.0";
 
         tcp2.createTCPAddress(ipAddress2);
@@ -99,14 +209,16 @@ public class TCPAddressTest {
      * @see dev.webnetes.junisockets.addresses.TCPAddress#createTCPAddress()
      * @throws SuffixDoesNotExist
      * @throws SubnetDoesNotExist
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
      */
     @Test(expected = SuffixDoesNotExist.class) 
-    public void testCreateTCPAddressSuffixDoesNotExist() throws SuffixDoesNotExist, SubnetDoesNotExist {
+    public void testCreateTCPAddressSuffixDoesNotExist() throws SuffixDoesNotExist, SubnetDoesNotExist, InvalidSubnet, SubnetExhausted {
         Logger logger2 = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex2 = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets2 = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip2 = new IPAddress(logger2, mutex2, subnets2);
-        TCPAddress tcp2 = new TCPAddress(logger2, mutex2, subnets2, ip2);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger2);
+        SubnetTable<? extends ISubnet> subnets2 = allocators.subnets;
+        IIPAddress ip2 = allocators.ip;
+        ITCPAddress tcp2 = allocators.tcp;
         String ipAddress2 = "127.0.0.1";
 
         String subnet = "127.0.0";
@@ -120,14 +232,16 @@ public class TCPAddressTest {
      * @see dev.webnetes.junisockets.addresses.TCPAddress#claimTCPAddress()
      * @throws PortAlreadyAllocatedError
      * @throws SubnetDoesNotExist
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
      */
     @Test
-    public void testClaimTCPAddress() throws PortAlreadyAllocated, SubnetDoesNotExist {
+    public void testClaimTCPAddress() throws PortAlreadyAllocated, SubnetDoesNotExist, InvalidSubnet, SubnetExhausted {
         Logger logger = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip = new IPAddress(logger, mutex, subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, subnets, ip);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
 
         String tcpAddress = "127.0.0.0:0";
 
@@ -140,7 +254,7 @@ public class TCPAddressTest {
         ip.createIPAddress(subnet);
         tcp.claimTCPAddress(tcpAddress);
 
-        Assert.assertEquals(true, subnets.get(subnet).get(Integer.parseInt(suffix)).contains(Integer.parseInt(partsTCPAddress[1])));
+        Assert.assertEquals(true, subnets.get(subnet).containsPort(Integer.parseInt(suffix), Integer.parseInt(partsTCPAddress[1])));
     }
 
     
@@ -148,14 +262,16 @@ public class TCPAddressTest {
      * @see dev.webnetes.junisockets.addresses.TCPAddress#claimTCPAddress()
      * @throws PortAlreadyAllocatedError
      * @throws SubnetDoesNotExist
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
      */
     @Test(expected = PortAlreadyAllocated.class) 
-    public void testClaimTCPAddressPortAlreadtAllocated() throws PortAlreadyAllocated, SubnetDoesNotExist {
+    public void testClaimTCPAddressPortAlreadtAllocated() throws PortAlreadyAllocated, SubnetDoesNotExist, InvalidSubnet, SubnetExhausted {
         Logger logger = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip = new IPAddress(logger, mutex, subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, subnets, ip);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
         String tcpAddress = "127.0.0.0:0";
         String subnet = "127.0.0";
 
@@ -173,10 +289,10 @@ public class TCPAddressTest {
     @Test(expected = SubnetDoesNotExist.class)
     public void testClaimTCPAddressSubnetDoesNotExist() throws PortAlreadyAllocated, SubnetDoesNotExist {
         Logger logger = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip = new IPAddress(logger, mutex, subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, subnets, ip);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
 
         String tcpAddress = "127.0.0.0:0";
         tcp.claimTCPAddress(tcpAddress);
@@ -187,14 +303,16 @@ public class TCPAddressTest {
      * @see dev.webnetes.junisockets.addresses.TCPAddress#removeTCPAddress()
      * @throws PortAlreadyAllocatedError
      * @throws SubnetDoesNotExist
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
      */
     @Test
-    public void testRemoveTCPAddress() throws PortAlreadyAllocated, SubnetDoesNotExist {
+    public void testRemoveTCPAddress() throws PortAlreadyAllocated, SubnetDoesNotExist, InvalidSubnet, SubnetExhausted {
         Logger logger = Logger.getLogger(SignalingServer.class);
-        ReentrantLock mutex = new ReentrantLock();
-        ConcurrentHashMap<String, HashMap<Integer, List<Integer>>> subnets = new ConcurrentHashMap<String, HashMap<Integer, List<Integer>>>();
-        IPAddress ip = new IPAddress(logger, mutex, subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, subnets, ip);
+        AddressAllocators allocators = new AddressAllocators(allocator, logger);
+        SubnetTable<? extends ISubnet> subnets = allocators.subnets;
+        IIPAddress ip = allocators.ip;
+        ITCPAddress tcp = allocators.tcp;
 
         String tcpAddress = "127.0.0.0:0";
 
@@ -209,7 +327,7 @@ public class TCPAddressTest {
 
         tcp.removeTCPAddress(tcpAddress);
         
-        Assert.assertEquals(false, subnets.get(subnet).get(Integer.parseInt(suffix)).contains(Integer.parseInt(partsTCPAddress[1])));
+        Assert.assertEquals(false, subnets.get(subnet).containsPort(Integer.parseInt(suffix), Integer.parseInt(partsTCPAddress[1])));
     }
 
 }
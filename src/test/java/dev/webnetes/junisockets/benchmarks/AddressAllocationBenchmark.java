@@ -0,0 +1,96 @@
+package dev.webnetes.junisockets.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.webnetes.junisockets.addresses.AddressCodec;
+import dev.webnetes.junisockets.addresses.IPAddress;
+import dev.webnetes.junisockets.addresses.Subnet;
+import dev.webnetes.junisockets.addresses.SubnetTable;
+import dev.webnetes.junisockets.errors.InvalidSubnet;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
+import dev.webnetes.junisockets.services.SignalingServer;
+
+/**
+ * Measures knock-style suffix allocation and release in a subnet which is already occupied to the given percentage, with and without contention
+ * @see dev.webnetes.junisockets.addresses.IPAddress
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressAllocationBenchmark {
+
+    @Param({ "24", "16" })
+    public int prefixLength;
+
+    @Param({ "0", "50", "94" })
+    public int occupancy;
+
+    private IPAddress ip;
+    private String subnet;
+
+    /**
+     * Fills the subnet up to the given occupancy
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Setup
+    public void setup() throws InvalidSubnet, SubnetExhausted {
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        ip = new IPAddress(logger, new SubnetTable<Subnet>(prefixLength, Subnet::new));
+        subnet = AddressCodec.formatSubnet(AddressCodec.parseSubnet("10.0.0"), prefixLength);
+
+        for (int i = 0; i < AddressCodec.getSuffixCount(prefixLength) * occupancy / 100; i++) {
+            ip.createIPAddress(subnet);
+        }
+    }
+
+    
+    /** 
+     * @return String
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Benchmark
+    @Threads(1)
+    public String uncontended() throws InvalidSubnet, SubnetExhausted {
+        String ipAddress = ip.createIPAddress(subnet);
+
+        ip.removeIPAddress(ipAddress);
+
+        return ipAddress;
+    }
+
+    
+    /** 
+     * @return String
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Benchmark
+    @Threads(4)
+    public String contended() throws InvalidSubnet, SubnetExhausted {
+        String ipAddress = ip.createIPAddress(subnet);
+
+        ip.removeIPAddress(ipAddress);
+
+        return ipAddress;
+    }
+}
@@ -0,0 +1,104 @@
+package dev.webnetes.junisockets.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.webnetes.junisockets.codecs.BinaryCodec;
+import dev.webnetes.junisockets.codecs.JSONSimpleDecoder;
+import dev.webnetes.junisockets.codecs.StreamingDecoder;
+import dev.webnetes.junisockets.errors.MalformedOperation;
+import dev.webnetes.junisockets.errors.UnimplementedOperation;
+import dev.webnetes.junisockets.operations.InboundOperation;
+
+/**
+ * Compares the json-simple decoder with the streaming decoder and the binary codec. Run with -prof gc to compare allocations.
+ * @see dev.webnetes.junisockets.codecs.StreamingDecoder
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecoderBenchmark {
+
+    @Param({ "candidate", "offer" })
+    public String operation;
+
+    private String message;
+    private JSONSimpleDecoder jsonSimpleDecoder = new JSONSimpleDecoder();
+    private StreamingDecoder streamingDecoder = new StreamingDecoder();
+    private BinaryCodec binaryCodec = new BinaryCodec();
+    private ByteBuffer binaryMessage;
+
+    /**
+     * Prepares a candidate or an SDP-heavy offer and its binary encoding
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Setup
+    public void setup() throws MalformedOperation, UnimplementedOperation {
+        if (operation.equals("offer")) {
+            StringBuilder sdp = new StringBuilder("v=0\\r\\no=- 4611731400430051336 2 IN IP4 127.0.0.1\\r\\ns=-\\r\\nt=0 0\\r\\n");
+
+            for (int i = 0; i < 40; i++) {
+                sdp.append("a=candidate:").append(i).append(" 1 udp 2122260223 192.168.0.").append(i).append(" 5").append(i).append("123 typ host generation 0\\r\\n");
+            }
+
+            message = "{\"data\":{\"offererId\":\"10.0.0.1\",\"answererId\":\"10.0.0.2\",\"offer\":\"" + sdp + "\"},\"opcode\":\"offer\"}";
+        } else {
+            message = "{\"data\":{\"offererId\":\"10.0.0.1\",\"answererId\":\"10.0.0.2\",\"candidate\":\"{\\\"candidate\\\":\\\"candidate:0 1 UDP 2122252543 192.168.0.2 54400 typ host\\\",\\\"sdpMid\\\":\\\"0\\\",\\\"sdpMLineIndex\\\":0}\"},\"opcode\":\"candidate\"}";
+        }
+
+        ByteBuffer encoded = binaryCodec.encode(streamingDecoder.decode(message));
+
+        binaryMessage = ByteBuffer.allocate(encoded.remaining()).put(encoded);
+    }
+
+    
+    /** 
+     * @return InboundOperation
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Benchmark
+    public InboundOperation jsonSimple() throws MalformedOperation, UnimplementedOperation {
+        return jsonSimpleDecoder.decode(message);
+    }
+
+    
+    /** 
+     * @return InboundOperation
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Benchmark
+    public InboundOperation streaming() throws MalformedOperation, UnimplementedOperation {
+        return streamingDecoder.decode(message);
+    }
+
+    
+    /** 
+     * @return InboundOperation
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Benchmark
+    public InboundOperation binary() throws MalformedOperation, UnimplementedOperation {
+        binaryMessage.clear();
+
+        return binaryCodec.decode(binaryMessage);
+    }
+}
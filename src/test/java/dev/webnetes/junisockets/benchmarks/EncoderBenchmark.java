@@ -0,0 +1,77 @@
+package dev.webnetes.junisockets.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.webnetes.junisockets.codecs.OperationEncoder;
+import dev.webnetes.junisockets.operations.Alias;
+import dev.webnetes.junisockets.operations.IOperation;
+import dev.webnetes.junisockets.operations.Offer;
+
+/**
+ * Compares getAsJSON, including the UTF-8 conversion done when sending text, with the direct encoder. Run with -prof gc to compare allocations.
+ * @see dev.webnetes.junisockets.codecs.OperationEncoder
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncoderBenchmark {
+
+    @Param({ "alias", "offer" })
+    public String operation;
+
+    private IOperation message;
+    private OperationEncoder encoder = new OperationEncoder();
+
+    /**
+     * Prepares an alias or an SDP-heavy offer
+     */
+    @Setup
+    public void setup() {
+        if (operation.equals("offer")) {
+            StringBuilder sdp = new StringBuilder("v=0\r\no=- 4611731400430051336 2 IN IP4 127.0.0.1\r\ns=-\r\nt=0 0\r\n");
+
+            for (int i = 0; i < 40; i++) {
+                sdp.append("a=candidate:").append(i).append(" 1 udp 2122260223 192.168.0.").append(i).append(" 5").append(i).append("123 typ host generation 0\r\n");
+            }
+
+            message = new Offer("10.0.0.1", "10.0.0.2", sdp.toString());
+        } else {
+            message = new Alias("10.0.0.1", "10.0.0.1:1234", true);
+        }
+    }
+
+    
+    /** 
+     * @return byte[]
+     */
+    @Benchmark
+    public byte[] jsonSimple() {
+        return message.getAsJSON(message).getBytes(StandardCharsets.UTF_8);
+    }
+
+    
+    /** 
+     * @return ByteBuffer
+     */
+    @Benchmark
+    public ByteBuffer direct() {
+        return encoder.encode(message);
+    }
+}
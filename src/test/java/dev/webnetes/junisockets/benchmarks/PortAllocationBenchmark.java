@@ -0,0 +1,99 @@
+package dev.webnetes.junisockets.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.webnetes.junisockets.addresses.IPAddress;
+import dev.webnetes.junisockets.addresses.Subnet;
+import dev.webnetes.junisockets.addresses.SubnetTable;
+import dev.webnetes.junisockets.addresses.TCPAddress;
+import dev.webnetes.junisockets.errors.PortAlreadyAllocated;
+import dev.webnetes.junisockets.errors.InvalidSubnet;
+import dev.webnetes.junisockets.errors.SubnetDoesNotExist;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
+import dev.webnetes.junisockets.errors.SuffixDoesNotExist;
+import dev.webnetes.junisockets.services.SignalingServer;
+
+/**
+ * Measures connect-style port allocation and release for a client which already holds the given number of connections
+ * @see dev.webnetes.junisockets.addresses.TCPAddress
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortAllocationBenchmark {
+
+    @Param({ "0", "256", "1024" })
+    public int connections;
+
+    private TCPAddress tcp;
+    private String ipAddress;
+    private String claimed;
+
+    /**
+     * Allocates the given number of ports on one client
+     * @throws SuffixDoesNotExist
+     * @throws SubnetDoesNotExist
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Setup
+    public void setup() throws SuffixDoesNotExist, SubnetDoesNotExist, InvalidSubnet, SubnetExhausted {
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        SubnetTable<Subnet> subnets = new SubnetTable<Subnet>(Subnet::new);
+        IPAddress ip = new IPAddress(logger, subnets);
+
+        tcp = new TCPAddress(logger, subnets);
+        ipAddress = ip.createIPAddress("10.0.0");
+
+        for (int i = 0; i < connections; i++) {
+            tcp.createTCPAddress(ipAddress);
+        }
+
+        claimed = tcp.toTCPAddress(ipAddress, 40000);
+    }
+
+    
+    /** 
+     * @return String
+     * @throws SuffixDoesNotExist
+     * @throws SubnetDoesNotExist
+     */
+    @Benchmark
+    public String create() throws SuffixDoesNotExist, SubnetDoesNotExist {
+        String tcpAddress = tcp.createTCPAddress(ipAddress);
+
+        tcp.removeTCPAddress(tcpAddress);
+
+        return tcpAddress;
+    }
+
+    
+    /** 
+     * @return String
+     * @throws PortAlreadyAllocated
+     * @throws SubnetDoesNotExist
+     */
+    @Benchmark
+    public String claim() throws PortAlreadyAllocated, SubnetDoesNotExist {
+        tcp.claimTCPAddress(claimed);
+        tcp.removeTCPAddress(claimed);
+
+        return claimed;
+    }
+}
@@ -0,0 +1,141 @@
+package dev.webnetes.junisockets.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.webnetes.junisockets.addresses.AtomicIPAddress;
+import dev.webnetes.junisockets.addresses.AtomicSubnet;
+import dev.webnetes.junisockets.addresses.AtomicTCPAddress;
+import dev.webnetes.junisockets.addresses.EAddressAllocator;
+import dev.webnetes.junisockets.addresses.IIPAddress;
+import dev.webnetes.junisockets.addresses.IPAddress;
+import dev.webnetes.junisockets.addresses.ITCPAddress;
+import dev.webnetes.junisockets.addresses.Subnet;
+import dev.webnetes.junisockets.addresses.SubnetTable;
+import dev.webnetes.junisockets.addresses.TCPAddress;
+import dev.webnetes.junisockets.errors.InvalidSubnet;
+import dev.webnetes.junisockets.errors.SubnetDoesNotExist;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
+import dev.webnetes.junisockets.errors.SuffixDoesNotExist;
+import dev.webnetes.junisockets.services.SignalingServer;
+
+/**
+ * Measures knocks and connects of four threads which either all use one subnet or each use a subnet of their own, with the locking and the lock-free allocator
+ * @see dev.webnetes.junisockets.addresses.IPAddress
+ * @see dev.webnetes.junisockets.addresses.TCPAddress
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class SubnetContentionBenchmark {
+
+    @Param({ "LOCKING", "LOCK_FREE" })
+    public EAddressAllocator allocator;
+
+    private IIPAddress ip;
+    private ITCPAddress tcp;
+    private AtomicInteger tenants = new AtomicInteger();
+
+    /**
+     * Subnet of one benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Tenant {
+
+        public String subnet;
+
+        /**
+         * Picks a subnet which no other thread uses
+         * @param benchmark benchmark
+         */
+        @Setup
+        public void setup(SubnetContentionBenchmark benchmark) {
+            subnet = "10.0." + benchmark.tenants.getAndIncrement();
+        }
+    }
+
+    /**
+     * Creates the allocators
+     */
+    @Setup
+    public void setup() {
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        if (allocator == EAddressAllocator.LOCK_FREE) {
+            SubnetTable<AtomicSubnet> subnets = new SubnetTable<AtomicSubnet>(AtomicSubnet::new);
+
+            ip = new AtomicIPAddress(logger, subnets);
+            tcp = new AtomicTCPAddress(logger, subnets);
+        } else {
+            SubnetTable<Subnet> subnets = new SubnetTable<Subnet>(Subnet::new);
+
+            ip = new IPAddress(logger, subnets);
+            tcp = new TCPAddress(logger, subnets);
+        }
+    }
+
+    
+    /** 
+     * @param tenant tenant
+     * @return String
+     * @throws SuffixDoesNotExist
+     * @throws SubnetDoesNotExist
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Benchmark
+    public String distinctSubnets(Tenant tenant) throws SuffixDoesNotExist, SubnetDoesNotExist, InvalidSubnet, SubnetExhausted {
+        return knockAndConnect(tenant.subnet);
+    }
+
+    
+    /** 
+     * @return String
+     * @throws SuffixDoesNotExist
+     * @throws SubnetDoesNotExist
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Benchmark
+    public String sharedSubnet() throws SuffixDoesNotExist, SubnetDoesNotExist, InvalidSubnet, SubnetExhausted {
+        return knockAndConnect("10.0.255");
+    }
+
+    
+    /** 
+     * Allocates an IP address and a TCP address in the subnet and releases both again
+     * @param subnet subnet
+     * @return String
+     * @throws SuffixDoesNotExist
+     * @throws SubnetDoesNotExist
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    private String knockAndConnect(String subnet) throws SuffixDoesNotExist, SubnetDoesNotExist, InvalidSubnet, SubnetExhausted {
+        String ipAddress = ip.createIPAddress(subnet);
+        String tcpAddress = tcp.createTCPAddress(ipAddress);
+
+        tcp.removeTCPAddress(tcpAddress);
+        ip.removeIPAddress(ipAddress);
+
+        return tcpAddress;
+    }
+}
@@ -0,0 +1,132 @@
+package dev.webnetes.junisockets.codecs;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.webnetes.junisockets.errors.MalformedOperation;
+import dev.webnetes.junisockets.errors.UnimplementedOperation;
+import dev.webnetes.junisockets.operations.Acknowledgement;
+import dev.webnetes.junisockets.operations.Alias;
+import dev.webnetes.junisockets.operations.Aliases;
+import dev.webnetes.junisockets.operations.ESignalingOperationCode;
+import dev.webnetes.junisockets.operations.Goodbye;
+import dev.webnetes.junisockets.operations.IAlias;
+import dev.webnetes.junisockets.operations.InboundOperation;
+
+/**
+ * @see dev.webnetes.junisockets.codecs.BinaryCodec
+ */
+public class BinaryCodecTest {
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.BinaryCodec#decode()
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Test
+    public void testRoundTrip() throws MalformedOperation, UnimplementedOperation {
+
+        BinaryCodec codec = new BinaryCodec();
+
+        char[] sdp = new char[1000];
+        Arrays.fill(sdp, 'a');
+
+        InboundOperation[] operations = {
+            new InboundOperation().setOpcode(ESignalingOperationCode.KNOCK).setSubnet("127.0.0"),
+            new InboundOperation().setOpcode(ESignalingOperationCode.BIND).setId("127.0.0.1").setAlias("127.0.0.1:1234"),
+            new InboundOperation().setOpcode(ESignalingOperationCode.CONNECT).setId("127.0.0.2").setClientConnectionId("co1").setRemoteAlias("127.0.0.1:0"),
+            new InboundOperation().setOpcode(ESignalingOperationCode.CONNECT).setId("127.0.0.2").addRemoteAlias("127.0.0.1:0").addRemoteAlias("127.0.0.3:1234").addClientConnectionId("co1").addClientConnectionId("co2"),
+            new InboundOperation().setOpcode(ESignalingOperationCode.OFFER).setOffererId("10.0.0.1").setAnswererId("10.0.0.2").setOffer(new String(sdp)),
+            new InboundOperation().setOpcode(ESignalingOperationCode.ANSWER).setOffererId("010.0.0.1").setAnswererId("10.0.0.256").setAnswer("\u00E4\uD83D\uDE00"),
+            new InboundOperation().setOpcode(ESignalingOperationCode.CANDIDATE).setOffererId("10.0.0.1:01").setAnswererId("10.0.0.1:65536").setCandidate(""),
+            new InboundOperation().setOpcode(ESignalingOperationCode.SHUTDOWN).setId("255.255.255.255").setAlias("0.0.0.0:65535"),
+        };
+
+        for (InboundOperation operation : operations) {
+            Assert.assertEquals(operation.toString(), codec.decode(codec.encode(operation)).toString());
+        }
+
+        // The token is not part of the string representation
+        Assert.assertEquals("00000000deadbeef", codec.decode(codec.encode(new InboundOperation().setOpcode(ESignalingOperationCode.KNOCK).setSubnet("127.0.0").setId("127.0.0.1").setToken("00000000deadbeef"))).getToken());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.BinaryCodec#encode()
+     */
+    @Test
+    public void testEncode() {
+
+        BinaryCodec codec = new BinaryCodec();
+
+        // Opcode, id as IPv4 and no further fields
+        Assert.assertEquals(ByteBuffer.wrap(new byte[] { 0, 1 << 3 | 1, 10, 0, 0, 1 }), codec.encode(new Goodbye("10.0.0.1")));
+
+        // Opcode, id as IPv4, alias as IPv4 with port and set
+        Assert.assertEquals(ByteBuffer.wrap(new byte[] { 9, 1 << 3 | 1, 10, 0, 0, 1, 2 << 3 | 2, 10, 0, 0, 1, 0x04, (byte) 0xD2, 10 << 3 | 5 }), codec.encode(new Alias("10.0.0.1", "10.0.0.1:1234", true)));
+
+        // Opcode, id as string, rejected and the reason as string
+        ByteBuffer rejected = ByteBuffer.allocate(22).put(new byte[] { 2, 1 << 3, 2, '-', '1', 12 << 3 | 5, 15 << 3, 14 }).put("invalid subnet".getBytes(StandardCharsets.UTF_8));
+
+        rejected.flip();
+
+        Assert.assertEquals(rejected, codec.encode(new Acknowledgement("-1", true, "invalid subnet")));
+
+        // Opcode and the fields of every alias in turn
+        Assert.assertEquals(ByteBuffer.wrap(new byte[] { 15, 1 << 3 | 1, 10, 0, 0, 1, 2 << 3 | 2, 10, 0, 0, 1, 0x04, (byte) 0xD2, 10 << 3 | 5, 1 << 3 | 1, 10, 0, 0, 1, 2 << 3 | 2, 10, 0, 0, 1, 0x04, (byte) 0xD3, 10 << 3 | 4 }),
+                codec.encode(new Aliases(Arrays.<IAlias>asList(new Alias("10.0.0.1", "10.0.0.1:1234", true), new Alias("10.0.0.1", "10.0.0.1:1235", false)))));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.BinaryCodec#decode()
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Test
+    public void testDecodeSkipsUnknownFields() throws MalformedOperation, UnimplementedOperation {
+
+        BinaryCodec codec = new BinaryCodec();
+
+        // Knock with an unknown string field, a boolean and the subnet
+        InboundOperation operation = codec.decode(ByteBuffer.wrap(new byte[] { 1, (byte) (31 << 3), 2, 'x', 'y', 10 << 3 | 5, 0, 3, '1', '0', '0' }));
+
+        Assert.assertEquals(ESignalingOperationCode.KNOCK, operation.getOpcode());
+        Assert.assertEquals("100", operation.getSubnet());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.BinaryCodec#decode()
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Test(expected = MalformedOperation.class)
+    public void testDecodeTruncated() throws MalformedOperation, UnimplementedOperation {
+
+        new BinaryCodec().decode(ByteBuffer.wrap(new byte[] { 1, 0, 5, '1', '0' }));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.BinaryCodec#decode()
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Test(expected = MalformedOperation.class)
+    public void testDecodeUnknownType() throws MalformedOperation, UnimplementedOperation {
+
+        new BinaryCodec().decode(ByteBuffer.wrap(new byte[] { 1, 7 }));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.BinaryCodec#decode()
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Test(expected = UnimplementedOperation.class)
+    public void testDecodeUnimplemented() throws MalformedOperation, UnimplementedOperation {
+
+        new BinaryCodec().decode(ByteBuffer.wrap(new byte[] { (byte) 200 }));
+    }
+}
@@ -0,0 +1,140 @@
+package dev.webnetes.junisockets.codecs;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.java_websocket.framing.TextFrame;
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.webnetes.junisockets.operations.Accept;
+import dev.webnetes.junisockets.operations.Acknowledgement;
+import dev.webnetes.junisockets.operations.Alias;
+import dev.webnetes.junisockets.operations.Aliases;
+import dev.webnetes.junisockets.operations.Answer;
+import dev.webnetes.junisockets.operations.Candidate;
+import dev.webnetes.junisockets.operations.Goodbye;
+import dev.webnetes.junisockets.operations.Greeting;
+import dev.webnetes.junisockets.operations.IAlias;
+import dev.webnetes.junisockets.operations.IOperation;
+import dev.webnetes.junisockets.operations.Offer;
+
+/**
+ * @see dev.webnetes.junisockets.codecs.OperationEncoder
+ */
+public class OperationEncoderTest {
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.OperationEncoder#encode()
+     */
+    @Test
+    public void testEncode() {
+
+        OperationEncoder encoder = new OperationEncoder();
+
+        List<IOperation> operations = Arrays.asList(
+            new Alias("127.0.0.1", "127.0.0.1:1234", true),
+            new Alias("127.0.0.1", "127.0.0.1:1234", false, "co1"),
+            new Alias("127.0.0.1", "127.0.0.1:1234", true, "co1", true),
+            new Alias("127.0.0.1", null, false, null, false),
+            new Acknowledgement("127.0.0.1", false),
+            new Acknowledgement("-1", true),
+            new Acknowledgement("-1", true, "subnet exhausted"),
+            new Acknowledgement("127.0.0.1", false, null, "00000000deadbeef"),
+            new Greeting("127.0.0.0", "127.0.0.1"),
+            new Offer("127.0.0.0", "127.0.0.1", "v=0\r\no=- 4611731400430051336 2 IN IP4 127.0.0.1\r\n"),
+            new Answer("127.0.0.1", "127.0.0.0", "a=fingerprint:sha-256 \"AB/CD\"\\"),
+            new Candidate("127.0.0.0", "127.0.0.1", "candidate:1 1 udp 2122260223 192.168.0.2 49152 typ host\t"),
+            new Accept("127.0.0.1:1234", "127.0.0.2:0"),
+            new Goodbye("127.0.0.1"),
+            new Aliases(Arrays.<IAlias>asList(new Alias("127.0.0.1", "127.0.0.1:1234", true), new Alias("127.0.0.2", "127.0.0.2:1234", false, "co1", true))),
+            new Aliases(Arrays.<IAlias>asList())
+        );
+
+        for (IOperation operation : operations) {
+            Assert.assertEquals(operation.getAsJSON(operation), toString(encoder.encode(operation)));
+        }
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.OperationEncoder#encode()
+     */
+    @Test
+    public void testEncodeEscapes() {
+
+        OperationEncoder encoder = new OperationEncoder();
+
+        String[] values = {
+            "",
+            "\u0000\u0001\u001F\b\f",
+            "\u007F\u0080\u009F\u00A0",
+            "\u1FFF\u2000\u2028\u20AC\u20FF\u2100",
+            "\u00E4\u00F6\u00FC \u20AC",
+            "\uD83D\uDE00",
+            "\uD83D unpaired \uDE00",
+        };
+
+        for (String value : values) {
+            Offer offer = new Offer("127.0.0.0", "127.0.0.1", value);
+
+            Assert.assertArrayEquals(offer.getAsJSON(offer).getBytes(StandardCharsets.UTF_8), toBytes(encoder.encode(offer)));
+        }
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.OperationEncoder#encode()
+     */
+    @Test
+    public void testEncodeGrowsBuffer() {
+
+        OperationEncoder encoder = new OperationEncoder();
+
+        char[] sdp = new char[64 * 1024];
+        Arrays.fill(sdp, '/');
+
+        Offer offer = new Offer("127.0.0.0", "127.0.0.1", new String(sdp));
+        Goodbye goodbye = new Goodbye("127.0.0.1");
+
+        Assert.assertEquals(offer.getAsJSON(offer), toString(encoder.encode(offer)));
+        Assert.assertEquals(goodbye.getAsJSON(goodbye), toString(encoder.encode(goodbye)));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.OperationEncoder#encodeFrame()
+     */
+    @Test
+    public void testEncodeFrame() {
+
+        OperationEncoder encoder = new OperationEncoder();
+        Greeting greeting = new Greeting("127.0.0.0", "127.0.0.1");
+
+        TextFrame frame = encoder.encodeFrame(greeting);
+
+        Assert.assertTrue(frame.isFin());
+        Assert.assertEquals(greeting.getAsJSON(greeting), toString(frame.getPayloadData()));
+    }
+
+    /**
+     * Returns the remaining bytes of a buffer without consuming them
+     * @param buffer buffer
+     * @return byte[]
+     */
+    private byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+
+        buffer.duplicate().get(bytes);
+
+        return bytes;
+    }
+
+    /**
+     * Returns the remaining bytes of a buffer as UTF-8
+     * @param buffer buffer
+     * @return String
+     */
+    private String toString(ByteBuffer buffer) {
+        return new String(toBytes(buffer), StandardCharsets.UTF_8);
+    }
+}
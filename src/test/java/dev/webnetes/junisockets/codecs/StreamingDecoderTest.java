@@ -0,0 +1,128 @@
+package dev.webnetes.junisockets.codecs;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.webnetes.junisockets.errors.MalformedOperation;
+import dev.webnetes.junisockets.errors.UnimplementedOperation;
+import dev.webnetes.junisockets.operations.ESignalingOperationCode;
+import dev.webnetes.junisockets.operations.InboundOperation;
+
+/**
+ * @see dev.webnetes.junisockets.codecs.StreamingDecoder
+ */
+public class StreamingDecoderTest {
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.StreamingDecoder#decode()
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Test
+    public void testDecode() throws MalformedOperation, UnimplementedOperation {
+
+        StreamingDecoder decoder = new StreamingDecoder();
+
+        InboundOperation operation = decoder.decode("{\"data\":{\"id\":\"127.0.0.2\",\"clientConnectionId\":\"co1\",\"remoteAlias\":\"127.0.0.1:1234\"},\"opcode\":\"connect\"}");
+
+        Assert.assertEquals(ESignalingOperationCode.CONNECT, operation.getOpcode());
+        Assert.assertEquals("127.0.0.2", operation.getId());
+        Assert.assertEquals("co1", operation.getClientConnectionId());
+        Assert.assertEquals("127.0.0.1:1234", operation.getRemoteAlias());
+        Assert.assertNull(operation.getAlias());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.StreamingDecoder#decode()
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Test
+    public void testDecodeMatchesJSONSimpleDecoder() throws MalformedOperation, UnimplementedOperation {
+
+        StreamingDecoder decoder = new StreamingDecoder();
+        JSONSimpleDecoder reference = new JSONSimpleDecoder();
+
+        String[] messages = {
+            "{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}",
+            " { \"opcode\" : \"offer\" , \"data\" : { \"offererId\" : \"127.0.0.0\", \"answererId\" : \"127.0.0.1\", \"offer\" : \"v=0\\r\\no=- 4611731400430051336 2 IN IP4 127.0.0.1\\r\\n\" } } ",
+            "{\"data\":{\"offererId\":\"127.0.0.0\",\"answererId\":\"127.0.0.1\",\"candidate\":\"{\\\"candidate\\\":\\\"candidate:0 1 UDP 2122252543 \\u00e4 54400 typ host\\\",\\\"sdpMid\\\":\\\"0\\\"}\"},\"opcode\":\"candidate\"}",
+            "{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\",\"extra\":{\"nested\":[1,2,{\"a\":\"}\"}]},\"flag\":true,\"n\":-1.5e3,\"none\":null},\"opcode\":\"bind\",\"version\":1}",
+            "{\"data\":{\"id\":null,\"alias\":\"a\\/b\"},\"opcode\":\"shutdown\"}",
+            "{\"opcode\":\"accepting\"}",
+            "{\"data\":{\"id\":\"127.0.0.2\",\"remoteAliases\":[ \"127.0.0.1:0\" , \"127.0.0.3:0\" ],\"clientConnectionIds\":[\"co1\",\"co\\\"2\"]},\"opcode\":\"connect\"}",
+            "{\"data\":{\"id\":\"127.0.0.2\",\"remoteAliases\":[]},\"opcode\":\"connect\"}",
+        };
+
+        for (String message : messages) {
+            Assert.assertEquals(message, reference.decode(message).toString(), decoder.decode(message).toString());
+        }
+
+        // The token is not part of the string representation
+        String knock = "{\"data\":{\"subnet\":\"127.0.0\",\"id\":\"127.0.0.1\",\"token\":\"00000000deadbeef\"},\"opcode\":\"knock\"}";
+
+        Assert.assertEquals(reference.decode(knock).getToken(), decoder.decode(knock).getToken());
+        Assert.assertEquals("00000000deadbeef", decoder.decode(knock).getToken());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.StreamingDecoder#decode()
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Test(expected = UnimplementedOperation.class)
+    public void testDecodeUnimplemented() throws MalformedOperation, UnimplementedOperation {
+
+        new StreamingDecoder().decode("{\"data\":{},\"opcode\":\"unknown\"}");
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.StreamingDecoder#decode()
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Test(expected = MalformedOperation.class)
+    public void testDecodeMalformed() throws MalformedOperation, UnimplementedOperation {
+
+        new StreamingDecoder().decode("{\"data\":{\"subnet\":\"127.0.0}");
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.StreamingDecoder#decode()
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Test(expected = MalformedOperation.class)
+    public void testDecodeWrongType() throws MalformedOperation, UnimplementedOperation {
+
+        new StreamingDecoder().decode("{\"data\":{\"subnet\":127},\"opcode\":\"knock\"}");
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.StreamingDecoder#decode()
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Test
+    public void testDecodeArrays() throws MalformedOperation, UnimplementedOperation {
+
+        InboundOperation operation = new StreamingDecoder().decode("{\"data\":{\"id\":\"127.0.0.2\",\"remoteAliases\":[\"127.0.0.1:0\",\"127.0.0.3:0\"],\"clientConnectionIds\":[\"co1\",\"co2\"]},\"opcode\":\"connect\"}");
+
+        Assert.assertEquals(Arrays.asList("127.0.0.1:0", "127.0.0.3:0"), operation.getRemoteAliases());
+        Assert.assertEquals(Arrays.asList("co1", "co2"), operation.getClientConnectionIds());
+        Assert.assertNull(operation.getRemoteAlias());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.StreamingDecoder#decode()
+     * @throws MalformedOperation
+     * @throws UnimplementedOperation
+     */
+    @Test(expected = MalformedOperation.class)
+    public void testDecodeArrayWrongType() throws MalformedOperation, UnimplementedOperation {
+
+        new StreamingDecoder().decode("{\"data\":{\"remoteAliases\":\"127.0.0.1:0\"},\"opcode\":\"connect\"}");
+    }
+}
@@ -0,0 +1,91 @@
+package dev.webnetes.junisockets.codecs;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.framing.TextFrame;
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.webnetes.junisockets.operations.Alias;
+import dev.webnetes.junisockets.operations.Offer;
+
+/**
+ * @see dev.webnetes.junisockets.codecs.ThresholdDeflateExtension
+ */
+public class ThresholdDeflateExtensionTest {
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.ThresholdDeflateExtension#encodeFrame()
+     */
+    @Test
+    public void testEncodeFrameBelowThreshold() {
+
+        CompressionMetrics metrics = new CompressionMetrics();
+        ThresholdDeflateExtension extension = new ThresholdDeflateExtension(1024, metrics);
+        Alias alias = new Alias("127.0.0.1", "127.0.0.1:1234", true);
+
+        TextFrame frame = new OperationEncoder().encodeFrame(alias);
+
+        extension.encodeFrame(frame);
+
+        Assert.assertFalse(frame.isRSV1());
+        Assert.assertEquals(alias.getAsJSON(alias), StandardCharsets.UTF_8.decode(frame.getPayloadData()).toString());
+        Assert.assertEquals(0, metrics.getCompressedCount());
+        Assert.assertEquals(1, metrics.getSkippedCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.ThresholdDeflateExtension#encodeFrame()
+     * @throws InvalidDataException
+     */
+    @Test
+    public void testEncodeFrameAboveThreshold() throws InvalidDataException {
+
+        CompressionMetrics metrics = new CompressionMetrics();
+        ThresholdDeflateExtension server = new ThresholdDeflateExtension(1024, metrics);
+        ThresholdDeflateExtension client = (ThresholdDeflateExtension) server.copyInstance();
+
+        StringBuilder sdp = new StringBuilder();
+
+        for (int i = 0; i < 40; i++) {
+            sdp.append("a=candidate:").append(i).append(" 1 udp 2122260223 192.168.0.").append(i).append(" 5").append(i).append("123 typ host generation 0\r\n");
+        }
+
+        Offer offer = new Offer("127.0.0.0", "127.0.0.1", sdp.toString());
+
+        // The encoded payload is a view of the larger thread-local buffer
+        TextFrame frame = new OperationEncoder().encodeFrame(offer);
+        int before = frame.getPayloadData().remaining();
+
+        server.encodeFrame(frame);
+
+        Assert.assertTrue(frame.isRSV1());
+        Assert.assertEquals(1, metrics.getCompressedCount());
+        Assert.assertEquals(before, metrics.getUncompressedBytes());
+        Assert.assertEquals(frame.getPayloadData().remaining(), metrics.getCompressedBytes());
+        Assert.assertTrue(metrics.getCompressionRatio() < 0.5);
+
+        client.decodeFrame(frame);
+
+        Assert.assertEquals(offer.getAsJSON(offer), StandardCharsets.UTF_8.decode(frame.getPayloadData()).toString());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.codecs.ThresholdDeflateExtension#decodeFrame()
+     * @throws InvalidDataException
+     */
+    @Test
+    public void testDecodeFrameUncompressed() throws InvalidDataException {
+
+        ThresholdDeflateExtension extension = new ThresholdDeflateExtension(1024, new CompressionMetrics());
+
+        TextFrame frame = new TextFrame();
+        frame.setPayload(ByteBuffer.wrap("{}".getBytes(StandardCharsets.UTF_8)));
+
+        extension.decodeFrame(frame);
+
+        Assert.assertEquals("{}", StandardCharsets.UTF_8.decode(frame.getPayloadData()).toString());
+    }
+}
@@ -18,4 +18,15 @@ public class AcknowledgementTest {
 
         Assert.assertEquals("{\"data\":{\"id\":\"127.0.0.1\",\"rejected\":false},\"opcode\":\"acknowledged\"}", acknowledgement.getAsJSON(acknowledgement));
     }
+    
+    /**
+     * @see dev.webnetes.junisockets.operations.Acknowledgement#getAsJSON()
+     */
+    @Test 
+    public void testGetAsJSONRejected() {
+        
+        Acknowledgement acknowledgement = new Acknowledgement("-1", true, "subnet exhausted");
+
+        Assert.assertEquals("{\"data\":{\"id\":\"-1\",\"rejected\":true,\"reason\":\"subnet exhausted\"},\"opcode\":\"acknowledged\"}", acknowledgement.getAsJSON(acknowledgement));
+    }
 }
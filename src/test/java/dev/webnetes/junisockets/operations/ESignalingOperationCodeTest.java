@@ -0,0 +1,56 @@
+package dev.webnetes.junisockets.operations;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.webnetes.junisockets.errors.UnimplementedOperation;
+
+/**
+ * @see dev.webnetes.junisockets.operations.ESignalingOperationCode
+ */
+public class ESignalingOperationCodeTest {
+
+    /**
+     * @see dev.webnetes.junisockets.operations.ESignalingOperationCode#fromValue()
+     * @throws UnimplementedOperation
+     */
+    @Test
+    public void testFromValue() throws UnimplementedOperation {
+
+        for (ESignalingOperationCode opcode : ESignalingOperationCode.values()) {
+            Assert.assertEquals(opcode, ESignalingOperationCode.fromValue(opcode.getValue()));
+        }
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.operations.ESignalingOperationCode#fromValue()
+     * @throws UnimplementedOperation
+     */
+    @Test(expected = UnimplementedOperation.class)
+    public void testFromValueUnimplemented() throws UnimplementedOperation {
+
+        ESignalingOperationCode.fromValue("unknown");
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.operations.ESignalingOperationCode#fromCode()
+     * @throws UnimplementedOperation
+     */
+    @Test
+    public void testFromCode() throws UnimplementedOperation {
+
+        for (ESignalingOperationCode opcode : ESignalingOperationCode.values()) {
+            Assert.assertEquals(opcode, ESignalingOperationCode.fromCode(opcode.getCode()));
+        }
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.operations.ESignalingOperationCode#fromCode()
+     * @throws UnimplementedOperation
+     */
+    @Test(expected = UnimplementedOperation.class)
+    public void testFromCodeUnimplemented() throws UnimplementedOperation {
+
+        ESignalingOperationCode.fromCode(255);
+    }
+}
@@ -0,0 +1,206 @@
+package dev.webnetes.junisockets.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.java_websocket.WebSocket;
+import org.java_websocket.framing.Framedata;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import dev.webnetes.junisockets.operations.Alias;
+import dev.webnetes.junisockets.operations.Aliases;
+import dev.webnetes.junisockets.operations.IAlias;
+
+/**
+ * @see dev.webnetes.junisockets.services.AliasBatcher
+ */
+public class AliasBatcherTest {
+
+    /**
+     * @see dev.webnetes.junisockets.services.AliasBatcher#flush()
+     */
+    @Test
+    public void testFlush() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AliasBatcher batcher = new AliasBatcher(logger, 1000, 64, newBroadcaster(logger));
+        WebSocket first = Mockito.mock(WebSocket.class);
+        WebSocket second = Mockito.mock(WebSocket.class);
+
+        Alias bound = new Alias("127.0.0.1", "127.0.0.1:1234", true);
+        Alias other = new Alias("127.0.0.1", "127.0.0.1:1235", true);
+        Alias taken = new Alias("127.0.0.2", "127.0.0.2:1234", true);
+
+        batcher.add(bound, Arrays.asList(first, second));
+        batcher.add(other, Collections.singletonList(first));
+        batcher.add(taken, Collections.singletonList(first));
+
+        // Set and unset within the window cancel out
+        batcher.add(new Alias("127.0.0.1", "127.0.0.1:1234", false), Collections.singletonList(first));
+
+        Mockito.verify(first, Mockito.never()).sendFrame(Mockito.anyCollection());
+
+        batcher.flush(first);
+        batcher.flush(second);
+        batcher.flush(second);
+
+        Aliases aliases = new Aliases(Arrays.<IAlias>asList(other, taken));
+
+        Assert.assertEquals(aliases.getAsJSON(aliases), getSent(first));
+
+        // A single change is sent as a plain alias
+        Assert.assertEquals(bound.getAsJSON(bound), getSent(second));
+
+        Assert.assertEquals(2, batcher.getBatchCount());
+        Assert.assertEquals(3, batcher.getAliasCount());
+        Assert.assertEquals(2, batcher.getCancelledCount());
+        Assert.assertEquals(1, batcher.getLastBatchSize());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.AliasBatcher#add()
+     */
+    @Test
+    public void testAddMaxSize() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AliasBatcher batcher = new AliasBatcher(logger, 1000, 2, newBroadcaster(logger));
+        WebSocket target = Mockito.mock(WebSocket.class);
+
+        batcher.add(new Alias("127.0.0.1", "127.0.0.1:1234", false), Collections.singletonList(target));
+        batcher.add(new Alias("127.0.0.1", "127.0.0.1:1235", false), Collections.singletonList(target));
+
+        Assert.assertEquals(true, getSent(target).contains("\"opcode\":\"aliases\""));
+        Assert.assertEquals(1, batcher.getBatchCount());
+        Assert.assertEquals(2, batcher.getLastBatchSize());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.AliasBatcher#add()
+     * @throws Exception
+     */
+    @Test
+    public void testAddWhileSending() throws Exception {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AliasBatcher batcher = new AliasBatcher(logger, 1000, 2, newBroadcaster(logger));
+        WebSocket target = Mockito.mock(WebSocket.class);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Mockito.doAnswer((invocation) -> {
+            sending.countDown();
+            release.await();
+
+            return null;
+        }).when(target).sendFrame(Mockito.anyCollection());
+
+        try {
+            // The full batch is written on the first thread, which blocks in the write
+            executor.submit(() -> {
+                batcher.add(new Alias("127.0.0.1", "127.0.0.1:1234", true), Collections.singletonList(target));
+                batcher.add(new Alias("127.0.0.1", "127.0.0.1:1235", true), Collections.singletonList(target));
+            });
+
+            Assert.assertEquals(true, sending.await(1, TimeUnit.SECONDS));
+
+            // Collecting the next batch of the same target does not wait for the write
+            Future<?> next = executor.submit(() -> batcher.add(new Alias("127.0.0.1", "127.0.0.1:1236", true), Collections.singletonList(target)));
+
+            next.get(1, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+
+        batcher.flush(target);
+
+        Mockito.verify(target, Mockito.timeout(1000).times(2)).sendFrame(Mockito.anyCollection());
+        Assert.assertEquals(2, batcher.getBatchCount());
+        Assert.assertEquals(3, batcher.getAliasCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.AliasBatcher#discard()
+     */
+    @Test
+    public void testDiscard() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AliasBatcher batcher = new AliasBatcher(logger, 1000, 2, newBroadcaster(logger));
+        WebSocket target = Mockito.mock(WebSocket.class);
+        WebSocket other = Mockito.mock(WebSocket.class);
+
+        // A change which races the close of its target still gets an outbox after the discard
+        batcher.discard(target);
+        batcher.add(new Alias("127.0.0.1", "127.0.0.1:1234", false), Arrays.asList(target, other));
+        batcher.add(new Alias("127.0.0.1", "127.0.0.1:1235", false), Collections.singletonList(target));
+        batcher.flush(other);
+
+        Mockito.verify(target, Mockito.timeout(1000)).sendFrame(Mockito.anyCollection());
+        Mockito.verify(other, Mockito.timeout(1000)).sendFrame(Mockito.anyCollection());
+
+        // Outboxes are removed once they were written empty
+        Assert.assertEquals(0, batcher.getOutboxCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.AliasBatcher#start()
+     */
+    @Test
+    public void testWindow() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        AliasBatcher batcher = new AliasBatcher(logger, 20, 64, newBroadcaster(logger));
+        WebSocket target = Mockito.mock(WebSocket.class);
+
+        batcher.start();
+        batcher.add(new Alias("127.0.0.1", "127.0.0.1:1234", true), Collections.singletonList(target));
+
+        Mockito.verify(target, Mockito.timeout(1000)).sendFrame(Mockito.anyCollection());
+
+        Assert.assertEquals(1, batcher.getBatchCount());
+        Assert.assertEquals(true, batcher.getLastFlushLatencyNanos() >= 20000000L);
+
+        batcher.stop();
+    }
+
+    /**
+     * Returns the payload of the only write to a target
+     * @param target target
+     * @return String
+     */
+    @SuppressWarnings("unchecked")
+    private static String getSent(WebSocket target) {
+        ArgumentCaptor<Collection<Framedata>> frames = ArgumentCaptor.forClass((Class<Collection<Framedata>>) (Class<?>) Collection.class);
+
+        Mockito.verify(target, Mockito.timeout(1000).times(1)).sendFrame(frames.capture());
+
+        Framedata[] sent = frames.getValue().toArray(new Framedata[0]);
+
+        Assert.assertEquals(1, sent.length);
+
+        return StandardCharsets.UTF_8.decode(sent[0].getPayloadData()).toString();
+    }
+
+    /**
+     * Returns a broadcaster which queues its writes in mailboxes of its own
+     * @param logger logger
+     * @return Broadcaster
+     */
+    private static Broadcaster newBroadcaster(Logger logger) {
+        return new Broadcaster(logger, new PeerMailboxes(logger, new HandlerExecutor(logger, 2, 64, ERejectionPolicy.CALLER_RUNS)));
+    }
+}
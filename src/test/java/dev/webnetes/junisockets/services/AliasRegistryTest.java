@@ -0,0 +1,168 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.webnetes.junisockets.models.EAliasState;
+import dev.webnetes.junisockets.models.MAlias;
+
+/**
+ * @see dev.webnetes.junisockets.services.AliasRegistry
+ */
+public class AliasRegistryTest {
+
+    /**
+     * @see dev.webnetes.junisockets.services.AliasRegistry#getOwned()
+     */
+    @Test
+    public void testGetOwned() {
+
+        AliasRegistry aliases = new AliasRegistry();
+
+        aliases.bind("127.0.0.0:1234", "127.0.0.0");
+        aliases.bind("127.0.0.0:1235", "127.0.0.0");
+        aliases.put("127.0.0.1:0", "127.0.0.1", false);
+
+        // Accepting keeps the owner
+        aliases.accept("127.0.0.0:1234", "127.0.0.0");
+
+        List<String> owned = aliases.getOwned("127.0.0.0");
+
+        Collections.sort(owned);
+
+        Assert.assertEquals(Arrays.asList("127.0.0.0:1234", "127.0.0.0:1235"), owned);
+        Assert.assertEquals(2, aliases.getCount("127.0.0.0"));
+        Assert.assertEquals(1, aliases.getCount("127.0.0.1"));
+        Assert.assertEquals(0, aliases.getCount("127.0.0.2"));
+        Assert.assertEquals(2, aliases.getOwnerCount());
+        Assert.assertEquals(3, aliases.size());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.AliasRegistry#put()
+     */
+    @Test
+    public void testPutMovesOwner() {
+
+        AliasRegistry aliases = new AliasRegistry();
+
+        aliases.put("127.0.0.0:1234", "127.0.0.0", false);
+        aliases.put("127.0.0.0:1234", "127.0.0.1", true);
+
+        Assert.assertEquals(0, aliases.getCount("127.0.0.0"));
+        Assert.assertEquals(Collections.singletonList("127.0.0.0:1234"), aliases.getOwned("127.0.0.1"));
+        Assert.assertEquals(1, aliases.getOwnerCount());
+        Assert.assertEquals(true, aliases.get("127.0.0.0:1234").getAccepting());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.AliasRegistry#bind()
+     */
+    @Test
+    public void testTransitions() {
+
+        AliasRegistry aliases = new AliasRegistry();
+
+        MAlias bound = aliases.bind("127.0.0.0:1234", "127.0.0.0");
+
+        Assert.assertEquals(EAliasState.BOUND, bound.getState());
+        Assert.assertNull(aliases.bind("127.0.0.0:1234", "127.0.0.0"));
+        Assert.assertNull(aliases.bind("127.0.0.0:1234", "127.0.0.1"));
+
+        // Only the owner can accept and close
+        Assert.assertNull(aliases.accept("127.0.0.0:1234", "127.0.0.1"));
+
+        MAlias accepting = aliases.accept("127.0.0.0:1234", "127.0.0.0");
+
+        Assert.assertEquals(EAliasState.ACCEPTING, accepting.getState());
+        Assert.assertEquals(true, accepting.getGeneration() > bound.getGeneration());
+        Assert.assertSame(accepting, aliases.accept("127.0.0.0:1234", "127.0.0.0"));
+
+        Assert.assertNull(aliases.close("127.0.0.0:1234", "127.0.0.1"));
+        Assert.assertSame(accepting, aliases.close("127.0.0.0:1234", "127.0.0.0"));
+        Assert.assertNull(aliases.accept("127.0.0.0:1234", "127.0.0.0"));
+        Assert.assertNull(aliases.close("127.0.0.0:1234", "127.0.0.0"));
+        Assert.assertNull(aliases.bind(null, "127.0.0.0"));
+        Assert.assertEquals(true, aliases.isEmpty());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.AliasRegistry#remove()
+     */
+    @Test
+    public void testRemoveStaleGeneration() {
+
+        AliasRegistry aliases = new AliasRegistry();
+        MAlias stale = aliases.bind("127.0.0.0:1234", "127.0.0.0");
+
+        aliases.close("127.0.0.0:1234", "127.0.0.0");
+
+        MAlias current = aliases.bind("127.0.0.0:1234", "127.0.0.0");
+
+        // A teardown which saw the first bind does not close the second one
+        Assert.assertEquals(false, aliases.remove("127.0.0.0:1234", stale.getGeneration()));
+        Assert.assertEquals(1, aliases.getCount("127.0.0.0"));
+
+        Assert.assertEquals(true, aliases.remove("127.0.0.0:1234", current.getGeneration()));
+        Assert.assertEquals(false, aliases.remove("127.0.0.0:1234", current.getGeneration()));
+        Assert.assertEquals(false, aliases.containsKey("127.0.0.0:1234"));
+        Assert.assertEquals(true, aliases.getOwned("127.0.0.0").isEmpty());
+        Assert.assertEquals(0, aliases.getOwnerCount());
+        Assert.assertEquals(true, aliases.isEmpty());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.AliasRegistry#bind()
+     * @throws InterruptedException
+     */
+    @Test
+    public void testConcurrentBind() throws InterruptedException {
+
+        AliasRegistry aliases = new AliasRegistry();
+        AtomicInteger winners = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+
+        for (int i = 0; i < threads.length; i++) {
+            String id = "127.0.0." + i;
+
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                for (int port = 0; port < 1000; port++) {
+                    if (aliases.bind("127.0.0.0:" + port, id) != null) {
+                        winners.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int owned = 0;
+
+        for (int i = 0; i < threads.length; i++) {
+            owned += aliases.getCount("127.0.0." + i);
+        }
+
+        // Every alias is bound exactly once, and the index agrees with the aliases
+        Assert.assertEquals(1000, winners.get());
+        Assert.assertEquals(1000, aliases.size());
+        Assert.assertEquals(1000, owned);
+    }
+}
@@ -0,0 +1,60 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see dev.webnetes.junisockets.services.AliasSubscriptions
+ */
+public class AliasSubscriptionsTest {
+
+    /**
+     * @see dev.webnetes.junisockets.services.AliasSubscriptions#getSubscribers()
+     */
+    @Test
+    public void testGetSubscribers() {
+
+        AliasSubscriptions subscriptions = new AliasSubscriptions();
+
+        subscriptions.subscribe("127.0.0.1", "127.0.0.0:1234");
+        subscriptions.subscribe("127.0.0.2", "127.0.0.0:*");
+        subscriptions.subscribe("127.0.0.3", "127.0.0.*");
+        subscriptions.subscribe("127.0.0.4", "127.0.0.0:12345");
+
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("127.0.0.1", "127.0.0.2", "127.0.0.3")), subscriptions.getSubscribers("127.0.0.0:1234"));
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("127.0.0.2", "127.0.0.3")), subscriptions.getSubscribers("127.0.0.0:1235"));
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("127.0.0.3")), subscriptions.getSubscribers("127.0.0.9:1234"));
+        Assert.assertEquals(true, subscriptions.getSubscribers("127.0.1.0:1234").isEmpty());
+        Assert.assertEquals(true, subscriptions.getSubscribers(null).isEmpty());
+        Assert.assertEquals(4, subscriptions.getSubscriberCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.AliasSubscriptions#unsubscribe()
+     */
+    @Test
+    public void testUnsubscribe() {
+
+        AliasSubscriptions subscriptions = new AliasSubscriptions();
+
+        subscriptions.subscribe("127.0.0.1", "127.0.0.0:1234");
+        subscriptions.subscribe("127.0.0.1", "127.0.0.0:*");
+        subscriptions.subscribe("127.0.0.2", "127.0.0.0:*");
+
+        subscriptions.unsubscribe("127.0.0.1", "127.0.0.0:*");
+
+        Assert.assertEquals(Arrays.asList("127.0.0.0:1234"), subscriptions.getPatterns("127.0.0.1"));
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("127.0.0.1", "127.0.0.2")), subscriptions.getSubscribers("127.0.0.0:1234"));
+
+        // A departing client is removed from everything it watches
+        subscriptions.unsubscribeAll("127.0.0.1");
+        subscriptions.unsubscribeAll("127.0.0.2");
+
+        Assert.assertEquals(true, subscriptions.getSubscribers("127.0.0.0:1234").isEmpty());
+        Assert.assertEquals(true, subscriptions.getPatterns("127.0.0.1").isEmpty());
+        Assert.assertEquals(0, subscriptions.getSubscriberCount());
+    }
+}
@@ -0,0 +1,94 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.java_websocket.WebSocket;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import dev.webnetes.junisockets.addresses.AddressCodec;
+
+/**
+ * @see dev.webnetes.junisockets.services.BroadcastDomains
+ */
+public class BroadcastDomainsTest {
+
+    /**
+     * @see dev.webnetes.junisockets.services.BroadcastDomains#join()
+     */
+    @Test
+    public void testJoin() {
+
+        BroadcastDomains domains = new BroadcastDomains(24);
+
+        domains.join("127.0.0.0", "127.0.0", Mockito.mock(WebSocket.class));
+        domains.join("127.0.0.1", "127.0.0", Mockito.mock(WebSocket.class));
+        domains.join("127.0.1.0", "127.0.1", Mockito.mock(WebSocket.class));
+
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("127.0.0.0", "127.0.0.1")), domains.getPeers("127.0.0.0").keySet());
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("127.0.1.0")), domains.getPeers("127.0.1.0").keySet());
+        Assert.assertEquals(2, domains.getDomainCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.BroadcastDomains#join()
+     */
+    @Test
+    public void testJoinSpillOver() {
+
+        BroadcastDomains domains = new BroadcastDomains(24);
+
+        domains.join("127.0.0.0", "127.0.0", Mockito.mock(WebSocket.class));
+
+        // A client which spilled over to the sibling subnet stays with the clients of the subnet it knocked for
+        domains.join("127.0.1.0", "127.0.0", Mockito.mock(WebSocket.class));
+
+        Assert.assertEquals(AddressCodec.parseSubnet("127.0.0", 24), domains.getDomain("127.0.1.0"));
+        Assert.assertEquals(2, domains.getPeers("127.0.1.0").size());
+        Assert.assertEquals(1, domains.getDomainCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.BroadcastDomains#leave()
+     */
+    @Test
+    public void testLeave() {
+
+        BroadcastDomains domains = new BroadcastDomains(24);
+        WebSocket first = Mockito.mock(WebSocket.class);
+        WebSocket second = Mockito.mock(WebSocket.class);
+
+        domains.join("127.0.0.0", "127.0.0", first);
+        domains.join("127.0.0.0", "127.0.0", second);
+
+        // The first connection closes after the client knocked again
+        domains.leave("127.0.0.0", first);
+
+        Assert.assertSame(second, domains.getPeers("127.0.0.0").get("127.0.0.0"));
+
+        domains.leave("127.0.0.0", second);
+
+        Assert.assertEquals(true, domains.getPeers("127.0.0.0").isEmpty());
+        Assert.assertEquals(0, domains.getDomainCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.BroadcastDomains#getDomain()
+     */
+    @Test
+    public void testGetDomainFallback() {
+
+        BroadcastDomains domains = new BroadcastDomains(24);
+
+        // Clients which did not join, e.g. restored reservations, are in the domain of their IP address
+        Assert.assertEquals(AddressCodec.parseSubnet("127.0.1", 24), domains.getDomain("127.0.1.5"));
+        Assert.assertEquals(-1, domains.getDomain("abc"));
+        Assert.assertEquals(-1, domains.getDomain(null));
+
+        domains.join("127.0.2.0", null, Mockito.mock(WebSocket.class));
+
+        Assert.assertEquals(AddressCodec.parseSubnet("127.0.2", 24), domains.getDomain("127.0.2.0"));
+    }
+}
@@ -0,0 +1,147 @@
+package dev.webnetes.junisockets.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.java_websocket.WebSocket;
+import org.java_websocket.enums.Opcode;
+import org.java_websocket.framing.Framedata;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import dev.webnetes.junisockets.operations.Alias;
+import dev.webnetes.junisockets.operations.Goodbye;
+import dev.webnetes.junisockets.operations.IOperation;
+
+/**
+ * @see dev.webnetes.junisockets.services.Broadcaster
+ */
+public class BroadcasterTest {
+
+    /**
+     * @see dev.webnetes.junisockets.services.Broadcaster#broadcast()
+     */
+    @Test
+    public void testBroadcast() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        Broadcaster broadcaster = newBroadcaster(logger);
+
+        List<WebSocket> targets = Arrays.asList(Mockito.mock(WebSocket.class), Mockito.mock(WebSocket.class), Mockito.mock(WebSocket.class));
+        Alias alias = new Alias("127.0.0.1", "127.0.0.1:1234", true);
+
+        broadcaster.broadcast(alias, targets);
+
+        // Every target gets a text frame with the same encoded payload
+        for (WebSocket target : targets) {
+            ArgumentCaptor<Framedata> frame = ArgumentCaptor.forClass(Framedata.class);
+
+            Mockito.verify(target, Mockito.timeout(1000).times(1)).sendFrame(frame.capture());
+
+            Assert.assertEquals(Opcode.TEXT, frame.getValue().getOpcode());
+            Assert.assertEquals(alias.getAsJSON(alias), StandardCharsets.UTF_8.decode(frame.getValue().getPayloadData()).toString());
+        }
+
+        Assert.assertEquals(1, broadcaster.getBroadcastCount());
+        Assert.assertEquals(3, broadcaster.getRecipientCount());
+        Assert.assertEquals(3, broadcaster.getLastRecipientCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.Broadcaster#broadcast()
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBroadcastBatch() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        Broadcaster broadcaster = newBroadcaster(logger);
+
+        List<WebSocket> targets = Arrays.asList(Mockito.mock(WebSocket.class), Mockito.mock(WebSocket.class));
+        Alias alias = new Alias("127.0.0.1", "127.0.0.1:1234", false);
+        Goodbye goodbye = new Goodbye("127.0.0.1");
+        List<IOperation> operations = Arrays.asList(alias, goodbye);
+
+        broadcaster.broadcast(operations, targets);
+
+        // Every target gets all operations in one write, in order
+        for (WebSocket target : targets) {
+            ArgumentCaptor<Collection<Framedata>> frames = ArgumentCaptor.forClass((Class<Collection<Framedata>>) (Class<?>) Collection.class);
+
+            Mockito.verify(target, Mockito.timeout(1000).times(1)).sendFrame(frames.capture());
+
+            Framedata[] sent = frames.getValue().toArray(new Framedata[0]);
+
+            Assert.assertEquals(2, sent.length);
+            Assert.assertEquals(alias.getAsJSON(alias), StandardCharsets.UTF_8.decode(sent[0].getPayloadData()).toString());
+            Assert.assertEquals(goodbye.getAsJSON(goodbye), StandardCharsets.UTF_8.decode(sent[1].getPayloadData()).toString());
+        }
+
+        Assert.assertEquals(2, broadcaster.getBroadcastCount());
+        Assert.assertEquals(4, broadcaster.getRecipientCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.Broadcaster#broadcast()
+     * @throws InterruptedException
+     */
+    @Test
+    public void testBroadcastKeepsPeerOrder() throws InterruptedException {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        PeerMailboxes mailboxes = new PeerMailboxes(logger, new HandlerExecutor(logger, 2, 64, ERejectionPolicy.CALLER_RUNS));
+        Broadcaster broadcaster = new Broadcaster(logger, mailboxes);
+        WebSocket target = Mockito.mock(WebSocket.class);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+
+        // A send queued earlier for the same connection, e.g. a greeting
+        mailboxes.execute(target, () -> {
+            running.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Assert.assertEquals(true, running.await(1, TimeUnit.SECONDS));
+
+        broadcaster.broadcast(new Goodbye("127.0.0.1"), Collections.singletonList(target));
+        broadcaster.send(Collections.singletonList(new Goodbye("127.0.0.2")), target);
+
+        // The broadcast and the send wait for the earlier send of their target
+        Thread.sleep(100);
+        Mockito.verify(target, Mockito.never()).sendFrame(Mockito.any(Framedata.class));
+        Mockito.verify(target, Mockito.never()).sendFrame(Mockito.anyCollection());
+
+        release.countDown();
+
+        Mockito.verify(target, Mockito.timeout(1000)).sendFrame(Mockito.any(Framedata.class));
+        Mockito.verify(target, Mockito.timeout(1000)).sendFrame(Mockito.anyCollection());
+
+        InOrder order = Mockito.inOrder(target);
+
+        order.verify(target).sendFrame(Mockito.any(Framedata.class));
+        order.verify(target).sendFrame(Mockito.anyCollection());
+    }
+
+    /**
+     * Returns a broadcaster which queues its writes in mailboxes of its own
+     * @param logger logger
+     * @return Broadcaster
+     */
+    private static Broadcaster newBroadcaster(Logger logger) {
+        return new Broadcaster(logger, new PeerMailboxes(logger, new HandlerExecutor(logger, 2, 64, ERejectionPolicy.CALLER_RUNS)));
+    }
+}
@@ -0,0 +1,123 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see dev.webnetes.junisockets.services.HandlerExecutor
+ */
+public class HandlerExecutorTest {
+
+    /**
+     * @see dev.webnetes.junisockets.services.HandlerExecutor#execute()
+     * @throws InterruptedException
+     */
+    @Test
+    public void testExecuteAbort() throws InterruptedException {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        HandlerExecutor executor = new HandlerExecutor(logger, 1, 1, ERejectionPolicy.ABORT);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> ranOn = new AtomicReference<Thread>();
+
+        fill(executor, release);
+
+        // The rejection is counted and logged, it does not reach the caller
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+        Assert.assertEquals(1, executor.getRejectedCount());
+        Assert.assertEquals(1, executor.getQueueDepth());
+        Assert.assertNull(ranOn.get());
+
+        release.countDown();
+        executor.shutdown();
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.HandlerExecutor#execute()
+     * @throws InterruptedException
+     */
+    @Test
+    public void testExecuteDiscard() throws InterruptedException {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        HandlerExecutor executor = new HandlerExecutor(logger, 1, 1, ERejectionPolicy.DISCARD);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> ranOn = new AtomicReference<Thread>();
+
+        CountDownLatch drained = fill(executor, release);
+
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+        Assert.assertEquals(1, executor.getRejectedCount());
+        Assert.assertEquals(1, executor.getQueueDepth());
+
+        release.countDown();
+        executor.shutdown();
+
+        // The queued task still runs, the discarded one never does
+        Assert.assertEquals(true, drained.await(1, TimeUnit.SECONDS));
+        Assert.assertNull(ranOn.get());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.HandlerExecutor#execute()
+     * @throws InterruptedException
+     */
+    @Test
+    public void testExecuteCallerRuns() throws InterruptedException {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        HandlerExecutor executor = new HandlerExecutor(logger, 1, 1, ERejectionPolicy.CALLER_RUNS);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> ranOn = new AtomicReference<Thread>();
+
+        fill(executor, release);
+
+        // Runs on the submitting thread instead of waiting for the full queue
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+        Assert.assertEquals(1, executor.getRejectedCount());
+        Assert.assertEquals(1, executor.getQueueDepth());
+        Assert.assertEquals(Thread.currentThread(), ranOn.get());
+
+        release.countDown();
+        executor.shutdown();
+    }
+
+    /**
+     * Occupies the only worker until released and fills the only queue slot
+     * @param executor executor with a pool and a queue of one
+     * @param release released to let the worker finish
+     * @return CountDownLatch counted down once the queued task ran
+     * @throws InterruptedException
+     */
+    private static CountDownLatch fill(HandlerExecutor executor, CountDownLatch release) throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch drained = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            running.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Assert.assertEquals(true, running.await(1, TimeUnit.SECONDS));
+
+        executor.execute(() -> drained.countDown());
+
+        Assert.assertEquals(0, executor.getRejectedCount());
+        Assert.assertEquals(1, executor.getQueueDepth());
+
+        return drained;
+    }
+}
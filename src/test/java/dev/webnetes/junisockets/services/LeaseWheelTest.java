@@ -0,0 +1,88 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.List;
+
+import org.java_websocket.WebSocket;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * @see dev.webnetes.junisockets.services.LeaseWheel
+ */
+public class LeaseWheelTest {
+
+    private static final long TICK = 100;
+
+    /**
+     * @see dev.webnetes.junisockets.services.LeaseWheel#advance()
+     */
+    @Test
+    public void testAdvance() {
+
+        LeaseWheel wheel = new LeaseWheel(8, TICK, 0);
+        Lease lease = new Lease("127.0.0.0", Mockito.mock(WebSocket.class), 350);
+
+        wheel.schedule(lease);
+
+        // Due in tick 4, the first one which starts after the expiry
+        Assert.assertEquals(true, wheel.advance(399).isEmpty());
+        Assert.assertEquals(1, wheel.advance(400).size());
+        Assert.assertEquals(true, wheel.advance(2000).isEmpty());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.LeaseWheel#advance()
+     */
+    @Test
+    public void testAdvanceRenewed() {
+
+        LeaseWheel wheel = new LeaseWheel(8, TICK, 0);
+        Lease lease = new Lease("127.0.0.0", Mockito.mock(WebSocket.class), 350);
+
+        wheel.schedule(lease);
+        lease.renew(1550);
+
+        // Put into the slot of its new expiry, which is more than one round of the wheel later
+        Assert.assertEquals(true, wheel.advance(400).isEmpty());
+        Assert.assertEquals(true, wheel.advance(1500).isEmpty());
+
+        List<Lease> due = wheel.advance(1600);
+
+        Assert.assertEquals(1, due.size());
+        Assert.assertSame(lease, due.get(0));
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.LeaseWheel#advance()
+     */
+    @Test
+    public void testAdvanceReleased() {
+
+        LeaseWheel wheel = new LeaseWheel(8, TICK, 0);
+        Lease lease = new Lease("127.0.0.0", Mockito.mock(WebSocket.class), 350);
+
+        wheel.schedule(lease);
+        lease.release();
+
+        Assert.assertEquals(true, wheel.advance(1000).isEmpty());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.LeaseWheel#advance()
+     */
+    @Test
+    public void testAdvanceManyInOneTick() {
+
+        LeaseWheel wheel = new LeaseWheel(8, TICK, 0);
+        WebSocket conn = Mockito.mock(WebSocket.class);
+        int count = 10000;
+
+        for (int i = 0; i < count; i++) {
+            wheel.schedule(new Lease(Integer.toString(i), conn, 301 + i % 99));
+        }
+
+        Assert.assertEquals(true, wheel.advance(300).isEmpty());
+        Assert.assertEquals(count, wheel.advance(400).size());
+    }
+}
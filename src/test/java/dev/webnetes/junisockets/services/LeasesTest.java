@@ -0,0 +1,118 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.java_websocket.WebSocket;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * @see dev.webnetes.junisockets.services.Leases
+ */
+public class LeasesTest {
+
+    private static final long TTL = 1000;
+
+    /**
+     * @see dev.webnetes.junisockets.services.Leases#tick()
+     */
+    @Test
+    public void testTickProbesBeforeReclaiming() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        List<Lease> reclaimed = new ArrayList<Lease>();
+        Leases leases = new Leases(logger, TTL, reclaimed::addAll);
+        WebSocket conn = connection("127.0.0.0");
+        long start = System.nanoTime();
+
+        leases.grant(conn);
+
+        // Quiet for the whole TTL, so the client is pinged first
+        leases.tick(start + TimeUnit.MILLISECONDS.toNanos(TTL * 2));
+
+        Mockito.verify(conn, Mockito.times(1)).sendPing();
+        Assert.assertEquals(true, reclaimed.isEmpty());
+
+        // No pong within the grace period
+        leases.tick(start + TimeUnit.MILLISECONDS.toNanos(TTL * 3));
+
+        Assert.assertEquals(1, reclaimed.size());
+        Assert.assertEquals("127.0.0.0", reclaimed.get(0).getId());
+        Assert.assertEquals(0, leases.getCount());
+        Assert.assertEquals(1, leases.getReclaimedCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.Leases#renew()
+     */
+    @Test
+    public void testRenewAfterProbe() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        List<Lease> reclaimed = new ArrayList<Lease>();
+        Leases leases = new Leases(logger, TTL, reclaimed::addAll);
+        WebSocket conn = connection("127.0.0.0");
+
+        leases.grant(conn);
+        leases.tick(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TTL * 2));
+
+        // The pong renews the lease from now on
+        leases.renew(conn);
+        leases.tick(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TTL / 2));
+
+        Assert.assertEquals(true, reclaimed.isEmpty());
+        Assert.assertEquals(1, leases.getCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.Leases#release()
+     */
+    @Test
+    public void testRelease() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        List<Lease> reclaimed = new ArrayList<Lease>();
+        Leases leases = new Leases(logger, TTL, reclaimed::addAll);
+        WebSocket conn = connection("127.0.0.0");
+
+        leases.grant(conn);
+        leases.release("127.0.0.0", conn);
+        leases.tick(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TTL * 4));
+
+        Mockito.verify(conn, Mockito.never()).sendPing();
+        Assert.assertEquals(true, reclaimed.isEmpty());
+        Assert.assertEquals(0, leases.getCount());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.Leases#grant()
+     */
+    @Test
+    public void testGrantDisabled() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        Leases leases = new Leases(logger, 0, (expired) -> Assert.fail());
+
+        leases.grant(connection("127.0.0.0"));
+
+        Assert.assertEquals(false, leases.isEnabled());
+        Assert.assertEquals(0, leases.getCount());
+    }
+
+    /**
+     * Returns a connection the id of a client is attached to
+     * @param id id
+     * @return WebSocket
+     */
+    private static WebSocket connection(String id) {
+        WebSocket conn = Mockito.mock(WebSocket.class);
+
+        Mockito.when(conn.<String>getAttachment()).thenReturn(id);
+
+        return conn;
+    }
+}
@@ -0,0 +1,168 @@
+package dev.webnetes.junisockets.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @see dev.webnetes.junisockets.services.PeerMailboxes
+ */
+public class PeerMailboxesTest {
+
+    /**
+     * @see dev.webnetes.junisockets.services.PeerMailboxes#execute()
+     * @throws InterruptedException
+     */
+    @Test
+    public void testExecuteKeepsOrderPerPeer() throws InterruptedException {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        HandlerExecutor executor = new HandlerExecutor(logger, 4, 1000, ERejectionPolicy.CALLER_RUNS);
+        PeerMailboxes mailboxes = new PeerMailboxes(logger, executor);
+
+        int count = 500;
+        List<Integer> first = Collections.synchronizedList(new ArrayList<Integer>());
+        List<Integer> second = Collections.synchronizedList(new ArrayList<Integer>());
+        CountDownLatch done = new CountDownLatch(count * 2);
+
+        for (int i = 0; i < count; i++) {
+            final int value = i;
+
+            mailboxes.execute("127.0.0.0", () -> {
+                first.add(value);
+                done.countDown();
+            });
+            mailboxes.execute("127.0.0.1", () -> {
+                second.add(value);
+                done.countDown();
+            });
+        }
+
+        Assert.assertEquals(true, done.await(10, TimeUnit.SECONDS));
+
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i, (int) first.get(i));
+            Assert.assertEquals(i, (int) second.get(i));
+        }
+
+        executor.shutdown();
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.PeerMailboxes#execute()
+     * @throws InterruptedException
+     */
+    @Test
+    public void testExecuteCallerRunsKeepsStackFlat() throws InterruptedException {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        HandlerExecutor executor = new HandlerExecutor(logger, 1, 1, ERejectionPolicy.CALLER_RUNS);
+        PeerMailboxes mailboxes = new PeerMailboxes(logger, executor);
+        CountDownLatch release = new CountDownLatch(1);
+
+        fill(executor, release);
+
+        int count = 64 * 100;
+        List<Integer> values = new ArrayList<Integer>();
+        List<Integer> depths = new ArrayList<Integer>();
+
+        // Queues many drains worth of tasks while the mailbox runs on the caller, every further drain is rejected as well
+        mailboxes.execute("127.0.0.0", () -> {
+            for (int i = 0; i < count; i++) {
+                final int value = i;
+
+                mailboxes.execute("127.0.0.0", () -> {
+                    values.add(value);
+                    depths.add(Thread.currentThread().getStackTrace().length);
+                });
+            }
+        });
+
+        Assert.assertEquals(count, values.size());
+
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i, (int) values.get(i));
+            Assert.assertEquals(depths.get(0), depths.get(i));
+        }
+
+        release.countDown();
+        executor.shutdown();
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.PeerMailboxes#execute()
+     * @throws InterruptedException
+     */
+    @Test
+    public void testExecuteDiscardKeepsQueuedTasks() throws InterruptedException {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        HandlerExecutor executor = new HandlerExecutor(logger, 1, 1, ERejectionPolicy.DISCARD);
+        PeerMailboxes mailboxes = new PeerMailboxes(logger, executor);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> values = Collections.synchronizedList(new ArrayList<Integer>());
+        CountDownLatch done = new CountDownLatch(2);
+
+        fill(executor, release);
+
+        // Only the drain is discarded, the task stays queued in the mailbox
+        mailboxes.execute("127.0.0.0", () -> {
+            values.add(0);
+            done.countDown();
+        });
+
+        Assert.assertEquals(1, executor.getRejectedCount());
+        Assert.assertEquals(0, values.size());
+
+        release.countDown();
+
+        for (int i = 0; i < 100 && executor.getQueueDepth() > 0; i++) {
+            Thread.sleep(10);
+        }
+
+        // The next task of the peer schedules the mailbox again
+        mailboxes.execute("127.0.0.0", () -> {
+            values.add(1);
+            done.countDown();
+        });
+
+        Assert.assertEquals(true, done.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(0, (int) values.get(0));
+        Assert.assertEquals(1, (int) values.get(1));
+
+        executor.shutdown();
+    }
+
+    /**
+     * Occupies the only worker until released and fills the only queue slot
+     * @param executor executor with a pool and a queue of one
+     * @param release released to let the worker finish
+     * @throws InterruptedException
+     */
+    private static void fill(HandlerExecutor executor, CountDownLatch release) throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            running.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Assert.assertEquals(true, running.await(1, TimeUnit.SECONDS));
+
+        executor.execute(() -> {
+        });
+
+        Assert.assertEquals(1, executor.getQueueDepth());
+    }
+}
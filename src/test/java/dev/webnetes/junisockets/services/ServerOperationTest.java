@@ -1,14 +1,27 @@
 package dev.webnetes.junisockets.services;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.concurrent.locks.ReentrantLock;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.log4j.Logger;
 import org.apache.log4j.PropertyConfigurator;
+import org.java_websocket.WebSocket;
 import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.Framedata;
 import org.java_websocket.handshake.ServerHandshake;
+import org.java_websocket.protocols.Protocol;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.junit.Assert;
@@ -16,9 +29,19 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import dev.webnetes.junisockets.addresses.AddressCodec;
+import dev.webnetes.junisockets.addresses.EAddressAllocator;
 import dev.webnetes.junisockets.addresses.IPAddress;
+import dev.webnetes.junisockets.addresses.Subnet;
 import dev.webnetes.junisockets.addresses.TCPAddress;
+import dev.webnetes.junisockets.codecs.BinaryCodec;
+import dev.webnetes.junisockets.codecs.CompressionMetrics;
+import dev.webnetes.junisockets.codecs.ThresholdDeflateExtension;
+import dev.webnetes.junisockets.errors.InvalidSubnet;
+import dev.webnetes.junisockets.errors.SubnetExhausted;
+import dev.webnetes.junisockets.operations.Acknowledgement;
 import dev.webnetes.junisockets.operations.ESignalingOperationCode;
+import dev.webnetes.junisockets.operations.InboundOperation;
 
 /**
  * These testcases work independently and mock to the point where the handler can be used
@@ -83,16 +106,15 @@ public class ServerOperationTest {
         s.stop();
     }
 
-    
     /** 
-     * @see dev.webnetes.junisockets.services.ServerOperation#handleBind()
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleKnock()
      * @throws URISyntaxException
-     * @throws IOException
      * @throws InterruptedException
+     * @throws IOException
      */
     @Test
-    public void testHandleBind() throws URISyntaxException, IOException, InterruptedException {
-        System.out.println("testHandleBind");
+    public void testHandleKnockLockFree() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testHandleKnockLockFree");
         PropertyConfigurator.configure("log4j.properties");
         int port = 8892;
         String host = "localhost";
@@ -100,20 +122,7 @@ public class ServerOperationTest {
 
         SignalingServerBuilder builder = new SignalingServerBuilder();
 
-        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
-
-        ReentrantLock mutex = new ReentrantLock();
-        IPAddress ip = new IPAddress(logger, mutex, s.subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, s.subnets, ip);
-
-        String tcpAddress = "127.0.0.0:1234";
-
-        String[] partsTCPAddress = tcp.parseTCPAddress(tcpAddress);
-        String[] partsIPAddress = ip.parseIPAddress(partsTCPAddress[0]);
-
-        String subnet = String.join(".", partsIPAddress[0], partsIPAddress[1], partsIPAddress[2]);
-
-        ip.createIPAddress(subnet);
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).setAddressAllocator(EAddressAllocator.LOCK_FREE).build();
 
         s.start();
         WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
@@ -129,31 +138,21 @@ public class ServerOperationTest {
 
             @Override
             public void onMessage(String message) {
-                JSONParser parser = new JSONParser();
-                Object jsonObj = null;
+                Assert.assertEquals("{\"data\":{\"id\":\"127.0.0.0\",\"rejected\":false},\"opcode\":\"acknowledged\"}",
+                        message);
+                Assert.assertEquals(true, s.clients.containsKey("127.0.0.0"));
 
                 try {
-                    jsonObj = parser.parse(message);
-                } catch (org.json.simple.parser.ParseException e) {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
-
-                JSONObject operation = (JSONObject) jsonObj;
-                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
-                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"bind\"}");
-                }
-                if (operation.get("opcode").equals(ESignalingOperationCode.ALIAS.getValue())) {
-                    Assert.assertEquals(
-                            "{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\",\"set\":true},\"opcode\":\"alias\"}",
-                            message);
-                    close();
-                }
+                close();
             }
 
             @Override
             public void onOpen(ServerHandshake handshakedata) {
                 send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
-
             }
         };
 
@@ -164,14 +163,14 @@ public class ServerOperationTest {
 
     
     /** 
-     * @see dev.webnetes.junisockets.services.ServerOperation#handleOffer()
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleKnock()
      * @throws URISyntaxException
-     * @throws IOException
      * @throws InterruptedException
+     * @throws IOException
      */
     @Test
-    public void testHandleOffer() throws URISyntaxException, IOException, InterruptedException {
-        System.out.println("testHandleOffer");
+    public void testHandleKnockPrefixLength16() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testHandleKnockPrefixLength16");
         PropertyConfigurator.configure("log4j.properties");
         int port = 8892;
         String host = "localhost";
@@ -179,10 +178,10 @@ public class ServerOperationTest {
 
         SignalingServerBuilder builder = new SignalingServerBuilder();
 
-        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).setPrefixLength(16).build();
+        List<String> received = new ArrayList<String>();
 
         s.start();
-
         WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
 
             @Override
@@ -196,50 +195,58 @@ public class ServerOperationTest {
 
             @Override
             public void onMessage(String message) {
-
-                JSONParser parser = new JSONParser();
-                Object jsonObj = null;
+                received.add(message);
 
                 try {
-                    jsonObj = parser.parse(message);
-                } catch (org.json.simple.parser.ParseException e) {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
-
-                JSONObject operation = (JSONObject) jsonObj;
-
-                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
-                    if (((JSONObject) operation.get("data")).get("id").equals("127.0.0.0")) {
-                        send("{\"data\":{\"offererId\":\"127.0.0.0\", \"answererId\": \"127.0.0.1\", \"offer\": \"o1\"},\"opcode\":\"offer\"}");
-                    } else {
-                        send("{\"data\":{\"offererId\":\"127.0.0.1\", \"answererId\": \"127.0.0.0\", \"offer\": \"o1\"},\"opcode\":\"offer\"}");
-                    }
-                }
-                ;
-                if (operation.get("opcode").equals(ESignalingOperationCode.GOODBYE.getValue())) {
-                    try {
-                        Thread.sleep(300);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                    close();
-                }
-                ;
-
+                close();
             }
 
             @Override
             public void onOpen(ServerHandshake handshakedata) {
-                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
-                try {
-                    Thread.sleep(300);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+                send("{\"data\":{\"subnet\":\"10.0\"},\"opcode\":\"knock\"}");
             }
         };
 
-        WebSocketClient cc2 = new WebSocketClient(new URI("ws://localhost:8892")) {
+        Thread.sleep(300);
+        cc.run();
+        s.stop();
+
+        Assert.assertEquals(Collections.singletonList("{\"data\":{\"id\":\"10.0.0.0\",\"rejected\":false},\"opcode\":\"acknowledged\"}"), received);
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleKnock()
+     * @throws URISyntaxException
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @Test
+    public void testHandleKnockSpillOver() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testHandleKnockSpillOver");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServerBuilder builder = new SignalingServerBuilder();
+
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).setSpillOverSubnets(1).build();
+        List<String> received = new ArrayList<String>();
+
+        // Fill 127.0.0, so the knock spills over to 127.0.1
+        Subnet subnet = s.subnets.getOrCreate(AddressCodec.parseSubnet("127.0.0"));
+
+        for (int i = 0; i < subnet.getSize(); i++) {
+            subnet.allocateSuffix();
+        }
+
+        s.start();
+        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
 
             @Override
             public void onError(Exception ex) {
@@ -252,31 +259,14 @@ public class ServerOperationTest {
 
             @Override
             public void onMessage(String message) {
-                JSONParser parser = new JSONParser();
-                Object jsonObj = null;
+                received.add(message);
 
                 try {
-                    jsonObj = parser.parse(message);
-                } catch (org.json.simple.parser.ParseException e) {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
-
-                JSONObject operation = (JSONObject) jsonObj;
-                if (operation.get("opcode").equals(ESignalingOperationCode.OFFER.getValue())) {
-                    Assert.assertEquals(
-                            "{\"data\":{\"offererId\":\"" + ((JSONObject) operation.get("data")).get("offererId")
-                                    + "\",\"answererId\":\"" + ((JSONObject) operation.get("data")).get("answererId")
-                                    + "\",\"offer\":\"o1\"},\"opcode\":\"offer\"}",
-                            message);
-
-                    try {
-                        Thread.sleep(300);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-
-                    close();
-                }
+                close();
             }
 
             @Override
@@ -286,21 +276,22 @@ public class ServerOperationTest {
         };
 
         Thread.sleep(300);
-        cc2.connect();
         cc.run();
         s.stop();
+
+        Assert.assertEquals(Collections.singletonList("{\"data\":{\"id\":\"127.0.1.0\",\"rejected\":false},\"opcode\":\"acknowledged\"}"), received);
     }
 
     
     /** 
-     * @see dev.webnetes.junisockets.services.ServerOperation#handleAnswer()
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleKnock()
      * @throws URISyntaxException
-     * @throws IOException
      * @throws InterruptedException
+     * @throws IOException
      */
     @Test
-    public void testHandleAnswer() throws URISyntaxException, IOException, InterruptedException {
-        System.out.println("testHandleAnswer");
+    public void testHandleKnockInvalidSubnet() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testHandleKnockInvalidSubnet");
         PropertyConfigurator.configure("log4j.properties");
         int port = 8892;
         String host = "localhost";
@@ -308,10 +299,10 @@ public class ServerOperationTest {
 
         SignalingServerBuilder builder = new SignalingServerBuilder();
 
-        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).setPrefixLength(16).build();
+        List<String> received = new ArrayList<String>();
 
         s.start();
-
         WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
 
             @Override
@@ -325,44 +316,53 @@ public class ServerOperationTest {
 
             @Override
             public void onMessage(String message) {
-
-                JSONParser parser = new JSONParser();
-                Object jsonObj = null;
+                received.add(message);
 
                 try {
-                    jsonObj = parser.parse(message);
-                } catch (org.json.simple.parser.ParseException e) {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
-
-                JSONObject operation = (JSONObject) jsonObj;
-
-                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
-                    if (((JSONObject) operation.get("data")).get("id").equals("127.0.0.0")) {
-                        send("{\"data\":{\"offererId\":\"127.0.0.1\", \"answererId\": \"127.0.0.0\", \"answer\": \"o1\"},\"opcode\":\"answer\"}");
-                    } else {
-                        send("{\"data\":{\"offererId\":\"127.0.0.0\", \"answererId\": \"127.0.0.1\", \"answer\": \"o1\"},\"opcode\":\"answer\"}");
-                    }
-                }
-                if (operation.get("opcode").equals(ESignalingOperationCode.GOODBYE.getValue())) {
-                    try {
-                        Thread.sleep(300);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                    ;
-                    close();
-                }
-
+                close();
             }
 
             @Override
             public void onOpen(ServerHandshake handshakedata) {
+                // Three octets are a /24 subnet, but the server hands out /16 subnets
                 send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
             }
         };
 
-        WebSocketClient cc2 = new WebSocketClient(new URI("ws://localhost:8892")) {
+        Thread.sleep(300);
+        cc.run();
+        s.stop();
+
+        Assert.assertEquals(Collections.singletonList("{\"data\":{\"id\":\"-1\",\"rejected\":true,\"reason\":\"invalid subnet\"},\"opcode\":\"acknowledged\"}"), received);
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleKnock()
+     * @throws URISyntaxException
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @Test
+    public void testHandleKnockBinary() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testHandleKnockBinary");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServerBuilder builder = new SignalingServerBuilder();
+
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
+        BinaryCodec codec = new BinaryCodec();
+        List<ByteBuffer> received = new ArrayList<ByteBuffer>();
+
+        s.start();
+        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892"), new Draft_6455(Collections.emptyList(), Collections.singletonList(new Protocol(BinaryCodec.PROTOCOL)))) {
 
             @Override
             public void onError(Exception ex) {
@@ -375,48 +375,48 @@ public class ServerOperationTest {
 
             @Override
             public void onMessage(String message) {
-                JSONParser parser = new JSONParser();
-                Object jsonObj = null;
+                Assert.fail("expected a binary message, got " + message);
+            }
+
+            @Override
+            public void onMessage(ByteBuffer message) {
+                received.add(message);
 
                 try {
-                    jsonObj = parser.parse(message);
-                } catch (org.json.simple.parser.ParseException e) {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
-
-                JSONObject operation = (JSONObject) jsonObj;
-                if (operation.get("opcode").equals(ESignalingOperationCode.ANSWER.getValue())) {
-                    Assert.assertEquals(
-                            "{\"data\":{\"offererId\":\"" + ((JSONObject) operation.get("data")).get("offererId")
-                                    + "\",\"answererId\":\"" + ((JSONObject) operation.get("data")).get("answererId")
-                                    + "\",\"answer\":\"o1\"},\"opcode\":\"answer\"}",
-                            message);
-                    close();
-                }
+                close();
             }
 
             @Override
             public void onOpen(ServerHandshake handshakedata) {
-                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+                send(codec.encode(new InboundOperation().setOpcode(ESignalingOperationCode.KNOCK).setSubnet("127.0.0")));
             }
         };
 
         Thread.sleep(300);
-        cc2.connect();
         cc.run();
         s.stop();
+
+        Assert.assertEquals(1, received.size());
+        Assert.assertTrue(s.clients.isEmpty());
+
+        // The acknowledgement is binary and was not rejected
+        Assert.assertEquals(codec.encode(new Acknowledgement("127.0.0.0", false)), received.get(0));
     }
 
     
     /** 
-     * @see dev.webnetes.junisockets.services.ServerOperation#handleCandidate()
-     * @throws IOException
-     * @throws InterruptedException
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleKnock()
      * @throws URISyntaxException
+     * @throws InterruptedException
+     * @throws IOException
      */
     @Test
-    public void testHandleCandidate() throws IOException, InterruptedException, URISyntaxException {
-        System.out.println("testHandleCandidate");
+    public void testHandleKnockCompressed() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testHandleKnockCompressed");
         PropertyConfigurator.configure("log4j.properties");
         int port = 8892;
         String host = "localhost";
@@ -424,11 +424,11 @@ public class ServerOperationTest {
 
         SignalingServerBuilder builder = new SignalingServerBuilder();
 
-        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).setCompressionEnabled(true).build();
+        List<String> received = new ArrayList<String>();
 
         s.start();
-
-        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
+        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892"), new Draft_6455(new ThresholdDeflateExtension(0, new CompressionMetrics()))) {
 
             @Override
             public void onError(Exception ex) {
@@ -441,115 +441,46 @@ public class ServerOperationTest {
 
             @Override
             public void onMessage(String message) {
-
-                JSONParser parser = new JSONParser();
-                Object jsonObj = null;
+                received.add(message);
 
                 try {
-                    jsonObj = parser.parse(message);
-                } catch (org.json.simple.parser.ParseException e) {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
+                close();
+            }
 
-                JSONObject operation = (JSONObject) jsonObj;
-
-                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
-                    if (((JSONObject) operation.get("data")).get("id").equals("127.0.0.0")) {
-                        send("{\"data\":{\"offererId\":\"127.0.0.0\",\"answererId\":\"127.0.0.1\",\"candidate\":\"o1\"},\"opcode\":\"candidate\"}");
-                    } else {
-                        send("{\"data\":{\"offererId\":\"127.0.0.1\",\"answererId\":\"127.0.0.0\",\"candidate\":\"o1\"},\"opcode\":\"candidate\"}");
-                    }
-                }
-                if (operation.get("opcode").equals(ESignalingOperationCode.CANDIDATE.getValue())) {
-                    if (((JSONObject) operation.get("data")).get("offererId").equals("127.0.0.0")) {
-                        Assert.assertEquals(
-                                "{\"data\":{\"offererId\":\"127.0.0.0\",\"answererId\":\"127.0.0.1\",\"candidate\":\"o1b\"},\"opcode\":\"candidate\"}",
-                                message);
-                    } else {
-                        Assert.assertEquals(
-                                "{\"data\":{\"offererId\":\"127.0.0.1\",\"answererId\":\"127.0.0.0\",\"candidate\":\"o1b\"},\"opcode\":\"candidate\"}",
-                                message);
-                    }
-
-                    close();
-                }
-            }
-
-            @Override
-            public void onOpen(ServerHandshake handshakedata) {
-                try {
-                    Thread.sleep(300);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
-            }
-        };
-
-        WebSocketClient cc2 = new WebSocketClient(new URI("ws://localhost:8892")) {
-
-            @Override
-            public void onError(Exception ex) {
-                ex.printStackTrace();
-            }
-
-            @Override
-            public void onClose(int code, String reason, boolean remote) {
-            }
-
-            @Override
-            public void onMessage(String message) {
-                JSONParser parser = new JSONParser();
-                Object jsonObj = null;
-
-                try {
-                    jsonObj = parser.parse(message);
-                } catch (org.json.simple.parser.ParseException e) {
-                    e.printStackTrace();
-                }
-
-                JSONObject operation = (JSONObject) jsonObj;
-                if (operation.get("opcode").equals(ESignalingOperationCode.CANDIDATE.getValue())) {
-                    if (((JSONObject) operation.get("data")).get("offererId").equals("127.0.0.0")) {
-                        send("{\"data\":{\"offererId\":\"127.0.0.1\",\"answererId\":\"127.0.0.0\",\"candidate\":\"o1b\"},\"opcode\":\"candidate\"}");
-                    } else {
-                        send("{\"data\":{\"offererId\":\"127.0.0.0\",\"answererId\":\"127.0.0.1\",\"candidate\":\"o1b\"},\"opcode\":\"candidate\"}");
-                    }
-                }
-
-                if (operation.get("opcode").equals(ESignalingOperationCode.GOODBYE.getValue())) {
-                    try {
-                        Thread.sleep(300);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                    close();
-                 }
-            }
-
-            @Override
-            public void onOpen(ServerHandshake handshakedata) {
-                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
-            }
-        };
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                // The client compresses everything, the server inflates it because RSV1 is set
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
 
         Thread.sleep(300);
-        cc2.connect();
         cc.run();
-        Thread.sleep(300);
         s.stop();
+
+        Assert.assertEquals(Collections.singletonList("{\"data\":{\"id\":\"127.0.0.0\",\"rejected\":false},\"opcode\":\"acknowledged\"}"), received);
+
+        // The acknowledgement is below the threshold
+        Assert.assertEquals(0, s.getCompressionMetrics().getCompressedCount());
+        Assert.assertEquals(1, s.getCompressionMetrics().getSkippedCount());
     }
 
     
     /** 
-     * @see dev.webnetes.junisockets.services.ServerOperation#handleShutdown()
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleBind()
+     * @throws URISyntaxException
      * @throws IOException
      * @throws InterruptedException
-     * @throws URISyntaxException
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
      */
     @Test
-    public void testHandleShutdown() throws IOException, InterruptedException, URISyntaxException {
-        System.out.println("testHandleShutdown");
+    public void testHandleBind() throws URISyntaxException, IOException, InterruptedException, InvalidSubnet, SubnetExhausted {
+        System.out.println("testHandleBind");
         PropertyConfigurator.configure("log4j.properties");
         int port = 8892;
         String host = "localhost";
@@ -559,11 +490,10 @@ public class ServerOperationTest {
 
         SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
 
-        ReentrantLock mutex = new ReentrantLock();
-        IPAddress ip = new IPAddress(logger, mutex, s.subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, s.subnets, ip);
+        IPAddress ip = new IPAddress(logger, s.subnets);
+        TCPAddress tcp = new TCPAddress(logger, s.subnets);
 
-        String tcpAddress = "127.0.0.0:0";
+        String tcpAddress = "127.0.0.0:1234";
 
         String[] partsTCPAddress = tcp.parseTCPAddress(tcpAddress);
         String[] partsIPAddress = ip.parseIPAddress(partsTCPAddress[0]);
@@ -596,31 +526,21 @@ public class ServerOperationTest {
                 }
 
                 JSONObject operation = (JSONObject) jsonObj;
-
                 if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
-                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\"},\"opcode\":\"bind\"}");
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"bind\"}");
                 }
-
                 if (operation.get("opcode").equals(ESignalingOperationCode.ALIAS.getValue())) {
-                    if (((JSONObject) operation.get("data")).get("set").toString().equals("true")) {
-                        send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\"},\"opcode\":\"shutdown\"}");
-                    } else {
-                        Assert.assertEquals(
-                                "{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\",\"set\":false},\"opcode\":\"alias\"}",
-                                message);
-                        close();
-                    }
+                    Assert.assertEquals(
+                            "{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\",\"set\":true},\"opcode\":\"alias\"}",
+                            message);
+                    close();
                 }
             }
 
             @Override
             public void onOpen(ServerHandshake handshakedata) {
-                try {
-                    Thread.sleep(300);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
                 send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+
             }
         };
 
@@ -631,14 +551,14 @@ public class ServerOperationTest {
 
     
     /** 
-     * @see dev.webnetes.junisockets.services.ServerOperation#handleShutdown()
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleOffer()
      * @throws URISyntaxException
      * @throws IOException
      * @throws InterruptedException
      */
     @Test
-    public void testHandleShutdownRejected() throws URISyntaxException, IOException, InterruptedException {
-        System.out.println("testHandleShutdownRejected");
+    public void testHandleOffer() throws URISyntaxException, IOException, InterruptedException {
+        System.out.println("testHandleOffer");
         PropertyConfigurator.configure("log4j.properties");
         int port = 8892;
         String host = "localhost";
@@ -649,6 +569,7 @@ public class ServerOperationTest {
         SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
 
         s.start();
+
         WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
 
             @Override
@@ -662,6 +583,7 @@ public class ServerOperationTest {
 
             @Override
             public void onMessage(String message) {
+
                 JSONParser parser = new JSONParser();
                 Object jsonObj = null;
 
@@ -674,62 +596,37 @@ public class ServerOperationTest {
                 JSONObject operation = (JSONObject) jsonObj;
 
                 if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
-                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\"},\"opcode\":\"shutdown\"}");
+                    if (((JSONObject) operation.get("data")).get("id").equals("127.0.0.0")) {
+                        send("{\"data\":{\"offererId\":\"127.0.0.0\", \"answererId\": \"127.0.0.1\", \"offer\": \"o1\"},\"opcode\":\"offer\"}");
+                    } else {
+                        send("{\"data\":{\"offererId\":\"127.0.0.1\", \"answererId\": \"127.0.0.0\", \"offer\": \"o1\"},\"opcode\":\"offer\"}");
+                    }
                 }
-
-                if (operation.get("opcode").equals(ESignalingOperationCode.ALIAS.getValue())) {
-                    Assert.assertEquals(
-                            "{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\",\"set\":true},\"opcode\":\"alias\"}",
-                            message);
+                ;
+                if (operation.get("opcode").equals(ESignalingOperationCode.GOODBYE.getValue())) {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
                     close();
                 }
+                ;
+
             }
 
             @Override
             public void onOpen(ServerHandshake handshakedata) {
                 send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
             }
         };
 
-        Thread.sleep(300);
-        cc.run();
-        s.stop();
-    }
-
-    
-    /** 
-     * @see dev.webnetes.junisockets.services.ServerOperation#handleAccepting()
-     * @throws IOException
-     * @throws InterruptedException
-     * @throws URISyntaxException
-     */
-    @Test
-    public void testHandleAccepting() throws IOException, InterruptedException, URISyntaxException {
-        System.out.println("testHandleAccepting");
-        PropertyConfigurator.configure("log4j.properties");
-        int port = 8892;
-        String host = "localhost";
-        Logger logger = Logger.getLogger(SignalingServer.class);
-
-        SignalingServerBuilder builder = new SignalingServerBuilder();
-
-        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
-
-        ReentrantLock mutex = new ReentrantLock();
-        IPAddress ip = new IPAddress(logger, mutex, s.subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, s.subnets, ip);
-
-        String tcpAddress = "127.0.0.0:0";
-
-        String[] partsTCPAddress = tcp.parseTCPAddress(tcpAddress);
-        String[] partsIPAddress = ip.parseIPAddress(partsTCPAddress[0]);
-
-        String subnet = String.join(".", partsIPAddress[0], partsIPAddress[1], partsIPAddress[2]);
-
-        ip.createIPAddress(subnet);
-
-        s.start();
-        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
+        WebSocketClient cc2 = new WebSocketClient(new URI("ws://localhost:8892")) {
 
             @Override
             public void onError(Exception ex) {
@@ -752,20 +649,19 @@ public class ServerOperationTest {
                 }
 
                 JSONObject operation = (JSONObject) jsonObj;
+                if (operation.get("opcode").equals(ESignalingOperationCode.OFFER.getValue())) {
+                    Assert.assertEquals(
+                            "{\"data\":{\"offererId\":\"" + ((JSONObject) operation.get("data")).get("offererId")
+                                    + "\",\"answererId\":\"" + ((JSONObject) operation.get("data")).get("answererId")
+                                    + "\",\"offer\":\"o1\"},\"opcode\":\"offer\"}",
+                            message);
 
-                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
-                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\"},\"opcode\":\"bind\"}");
-                }
-
-                if (operation.get("opcode").equals(ESignalingOperationCode.ALIAS.getValue())) {
-                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\"},\"opcode\":\"accepting\"}");
                     try {
                         Thread.sleep(300);
                     } catch (InterruptedException e) {
                         e.printStackTrace();
                     }
-                    Assert.assertEquals(true,
-                            s.aliases.get((String) ((JSONObject) operation.get("data")).get("alias")).getAccepting());
+
                     close();
                 }
             }
@@ -777,20 +673,21 @@ public class ServerOperationTest {
         };
 
         Thread.sleep(300);
+        cc2.connect();
         cc.run();
         s.stop();
     }
 
     
     /** 
-     * @see dev.webnetes.junisockets.services.ServerOperation#handleAccepting()
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleAnswer()
      * @throws URISyntaxException
      * @throws IOException
      * @throws InterruptedException
      */
     @Test
-    public void testHandleAcceptingRejected() throws URISyntaxException, IOException, InterruptedException {
-        System.out.println("testHandleAcceptingRejected");
+    public void testHandleAnswer() throws URISyntaxException, IOException, InterruptedException {
+        System.out.println("testHandleAnswer");
         PropertyConfigurator.configure("log4j.properties");
         int port = 8892;
         String host = "localhost";
@@ -800,20 +697,8 @@ public class ServerOperationTest {
 
         SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
 
-        ReentrantLock mutex = new ReentrantLock();
-        IPAddress ip = new IPAddress(logger, mutex, s.subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, s.subnets, ip);
-
-        String tcpAddress = "127.0.0.0:0";
-
-        String[] partsTCPAddress = tcp.parseTCPAddress(tcpAddress);
-        String[] partsIPAddress = ip.parseIPAddress(partsTCPAddress[0]);
-
-        String subnet = String.join(".", partsIPAddress[0], partsIPAddress[1], partsIPAddress[2]);
-
-        ip.createIPAddress(subnet);
-
         s.start();
+
         WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
 
             @Override
@@ -827,6 +712,7 @@ public class ServerOperationTest {
 
             @Override
             public void onMessage(String message) {
+
                 JSONParser parser = new JSONParser();
                 Object jsonObj = null;
 
@@ -839,17 +725,22 @@ public class ServerOperationTest {
                 JSONObject operation = (JSONObject) jsonObj;
 
                 if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
-                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\"},\"opcode\":\"accepting\"}");
-
+                    if (((JSONObject) operation.get("data")).get("id").equals("127.0.0.0")) {
+                        send("{\"data\":{\"offererId\":\"127.0.0.1\", \"answererId\": \"127.0.0.0\", \"answer\": \"o1\"},\"opcode\":\"answer\"}");
+                    } else {
+                        send("{\"data\":{\"offererId\":\"127.0.0.0\", \"answererId\": \"127.0.0.1\", \"answer\": \"o1\"},\"opcode\":\"answer\"}");
+                    }
+                }
+                if (operation.get("opcode").equals(ESignalingOperationCode.GOODBYE.getValue())) {
                     try {
                         Thread.sleep(300);
                     } catch (InterruptedException e) {
                         e.printStackTrace();
                     }
-
-                    Assert.assertEquals(false, s.aliases.containsKey("127.0.0.0:0"));
+                    ;
                     close();
                 }
+
             }
 
             @Override
@@ -858,46 +749,7 @@ public class ServerOperationTest {
             }
         };
 
-        Thread.sleep(300);
-        cc.run();
-        s.stop();
-
-    }
-
-    
-    /** 
-     * @see dev.webnetes.junisockets.services.ServerOperation#handleConnect()
-     * @throws URISyntaxException
-     * @throws IOException
-     * @throws InterruptedException
-     */
-    @Test
-    public void testHandleConnect() throws URISyntaxException, IOException, InterruptedException {
-        System.out.println("testHandleConnect");
-        PropertyConfigurator.configure("log4j.properties");
-        int port = 8892;
-        String host = "localhost";
-        Logger logger = Logger.getLogger(SignalingServer.class);
-
-        SignalingServerBuilder builder = new SignalingServerBuilder();
-
-        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
-
-        ReentrantLock mutex = new ReentrantLock();
-        IPAddress ip = new IPAddress(logger, mutex, s.subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, s.subnets, ip);
-
-        String tcpAddress = "127.0.0.1:1234";
-
-        String[] partsTCPAddress = tcp.parseTCPAddress(tcpAddress);
-        String[] partsIPAddress = ip.parseIPAddress(partsTCPAddress[0]);
-
-        String subnet = String.join(".", partsIPAddress[0], partsIPAddress[1], partsIPAddress[2]);
-
-        ip.createIPAddress(subnet);
-
-        s.start();
-        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
+        WebSocketClient cc2 = new WebSocketClient(new URI("ws://localhost:8892")) {
 
             @Override
             public void onError(Exception ex) {
@@ -910,7 +762,6 @@ public class ServerOperationTest {
 
             @Override
             public void onMessage(String message) {
-
                 JSONParser parser = new JSONParser();
                 Object jsonObj = null;
 
@@ -921,34 +772,94 @@ public class ServerOperationTest {
                 }
 
                 JSONObject operation = (JSONObject) jsonObj;
+                if (operation.get("opcode").equals(ESignalingOperationCode.ANSWER.getValue())) {
+                    Assert.assertEquals(
+                            "{\"data\":{\"offererId\":\"" + ((JSONObject) operation.get("data")).get("offererId")
+                                    + "\",\"answererId\":\"" + ((JSONObject) operation.get("data")).get("answererId")
+                                    + "\",\"answer\":\"o1\"},\"opcode\":\"answer\"}",
+                            message);
+                    close();
+                }
+            }
 
-                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
-                    send("{\"data\":{\"id\":\"127.0.0.2\",\"clientConnectionId\":\"co1\",\"remoteAlias\":\"127.0.0.1:1234\"},\"opcode\":\"connect\"}");
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        Thread.sleep(300);
+        cc2.connect();
+        cc.run();
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleCandidate()
+     * @throws IOException
+     * @throws InterruptedException
+     * @throws URISyntaxException
+     */
+    @Test
+    public void testHandleCandidate() throws IOException, InterruptedException, URISyntaxException {
+        System.out.println("testHandleCandidate");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServerBuilder builder = new SignalingServerBuilder();
+
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
+
+        s.start();
+
+        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+
+                JSONParser parser = new JSONParser();
+                Object jsonObj = null;
+
+                try {
+                    jsonObj = parser.parse(message);
+                } catch (org.json.simple.parser.ParseException e) {
+                    e.printStackTrace();
                 }
 
-                if (operation.get("opcode").equals(ESignalingOperationCode.ALIAS.getValue())) {
-                    if (((JSONObject) operation.get("data")).get("id").equals("127.0.0.1")) {
-                        if (((JSONObject) operation.get("data")).get("set").toString().equals("true")) {
-                            Assert.assertEquals(
-                                    "{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:1234\",\"set\":true,\"clientConnectionId\":\"co1\"},\"opcode\":\"alias\"}",
-                                    message);
+                JSONObject operation = (JSONObject) jsonObj;
 
-                        } else {
-                            Assert.assertEquals(
-                                    "{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:1234\",\"set\":false},\"opcode\":\"alias\"}",
-                                    message);
-                        }
+                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
+                    if (((JSONObject) operation.get("data")).get("id").equals("127.0.0.0")) {
+                        send("{\"data\":{\"offererId\":\"127.0.0.0\",\"answererId\":\"127.0.0.1\",\"candidate\":\"o1\"},\"opcode\":\"candidate\"}");
                     } else {
+                        send("{\"data\":{\"offererId\":\"127.0.0.1\",\"answererId\":\"127.0.0.0\",\"candidate\":\"o1\"},\"opcode\":\"candidate\"}");
+                    }
+                }
+                if (operation.get("opcode").equals(ESignalingOperationCode.CANDIDATE.getValue())) {
+                    if (((JSONObject) operation.get("data")).get("offererId").equals("127.0.0.0")) {
                         Assert.assertEquals(
-                                "{\"data\":{\"id\":\"127.0.0.2\",\"alias\":\"127.0.0.2:0\",\"set\":true,\"clientConnectionId\":\"co1\",\"isConnectionAlias\":true},\"opcode\":\"alias\"}",
+                                "{\"data\":{\"offererId\":\"127.0.0.0\",\"answererId\":\"127.0.0.1\",\"candidate\":\"o1b\"},\"opcode\":\"candidate\"}",
+                                message);
+                    } else {
+                        Assert.assertEquals(
+                                "{\"data\":{\"offererId\":\"127.0.0.1\",\"answererId\":\"127.0.0.0\",\"candidate\":\"o1b\"},\"opcode\":\"candidate\"}",
                                 message);
                     }
-                }
 
-                if (operation.get("opcode").equals(ESignalingOperationCode.GOODBYE.getValue())) {
                     close();
                 }
-
             }
 
             @Override
@@ -975,7 +886,6 @@ public class ServerOperationTest {
 
             @Override
             public void onMessage(String message) {
-
                 JSONParser parser = new JSONParser();
                 Object jsonObj = null;
 
@@ -986,28 +896,22 @@ public class ServerOperationTest {
                 }
 
                 JSONObject operation = (JSONObject) jsonObj;
-
-                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
-                    send("{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:1234\"},\"opcode\":\"bind\"}");
-                }
-
-                if (operation.get("opcode").equals(ESignalingOperationCode.ALIAS.getValue())) {
-
-                    if (((JSONObject) operation.get("data")).get("id").equals("127.0.0.1")) {
-                        send("{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:1234\"},\"opcode\":\"accepting\"}");
+                if (operation.get("opcode").equals(ESignalingOperationCode.CANDIDATE.getValue())) {
+                    if (((JSONObject) operation.get("data")).get("offererId").equals("127.0.0.0")) {
+                        send("{\"data\":{\"offererId\":\"127.0.0.1\",\"answererId\":\"127.0.0.0\",\"candidate\":\"o1b\"},\"opcode\":\"candidate\"}");
                     } else {
-                        Assert.assertEquals(
-                                "{\"data\":{\"id\":\"127.0.0.2\",\"alias\":\"127.0.0.2:0\",\"set\":true},\"opcode\":\"alias\"}",
-                                message);
+                        send("{\"data\":{\"offererId\":\"127.0.0.0\",\"answererId\":\"127.0.0.1\",\"candidate\":\"o1b\"},\"opcode\":\"candidate\"}");
                     }
                 }
 
-                if (operation.get("opcode").equals(ESignalingOperationCode.ACCEPT.getValue())) {
-                    Assert.assertEquals(
-                            "{\"data\":{\"boundAlias\":\"127.0.0.1:1234\",\"clientAlias\":\"127.0.0.2:0\"},\"opcode\":\"accept\"}",
-                            message);
+                if (operation.get("opcode").equals(ESignalingOperationCode.GOODBYE.getValue())) {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
                     close();
-                }
+                 }
             }
 
             @Override
@@ -1019,19 +923,22 @@ public class ServerOperationTest {
         Thread.sleep(300);
         cc2.connect();
         cc.run();
+        Thread.sleep(300);
         s.stop();
     }
 
     
     /** 
-     * @see dev.webnetes.junisockets.services.ServerOperation#handleConnect()
-     * @throws URISyntaxException
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleShutdown()
      * @throws IOException
      * @throws InterruptedException
+     * @throws URISyntaxException
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
      */
     @Test
-    public void testHandleConnectRejected() throws URISyntaxException, IOException, InterruptedException {
-        System.out.println("testHandleConnectRejected");
+    public void testHandleShutdown() throws IOException, InterruptedException, URISyntaxException, InvalidSubnet, SubnetExhausted {
+        System.out.println("testHandleShutdown");
         PropertyConfigurator.configure("log4j.properties");
         int port = 8892;
         String host = "localhost";
@@ -1041,11 +948,10 @@ public class ServerOperationTest {
 
         SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
 
-        ReentrantLock mutex = new ReentrantLock();
-        IPAddress ip = new IPAddress(logger, mutex, s.subnets);
-        TCPAddress tcp = new TCPAddress(logger, mutex, s.subnets, ip);
+        IPAddress ip = new IPAddress(logger, s.subnets);
+        TCPAddress tcp = new TCPAddress(logger, s.subnets);
 
-        String tcpAddress = "127.0.0.1:1234";
+        String tcpAddress = "127.0.0.0:0";
 
         String[] partsTCPAddress = tcp.parseTCPAddress(tcpAddress);
         String[] partsIPAddress = ip.parseIPAddress(partsTCPAddress[0]);
@@ -1068,7 +974,6 @@ public class ServerOperationTest {
 
             @Override
             public void onMessage(String message) {
-
                 JSONParser parser = new JSONParser();
                 Object jsonObj = null;
 
@@ -1081,14 +986,18 @@ public class ServerOperationTest {
                 JSONObject operation = (JSONObject) jsonObj;
 
                 if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
-                    send("{\"data\":{\"id\":\"127.0.0.2\",\"clientConnectionId\":\"co1\",\"remoteAlias\":\"127.0.0.1:1234\"},\"opcode\":\"connect\"}");
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\"},\"opcode\":\"bind\"}");
                 }
 
                 if (operation.get("opcode").equals(ESignalingOperationCode.ALIAS.getValue())) {
-                    Assert.assertEquals(
-                            "{\"data\":{\"id\":\"127.0.0.2\",\"alias\":null,\"set\":false},\"opcode\":\"alias\"}",
-                            message);
-                    close();
+                    if (((JSONObject) operation.get("data")).get("set").toString().equals("true")) {
+                        send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\"},\"opcode\":\"shutdown\"}");
+                    } else {
+                        Assert.assertEquals(
+                                "{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\",\"set\":false},\"opcode\":\"alias\"}",
+                                message);
+                        close();
+                    }
                 }
             }
 
@@ -1099,11 +1008,36 @@ public class ServerOperationTest {
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
-               send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
             }
         };
 
-        WebSocketClient cc2 = new WebSocketClient(new URI("ws://localhost:8892")) {
+        Thread.sleep(300);
+        cc.run();
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleShutdown()
+     * @throws URISyntaxException
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @Test
+    public void testHandleShutdownRejected() throws URISyntaxException, IOException, InterruptedException {
+        System.out.println("testHandleShutdownRejected");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServerBuilder builder = new SignalingServerBuilder();
+
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
+
+        s.start();
+        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
 
             @Override
             public void onError(Exception ex) {
@@ -1116,7 +1050,6 @@ public class ServerOperationTest {
 
             @Override
             public void onMessage(String message) {
-              
                 JSONParser parser = new JSONParser();
                 Object jsonObj = null;
 
@@ -1129,20 +1062,1423 @@ public class ServerOperationTest {
                 JSONObject operation = (JSONObject) jsonObj;
 
                 if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
-                    send("{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:1234\"},\"opcode\":\"bind\"}");
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\"},\"opcode\":\"shutdown\"}");
+                }
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.ALIAS.getValue())) {
+                    Assert.assertEquals(
+                            "{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\",\"set\":true},\"opcode\":\"alias\"}",
+                            message);
+                    close();
                 }
             }
 
             @Override
             public void onOpen(ServerHandshake handshakedata) {
-               send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
             }
         };
 
         Thread.sleep(300);
-        cc2.connect();
         cc.run();
-        Thread.sleep(300);
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleAccepting()
+     * @throws IOException
+     * @throws InterruptedException
+     * @throws URISyntaxException
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test
+    public void testHandleAccepting() throws IOException, InterruptedException, URISyntaxException, InvalidSubnet, SubnetExhausted {
+        System.out.println("testHandleAccepting");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServerBuilder builder = new SignalingServerBuilder();
+
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
+
+        IPAddress ip = new IPAddress(logger, s.subnets);
+        TCPAddress tcp = new TCPAddress(logger, s.subnets);
+
+        String tcpAddress = "127.0.0.0:0";
+
+        String[] partsTCPAddress = tcp.parseTCPAddress(tcpAddress);
+        String[] partsIPAddress = ip.parseIPAddress(partsTCPAddress[0]);
+
+        String subnet = String.join(".", partsIPAddress[0], partsIPAddress[1], partsIPAddress[2]);
+
+        ip.createIPAddress(subnet);
+
+        s.start();
+        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                JSONParser parser = new JSONParser();
+                Object jsonObj = null;
+
+                try {
+                    jsonObj = parser.parse(message);
+                } catch (org.json.simple.parser.ParseException e) {
+                    e.printStackTrace();
+                }
+
+                JSONObject operation = (JSONObject) jsonObj;
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\"},\"opcode\":\"bind\"}");
+                }
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.ALIAS.getValue())) {
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\"},\"opcode\":\"accepting\"}");
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                    Assert.assertEquals(true,
+                            s.aliases.get((String) ((JSONObject) operation.get("data")).get("alias")).getAccepting());
+                    close();
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        Thread.sleep(300);
+        cc.run();
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleAccepting()
+     * @throws URISyntaxException
+     * @throws IOException
+     * @throws InterruptedException
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test
+    public void testHandleAcceptingRejected() throws URISyntaxException, IOException, InterruptedException, InvalidSubnet, SubnetExhausted {
+        System.out.println("testHandleAcceptingRejected");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServerBuilder builder = new SignalingServerBuilder();
+
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
+
+        IPAddress ip = new IPAddress(logger, s.subnets);
+        TCPAddress tcp = new TCPAddress(logger, s.subnets);
+
+        String tcpAddress = "127.0.0.0:0";
+
+        String[] partsTCPAddress = tcp.parseTCPAddress(tcpAddress);
+        String[] partsIPAddress = ip.parseIPAddress(partsTCPAddress[0]);
+
+        String subnet = String.join(".", partsIPAddress[0], partsIPAddress[1], partsIPAddress[2]);
+
+        ip.createIPAddress(subnet);
+
+        s.start();
+        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                JSONParser parser = new JSONParser();
+                Object jsonObj = null;
+
+                try {
+                    jsonObj = parser.parse(message);
+                } catch (org.json.simple.parser.ParseException e) {
+                    e.printStackTrace();
+                }
+
+                JSONObject operation = (JSONObject) jsonObj;
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:0\"},\"opcode\":\"accepting\"}");
+
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+
+                    Assert.assertEquals(false, s.aliases.containsKey("127.0.0.0:0"));
+                    close();
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        Thread.sleep(300);
+        cc.run();
+        s.stop();
+
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleConnect()
+     * @throws URISyntaxException
+     * @throws IOException
+     * @throws InterruptedException
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test
+    public void testHandleConnect() throws URISyntaxException, IOException, InterruptedException, InvalidSubnet, SubnetExhausted {
+        System.out.println("testHandleConnect");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServerBuilder builder = new SignalingServerBuilder();
+
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
+
+        IPAddress ip = new IPAddress(logger, s.subnets);
+        TCPAddress tcp = new TCPAddress(logger, s.subnets);
+
+        String tcpAddress = "127.0.0.1:1234";
+
+        String[] partsTCPAddress = tcp.parseTCPAddress(tcpAddress);
+        String[] partsIPAddress = ip.parseIPAddress(partsTCPAddress[0]);
+
+        String subnet = String.join(".", partsIPAddress[0], partsIPAddress[1], partsIPAddress[2]);
+
+        ip.createIPAddress(subnet);
+
+        s.start();
+        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+
+                JSONParser parser = new JSONParser();
+                Object jsonObj = null;
+
+                try {
+                    jsonObj = parser.parse(message);
+                } catch (org.json.simple.parser.ParseException e) {
+                    e.printStackTrace();
+                }
+
+                JSONObject operation = (JSONObject) jsonObj;
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
+                    send("{\"data\":{\"id\":\"127.0.0.2\",\"clientConnectionId\":\"co1\",\"remoteAlias\":\"127.0.0.1:1234\"},\"opcode\":\"connect\"}");
+                }
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.ALIAS.getValue())) {
+                    if (((JSONObject) operation.get("data")).get("id").equals("127.0.0.1")) {
+                        if (((JSONObject) operation.get("data")).get("set").toString().equals("true")) {
+                            Assert.assertEquals(
+                                    "{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:1234\",\"set\":true,\"clientConnectionId\":\"co1\"},\"opcode\":\"alias\"}",
+                                    message);
+
+                        } else {
+                            Assert.assertEquals(
+                                    "{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:1234\",\"set\":false},\"opcode\":\"alias\"}",
+                                    message);
+                        }
+                    } else {
+                        Assert.assertEquals(
+                                "{\"data\":{\"id\":\"127.0.0.2\",\"alias\":\"127.0.0.2:0\",\"set\":true,\"clientConnectionId\":\"co1\",\"isConnectionAlias\":true},\"opcode\":\"alias\"}",
+                                message);
+                    }
+                }
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.GOODBYE.getValue())) {
+                    close();
+                }
+
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        WebSocketClient cc2 = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+
+                JSONParser parser = new JSONParser();
+                Object jsonObj = null;
+
+                try {
+                    jsonObj = parser.parse(message);
+                } catch (org.json.simple.parser.ParseException e) {
+                    e.printStackTrace();
+                }
+
+                JSONObject operation = (JSONObject) jsonObj;
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
+                    send("{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:1234\"},\"opcode\":\"bind\"}");
+                }
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.ALIAS.getValue())) {
+
+                    if (((JSONObject) operation.get("data")).get("id").equals("127.0.0.1")) {
+                        send("{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:1234\"},\"opcode\":\"accepting\"}");
+                    } else {
+                        Assert.assertEquals(
+                                "{\"data\":{\"id\":\"127.0.0.2\",\"alias\":\"127.0.0.2:0\",\"set\":true},\"opcode\":\"alias\"}",
+                                message);
+                    }
+                }
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.ACCEPT.getValue())) {
+                    Assert.assertEquals(
+                            "{\"data\":{\"boundAlias\":\"127.0.0.1:1234\",\"clientAlias\":\"127.0.0.2:0\"},\"opcode\":\"accept\"}",
+                            message);
+                    close();
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        Thread.sleep(300);
+        cc2.connect();
+        cc.run();
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleConnect()
+     * @throws URISyntaxException
+     * @throws IOException
+     * @throws InterruptedException
+     * @throws InvalidSubnet
+     * @throws SubnetExhausted
+     */
+    @Test
+    public void testHandleConnectRejected() throws URISyntaxException, IOException, InterruptedException, InvalidSubnet, SubnetExhausted {
+        System.out.println("testHandleConnectRejected");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServerBuilder builder = new SignalingServerBuilder();
+
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).build();
+
+        IPAddress ip = new IPAddress(logger, s.subnets);
+        TCPAddress tcp = new TCPAddress(logger, s.subnets);
+
+        String tcpAddress = "127.0.0.1:1234";
+
+        String[] partsTCPAddress = tcp.parseTCPAddress(tcpAddress);
+        String[] partsIPAddress = ip.parseIPAddress(partsTCPAddress[0]);
+
+        String subnet = String.join(".", partsIPAddress[0], partsIPAddress[1], partsIPAddress[2]);
+
+        ip.createIPAddress(subnet);
+
+        s.start();
+        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+
+                JSONParser parser = new JSONParser();
+                Object jsonObj = null;
+
+                try {
+                    jsonObj = parser.parse(message);
+                } catch (org.json.simple.parser.ParseException e) {
+                    e.printStackTrace();
+                }
+
+                JSONObject operation = (JSONObject) jsonObj;
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
+                    send("{\"data\":{\"id\":\"127.0.0.2\",\"clientConnectionId\":\"co1\",\"remoteAlias\":\"127.0.0.1:1234\"},\"opcode\":\"connect\"}");
+                }
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.ALIAS.getValue())) {
+                    Assert.assertEquals(
+                            "{\"data\":{\"id\":\"127.0.0.2\",\"alias\":null,\"set\":false},\"opcode\":\"alias\"}",
+                            message);
+                    close();
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+               send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        WebSocketClient cc2 = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+              
+                JSONParser parser = new JSONParser();
+                Object jsonObj = null;
+
+                try {
+                    jsonObj = parser.parse(message);
+                } catch (org.json.simple.parser.ParseException e) {
+                    e.printStackTrace();
+                }
+
+                JSONObject operation = (JSONObject) jsonObj;
+
+                if (operation.get("opcode").equals(ESignalingOperationCode.ACKNOWLEDGED.getValue())) {
+                    send("{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:1234\"},\"opcode\":\"bind\"}");
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+               send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        Thread.sleep(300);
+        cc2.connect();
+        cc.run();
+        Thread.sleep(300);
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleConnect()
+     * @throws URISyntaxException
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @Test
+    public void testHandleConnectPortsExhausted() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testHandleConnectPortsExhausted");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServer s = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).build();
+        List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+        s.start();
+        Thread.sleep(300);
+
+        WebSocketClient server = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                if (message.contains("\"acknowledged\"")) {
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"bind\"}");
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"accepting\"}");
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        server.connectBlocking();
+        Thread.sleep(300);
+
+        WebSocketClient client = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        client.connectBlocking();
+        Thread.sleep(300);
+
+        // Every port of the client is in use
+        for (int clientPort = 0; clientPort <= Subnet.MAX_PORT; clientPort++) {
+            s.subnets.get("127.0.0").claimPort(1, clientPort);
+        }
+
+        received.clear();
+        client.send("{\"data\":{\"id\":\"127.0.0.1\",\"clientConnectionId\":\"co1\",\"remoteAlias\":\"127.0.0.0:1234\"},\"opcode\":\"connect\"}");
+        Thread.sleep(300);
+
+        Assert.assertEquals(Arrays.asList("{\"data\":{\"id\":\"127.0.0.1\",\"alias\":null,\"set\":false},\"opcode\":\"alias\"}"), received);
+        Assert.assertNull(s.aliases.get("-1"));
+
+        server.closeBlocking();
+        client.closeBlocking();
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.SignalingServer#onMessage()
+     * @throws URISyntaxException
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @Test
+    public void testSpoofedIdsLeaveNoMailboxes() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testSpoofedIdsLeaveNoMailboxes");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServer s = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).build();
+
+        s.start();
+        Thread.sleep(300);
+
+        WebSocketClient client = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        client.connectBlocking();
+        Thread.sleep(300);
+
+        // Ids which are not the client's own must not get mailboxes of their own
+        for (int i = 0; i < 10; i++) {
+            client.send("{\"data\":{\"offererId\":\"10.0.0." + i + "\",\"answererId\":\"127.0.0.0\",\"offererConnectionId\":\"of1\",\"answererConnectionId\":\"an1\",\"candidate\":\"x\"},\"opcode\":\"candidate\"}");
+            client.send("{\"data\":{\"id\":\"10.1.0." + i + "\",\"alias\":\"10.1.0." + i + ":1234\"},\"opcode\":\"bind\"}");
+        }
+        client.send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"bind\"}");
+        Thread.sleep(300);
+
+        Assert.assertTrue(s.getPeerMailboxes().getMailboxCount() <= 2);
+
+        client.closeBlocking();
+        Thread.sleep(300);
+
+        Assert.assertEquals(0, s.getPeerMailboxes().getMailboxCount());
+
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleConnects()
+     * @throws URISyntaxException
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @Test
+    public void testHandleConnectBatch() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testHandleConnectBatch");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServer s = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).build();
+        List<String> serverReceived = Collections.synchronizedList(new ArrayList<String>());
+        List<String> clientReceived = Collections.synchronizedList(new ArrayList<String>());
+
+        s.start();
+        Thread.sleep(300);
+
+        WebSocketClient server = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                if (message.contains("\"acknowledged\"")) {
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"bind\"}");
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"accepting\"}");
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1235\"},\"opcode\":\"bind\"}");
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1235\"},\"opcode\":\"accepting\"}");
+                } else if (message.contains("\"127.0.0.1:")) {
+                    serverReceived.add(message);
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        server.connectBlocking();
+        Thread.sleep(300);
+
+        // Connects to both bound aliases and one which does not exist in a single operation
+        WebSocketClient client = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                clientReceived.add(message);
+
+                if (message.contains("\"acknowledged\"")) {
+                    send("{\"data\":{\"id\":\"127.0.0.1\",\"remoteAliases\":[\"127.0.0.0:1234\",\"127.0.0.0:9999\",\"127.0.0.0:1235\"],\"clientConnectionIds\":[\"co1\",\"co2\",\"co3\"]},\"opcode\":\"connect\"}");
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        client.connectBlocking();
+        Thread.sleep(500);
+
+        Assert.assertEquals(Arrays.asList(
+                "{\"data\":{\"id\":\"127.0.0.1\",\"rejected\":false},\"opcode\":\"acknowledged\"}",
+                "{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:0\",\"set\":true,\"clientConnectionId\":\"co1\",\"isConnectionAlias\":true},\"opcode\":\"alias\"}",
+                "{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\",\"set\":true,\"clientConnectionId\":\"co1\"},\"opcode\":\"alias\"}",
+                "{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.0:9999\",\"set\":false,\"clientConnectionId\":\"co2\"},\"opcode\":\"alias\"}",
+                "{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:1\",\"set\":true,\"clientConnectionId\":\"co3\",\"isConnectionAlias\":true},\"opcode\":\"alias\"}",
+                "{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1235\",\"set\":true,\"clientConnectionId\":\"co3\"},\"opcode\":\"alias\"}"), clientReceived);
+        Assert.assertEquals(Arrays.asList(
+                "{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:0\",\"set\":true},\"opcode\":\"alias\"}",
+                "{\"data\":{\"boundAlias\":\"127.0.0.0:1234\",\"clientAlias\":\"127.0.0.1:0\"},\"opcode\":\"accept\"}",
+                "{\"data\":{\"id\":\"127.0.0.1\",\"alias\":\"127.0.0.1:1\",\"set\":true},\"opcode\":\"alias\"}",
+                "{\"data\":{\"boundAlias\":\"127.0.0.0:1235\",\"clientAlias\":\"127.0.0.1:1\"},\"opcode\":\"accept\"}"), serverReceived);
+        Assert.assertEquals("127.0.0.1", s.aliases.get("127.0.0.1:1").getId());
+
+        client.closeBlocking();
+        server.closeBlocking();
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleSubscribe()
+     * @throws URISyntaxException
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @Test
+    public void testHandleSubscribe() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testHandleSubscribe");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServer s = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).setLegacyAliasBroadcast(false).build();
+        List<String> ownerReceived = Collections.synchronizedList(new ArrayList<String>());
+        List<String> watcherReceived = Collections.synchronizedList(new ArrayList<String>());
+        List<String> bystanderReceived = Collections.synchronizedList(new ArrayList<String>());
+        List<String> foreignReceived = Collections.synchronizedList(new ArrayList<String>());
+
+        s.start();
+        Thread.sleep(300);
+
+        // Watches all aliases of 127.0.0.2, which knocks last
+        WebSocketClient watcher = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                if (message.contains("\"acknowledged\"")) {
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"remoteAliases\":[\"127.0.0.2:*\"]},\"opcode\":\"subscribe\"}");
+                } else if (message.contains("\"alias\"")) {
+                    watcherReceived.add(message);
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        WebSocketClient bystander = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                if (message.contains("\"alias\"")) {
+                    bystanderReceived.add(message);
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        // Watches the same aliases from another subnet, which they are not sent to
+        WebSocketClient foreign = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                if (message.contains("\"acknowledged\"")) {
+                    send("{\"data\":{\"id\":\"127.0.1.0\",\"remoteAliases\":[\"127.0.0.2:*\"]},\"opcode\":\"subscribe\"}");
+                } else if (message.contains("\"alias\"")) {
+                    foreignReceived.add(message);
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.1\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        watcher.connectBlocking();
+        Thread.sleep(300);
+        bystander.connectBlocking();
+        Thread.sleep(300);
+        foreign.connectBlocking();
+        Thread.sleep(300);
+
+        WebSocketClient owner = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                if (message.contains("\"acknowledged\"")) {
+                    send("{\"data\":{\"id\":\"127.0.0.2\",\"alias\":\"127.0.0.2:1234\"},\"opcode\":\"bind\"}");
+                    send("{\"data\":{\"id\":\"127.0.0.2\",\"alias\":\"127.0.0.2:1234\"},\"opcode\":\"shutdown\"}");
+                } else if (message.contains("\"alias\"")) {
+                    ownerReceived.add(message);
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        owner.connectBlocking();
+        Thread.sleep(500);
+
+        // After unsubscribing, the watcher does not get aliases of 127.0.0.2 anymore
+        watcher.send("{\"data\":{\"id\":\"127.0.0.0\",\"remoteAlias\":\"127.0.0.2:*\"},\"opcode\":\"unsubscribe\"}");
+        foreign.send("{\"data\":{\"id\":\"127.0.1.0\",\"remoteAlias\":\"127.0.0.2:*\"},\"opcode\":\"unsubscribe\"}");
+        Thread.sleep(300);
+        owner.send("{\"data\":{\"id\":\"127.0.0.2\",\"alias\":\"127.0.0.2:1235\"},\"opcode\":\"bind\"}");
+        Thread.sleep(500);
+
+        Assert.assertEquals(Arrays.asList(
+                "{\"data\":{\"id\":\"127.0.0.2\",\"alias\":\"127.0.0.2:1234\",\"set\":true},\"opcode\":\"alias\"}",
+                "{\"data\":{\"id\":\"127.0.0.2\",\"alias\":\"127.0.0.2:1234\",\"set\":false},\"opcode\":\"alias\"}",
+                "{\"data\":{\"id\":\"127.0.0.2\",\"alias\":\"127.0.0.2:1235\",\"set\":true},\"opcode\":\"alias\"}"), ownerReceived);
+        Assert.assertEquals(Arrays.asList(
+                "{\"data\":{\"id\":\"127.0.0.2\",\"alias\":\"127.0.0.2:1234\",\"set\":true},\"opcode\":\"alias\"}",
+                "{\"data\":{\"id\":\"127.0.0.2\",\"alias\":\"127.0.0.2:1234\",\"set\":false},\"opcode\":\"alias\"}"), watcherReceived);
+        Assert.assertEquals(Collections.emptyList(), bystanderReceived);
+        Assert.assertEquals(Collections.emptyList(), foreignReceived);
+        Assert.assertEquals(0, s.getAliasSubscriptions().getSubscriberCount());
+
+        owner.closeBlocking();
+        foreign.closeBlocking();
+        bystander.closeBlocking();
+        watcher.closeBlocking();
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.AliasBatcher#add()
+     * @throws URISyntaxException
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @Test
+    public void testHandleBindBatched() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testHandleBindBatched");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServer s = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).setAliasBatchWindow(100).build();
+        List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+        s.start();
+        Thread.sleep(300);
+
+        WebSocketClient cc = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                if (message.contains("\"acknowledged\"")) {
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"bind\"}");
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1235\"},\"opcode\":\"bind\"}");
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1236\"},\"opcode\":\"bind\"}");
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1235\"},\"opcode\":\"shutdown\"}");
+                } else {
+                    received.add(message);
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        cc.connectBlocking();
+        Thread.sleep(500);
+
+        // The alias which was bound and shut down within the window is not sent at all
+        Assert.assertEquals(Arrays.asList(
+                "{\"data\":{\"aliases\":[{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\",\"set\":true},{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1236\",\"set\":true}]},\"opcode\":\"aliases\"}"), received);
+        Assert.assertEquals(1, s.getAliasBatcher().getBatchCount());
+        Assert.assertEquals(2, s.getAliasBatcher().getCancelledCount());
+
+        cc.closeBlocking();
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.SignalingServer#reclaim()
+     * @throws URISyntaxException
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @Test
+    public void testLeaseExpired() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testLeaseExpired");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        SignalingServerBuilder builder = new SignalingServerBuilder();
+
+        SignalingServer s = builder.setHost(host).setLogger(logger).setPort(port).setLeaseTimeout(400).build();
+        List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        List<Integer> closeCodes = Collections.synchronizedList(new ArrayList<Integer>());
+
+        s.start();
+        Thread.sleep(300);
+
+        // Half-open client, it binds an alias and then never answers a ping
+        WebSocketClient quiet = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+                closeCodes.add(code);
+            }
+
+            @Override
+            public void onMessage(String message) {
+                if (message.contains("\"acknowledged\"")) {
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"bind\"}");
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+
+            @Override
+            public void onWebsocketPing(WebSocket conn, Framedata f) {
+            }
+        };
+
+        quiet.connectBlocking();
+        Thread.sleep(100);
+
+        // Idle client which answers pings, so it keeps its lease
+        WebSocketClient idle = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        idle.connectBlocking();
+        Thread.sleep(1500);
+
+        Assert.assertEquals(Collections.singletonList(CloseFrame.GOING_AWAY), closeCodes);
+        Assert.assertEquals(true, idle.isOpen());
+        Assert.assertEquals(Collections.singleton("127.0.0.1"), s.clients.keySet());
+        Assert.assertEquals(true, s.aliases.isEmpty());
+        Assert.assertEquals(1, s.getLeases().getReclaimedCount());
+        Assert.assertEquals(Arrays.asList(
+                "{\"data\":{\"id\":\"127.0.0.1\",\"rejected\":false},\"opcode\":\"acknowledged\"}",
+                "{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\",\"set\":false},\"opcode\":\"alias\"}",
+                "{\"data\":{\"id\":\"127.0.0.0\"},\"opcode\":\"goodbye\"}"), received);
+
+        idle.closeBlocking();
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleKnock()
+     * @throws URISyntaxException
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @Test
+    public void testHandleKnockRestored() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testHandleKnockRestored");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        File snapshot = File.createTempFile("junisockets", ".snapshot");
+
+        snapshot.deleteOnExit();
+
+        AtomicReference<String> token = new AtomicReference<String>();
+
+        SignalingServer before = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).setSnapshotPath(snapshot.getPath()).build();
+
+        before.start();
+        Thread.sleep(300);
+
+        WebSocketClient bound = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                if (message.contains("\"acknowledged\"")) {
+                    Matcher matcher = Pattern.compile("\"token\":\"([0-9a-f]{16})\"").matcher(message);
+
+                    if (matcher.find()) {
+                        token.set(matcher.group(1));
+                    }
+
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"bind\"}");
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"accepting\"}");
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        bound.connectBlocking();
+        Thread.sleep(300);
+        before.stop();
+
+        Assert.assertNotNull(token.get());
+
+        // The restarted server still knows the alias and keeps 127.0.0.0 for its client
+        SignalingServer s = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).setSnapshotPath(snapshot.getPath()).build();
+        List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+        Assert.assertEquals(true, s.aliases.get("127.0.0.0:1234").getAccepting());
+        Assert.assertEquals("127.0.0.0", s.aliases.get("127.0.0.0:1234").getId());
+
+        s.start();
+        Thread.sleep(300);
+
+        WebSocketClient other = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                // A wrong token does not claim the restored address
+                send("{\"data\":{\"subnet\":\"127.0.0\",\"id\":\"127.0.0.0\",\"token\":\"0000000000000000\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        other.connectBlocking();
+        Thread.sleep(300);
+
+        WebSocketClient foreign = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                // Neither does the right token in another subnet
+                send("{\"data\":{\"subnet\":\"127.0.1\",\"id\":\"127.0.0.0\",\"token\":\"" + token.get() + "\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        foreign.connectBlocking();
+        Thread.sleep(300);
+
+        WebSocketClient returning = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                received.add(message);
+
+                if (message.contains("\"acknowledged\"")) {
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"bind\"}");
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\",\"id\":\"127.0.0.0\",\"token\":\"" + token.get() + "\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        returning.connectBlocking();
+        Thread.sleep(300);
+
+        Assert.assertEquals(true, received.get(0).startsWith("{\"data\":{\"id\":\"127.0.0.1\",\"rejected\":false,\"token\":"));
+        Assert.assertEquals(true, received.get(1).startsWith("{\"data\":{\"id\":\"127.0.1.0\",\"rejected\":false,\"token\":"));
+        Assert.assertEquals(true, received.stream().anyMatch((message) -> message.startsWith("{\"data\":{\"id\":\"127.0.0.0\",\"rejected\":false,\"token\":")));
+        Assert.assertEquals(true, received.contains("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\",\"set\":true},\"opcode\":\"alias\"}"));
+        Assert.assertEquals(true, s.clients.containsKey("127.0.0.0"));
+
+        other.closeBlocking();
+        foreign.closeBlocking();
+        returning.closeBlocking();
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.ServerOperation#handleKnock()
+     * @throws URISyntaxException
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @Test
+    public void testHandleKnockRestoredSpillOver() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testHandleKnockRestoredSpillOver");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        File snapshot = File.createTempFile("junisockets", ".snapshot");
+
+        snapshot.deleteOnExit();
+
+        AtomicReference<String> token = new AtomicReference<String>();
+        AtomicReference<String> id = new AtomicReference<String>();
+
+        SignalingServer before = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).setSpillOverSubnets(1).setSnapshotPath(snapshot.getPath()).build();
+
+        // Fill 127.0.0, so the knock spills over to 127.0.1
+        Subnet subnet = before.subnets.getOrCreate(AddressCodec.parseSubnet("127.0.0"));
+
+        for (int i = 0; i < subnet.getSize(); i++) {
+            subnet.allocateSuffix();
+        }
+
+        before.start();
+        Thread.sleep(300);
+
+        WebSocketClient spilled = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                Matcher matcher = Pattern.compile("\"id\":\"([0-9.]+)\",\"rejected\":false,\"token\":\"([0-9a-f]{16})\"").matcher(message);
+
+                if (matcher.find()) {
+                    id.set(matcher.group(1));
+                    token.set(matcher.group(2));
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        spilled.connectBlocking();
+        Thread.sleep(300);
+        before.stop();
+
+        Assert.assertEquals("127.0.1.0", id.get());
+
+        // After the restart, the client knocks for the subnet it knocked for before and gets its address from the sibling subnet back
+        SignalingServer s = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).setSpillOverSubnets(1).setSnapshotPath(snapshot.getPath()).build();
+        List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+        s.start();
+        Thread.sleep(300);
+
+        WebSocketClient returning = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\",\"id\":\"127.0.1.0\",\"token\":\"" + token.get() + "\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        returning.connectBlocking();
+        Thread.sleep(300);
+
+        Assert.assertEquals(true, received.get(0).startsWith("{\"data\":{\"id\":\"127.0.1.0\",\"rejected\":false,\"token\":"));
+        Assert.assertEquals(AddressCodec.parseSubnet("127.0.0"), s.getBroadcastDomains().getDomain("127.0.1.0"));
+
+        returning.closeBlocking();
+        s.stop();
+    }
+
+    
+    /** 
+     * @see dev.webnetes.junisockets.services.SignalingServer#onStart()
+     * @throws URISyntaxException
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    @Test
+    public void testRestoreTimeout() throws URISyntaxException, InterruptedException, IOException {
+        System.out.println("testRestoreTimeout");
+        PropertyConfigurator.configure("log4j.properties");
+        int port = 8892;
+        String host = "localhost";
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        File snapshot = File.createTempFile("junisockets", ".snapshot");
+
+        snapshot.deleteOnExit();
+
+        SignalingServer before = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).setSnapshotPath(snapshot.getPath()).build();
+
+        before.start();
+        Thread.sleep(300);
+
+        WebSocketClient bound = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                if (message.contains("\"acknowledged\"")) {
+                    send("{\"data\":{\"id\":\"127.0.0.0\",\"alias\":\"127.0.0.0:1234\"},\"opcode\":\"bind\"}");
+                }
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        bound.connectBlocking();
+        Thread.sleep(300);
+        before.stop();
+
+        // Leases are disabled, the restored client is freed once the restore timeout elapsed
+        SignalingServer s = new SignalingServerBuilder().setHost(host).setLogger(logger).setPort(port).setSnapshotPath(snapshot.getPath()).setRestoreTimeout(200).build();
+        List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+        Assert.assertNotNull(s.aliases.get("127.0.0.0:1234"));
+
+        s.start();
+        Thread.sleep(600);
+
+        Assert.assertNull(s.aliases.get("127.0.0.0:1234"));
+
+        WebSocketClient other = new WebSocketClient(new URI("ws://localhost:8892")) {
+
+            @Override
+            public void onError(Exception ex) {
+                ex.printStackTrace();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                send("{\"data\":{\"subnet\":\"127.0.0\"},\"opcode\":\"knock\"}");
+            }
+        };
+
+        other.connectBlocking();
+        Thread.sleep(300);
+
+        // The freed IP address is handed out again
+        Assert.assertEquals(true, received.get(0).startsWith("{\"data\":{\"id\":\"127.0.0.0\",\"rejected\":false,"));
+
+        other.closeBlocking();
         s.stop();
     }
 }
@@ -0,0 +1,144 @@
+package dev.webnetes.junisockets.services;
+
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.webnetes.junisockets.addresses.EAddressAllocator;
+
+/**
+ * @see dev.webnetes.junisockets.services.SignalingServerBuilder
+ */
+public class SignalingServerBuilderTest {
+
+    /**
+     * @see dev.webnetes.junisockets.services.SignalingServerBuilder#setExecutionMode()
+     */
+    @Test
+    public void testSetExecutionMode() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        SignalingServerBuilder builder = new SignalingServerBuilder().setLogger(logger).setPort(8892).setExecutionMode(EExecutionMode.VIRTUAL_THREADS);
+
+        if (HandlerExecutor.isVirtualThreadsAvailable()) {
+            Assert.assertNotNull(builder.build());
+        } else {
+            try {
+                builder.build();
+
+                Assert.fail("virtual threads should not be available");
+            } catch (IllegalArgumentException e) {
+                Assert.assertEquals("virtual threads require Java 21 or later", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.SignalingServerBuilder#build()
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildInvalidHandlerPoolSize() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        new SignalingServerBuilder().setLogger(logger).setPort(8892).setHandlerPoolSize(0).build();
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.SignalingServerBuilder#setCompressionEnabled()
+     */
+    @Test
+    public void testSetCompressionEnabled() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        Assert.assertNull(new SignalingServerBuilder().setLogger(logger).setPort(8892).build().getCompressionMetrics());
+        Assert.assertNotNull(new SignalingServerBuilder().setLogger(logger).setPort(8892).setCompressionEnabled(true).build().getCompressionMetrics());
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.SignalingServerBuilder#build()
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildInvalidCompressionThreshold() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        new SignalingServerBuilder().setLogger(logger).setPort(8892).setCompressionEnabled(true).setCompressionThreshold(-1).build();
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.SignalingServerBuilder#build()
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildInvalidAddressAllocator() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        new SignalingServerBuilder().setLogger(logger).setPort(8892).setAddressAllocator(null).build();
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.SignalingServerBuilder#build()
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildInvalidPrefixLength() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        new SignalingServerBuilder().setLogger(logger).setPort(8892).setPrefixLength(8).build();
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.SignalingServerBuilder#build()
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildInvalidSpillOverSubnets() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        new SignalingServerBuilder().setLogger(logger).setPort(8892).setSpillOverSubnets(-1).build();
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.SignalingServerBuilder#build()
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildInvalidLeaseTimeout() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        new SignalingServerBuilder().setLogger(logger).setPort(8892).setLeaseTimeout(-1).build();
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.SignalingServerBuilder#build()
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildInvalidRestoreTimeout() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+
+        new SignalingServerBuilder().setLogger(logger).setPort(8892).setRestoreTimeout(0).build();
+    }
+
+    /**
+     * @see dev.webnetes.junisockets.services.SignalingServerBuilder#buildSettings()
+     */
+    @Test
+    public void testBuildSettings() {
+
+        Logger logger = Logger.getLogger(SignalingServer.class);
+        SignalingServerSettings settings = new SignalingServerBuilder().setLogger(logger).setPrefixLength(16).setLeaseTimeout(1000).setLegacyAliasBroadcast(false).setAliasBatchWindow(5).buildSettings();
+
+        // Host and port are not part of the settings
+        Assert.assertEquals(16, settings.getPrefixLength());
+        Assert.assertEquals(1000, settings.getLeaseTimeout());
+        Assert.assertEquals(false, settings.getLegacyAliasBroadcast());
+        Assert.assertEquals(5, settings.getAliasBatchWindow());
+        Assert.assertEquals(SignalingServerBuilder.DEFAULT_ALIAS_BATCH_SIZE, settings.getAliasBatchSize());
+        Assert.assertEquals(EAddressAllocator.LOCKING, settings.getAddressAllocator());
+        Assert.assertNull(settings.getCompression());
+        Assert.assertNull(settings.getSnapshotPath());
+    }
+}